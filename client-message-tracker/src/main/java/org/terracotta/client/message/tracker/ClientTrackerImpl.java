@@ -18,22 +18,68 @@ package org.terracotta.client.message.tracker;
 
 import org.terracotta.entity.StateDumpCollector;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.terracotta.entity.ClientSourceId;
 
+import static java.util.Comparator.comparingLong;
+
 class ClientTrackerImpl<M, R> implements ClientTracker<M, R> {
 
   private final ConcurrentMap<ClientSourceId, TrackerImpl<M, R>> objectTrackers = new ConcurrentHashMap<>();
+  private final TrackingBudget<M, R> budget;
 
   public ClientTrackerImpl() {
+    this(TrackingBudget.unlimited());
+  }
+
+  ClientTrackerImpl(TrackingBudget<M, R> budget) {
+    this.budget = budget;
   }
 
+  /**
+   * @return the tracked messages of all the clients, ordered by sequence id
+   */
   Stream<SequencedRecordedMessage<M, R>> getTrackedValues() {
-    return objectTrackers.entrySet().stream().flatMap(t->t.getValue().getTrackedValues().stream().map(e->convert(t.getKey(), e)));
+    // the messages of each client are already ordered, so they only need to be merged
+    PriorityQueue<PeekingIterator<M, R>> iterators = new PriorityQueue<>(comparingLong(PeekingIterator::peekSequenceId));
+    for (Map.Entry<ClientSourceId, TrackerImpl<M, R>> entry : objectTrackers.entrySet()) {
+      List<TrackerImpl.RequestResponse<M, R>> values = entry.getValue().getTrackedValues();
+      if (!values.isEmpty()) {
+        iterators.add(new PeekingIterator<>(entry.getKey(), values.iterator()));
+      }
+    }
+    Iterator<SequencedRecordedMessage<M, R>> merged = new Iterator<SequencedRecordedMessage<M, R>>() {
+      @Override
+      public boolean hasNext() {
+        return !iterators.isEmpty();
+      }
+
+      @Override
+      public SequencedRecordedMessage<M, R> next() {
+        PeekingIterator<M, R> iterator = iterators.poll();
+        if (iterator == null) {
+          throw new NoSuchElementException();
+        }
+        SequencedRecordedMessage<M, R> next = convert(iterator.clientId, iterator.next());
+        if (iterator.hasNext()) {
+          iterators.add(iterator);
+        }
+        return next;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false);
   }
 
   static <M, R> SequencedRecordedMessage<M, R> convert(ClientSourceId cid, TrackerImpl.RequestResponse<M, R> rr) {
@@ -66,12 +112,47 @@ class ClientTrackerImpl<M, R> implements ClientTracker<M, R> {
   }
 
   TrackerImpl<M, R> getTracker(ClientSourceId clientId) {
-    return objectTrackers.computeIfAbsent(clientId, d -> new TrackerImpl<>());
+    return objectTrackers.computeIfAbsent(clientId, d -> new TrackerImpl<>(budget));
   }
 
   @Override
   public void untrackClient(ClientSourceId clientId) {
-    objectTrackers.remove(clientId);
+    TrackerImpl<M, R> tracker = objectTrackers.remove(clientId);
+    if (tracker != null) {
+      tracker.release();
+    }
+  }
+
+  /**
+   * Spills or evicts the oldest messages of the clients tracking the most, until the budget is no longer exceeded
+   */
+  void enforceBudget() {
+    if (!budget.isExceeded()) {
+      return;
+    }
+    synchronized (budget) {
+      while (budget.isExceeded()) {
+        TrackerImpl<M, R> largest = null;
+        for (TrackerImpl<M, R> tracker : objectTrackers.values()) {
+          if (largest == null || tracker.getTrackedSize() > largest.getTrackedSize()) {
+            largest = tracker;
+          }
+        }
+        if (largest == null || !largest.shrink()) {
+          return;
+        }
+      }
+    }
+  }
+
+  TrackingBudget<M, R> getBudget() {
+    return budget;
+  }
+
+  Map<ClientSourceId, Long> getTrackedSizes() {
+    Map<ClientSourceId, Long> sizes = new HashMap<>();
+    objectTrackers.forEach((clientId, tracker) -> sizes.put(clientId, tracker.getTrackedSize()));
+    return sizes;
   }
 
   @Override
@@ -79,6 +160,33 @@ class ClientTrackerImpl<M, R> implements ClientTracker<M, R> {
     return objectTrackers.keySet();
   }
 
+  private static class PeekingIterator<M, R> {
+
+    private final ClientSourceId clientId;
+    private final Iterator<TrackerImpl.RequestResponse<M, R>> iterator;
+    private TrackerImpl.RequestResponse<M, R> next;
+
+    PeekingIterator(ClientSourceId clientId, Iterator<TrackerImpl.RequestResponse<M, R>> iterator) {
+      this.clientId = clientId;
+      this.iterator = iterator;
+      this.next = iterator.next();
+    }
+
+    long peekSequenceId() {
+      return next.getSequenceId();
+    }
+
+    boolean hasNext() {
+      return next != null;
+    }
+
+    TrackerImpl.RequestResponse<M, R> next() {
+      TrackerImpl.RequestResponse<M, R> current = next;
+      next = iterator.hasNext() ? iterator.next() : null;
+      return current;
+    }
+  }
+
   @Override
   public void addStateTo(StateDumpCollector stateDumper) {
     for (Map.Entry<ClientSourceId, TrackerImpl<M, R>> entry : objectTrackers.entrySet()) {
@@ -25,6 +25,7 @@ import org.terracotta.entity.StateDumpable;
 
 import com.tc.classloader.CommonComponent;
 
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 
@@ -95,6 +96,31 @@ public interface OOOMessageHandler<M extends EntityMessage, R extends EntityResp
    */
   void loadRecordedMessages(Stream<RecordedMessage<M, R>> recorded);
 
+  /**
+   * Returns the estimated size in bytes of the messages tracked for all the clients, which is kept within the memory
+   * budget of the {@link OOOMessageHandlerConfiguration}.
+   *
+   * @return the estimated size of the tracked messages
+   */
+  long getTrackedSize();
+
+  /**
+   * Returns the estimated size in bytes of the messages tracked for each client.
+   *
+   * @return the estimated size of the tracked messages by client source
+   */
+  Map<ClientSourceId, Long> getTrackedSizeByClient();
+
+  /**
+   * @return the number of tracked messages which were serialized to stay within the memory budget
+   */
+  long getSpilledCount();
+
+  /**
+   * @return the number of tracked messages which were evicted to stay within the memory budget
+   */
+  long getEvictedCount();
+
   /**
    * Destroys the {@code OOOMessageHandler}
    */
@@ -18,21 +18,59 @@ package org.terracotta.client.message.tracker;
 
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.EntityResponse;
+import org.terracotta.entity.MessageCodec;
 import org.terracotta.entity.ServiceConfiguration;
 
 import com.tc.classloader.CommonComponent;
 
 import java.util.function.Predicate;
+import java.util.function.ToLongBiFunction;
+
+import static java.util.Objects.requireNonNull;
 
 @CommonComponent
 public class OOOMessageHandlerConfiguration<M extends EntityMessage, R extends EntityResponse> implements ServiceConfiguration<OOOMessageHandler<M, R>> {
 
+  /**
+   * Size in bytes accounted for a tracked message when no size estimator is given
+   */
+  public static final long DEFAULT_ENTRY_SIZE = 512L;
+
   private final String entityIdentifier;
   private final Predicate<M> trackerPolicy;
+  private final long memoryBudget;
+  private final ToLongBiFunction<? super M, ? super R> sizeEstimator;
+  private final OverflowPolicy overflowPolicy;
+  private final MessageCodec<M, R> codec;
 
   public OOOMessageHandlerConfiguration(String entityIdentifier, Predicate<M> trackerPolicy) {
+    this(entityIdentifier, trackerPolicy, Long.MAX_VALUE, (m, r) -> DEFAULT_ENTRY_SIZE, OverflowPolicy.EVICT_OLDEST, null);
+  }
+
+  /**
+   * @param entityIdentifier identifies the entity, which shares its handler with the other instances having the same identifier
+   * @param trackerPolicy    defines if a message is tracked or not
+   * @param memoryBudget     estimated size in bytes of the messages that can be tracked for all the clients of the entity
+   *                         before applying the overflow policy
+   * @param sizeEstimator    estimates the size in bytes of a tracked request and its response
+   * @param overflowPolicy   what to do with the oldest tracked messages when the budget is exceeded
+   * @param codec            the codec of the entity, required to spill messages, or null
+   */
+  public OOOMessageHandlerConfiguration(String entityIdentifier, Predicate<M> trackerPolicy, long memoryBudget,
+                                        ToLongBiFunction<? super M, ? super R> sizeEstimator, OverflowPolicy overflowPolicy,
+                                        MessageCodec<M, R> codec) {
+    if (memoryBudget <= 0) {
+      throw new IllegalArgumentException("Invalid memory budget: " + memoryBudget);
+    }
+    if (overflowPolicy == OverflowPolicy.SPILL_OLDEST && codec == null) {
+      throw new IllegalArgumentException("A codec is required to spill tracked messages");
+    }
     this.entityIdentifier = entityIdentifier;
     this.trackerPolicy = trackerPolicy;
+    this.memoryBudget = memoryBudget;
+    this.sizeEstimator = requireNonNull(sizeEstimator);
+    this.overflowPolicy = requireNonNull(overflowPolicy);
+    this.codec = codec;
   }
 
   public Predicate<M> getTrackerPolicy() {
@@ -43,9 +81,49 @@ public class OOOMessageHandlerConfiguration<M extends EntityMessage, R extends E
     return entityIdentifier;
   }
 
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  public ToLongBiFunction<? super M, ? super R> getSizeEstimator() {
+    return sizeEstimator;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  public MessageCodec<M, R> getCodec() {
+    return codec;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public Class<OOOMessageHandler<M, R>> getServiceType() {
     return (Class) OOOMessageHandler.class;
   }
+
+  /**
+   * What to do when the estimated size of the tracked messages exceeds the memory budget. The policy is applied to the
+   * oldest messages of the client tracking the most, until the budget is no longer exceeded.
+   * <p>
+   * The once and only once guarantee is kept for the evicted messages: when a client resends an evicted message, it is
+   * not invoked again, and gets a null response, like a message which was already reconciled.
+   * <p>
+   * This guarantee does not hold across a failover for a passive server synced after the messages were evicted: the ids
+   * of evicted messages are not part of the {@link OOOMessageHandler#getRecordedMessages() recorded messages} sent to
+   * passive servers, so a message resent to such a server once it becomes active is invoked again. A passive server
+   * receiving the messages through replication tracks them, and evicts them, by itself.
+   */
+  @CommonComponent
+  public enum OverflowPolicy {
+    /**
+     * Forget the oldest messages
+     */
+    EVICT_OLDEST,
+    /**
+     * Keep the oldest messages serialized with the codec of the entity, and evict them once they are all serialized
+     */
+    SPILL_OLDEST
+  }
 }
@@ -23,14 +23,13 @@ import org.terracotta.entity.EntityUserException;
 import org.terracotta.entity.InvokeContext;
 import org.terracotta.entity.StateDumpCollector;
 
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-import static java.util.Comparator.comparingLong;
-
 public class OOOMessageHandlerImpl<M extends EntityMessage, R extends EntityResponse> implements OOOMessageHandler<M, R> {
 
   private final ClientTrackerImpl<M, R> clientMessageTracker;
@@ -42,8 +41,16 @@ public class OOOMessageHandlerImpl<M extends EntityMessage, R extends EntityResp
   private final AtomicBoolean checkDuplicates = new AtomicBoolean(true);
 
   public OOOMessageHandlerImpl(Predicate<M> trackerPolicy, DestroyCallback callback) {
+    this(trackerPolicy, TrackingBudget.unlimited(), callback);
+  }
+
+  public OOOMessageHandlerImpl(OOOMessageHandlerConfiguration<M, R> configuration, DestroyCallback callback) {
+    this(configuration.getTrackerPolicy(), TrackingBudget.of(configuration), callback);
+  }
+
+  private OOOMessageHandlerImpl(Predicate<M> trackerPolicy, TrackingBudget<M, R> budget, DestroyCallback callback) {
     this.trackerPolicy = trackerPolicy;
-    this.clientMessageTracker = new ClientTrackerImpl<>();
+    this.clientMessageTracker = new ClientTrackerImpl<>(budget);
     this.callback = callback;
   }
 
@@ -66,10 +73,16 @@ public class OOOMessageHandlerImpl<M extends EntityMessage, R extends EntityResp
         if (response != null) {
           return response;
         }
+
+        // the response was dropped to stay within the memory budget, but the message must not be applied twice
+        if (messageTracker.wasEvicted(context.getCurrentTransactionId())) {
+          return null;
+        }
       }
 
       R response = invokeFunction.apply(context, message);
       messageTracker.track(trackid.incrementAndGet(), context.getCurrentTransactionId(), message, response);
+      clientMessageTracker.enforceBudget();
       return response;
     } else {
       return invokeFunction.apply(context, message);
@@ -98,14 +111,37 @@ public class OOOMessageHandlerImpl<M extends EntityMessage, R extends EntityResp
 
   @Override
   public Stream<RecordedMessage<M, R>> getRecordedMessages() {
-    return clientMessageTracker.getTrackedValues().sorted(comparingLong(SequencedRecordedMessage::getSequenceId)).map(SequencedRecordedMessage::convert);
+    return clientMessageTracker.getTrackedValues().map(SequencedRecordedMessage::convert);
   }
 
   @Override
   public void loadRecordedMessages(Stream<RecordedMessage<M, R>> recorded) {
-    recorded.forEach(rm-> clientMessageTracker
-            .getTracker(rm.getClientSourceId())
-            .track(trackid.incrementAndGet(), rm.getTransactionId(), rm.getRequest(), rm.getResponse()));
+    recorded.forEach(rm-> {
+      clientMessageTracker
+          .getTracker(rm.getClientSourceId())
+          .track(trackid.incrementAndGet(), rm.getTransactionId(), rm.getRequest(), rm.getResponse());
+      clientMessageTracker.enforceBudget();
+    });
+  }
+
+  @Override
+  public long getTrackedSize() {
+    return clientMessageTracker.getBudget().getTrackedSize();
+  }
+
+  @Override
+  public Map<ClientSourceId, Long> getTrackedSizeByClient() {
+    return clientMessageTracker.getTrackedSizes();
+  }
+
+  @Override
+  public long getSpilledCount() {
+    return clientMessageTracker.getBudget().getSpilledCount();
+  }
+
+  @Override
+  public long getEvictedCount() {
+    return clientMessageTracker.getBudget().getEvictedCount();
   }
 
   @Override
@@ -115,6 +151,11 @@ public class OOOMessageHandlerImpl<M extends EntityMessage, R extends EntityResp
 
   @Override
   public void addStateTo(StateDumpCollector stateDumper) {
+      TrackingBudget<M, R> budget = clientMessageTracker.getBudget();
+      stateDumper.addState("memoryBudget", budget.getMemoryBudget());
+      stateDumper.addState("trackedSize", budget.getTrackedSize());
+      stateDumper.addState("spilledCount", budget.getSpilledCount());
+      stateDumper.addState("evictedCount", budget.getEvictedCount());
       clientMessageTracker.addStateTo(stateDumper.subStateDumpCollector("clientMessageTracker"));
   }
 }
@@ -81,4 +81,13 @@ interface Tracker<M, R> extends StateDumpable {
    * @return true if the message has been removed from the cached stream
    */
   boolean wasReconciled(long id);
+
+  /**
+   * determines if the transaction id was evicted from the cached message stream
+   * because the memory budget of the tracked messages was exceeded
+   *
+   * @param id transactionid of the message in question
+   * @return true if the message has been evicted and is not reconciled yet
+   */
+  boolean wasEvicted(long id);
 }
@@ -17,26 +17,49 @@
 package org.terracotta.client.message.tracker;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Optional;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.List;
 
+import org.terracotta.entity.MessageCodecException;
 import org.terracotta.entity.StateDumpCollector;
 
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Tracks the requests and responses of a client, ordered by transaction id.
+ * <p>
+ * Transaction ids of a client are mostly increasing, so the entries are kept in an array sorted by transaction id,
+ * where new entries are appended at the tail and reconciled entries are dropped by moving the head forward.
+ * Lookups do a binary search in the array without taking any lock: the entries between the head and the tail are
+ * only replaced in place by their spilled form, and the array is replaced when an entry has to be inserted elsewhere
+ * than at the tail, or when it is full.
+ * <p>
+ * The estimated size of the entries is accounted in the {@link TrackingBudget} shared by all the clients of the entity.
+ * When it is exceeded, the oldest entries of the client tracking the most are spilled or evicted by {@link #shrink()}.
+ */
 class TrackerImpl<M, R> implements Tracker<M, R> {
 
-  private final SortedMap<Long, RequestResponse<M, R>> trackedValues;
+  private static final int MIN_CAPACITY = 16;
+
+  // only replaced while holding the lock of this tracker
+  private volatile Window<M, R> window = new Window<>(newArray(MIN_CAPACITY), 0, 0);
   private volatile long reconciledMarker = 0L;
 
-  /**
-   * Constructor taking a predicate to define the tracking policy. If the
-   * predicate returns true, the source will be tracked.
-   *
-   * @param trackerPolicy defines if a source is tracked or not
-   */
+  private final TrackingBudget<M, R> budget;
+  private volatile long size;
+  // first entry which was not tried to be spilled yet
+  private int spillCursor;
+  // sorted transaction ids of the evicted entries which are not reconciled yet, and the highest of them
+  private long[] evicted = new long[0];
+  private int evictedCount;
+  private volatile long evictedMarker = 0L;
+
   TrackerImpl() {
-    this.trackedValues = new TreeMap<>();
+    this(TrackingBudget.unlimited());
+  }
+
+  TrackerImpl(TrackingBudget<M, R> budget) {
+    this.budget = budget;
   }
 
   @Override
@@ -46,24 +69,71 @@ class TrackerImpl<M, R> implements Tracker<M, R> {
     }
   }
 
-  private synchronized void placeTrackedValue(long insert, long id, M req, R value) {
-    trackedValues.put(id, new RequestResponse<>(insert, id, req, value));
+  private void placeTrackedValue(long insert, long id, M req, R value) {
+    RequestResponse<M, R> entry = new RequestResponse<>(insert, id, req, value, budget.estimate(req, value));
+    long added = entry.size;
+    synchronized (this) {
+      Window<M, R> window = this.window;
+      int head = window.head;
+      int tail = window.tail;
+      if (tail < window.entries.length && (tail == head || window.entries[tail - 1].transaction < id)) {
+        // common case: the entry is written before being published by the volatile write of the tail
+        window.entries[tail] = entry;
+        window.tail = tail + 1;
+      } else {
+        RequestResponse<M, R> replaced = window.find(id);
+        if (replaced != null) {
+          added -= replaced.size;
+        }
+        this.window = window.with(entry);
+        spillCursor = 0;
+      }
+      size += added;
+    }
+    budget.add(added);
   }
 
   @Override
-  public synchronized R getTrackedValue(long id) {
-    return Optional.ofNullable(trackedValues.get(id)).map(RequestResponse::getResponse).orElse(null);
+  public R getTrackedValue(long id) {
+    RequestResponse<M, R> entry = window.find(id);
+    return entry == null ? null : entry.getResponse();
   }
 
   @Override
-  public synchronized M getTrackedRequest(long id) {
-    return Optional.ofNullable(trackedValues.get(id)).map(RequestResponse::getRequest).orElse(null);
+  public M getTrackedRequest(long id) {
+    RequestResponse<M, R> entry = window.find(id);
+    return entry == null ? null : entry.getRequest();
   }
 
   @Override
-  public synchronized void reconcile(long id) {
-    reconciledMarker = Math.max(id, reconciledMarker);// don't go backwards
-    trackedValues.headMap(id).clear();
+  public void reconcile(long id) {
+    if (id <= reconciledMarker && !window.hasTransactionsBefore(id)) {
+      return; // nothing to clear, which is the case when a client sends several messages with the same oldest transaction id
+    }
+    long removed = 0;
+    synchronized (this) {
+      reconciledMarker = Math.max(id, reconciledMarker);// don't go backwards
+      Window<M, R> window = this.window;
+      RequestResponse<M, R>[] entries = window.entries;
+      int head = window.head;
+      int tail = window.tail;
+      while (head < tail && entries[head].transaction < id) {
+        removed += entries[head].size;
+        entries[head++] = null;
+      }
+      window.head = head;
+      size -= removed;
+      // the evicted transactions lower than the id are now covered by wasReconciled()
+      int reconciled = 0;
+      while (reconciled < evictedCount && evicted[reconciled] < id) {
+        reconciled++;
+      }
+      if (reconciled > 0) {
+        System.arraycopy(evicted, reconciled, evicted, 0, evictedCount - reconciled);
+        evictedCount -= reconciled;
+      }
+    }
+    budget.add(-removed);
   }
 
   @Override
@@ -71,13 +141,190 @@ class TrackerImpl<M, R> implements Tracker<M, R> {
     return id < reconciledMarker;
   }
 
-  synchronized Collection<RequestResponse<M, R>> getTrackedValues() {
-    return new ArrayList<>(trackedValues.values());
+  @Override
+  public boolean wasEvicted(long id) {
+    if (id > evictedMarker) {
+      return false; // common case of a new transaction
+    }
+    synchronized (this) {
+      return Arrays.binarySearch(evicted, 0, evictedCount, id) >= 0;
+    }
+  }
+
+  /**
+   * @return the estimated size in bytes of the tracked entries
+   */
+  long getTrackedSize() {
+    return size;
+  }
+
+  /**
+   * Spills or evicts the oldest entry, depending on the overflow policy of the budget.
+   *
+   * @return false if there was nothing left to spill or evict
+   */
+  boolean shrink() {
+    long removed;
+    synchronized (this) {
+      Window<M, R> window = this.window;
+      int head = window.head;
+      int tail = window.tail;
+      if (head == tail) {
+        return false;
+      }
+      RequestResponse<M, R>[] entries = window.entries;
+      removed = budget.isSpilling() ? spill(entries, Math.max(head, spillCursor), tail) : 0;
+      if (removed == 0) {
+        RequestResponse<M, R> oldest = entries[head];
+        removed = oldest.size;
+        entries[head] = null;
+        window.head = head + 1;
+        addEvicted(oldest.transaction);
+        budget.evicted();
+      }
+      size -= removed;
+    }
+    budget.add(-removed);
+    return true;
+  }
+
+  private long spill(RequestResponse<M, R>[] entries, int from, int tail) {
+    for (int i = from; i < tail; i++) {
+      RequestResponse<M, R> entry = entries[i];
+      if (!(entry instanceof SpilledRequestResponse)) {
+        RequestResponse<M, R> spilled = SpilledRequestResponse.spill(entry, budget.getSerializer());
+        spillCursor = i + 1;
+        if (spilled == null || spilled.size >= entry.size) {
+          // cannot be serialized, or the estimated size was smaller than the serialized one: evicted instead
+          return 0;
+        }
+        // readers get either form of the entry, which are equivalent
+        entries[i] = spilled;
+        budget.spilled();
+        return entry.size - spilled.size;
+      }
+    }
+    spillCursor = tail;
+    return 0;
+  }
+
+  private void addEvicted(long id) {
+    int index = Arrays.binarySearch(evicted, 0, evictedCount, id);
+    if (index < 0) {
+      index = -index - 1;
+      if (evictedCount == evicted.length) {
+        evicted = Arrays.copyOf(evicted, Math.max(MIN_CAPACITY, 2 * evictedCount));
+      }
+      System.arraycopy(evicted, index, evicted, index + 1, evictedCount - index);
+      evicted[index] = id;
+      evictedCount++;
+      evictedMarker = Math.max(evictedMarker, id);
+    }
+  }
+
+  /**
+   * Releases the size accounted for this tracker in the budget, when the client is no longer tracked
+   */
+  synchronized void release() {
+    budget.add(-size);
+    size = 0;
+  }
+
+  /**
+   * @return the tracked entries, ordered by sequence id
+   */
+  List<RequestResponse<M, R>> getTrackedValues() {
+    List<RequestResponse<M, R>> values = window.toList();
+    // already sorted, unless some transactions were not tracked in order
+    values.sort(comparingLong(RequestResponse::getSequenceId));
+    return values;
   }
 
   @Override
-  public synchronized void addStateTo(StateDumpCollector stateDumper) {
-    stateDumper.addState("TrackedResponses", new ArrayList<>(trackedValues.keySet()));
+  public void addStateTo(StateDumpCollector stateDumper) {
+    List<Long> transactions = new ArrayList<>();
+    for (RequestResponse<M, R> entry : window.toList()) {
+      transactions.add(entry.getTransactionId());
+    }
+    stateDumper.addState("TrackedResponses", transactions);
+    stateDumper.addState("TrackedSize", size);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <M, R> RequestResponse<M, R>[] newArray(int capacity) {
+    return (RequestResponse<M, R>[]) new RequestResponse<?, ?>[capacity];
+  }
+
+  private static class Window<M, R> {
+
+    // entries before the head are reconciled and set to null, entries from the tail are not published yet
+    private final RequestResponse<M, R>[] entries;
+    private volatile int head;
+    private volatile int tail;
+
+    Window(RequestResponse<M, R>[] entries, int head, int tail) {
+      this.entries = entries;
+      this.head = head;
+      this.tail = tail;
+    }
+
+    RequestResponse<M, R> find(long id) {
+      int low = head;
+      int high = tail - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        RequestResponse<M, R> entry = entries[mid];
+        if (entry == null || entry.transaction < id) {
+          // a null entry was reconciled after the head was read, and is lower than any other one
+          low = mid + 1;
+        } else if (entry.transaction > id) {
+          high = mid - 1;
+        } else {
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    boolean hasTransactionsBefore(long id) {
+      int head = this.head;
+      if (head == tail) {
+        return false;
+      }
+      RequestResponse<M, R> first = entries[head];
+      return first == null || first.transaction < id;
+    }
+
+    List<RequestResponse<M, R>> toList() {
+      int head = this.head;
+      int tail = this.tail;
+      List<RequestResponse<M, R>> list = new ArrayList<>(tail - head);
+      for (int i = head; i < tail; i++) {
+        RequestResponse<M, R> entry = entries[i];
+        if (entry != null) {
+          list.add(entry);
+        }
+      }
+      return list;
+    }
+
+    /**
+     * @return a new window containing the live entries of this one plus the given one, which replaces an existing
+     * entry with the same transaction id
+     */
+    Window<M, R> with(RequestResponse<M, R> entry) {
+      int head = this.head;
+      int size = tail - head;
+      int index = Arrays.binarySearch(entries, head, tail, entry, comparingLong(RequestResponse::getTransactionId));
+      boolean replace = index >= 0;
+      int position = (replace ? index : -index - 1) - head;
+      RequestResponse<M, R>[] copy = newArray(Math.max(MIN_CAPACITY, 2 * (size + 1)));
+      System.arraycopy(entries, head, copy, 0, position);
+      copy[position] = entry;
+      int from = replace ? position + 1 : position;
+      System.arraycopy(entries, head + from, copy, position + 1, size - from);
+      return new Window<>(copy, 0, replace ? size : size + 1);
+    }
   }
 
   static class RequestResponse<M, R> {
@@ -86,12 +333,15 @@ class TrackerImpl<M, R> implements Tracker<M, R> {
     private final long transaction;
     private final M request;
     private final R response;
+    // estimated size in bytes
+    private final long size;
 
-    RequestResponse(long insert, long transaction, M request, R response) {
+    RequestResponse(long insert, long transaction, M request, R response, long size) {
       this.insert = insert;
       this.transaction = transaction;
       this.request = request;
       this.response = response;
+      this.size = size;
     }
 
     public long getSequenceId() {
@@ -110,4 +360,50 @@ class TrackerImpl<M, R> implements Tracker<M, R> {
       return response;
     }
   }
+
+  static class SpilledRequestResponse<M, R> extends RequestResponse<M, R> {
+
+    private final byte[] request;
+    private final byte[] response;
+    private final TrackingBudget.Serializer<M, R> serializer;
+
+    private SpilledRequestResponse(RequestResponse<M, R> entry, byte[] request, byte[] response, TrackingBudget.Serializer<M, R> serializer) {
+      super(entry.insert, entry.transaction, null, null, TrackingBudget.SPILLED_ENTRY_OVERHEAD + length(request) + length(response));
+      this.request = request;
+      this.response = response;
+      this.serializer = serializer;
+    }
+
+    static <M, R> SpilledRequestResponse<M, R> spill(RequestResponse<M, R> entry, TrackingBudget.Serializer<M, R> serializer) {
+      try {
+        byte[] request = entry.request == null ? null : serializer.encodeRequest(entry.request);
+        byte[] response = entry.response == null ? null : serializer.encodeResponse(entry.response);
+        return new SpilledRequestResponse<>(entry, request, response, serializer);
+      } catch (MessageCodecException | RuntimeException e) {
+        return null;
+      }
+    }
+
+    @Override
+    public M getRequest() {
+      try {
+        return request == null ? null : serializer.decodeRequest(request);
+      } catch (MessageCodecException e) {
+        throw new IllegalStateException("Unable to decode spilled request of transaction " + getTransactionId(), e);
+      }
+    }
+
+    @Override
+    public R getResponse() {
+      try {
+        return response == null ? null : serializer.decodeResponse(response);
+      } catch (MessageCodecException e) {
+        throw new IllegalStateException("Unable to decode spilled response of transaction " + getTransactionId(), e);
+      }
+    }
+
+    private static int length(byte[] bytes) {
+      return bytes == null ? 0 : bytes.length;
+    }
+  }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.client.message.tracker;
+
+import org.terracotta.client.message.tracker.OOOMessageHandlerConfiguration.OverflowPolicy;
+import org.terracotta.entity.EntityMessage;
+import org.terracotta.entity.EntityResponse;
+import org.terracotta.entity.MessageCodec;
+import org.terracotta.entity.MessageCodecException;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Accounts the estimated size of the messages tracked by all the clients of an entity, against the memory budget
+ * of its {@link OOOMessageHandlerConfiguration}.
+ */
+class TrackingBudget<M, R> {
+
+  // estimated size of a spilled entry, without its serialized request and response
+  static final long SPILLED_ENTRY_OVERHEAD = 64L;
+
+  private final long memoryBudget;
+  private final ToLongBiFunction<? super M, ? super R> sizeEstimator;
+  private final OverflowPolicy overflowPolicy;
+  private final Serializer<M, R> serializer;
+
+  private final AtomicLong trackedSize = new AtomicLong();
+  private final LongAdder spilledCount = new LongAdder();
+  private final LongAdder evictedCount = new LongAdder();
+
+  private TrackingBudget(long memoryBudget, ToLongBiFunction<? super M, ? super R> sizeEstimator, OverflowPolicy overflowPolicy, Serializer<M, R> serializer) {
+    this.memoryBudget = memoryBudget;
+    this.sizeEstimator = sizeEstimator;
+    this.overflowPolicy = overflowPolicy;
+    this.serializer = serializer;
+  }
+
+  static <M, R> TrackingBudget<M, R> unlimited() {
+    return new TrackingBudget<>(Long.MAX_VALUE, (m, r) -> OOOMessageHandlerConfiguration.DEFAULT_ENTRY_SIZE, OverflowPolicy.EVICT_OLDEST, null);
+  }
+
+  static <M extends EntityMessage, R extends EntityResponse> TrackingBudget<M, R> of(OOOMessageHandlerConfiguration<M, R> configuration) {
+    MessageCodec<M, R> codec = configuration.getCodec();
+    Serializer<M, R> serializer = codec == null ? null : new Serializer<M, R>() {
+      @Override
+      public byte[] encodeRequest(M request) throws MessageCodecException {
+        return codec.encodeMessage(request);
+      }
+
+      @Override
+      public byte[] encodeResponse(R response) throws MessageCodecException {
+        return codec.encodeResponse(response);
+      }
+
+      @Override
+      public M decodeRequest(byte[] bytes) throws MessageCodecException {
+        return codec.decodeMessage(bytes);
+      }
+
+      @Override
+      public R decodeResponse(byte[] bytes) throws MessageCodecException {
+        return codec.decodeResponse(bytes);
+      }
+    };
+    return new TrackingBudget<>(configuration.getMemoryBudget(), configuration.getSizeEstimator(), configuration.getOverflowPolicy(), serializer);
+  }
+
+  long estimate(M request, R response) {
+    return sizeEstimator.applyAsLong(request, response);
+  }
+
+  void add(long size) {
+    trackedSize.addAndGet(size);
+  }
+
+  boolean isExceeded() {
+    return trackedSize.get() > memoryBudget;
+  }
+
+  boolean isSpilling() {
+    return overflowPolicy == OverflowPolicy.SPILL_OLDEST;
+  }
+
+  Serializer<M, R> getSerializer() {
+    return serializer;
+  }
+
+  void spilled() {
+    spilledCount.increment();
+  }
+
+  void evicted() {
+    evictedCount.increment();
+  }
+
+  long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  long getTrackedSize() {
+    return trackedSize.get();
+  }
+
+  long getSpilledCount() {
+    return spilledCount.sum();
+  }
+
+  long getEvictedCount() {
+    return evictedCount.sum();
+  }
+
+  interface Serializer<M, R> {
+    byte[] encodeRequest(M request) throws MessageCodecException;
+
+    byte[] encodeResponse(R response) throws MessageCodecException;
+
+    M decodeRequest(byte[] bytes) throws MessageCodecException;
+
+    R decodeResponse(byte[] bytes) throws MessageCodecException;
+  }
+}
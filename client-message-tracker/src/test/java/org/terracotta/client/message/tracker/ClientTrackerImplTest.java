@@ -16,7 +16,9 @@
  */
 package org.terracotta.client.message.tracker;
 
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.sameInstance;
@@ -45,6 +47,17 @@ public class ClientTrackerImplTest {
     assertThat(clientTracker.getTracker(mockClientId(1L)), not(sameInstance(messageTracker)));
   }
 
+  @Test
+  public void trackedValuesAreOrderedBySequence() throws Exception {
+    clientTracker.getTracker(mockClientId(1L)).track(1L, 1L, "a", "a");
+    clientTracker.getTracker(mockClientId(2L)).track(2L, 1L, "b", "b");
+    clientTracker.getTracker(mockClientId(1L)).track(3L, 2L, "c", "c");
+    clientTracker.getTracker(mockClientId(3L)).track(4L, 1L, "d", "d");
+    clientTracker.getTracker(mockClientId(2L)).track(5L, 2L, "e", "e");
+
+    assertThat(clientTracker.getTrackedValues().map(RecordedMessage::getRequest).collect(toList()), contains("a", "b", "c", "d", "e"));
+  }
+
   private ClientSourceId mockClientId(long id) {
     return new ClientSourceId() {
       @Override
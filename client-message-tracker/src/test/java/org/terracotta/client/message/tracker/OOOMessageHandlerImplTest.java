@@ -23,7 +23,9 @@ import org.terracotta.entity.ClientSourceId;
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.EntityResponse;
 import org.terracotta.entity.InvokeContext;
+import org.terracotta.entity.MessageCodec;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -290,11 +292,150 @@ public class OOOMessageHandlerImplTest {
     assertThat(clients.contains(clientSourceId3), is(false));
   }
 
+  @Test
+  public void testMemoryBudgetEvictsOldestMessagesOfLargestClient() throws Exception {
+    OOOMessageHandlerConfiguration<EntityMessage, EntityResponse> configuration = new OOOMessageHandlerConfiguration<>("foo", msg -> true,
+        300, (m, r) -> 100, OOOMessageHandlerConfiguration.OverflowPolicy.EVICT_OLDEST, null);
+    messageHandler = new OOOMessageHandlerImpl<>(configuration, () -> {});
+
+    DummyClientSourceId clientSourceId1 = new DummyClientSourceId(1);
+    DummyClientSourceId clientSourceId2 = new DummyClientSourceId(2);
+    EntityMessage message = mock(EntityMessage.class);
+    messageHandler.invoke(new DummyContext(clientSourceId1, 1, 1), message, (ctxt, msg) -> mock(EntityResponse.class));
+    messageHandler.invoke(new DummyContext(clientSourceId2, 1, 1), message, (ctxt, msg) -> mock(EntityResponse.class));
+    messageHandler.invoke(new DummyContext(clientSourceId1, 2, 1), message, (ctxt, msg) -> mock(EntityResponse.class));
+    assertThat(messageHandler.getTrackedSize(), is(300L));
+    assertThat(messageHandler.getEvictedCount(), is(0L));
+
+    messageHandler.invoke(new DummyContext(clientSourceId1, 3, 1), message, (ctxt, msg) -> mock(EntityResponse.class));
+    assertThat(messageHandler.getTrackedSize(), is(300L));
+    assertThat(messageHandler.getEvictedCount(), is(1L));
+    assertThat(messageHandler.getTrackedSizeByClient().get(clientSourceId1), is(200L));
+    assertThat(messageHandler.getTrackedSizeByClient().get(clientSourceId2), is(100L));
+
+    // the evicted message is not applied again when resent
+    List<EntityMessage> invoked = new ArrayList<>();
+    EntityResponse response = messageHandler.invoke(new DummyContext(clientSourceId1, 1, 1), message, (ctxt, msg) -> {
+      invoked.add(msg);
+      return mock(EntityResponse.class);
+    });
+    assertThat(response, Matchers.nullValue());
+    assertThat(invoked.isEmpty(), is(true));
+    assertThat(messageHandler.lookupResponse(clientSourceId1, 2), Matchers.notNullValue());
+
+    messageHandler.untrackClient(clientSourceId1);
+    assertThat(messageHandler.getTrackedSize(), is(100L));
+  }
+
+  @Test
+  public void testMemoryBudgetSpillsOldestMessages() throws Exception {
+    OOOMessageHandlerConfiguration<EntityMessage, EntityResponse> configuration = new OOOMessageHandlerConfiguration<>("foo", msg -> true,
+        250, (m, r) -> 100, OOOMessageHandlerConfiguration.OverflowPolicy.SPILL_OLDEST, new NumberedCodec());
+    messageHandler = new OOOMessageHandlerImpl<>(configuration, () -> {});
+
+    DummyClientSourceId clientSourceId = new DummyClientSourceId(1);
+    for (int i = 1; i <= 3; i++) {
+      int n = i;
+      messageHandler.invoke(new DummyContext(clientSourceId, n, 1), new NumberedMessage(n), (ctxt, msg) -> new NumberedResponse(n));
+    }
+
+    // each spilled message takes its serialized size plus an overhead
+    assertThat(messageHandler.getSpilledCount(), is(2L));
+    assertThat(messageHandler.getEvictedCount(), is(0L));
+    assertThat(messageHandler.getTrackedSize(), is(2 * (TrackingBudget.SPILLED_ENTRY_OVERHEAD + 8) + 100));
+
+    assertThat(messageHandler.invoke(new DummyContext(clientSourceId, 1, 1), new NumberedMessage(1), (ctxt, msg) -> new NumberedResponse(-1)), is(new NumberedResponse(1)));
+    List<EntityMessage> requests = messageHandler.getRecordedMessages().map(RecordedMessage::getRequest).collect(Collectors.toList());
+    assertThat(requests, Matchers.contains(new NumberedMessage(1), new NumberedMessage(2), new NumberedMessage(3)));
+  }
+
+  @Test
+  public void testMemoryBudgetEvictsMessagesWhichDoNotShrinkWhenSpilled() throws Exception {
+    // the estimated size of the messages is smaller than their spilled size
+    OOOMessageHandlerConfiguration<EntityMessage, EntityResponse> configuration = new OOOMessageHandlerConfiguration<>("foo", msg -> true,
+        25, (m, r) -> 10, OOOMessageHandlerConfiguration.OverflowPolicy.SPILL_OLDEST, new NumberedCodec());
+    messageHandler = new OOOMessageHandlerImpl<>(configuration, () -> {});
+
+    DummyClientSourceId clientSourceId = new DummyClientSourceId(1);
+    for (int i = 1; i <= 3; i++) {
+      int n = i;
+      messageHandler.invoke(new DummyContext(clientSourceId, n, 1), new NumberedMessage(n), (ctxt, msg) -> new NumberedResponse(n));
+    }
+
+    assertThat(messageHandler.getSpilledCount(), is(0L));
+    assertThat(messageHandler.getEvictedCount(), is(1L));
+    assertThat(messageHandler.getTrackedSize(), is(20L));
+    List<EntityMessage> requests = messageHandler.getRecordedMessages().map(RecordedMessage::getRequest).collect(Collectors.toList());
+    assertThat(requests, Matchers.contains(new NumberedMessage(2), new NumberedMessage(3)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSpillingRequiresCodec() throws Exception {
+    new OOOMessageHandlerConfiguration<>("foo", msg -> true, 250, (m, r) -> 100, OOOMessageHandlerConfiguration.OverflowPolicy.SPILL_OLDEST, null);
+  }
+
   private DummyEntityResponse invokeActiveInternal(InvokeContext context, DummyEntityMessage message) {
     return new DummyEntityResponse();
   }
 
   private static class DummyEntityMessage implements EntityMessage {}
+  private static class NumberedMessage implements EntityMessage {
+    private final int n;
+
+    NumberedMessage(int n) {
+      this.n = n;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof NumberedMessage && ((NumberedMessage) o).n == n;
+    }
+
+    @Override
+    public int hashCode() {
+      return n;
+    }
+  }
+
+  private static class NumberedResponse implements EntityResponse {
+    private final int n;
+
+    NumberedResponse(int n) {
+      this.n = n;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof NumberedResponse && ((NumberedResponse) o).n == n;
+    }
+
+    @Override
+    public int hashCode() {
+      return n;
+    }
+  }
+
+  private static class NumberedCodec implements MessageCodec<EntityMessage, EntityResponse> {
+    @Override
+    public byte[] encodeMessage(EntityMessage message) {
+      return ByteBuffer.allocate(4).putInt(((NumberedMessage) message).n).array();
+    }
+
+    @Override
+    public EntityMessage decodeMessage(byte[] bytes) {
+      return new NumberedMessage(ByteBuffer.wrap(bytes).getInt());
+    }
+
+    @Override
+    public byte[] encodeResponse(EntityResponse response) {
+      return ByteBuffer.allocate(4).putInt(((NumberedResponse) response).n).array();
+    }
+
+    @Override
+    public EntityResponse decodeResponse(byte[] bytes) {
+      return new NumberedResponse(ByteBuffer.wrap(bytes).getInt());
+    }
+  }
   private static class DummyEntityResponse implements EntityResponse {}
   private static class DummyContext implements InvokeContext {
 
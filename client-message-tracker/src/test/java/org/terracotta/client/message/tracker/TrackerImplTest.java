@@ -20,7 +20,10 @@ import org.junit.Test;
 import org.terracotta.entity.EntityMessage;
 import org.terracotta.entity.EntityResponse;
 
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
@@ -99,4 +102,54 @@ public class TrackerImplTest {
     assertThat(tracker.getTrackedValue(2L), notNullValue());
 
   }
+
+  @Test
+  public void trackOutOfOrder() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+
+    TrackerImpl<EntityMessage, EntityResponse> tracker = new TrackerImpl<>();
+    EntityResponse response3 = mock(EntityResponse.class);
+    EntityResponse response1 = mock(EntityResponse.class);
+    EntityResponse response2 = mock(EntityResponse.class);
+    tracker.track(1L, 3L, message, response3);
+    tracker.track(2L, 1L, message, response1);
+    tracker.track(3L, 2L, message, response2);
+
+    assertThat(tracker.getTrackedValue(1L), sameInstance(response1));
+    assertThat(tracker.getTrackedValue(2L), sameInstance(response2));
+    assertThat(tracker.getTrackedValue(3L), sameInstance(response3));
+    assertThat(tracker.getTrackedValues().stream().map(TrackerImpl.RequestResponse::getSequenceId).collect(toList()), contains(1L, 2L, 3L));
+
+    EntityResponse replaced = mock(EntityResponse.class);
+    tracker.track(4L, 2L, message, replaced);
+    assertThat(tracker.getTrackedValue(2L), sameInstance(replaced));
+    assertThat(tracker.getTrackedValues().stream().map(TrackerImpl.RequestResponse::getTransactionId).collect(toList()), contains(3L, 1L, 2L));
+
+    tracker.reconcile(3L);
+    assertThat(tracker.getTrackedValue(1L), nullValue());
+    assertThat(tracker.getTrackedValue(2L), nullValue());
+    assertThat(tracker.getTrackedValue(3L), sameInstance(response3));
+  }
+
+  @Test
+  public void trackManyWhileReconciling() throws Exception {
+    EntityMessage message = mock(EntityMessage.class);
+    EntityResponse response = mock(EntityResponse.class);
+
+    TrackerImpl<EntityMessage, EntityResponse> tracker = new TrackerImpl<>();
+    for (long id = 1; id <= 1000; id++) {
+      tracker.track(id, id, message, response);
+      if (id % 10 == 0) {
+        tracker.reconcile(id - 5);
+      }
+    }
+
+    assertThat(tracker.getTrackedValue(994L), nullValue());
+    for (long id = 995; id <= 1000; id++) {
+      assertThat(tracker.getTrackedValue(id), sameInstance(response));
+    }
+    assertThat(tracker.getTrackedValues().size(), is(6));
+    assertThat(tracker.wasReconciled(994L), is(true));
+    assertThat(tracker.wasReconciled(995L), is(false));
+  }
 }
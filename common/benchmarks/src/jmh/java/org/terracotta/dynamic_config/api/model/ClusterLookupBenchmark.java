@@ -0,0 +1,122 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.api.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.dynamic_config.api.model.nomad.Applicability;
+import org.terracotta.dynamic_config.api.model.nomad.SettingNomadChange;
+import org.terracotta.dynamic_config.api.service.ClusterValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.terracotta.dynamic_config.api.model.Testing.newTestCluster;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
+
+/**
+ * Looks up all the nodes of a 100 stripes x 4 nodes cluster, validates it and resolves a setting change per node.
+ * <p>
+ * In the {@code stable} mode, the cluster does not change between lookups, which use its index. In the {@code frozen}
+ * mode, a frozen copy of the cluster is used. In the {@code changing} mode, a node is renamed before each operation,
+ * which invalidates the index. Run the benchmark on a revision without indexes to compare with the scans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClusterLookupBenchmark {
+
+  @Param({"changing", "stable", "frozen"})
+  public String mode;
+
+  @Param({"100"})
+  public int stripes;
+
+  @Param({"4"})
+  public int nodesPerStripe;
+
+  private Cluster cluster;
+  private Node changed;
+  private final List<Node> nodes = new ArrayList<>();
+  private final List<SettingNomadChange> changes = new ArrayList<>();
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    Stripe[] stripeArray = new Stripe[stripes];
+    for (int s = 0; s < stripes; s++) {
+      Stripe stripe = newTestStripe("stripe-" + (s + 1), UID.newUID(random));
+      for (int n = 0; n < nodesPerStripe; n++) {
+        stripe.addNode(newTestNode("node-" + (s + 1) + "-" + (n + 1), "host-" + (s + 1), 9410 + n, UID.newUID(random)));
+      }
+      stripeArray[s] = stripe;
+    }
+    Cluster cluster = newTestCluster("cluster", stripeArray);
+    this.cluster = "frozen".equals(mode) ? cluster.freeze() : cluster;
+    this.nodes.addAll(this.cluster.getNodes());
+    this.changed = "changing".equals(mode) ? nodes.get(0) : null;
+    for (Node node : nodes) {
+      changes.add(SettingNomadChange.set(Applicability.node(node.getUID()), Setting.TC_PROPERTIES, "foo", "bar"));
+    }
+  }
+
+  @Benchmark
+  public void lookups(Blackhole blackhole) {
+    for (Node node : nodes) {
+      change();
+      blackhole.consume(cluster.getNode(node.getUID()));
+      change();
+      blackhole.consume(cluster.getStripeByNode(node.getUID()));
+      change();
+      blackhole.consume(cluster.getNodeId(node.getUID()));
+      change();
+      blackhole.consume(cluster.getNodeByName(node.getName()));
+      change();
+      blackhole.consume(cluster.findReachableNode(node.getInternalHostPort()));
+    }
+  }
+
+  @Benchmark
+  public void validate() {
+    change();
+    new ClusterValidator(cluster).validate(ClusterState.ACTIVATED);
+  }
+
+  @Benchmark
+  public void resolveChanges(Blackhole blackhole) {
+    for (SettingNomadChange change : changes) {
+      change();
+      blackhole.consume(change.toConfiguration(cluster));
+    }
+  }
+
+  private void change() {
+    if (changed != null) {
+      changed.setName(changed.getName());
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.api.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.dynamic_config.api.service.ClusterFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.terracotta.dynamic_config.api.model.Testing.newTestCluster;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
+
+/**
+ * Resolves the settings of a generated config properties file of about 5,000 lines (with the default values of
+ * 190 stripes x 2 nodes), alone, through the parsing of each line, and through the creation of the cluster.
+ * <p>
+ * Run the benchmark on a revision without the setting index to compare with the scans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SettingLookupBenchmark {
+
+  @Param({"190"})
+  public int stripes;
+
+  private final List<String> lines = new ArrayList<>();
+  private final List<String> names = new ArrayList<>();
+  private final Properties properties = new Properties();
+  private final ClusterFactory clusterFactory = new ClusterFactory();
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    Stripe[] stripeArray = new Stripe[stripes];
+    for (int s = 0; s < stripes; s++) {
+      Stripe stripe = newTestStripe("stripe-" + (s + 1), UID.newUID(random));
+      for (int n = 0; n < 2; n++) {
+        stripe.addNode(newTestNode("node-" + (s + 1) + "-" + (n + 1), "host-" + (s + 1), 9410 + n, UID.newUID(random)));
+      }
+      stripeArray[s] = stripe;
+    }
+    properties.putAll(newTestCluster("cluster", stripeArray).toProperties(false, true, true));
+    for (String key : properties.stringPropertyNames()) {
+      lines.add(key + "=" + properties.getProperty(key));
+      Configuration configuration = Configuration.valueOf(key, properties.getProperty(key));
+      names.add(configuration.getSetting().toString());
+    }
+  }
+
+  @Benchmark
+  public void findSettings(Blackhole blackhole) {
+    for (String name : names) {
+      blackhole.consume(Setting.findSetting(name));
+    }
+  }
+
+  @Benchmark
+  public void parseLines(Blackhole blackhole) {
+    for (String line : lines) {
+      blackhole.consume(Configuration.valueOf(line));
+    }
+  }
+
+  @Benchmark
+  public Cluster createCluster() {
+    return clusterFactory.create(properties);
+  }
+}
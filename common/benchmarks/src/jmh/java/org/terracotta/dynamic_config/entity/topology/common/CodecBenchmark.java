@@ -0,0 +1,86 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.entity.topology.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.Node;
+import org.terracotta.dynamic_config.api.model.Stripe;
+import org.terracotta.dynamic_config.api.model.UID;
+import org.terracotta.entity.MessageCodecException;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.terracotta.dynamic_config.api.model.Testing.newTestCluster;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
+import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER;
+
+/**
+ * Encodes and decodes the cluster topology, which is sent to every client of the topology entity on each change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CodecBenchmark {
+
+  @Param({"1", "4"})
+  public int stripes;
+
+  @Param({"2"})
+  public int nodesPerStripe;
+
+  private final Codec codec = new Codec();
+
+  private Response response;
+  private byte[] encodedResponse;
+
+  @Setup
+  public void setUp() throws MessageCodecException {
+    Random random = new Random(0);
+    Stripe[] stripeArray = new Stripe[stripes];
+    for (int s = 0; s < stripes; s++) {
+      Stripe stripe = newTestStripe("stripe-" + (s + 1), UID.newUID(random));
+      for (int n = 0; n < nodesPerStripe; n++) {
+        Node node = newTestNode("node-" + (s + 1) + "-" + (n + 1), "host-" + s + "-" + n, UID.newUID(random));
+        stripe.addNode(node);
+      }
+      stripeArray[s] = stripe;
+    }
+    Cluster cluster = newTestCluster("cluster", stripeArray);
+    response = new Response(REQ_RUNTIME_CLUSTER, cluster);
+    encodedResponse = codec.encodeResponse(response);
+  }
+
+  @Benchmark
+  public byte[] encodeCluster() throws MessageCodecException {
+    return codec.encodeResponse(response);
+  }
+
+  @Benchmark
+  public Response decodeCluster() throws MessageCodecException {
+    return codec.decodeResponse(encodedResponse);
+  }
+}
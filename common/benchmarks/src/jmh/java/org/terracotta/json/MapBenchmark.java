@@ -0,0 +1,88 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.json;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terracotta.dynamic_config.api.json.DynamicConfigJsonModule;
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.Stripe;
+import org.terracotta.dynamic_config.api.model.UID;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.terracotta.dynamic_config.api.model.Testing.newTestCluster;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
+
+/**
+ * Converts objects with {@link Json#map(Object)}, compared to the previous serialization to a String parsed back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapBenchmark {
+
+  @Param({"map", "string"})
+  public String mode;
+
+  @Param({"4", "64"})
+  public int stripes;
+
+  private final Json json = new DefaultJsonFactory().withModule(new DynamicConfigJsonModule()).create();
+
+  private Cluster cluster;
+  private Map<String, Object> clusterMap;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    Stripe[] stripeArray = new Stripe[stripes];
+    for (int s = 0; s < stripes; s++) {
+      Stripe stripe = newTestStripe("stripe-" + (s + 1), UID.newUID(random));
+      for (int n = 0; n < 2; n++) {
+        stripe.addNode(newTestNode("node-" + (s + 1) + "-" + (n + 1), "host-" + s + "-" + n, UID.newUID(random)));
+      }
+      stripeArray[s] = stripe;
+    }
+    cluster = newTestCluster("cluster", stripeArray);
+    clusterMap = json.mapToObject(cluster);
+  }
+
+  @Benchmark
+  public Object mapCluster() {
+    return "map".equals(mode) ? json.map(cluster) : json.parse(json.toString(cluster), Object.class);
+  }
+
+  @Benchmark
+  public Map<String, Object> mapToObjectMap() {
+    return "map".equals(mode) ? json.mapToObject(clusterMap) : json.parseObject(json.toString(clusterMap));
+  }
+
+  @Benchmark
+  public Cluster mapMapToCluster() {
+    return "map".equals(mode) ? json.map(clusterMap, Cluster.class) : json.parse(json.toString(clusterMap), Cluster.class);
+  }
+}
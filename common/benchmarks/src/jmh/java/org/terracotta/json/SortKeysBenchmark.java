@@ -0,0 +1,139 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.json;
+
+import com.google.gson.annotations.JsonAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terracotta.dynamic_config.api.json.DynamicConfigJsonModule;
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.Stripe;
+import org.terracotta.dynamic_config.api.model.UID;
+import org.terracotta.json.gson.Adapters;
+import org.terracotta.json.gson.GsonConfig;
+import org.terracotta.json.gson.GsonModule;
+import org.terracotta.json.gson.RuntimeTypeAdapterFactory;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.statistics.Sample;
+import org.terracotta.statistics.StatisticType;
+import org.terracotta.statistics.registry.Statistic;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.terracotta.dynamic_config.api.model.Testing.newTestCluster;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
+
+/**
+ * Serializes with sorted keys, either streaming (the default) or through the json tree copy used before
+ * ({@link Adapters#SORT_KEYS_TREE_PROPERTY}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortKeysBenchmark {
+
+  @Param({"streaming", "tree"})
+  public String mode;
+
+  @Param({"64"})
+  public int stripes;
+
+  @Param({"256"})
+  public int statistics;
+
+  private Json json;
+  private Cluster cluster;
+  private List<ContextualStatistics> batch;
+
+  @Setup
+  public void setUp() {
+    if ("tree".equals(mode)) {
+      System.setProperty(Adapters.SORT_KEYS_TREE_PROPERTY, "true");
+    }
+    try {
+      json = new DefaultJsonFactory().withModules(Arrays.asList(new DynamicConfigJsonModule(), new StatisticsModule())).create();
+    } finally {
+      System.clearProperty(Adapters.SORT_KEYS_TREE_PROPERTY);
+    }
+
+    Random random = new Random(0);
+    Stripe[] stripeArray = new Stripe[stripes];
+    for (int s = 0; s < stripes; s++) {
+      Stripe stripe = newTestStripe("stripe-" + (s + 1), UID.newUID(random));
+      for (int n = 0; n < 2; n++) {
+        stripe.addNode(newTestNode("node-" + (s + 1) + "-" + (n + 1), "host-" + s + "-" + n, UID.newUID(random)));
+      }
+      stripeArray[s] = stripe;
+    }
+    cluster = newTestCluster("cluster", stripeArray);
+
+    // one batch per cache, as pushed by a client each collection interval
+    batch = new ArrayList<>(statistics);
+    for (int i = 0; i < statistics; i++) {
+      Map<String, Statistic<? extends Serializable>> stats = new HashMap<>();
+      for (String name : new String[]{"Cache:HitCount", "Cache:MissCount", "Cache:PutCount", "Cache:RemovalCount", "Cache:EvictionCount", "Cache:ExpirationCount"}) {
+        List<Sample<Long>> samples = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+          samples.add(new Sample<>(1_700_000_000_000L + t * 1000, random.nextLong() & 0xFFFF));
+        }
+        stats.put(name, new Statistic<>(StatisticType.COUNTER, samples));
+      }
+      Context context = Context.create("consumerId", "1")
+          .with("instanceId", "client-" + (i % 16))
+          .with("cacheManagerName", "cache-manager-" + (i % 4))
+          .with("cacheName", "cache-" + i);
+      batch.add(new ContextualStatistics("StatisticsCapability", context, stats));
+    }
+  }
+
+  @Benchmark
+  public String serializeCluster() {
+    return json.toString(cluster);
+  }
+
+  @Benchmark
+  public String serializeStatistics() {
+    return json.toString(batch);
+  }
+
+  public static class StatisticsModule implements GsonModule {
+    @Override
+    public void configure(GsonConfig config) {
+      config.registerMixin(Sample.class, SampleMixin.class);
+    }
+
+    static class SampleMixin<T extends Serializable> {
+      @JsonAdapter(RuntimeTypeAdapterFactory.class)
+      private T sample;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terracotta.entity.MessageCodecException;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lease messages are exchanged on every lease renewal of every client, this measures their encoding and decoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LeaseAcquirerCodecBenchmark {
+
+  private final LeaseAcquirerCodec codec = new LeaseAcquirerCodec();
+
+  private final LeaseMessage leaseRequest = new LeaseRequest(42L);
+  private final LeaseMessage leaseReconnectFinished = new LeaseReconnectFinished(new UUID(1234L, 5678L));
+  private final LeaseResponse leaseRequestResult = LeaseRequestResult.leaseGranted(150_000L);
+
+  private byte[] encodedLeaseRequest;
+  private byte[] encodedLeaseReconnectFinished;
+  private byte[] encodedLeaseRequestResult;
+
+  @Setup
+  public void setUp() throws MessageCodecException {
+    encodedLeaseRequest = codec.encodeMessage(leaseRequest);
+    encodedLeaseReconnectFinished = codec.encodeMessage(leaseReconnectFinished);
+    encodedLeaseRequestResult = codec.encodeResponse(leaseRequestResult);
+  }
+
+  @Benchmark
+  public byte[] encodeLeaseRequest() throws MessageCodecException {
+    return codec.encodeMessage(leaseRequest);
+  }
+
+  @Benchmark
+  public LeaseMessage decodeLeaseRequest() throws MessageCodecException {
+    return codec.decodeMessage(encodedLeaseRequest);
+  }
+
+  @Benchmark
+  public byte[] encodeLeaseReconnectFinished() throws MessageCodecException {
+    return codec.encodeMessage(leaseReconnectFinished);
+  }
+
+  @Benchmark
+  public LeaseMessage decodeLeaseReconnectFinished() throws MessageCodecException {
+    return codec.decodeMessage(encodedLeaseReconnectFinished);
+  }
+
+  @Benchmark
+  public byte[] encodeLeaseRequestResult() throws MessageCodecException {
+    return codec.encodeResponse(leaseRequestResult);
+  }
+
+  @Benchmark
+  public LeaseResponse decodeLeaseRequestResult() throws MessageCodecException {
+    return codec.decodeResponse(encodedLeaseRequestResult);
+  }
+}
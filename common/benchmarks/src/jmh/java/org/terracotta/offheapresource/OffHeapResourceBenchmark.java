@@ -0,0 +1,74 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.offheapresource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserves and releases memory from one resource shared by all the benchmark threads, the way the storage
+ * engines of concurrent entities do. The capacity is large enough for reservations to never fail.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OffHeapResourceBenchmark {
+
+  @Param({"4096"})
+  public long size;
+
+  private OffHeapResourceImpl resource;
+
+  @Setup
+  public void setUp() {
+    resource = new OffHeapResourceImpl("benchmark", 1L << 40);
+  }
+
+  @TearDown
+  public void tearDown() {
+    resource.close();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void reserveRelease() {
+    reserveAndRelease();
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void reserveReleaseContended() {
+    reserveAndRelease();
+  }
+
+  private void reserveAndRelease() {
+    if (!resource.reserve(size)) {
+      throw new AssertionError("Reservation failed");
+    }
+    resource.release(size);
+  }
+}
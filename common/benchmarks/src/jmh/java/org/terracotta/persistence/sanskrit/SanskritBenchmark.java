@@ -0,0 +1,110 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.persistence.sanskrit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.terracotta.dynamic_config.server.configuration.nomad.persistence.sanskrit.SanskritJsonMapper;
+import org.terracotta.json.DefaultJsonFactory;
+import org.terracotta.persistence.sanskrit.change.SanskritChange;
+import org.terracotta.persistence.sanskrit.change.SanskritChangeBuilder;
+import org.terracotta.persistence.sanskrit.file.FileBasedFilesystemDirectory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Appends changes to a Sanskrit append log on the local disk, using the JSON mapper of the Nomad repository.
+ * Each iteration starts from an empty directory so that the log size does not grow across iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SanskritBenchmark {
+
+  private final SanskritMapper mapper = new SanskritJsonMapper(new DefaultJsonFactory());
+
+  private Path directory;
+  private Sanskrit sanskrit;
+  private SanskritChange change;
+  private long version;
+
+  @Setup(Level.Iteration)
+  public void setUp() throws IOException, SanskritException {
+    directory = Files.createTempDirectory("sanskrit-benchmark");
+    sanskrit = Sanskrit.init(new FileBasedFilesystemDirectory(directory), mapper);
+
+    MutableSanskritObject object = sanskrit.newMutableSanskritObject();
+    object.setString("mutativeMessageCount", "1");
+    object.setString("lastMutationHost", "localhost");
+    object.setString("lastMutationUser", "benchmark");
+    object.setLong("currentVersion", 1L);
+    change = SanskritChangeBuilder.newChange()
+        .setString("mode", "ACCEPTING")
+        .setObject("state", object)
+        .build();
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() throws IOException, SanskritException {
+    sanskrit.close();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public void applyChange() throws SanskritException {
+    sanskrit.applyChange(change);
+  }
+
+  @Benchmark
+  public void applyChangeWithUpdatedKey() throws SanskritException {
+    sanskrit.applyChange(SanskritChangeBuilder.newChange()
+        .setLong("version", ++version)
+        .build());
+  }
+
+  @Benchmark
+  public void setThreeKeys() throws SanskritException {
+    long v = ++version;
+    sanskrit.setLong("version", v);
+    sanskrit.setString("host", "localhost");
+    sanskrit.setLong("count", v);
+  }
+
+  @Benchmark
+  public void applyThreeChanges() throws SanskritException {
+    long v = ++version;
+    sanskrit.applyChange(SanskritChangeBuilder.newChange()
+        .setLong("version", v)
+        .setString("host", "localhost")
+        .setLong("count", v)
+        .build());
+  }
+}
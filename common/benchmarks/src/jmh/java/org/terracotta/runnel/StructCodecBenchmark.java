@@ -0,0 +1,151 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.compiled.Int32Handle;
+import org.terracotta.runnel.decoding.compiled.Int64Handle;
+import org.terracotta.runnel.decoding.compiled.StringHandle;
+import org.terracotta.runnel.decoding.compiled.StructArrayHandle;
+import org.terracotta.runnel.decoding.compiled.StructArrayPlanDecoder;
+import org.terracotta.runnel.decoding.compiled.StructPlan;
+import org.terracotta.runnel.decoding.compiled.StructPlanDecoder;
+import org.terracotta.runnel.encoding.StructArrayEncoder;
+import org.terracotta.runnel.encoding.StructEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a small message with a nested struct array, the typical shape of the entity messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StructCodecBenchmark {
+
+  private static final Struct ENTRY = StructBuilder.newStructBuilder()
+      .string("key", 10)
+      .int64("value", 20)
+      .build();
+
+  private static final Struct MESSAGE = StructBuilder.newStructBuilder()
+      .int32("type", 10)
+      .int64("id", 20)
+      .string("name", 30)
+      .structs("entries", 40, ENTRY)
+      .build();
+
+  private static final StructPlan PLAN = MESSAGE.compile();
+  private static final Int32Handle TYPE = PLAN.int32("type");
+  private static final Int64Handle ID = PLAN.int64("id");
+  private static final StringHandle NAME = PLAN.string("name");
+  private static final StructArrayHandle ENTRIES = PLAN.structs("entries");
+  private static final StringHandle ENTRY_KEY = ENTRIES.plan().string("key");
+  private static final Int64Handle ENTRY_VALUE = ENTRIES.plan().int64("value");
+
+  private static final int ENTRY_COUNT = 8;
+
+  private final String[] keys = new String[ENTRY_COUNT];
+  private ByteBuffer encoded;
+  private ByteBuffer target;
+
+  @Setup
+  public void setUp() {
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = "entry-key-" + i;
+    }
+    encoded = encode(MESSAGE.encoder());
+    encoded.flip();
+    target = ByteBuffer.allocate(encoded.remaining() * 2);
+  }
+
+  @Benchmark
+  public ByteBuffer encode() {
+    return encode(MESSAGE.encoder());
+  }
+
+  @Benchmark
+  public ByteBuffer encodeStreaming() {
+    return encode(MESSAGE.streamingEncoder());
+  }
+
+  @Benchmark
+  public ByteBuffer encodeStreamingInPlace() {
+    target.clear();
+    fill(MESSAGE.streamingEncoder(target)).encode(target);
+    return target;
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole) {
+    StructDecoder<Void> decoder = MESSAGE.decoder(encoded.duplicate());
+    blackhole.consume(decoder.int32("type"));
+    blackhole.consume(decoder.int64("id"));
+    blackhole.consume(decoder.string("name"));
+    StructArrayDecoder<StructDecoder<Void>> entries = decoder.structs("entries");
+    while (entries.hasNext()) {
+      StructDecoder<StructArrayDecoder<StructDecoder<Void>>> entry = entries.next();
+      blackhole.consume(entry.string("key"));
+      blackhole.consume(entry.int64("value"));
+      entry.end();
+    }
+    entries.end();
+  }
+
+  @Benchmark
+  public void decodeCompiled(Blackhole blackhole) {
+    StructPlanDecoder decoder = PLAN.decoder(encoded.duplicate());
+    blackhole.consume(decoder.int32AsInt(TYPE));
+    blackhole.consume(decoder.int64AsLong(ID));
+    blackhole.consume(decoder.string(NAME));
+    StructArrayPlanDecoder entries = decoder.structs(ENTRIES);
+    while (entries.hasNext()) {
+      StructPlanDecoder entry = entries.next();
+      blackhole.consume(entry.string(ENTRY_KEY));
+      blackhole.consume(entry.int64AsLong(ENTRY_VALUE));
+    }
+  }
+
+  private ByteBuffer encode(StructEncoder<Void> encoder) {
+    return fill(encoder).encode();
+  }
+
+  private StructEncoder<Void> fill(StructEncoder<Void> encoder) {
+    encoder.int32("type", 3)
+        .int64("id", 123456789L)
+        .string("name", "benchmark-message");
+    StructArrayEncoder<StructEncoder<Void>> entries = encoder.structs("entries");
+    for (int i = 0; i < keys.length; i++) {
+      entries.add()
+          .string("key", keys[i])
+          .int64("value", i * 1000L)
+          .end();
+    }
+    entries.end();
+    return encoder;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes strings the way runnel does: raw modified UTF-8, without any header.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringToolBenchmark {
+
+  @Param({"16", "256", "4096"})
+  public int length;
+
+  @Param({"true", "false"})
+  public boolean ascii;
+
+  private String string;
+  private ByteBuffer encoded;
+  private int encodedLength;
+  private ByteBuffer target;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(0);
+    char[] chars = new char[length];
+    for (int i = 0; i < chars.length; i++) {
+      // outside of ASCII, mix 2-byte and 3-byte encodings
+      chars[i] = ascii ? (char) ('a' + random.nextInt(26)) : (char) (random.nextBoolean() ? 0xE0 + random.nextInt(32) : 0x4E00 + random.nextInt(512));
+    }
+    string = new String(chars);
+    target = ByteBuffer.allocate(StringTool.worstCaseByteArraySize(string));
+    StringTool.putEncoded(target, string, string.length());
+    target.flip();
+    encodedLength = target.remaining();
+    encoded = target.asReadOnlyBuffer();
+  }
+
+  @Benchmark
+  public ByteBuffer putEncoded() {
+    target.clear();
+    StringTool.putEncoded(target, string, string.length());
+    return target;
+  }
+
+  @Benchmark
+  public String decodeString() throws UTFDataFormatException {
+    return StringTool.decodeString(encoded.duplicate(), encodedLength);
+  }
+}
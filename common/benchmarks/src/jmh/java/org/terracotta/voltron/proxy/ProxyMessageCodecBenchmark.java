@@ -0,0 +1,108 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.terracotta.entity.MessageCodecException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trips proxy messages and responses through {@link ProxyMessageCodec} backed by the default
+ * {@link SerializationCodec}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProxyMessageCodecBenchmark {
+
+  public interface Registry {
+    Collection<String> lookup(String name, int limit);
+  }
+
+  private static final int CLIENTS = 8;
+
+  private final ProxyMessageCodec codec = new ProxyMessageCodec(Registry.class);
+
+  private ProxyEntityMessage message;
+  private ProxyEntityResponse response;
+  private byte[] encodedMessage;
+  private byte[] encodedResponse;
+
+  @Setup
+  public void setUp() throws Exception {
+    MethodDescriptor lookup = MethodDescriptor.of(Registry.class.getMethod("lookup", String.class, int.class));
+    message = new ProxyEntityMessage(lookup, new Object[]{"cache-manager", 16}, MessageType.MESSAGE);
+    List<String> result = new ArrayList<>(Arrays.asList("cache-1", "cache-2", "cache-3", "cache-4"));
+    response = ProxyEntityResponse.messageResponse(Collection.class, result);
+    encodedMessage = codec.encodeMessage(message);
+    encodedResponse = codec.encodeResponse(response);
+  }
+
+  @Benchmark
+  public byte[] encodeMessage() throws MessageCodecException {
+    return codec.encodeMessage(message);
+  }
+
+  @Benchmark
+  public ProxyEntityMessage decodeMessage() throws MessageCodecException {
+    return codec.decodeMessage(encodedMessage);
+  }
+
+  @Benchmark
+  public byte[] encodeResponse() throws MessageCodecException {
+    return codec.encodeResponse(response);
+  }
+
+  @Benchmark
+  public ProxyEntityResponse decodeResponse() throws MessageCodecException {
+    return codec.decodeResponse(encodedResponse);
+  }
+
+  /**
+   * Fires a message to {@link #CLIENTS} clients: the platform asks the codec to encode the response once per client.
+   */
+  @Benchmark
+  public byte[] fireMessage() throws MessageCodecException {
+    ProxyEntityResponse message = ProxyEntityResponse.messageResponse(Collection.class, response.getResponse());
+    byte[] encoded = null;
+    for (int i = 0; i < CLIENTS; i++) {
+      encoded = codec.encodeResponse(message);
+    }
+    return encoded;
+  }
+
+  @Benchmark
+  public byte[] fireBroadcastMessage() throws MessageCodecException {
+    ProxyEntityResponse message = ProxyEntityResponse.broadcastMessageResponse(Collection.class, response.getResponse());
+    byte[] encoded = null;
+    for (int i = 0; i < CLIENTS; i++) {
+      encoded = codec.encodeResponse(message);
+    }
+    return encoded;
+  }
+}
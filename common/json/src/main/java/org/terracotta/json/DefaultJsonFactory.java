@@ -17,12 +17,17 @@
 package org.terracotta.json;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.internal.bind.TypeAdapters;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terracotta.json.Json.Module;
 import org.terracotta.json.gson.GsonFactory;
 import org.terracotta.json.gson.GsonModule;
+import org.terracotta.json.gson.internal.NullTypeJsonTreeWriter;
 import org.terracotta.json.util.DirectedGraph;
 
 import java.io.Reader;
@@ -214,10 +219,16 @@ public class DefaultJsonFactory implements Json.Factory {
   }
 
   private static class GsonJson implements Json {
+    private static final Type MAP_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    private static final Type LIST_TYPE = new TypeToken<List<Object>>() {}.getType();
+    private static final Object UNSUPPORTED = new Object();
+
     private final Gson mapper;
+    private final boolean copyPlainValues;
 
     protected GsonJson(Gson mapper) {
       this.mapper = mapper;
+      this.copyPlainValues = copiesPlainValues(mapper);
     }
 
     @Override
@@ -244,6 +255,132 @@ public class DefaultJsonFactory implements Json.Factory {
     public String toString(Object o) {
       return mapper.toJson(o);
     }
+
+    @Override
+    public <T> T map(Object o, Class<T> type) {
+      if (type == Object.class) {
+        Object copy = copy(o);
+        if (copy != UNSUPPORTED) {
+          return type.cast(copy);
+        }
+      }
+      return mapper.fromJson(toTree(o), type);
+    }
+
+    @Override
+    public Object map(Object o, Type type) {
+      if (type == Object.class) {
+        Object copy = copy(o);
+        if (copy != UNSUPPORTED) {
+          return copy;
+        }
+      }
+      return mapper.fromJson(toTree(o), type);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<String, Object> mapToObject(Object o) {
+      if (o instanceof Map) {
+        Object copy = copy(o);
+        if (copy != UNSUPPORTED) {
+          return (Map<String, Object>) copy;
+        }
+      }
+      return mapper.fromJson(toTree(o), MAP_TYPE);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<Object> mapToList(Object o) {
+      if (o instanceof List) {
+        Object copy = copy(o);
+        if (copy != UNSUPPORTED) {
+          return (List<Object>) copy;
+        }
+      }
+      return mapper.fromJson(toTree(o), LIST_TYPE);
+    }
+
+    /**
+     * Serializes into a tree of {@link JsonElement} instead of a String, to be read back by Gson
+     */
+    private JsonElement toTree(Object o) {
+      if (o == null) {
+        return JsonNull.INSTANCE;
+      }
+      NullTypeJsonTreeWriter writer = new NullTypeJsonTreeWriter(mapper.serializeNulls());
+      mapper.toJson(o, o.getClass(), writer);
+      return writer.get();
+    }
+
+    /**
+     * Copies a value which is already made of maps, lists, strings, booleans and integers the same way it would be
+     * serialized and parsed back: keys sorted, nulls removed from maps and integers narrowed.
+     * Returns {@link #UNSUPPORTED} for any other value, which must then go through the Gson adapters.
+     */
+    private Object copy(Object o) {
+      if (!copyPlainValues) {
+        return UNSUPPORTED;
+      }
+      if (o == null || o instanceof String || o instanceof Boolean || o instanceof Integer) {
+        return o;
+      }
+      if (o instanceof Long) {
+        long l = (Long) o;
+        return l == (int) l ? Integer.valueOf((int) l) : o;
+      }
+      if (o instanceof Map) {
+        Map<?, ?> map = (Map<?, ?>) o;
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (Object key : map.keySet()) {
+          if (!(key instanceof String) || i == keys.length) {
+            return UNSUPPORTED;
+          }
+          keys[i++] = (String) key;
+        }
+        Arrays.sort(keys, 0, i);
+        Map<String, Object> copy = new LinkedTreeMap<>();
+        for (int k = 0; k < i; k++) {
+          Object value = map.get(keys[k]);
+          if (value == null && !mapper.serializeNulls()) {
+            continue;
+          }
+          value = copy(value);
+          if (value == UNSUPPORTED) {
+            return UNSUPPORTED;
+          }
+          copy.put(keys[k], value);
+        }
+        return copy;
+      }
+      if (o instanceof List) {
+        List<?> list = (List<?>) o;
+        List<Object> copy = new ArrayList<>(list.size());
+        for (Object value : list) {
+          value = copy(value);
+          if (value == UNSUPPORTED) {
+            return UNSUPPORTED;
+          }
+          copy.add(value);
+        }
+        return copy;
+      }
+      return UNSUPPORTED;
+    }
+
+    /**
+     * Plain values can only be copied if a module did not replace how they are written and read
+     */
+    private static boolean copiesPlainValues(Gson mapper) {
+      return mapper.getAdapter(String.class) == TypeAdapters.STRING
+          && mapper.getAdapter(Boolean.class) == TypeAdapters.BOOLEAN
+          && (Object) mapper.getAdapter(Integer.class) == TypeAdapters.INTEGER
+          && (Object) mapper.getAdapter(Long.class) == TypeAdapters.LONG
+          && Integer.valueOf(Integer.MAX_VALUE).equals(mapper.fromJson(String.valueOf(Integer.MAX_VALUE), Object.class))
+          && Long.valueOf(Long.MAX_VALUE).equals(mapper.fromJson(String.valueOf(Long.MAX_VALUE), Object.class));
+    }
   }
 
   // Root module is a placeholder used to resolve the graph and ordering
@@ -98,32 +98,47 @@ public class Adapters {
     }
   };
 
+  /**
+   * System property to sort the json object keys by building a tree of {@link JsonElement} like in previous versions,
+   * instead of recording the events written in a buffer
+   */
+  public static final String SORT_KEYS_TREE_PROPERTY = "terracotta.json.sortKeys.tree";
+
   /**
    * Factory which must be registered first and will wrap all subsequent ones to order json object keys
    */
-  public static final TypeAdapterFactory SORT_KEYS = new TypeAdapterFactory() {
-    @Override
-    public String toString() {
-      return "Factory[type=ALL,adapter=" + SortKeysTypeAdapter.class.getName() + "]";
-    }
+  public static final TypeAdapterFactory SORT_KEYS = sortKeys(false);
 
-    @Override
-    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
-      final Class<? super T> rawType = type.getRawType();
-      if (rawType.isPrimitive()
-          || rawType.isArray()
-          || Number.class.isAssignableFrom(rawType)
-          || String.class == type.getRawType()
-          || Boolean.class == type.getRawType()
-          || Collection.class.isAssignableFrom(rawType)
-          || rawType == Json.Null.class) {
-        return null;
+  /**
+   * Factory ordering json object keys, either while streaming or by building a tree of {@link JsonElement} first
+   *
+   * @see #SORT_KEYS_TREE_PROPERTY
+   */
+  public static TypeAdapterFactory sortKeys(boolean tree) {
+    return new TypeAdapterFactory() {
+      @Override
+      public String toString() {
+        return "Factory[type=ALL,adapter=" + SortKeysTypeAdapter.class.getName() + ",tree=" + tree + "]";
       }
-      final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
-      final TypeAdapter<JsonElement> jsonElementTypeAdapter = gson.getAdapter(JsonElement.class);
-      return nullSafe(new SortKeysTypeAdapter<>(delegate, jsonElementTypeAdapter, gson.serializeNulls()));
-    }
-  };
+
+      @Override
+      public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        final Class<? super T> rawType = type.getRawType();
+        if (rawType.isPrimitive()
+            || rawType.isArray()
+            || Number.class.isAssignableFrom(rawType)
+            || String.class == type.getRawType()
+            || Boolean.class == type.getRawType()
+            || Collection.class.isAssignableFrom(rawType)
+            || rawType == Json.Null.class) {
+          return null;
+        }
+        final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        final TypeAdapter<JsonElement> jsonElementTypeAdapter = gson.getAdapter(JsonElement.class);
+        return nullSafe(new SortKeysTypeAdapter<>(delegate, jsonElementTypeAdapter, gson.serializeNulls(), tree));
+      }
+    };
+  }
 
   /**
    * Path support
@@ -105,7 +105,7 @@ public class GsonFactory {
 
     Stream.of(
             Adapters.writeNull(Json.Null.class),
-            Adapters.SORT_KEYS
+            Adapters.sortKeys(Boolean.getBoolean(Adapters.SORT_KEYS_TREE_PROPERTY))
         )
         .peek(factory -> LOGGER.trace("+factory: {}", factory))
         .forEach(factories::add);
@@ -50,6 +50,7 @@ public class NullTypeJsonTreeWriter extends JsonWriter {
   public NullTypeJsonTreeWriter(boolean serializeNulls) {
     super(UNWRITABLE_WRITER);
     this.serializeNulls = serializeNulls;
+    setSerializeNulls(serializeNulls);
     delegate.setSerializeNulls(serializeNulls);
   }
 
@@ -112,7 +113,17 @@ public class NullTypeJsonTreeWriter extends JsonWriter {
 
   @Override
   public JsonWriter nullValue() throws IOException {
-    delegate.nullValue();
+    // follows setSerializeNulls() calls made on this writer, i.e. when a SortingJsonWriter is replayed
+    if (getSerializeNulls() == serializeNulls) {
+      delegate.nullValue();
+    } else {
+      try {
+        delegate.setSerializeNulls(getSerializeNulls());
+        delegate.nullValue();
+      } finally {
+        delegate.setSerializeNulls(serializeNulls);
+      }
+    }
     return this;
   }
 
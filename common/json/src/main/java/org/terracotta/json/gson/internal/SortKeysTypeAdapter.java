@@ -27,11 +27,21 @@ public class SortKeysTypeAdapter<T> extends TypeAdapter<T> {
   private final TypeAdapter<T> delegate;
   private final TypeAdapter<JsonElement> jsonElementTypeAdapter;
   private final boolean serializeNulls;
+  private final boolean tree;
 
   public SortKeysTypeAdapter(TypeAdapter<T> delegate, TypeAdapter<JsonElement> jsonElementTypeAdapter, boolean serializeNulls) {
+    this(delegate, jsonElementTypeAdapter, serializeNulls, false);
+  }
+
+  /**
+   * @param tree true to sort the keys by building a tree of {@link JsonElement}, instead of recording the events
+   *             written with a {@link SortingJsonWriter}
+   */
+  public SortKeysTypeAdapter(TypeAdapter<T> delegate, TypeAdapter<JsonElement> jsonElementTypeAdapter, boolean serializeNulls, boolean tree) {
     this.delegate = delegate;
     this.jsonElementTypeAdapter = jsonElementTypeAdapter;
     this.serializeNulls = serializeNulls;
+    this.tree = tree;
   }
 
   @Override
@@ -41,6 +51,19 @@ public class SortKeysTypeAdapter<T> extends TypeAdapter<T> {
 
   @Override
   public void write(JsonWriter out, T value) throws IOException {
+    if (tree) {
+      writeTree(out, value);
+    } else if (out instanceof SortingJsonWriter) {
+      // the keys of this value will be sorted with the ones of the enclosing value
+      delegate.write(out, value);
+    } else {
+      final SortingJsonWriter writer = new SortingJsonWriter(serializeNulls);
+      delegate.write(writer, value);
+      writer.writeTo(out);
+    }
+  }
+
+  private void writeTree(JsonWriter out, T value) throws IOException {
     final NullTypeJsonTreeWriter writer = new NullTypeJsonTreeWriter(serializeNulls);
     writer.setSerializeNulls(serializeNulls);
     delegate.write(writer, value);
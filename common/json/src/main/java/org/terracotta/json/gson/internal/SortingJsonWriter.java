@@ -0,0 +1,319 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.json.gson.internal;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * {@link JsonWriter} recording what is written as a flat list of events, where the entries of each object are put
+ * in the order of their names when the object ends. The events are then written to another writer with
+ * {@link #writeTo(JsonWriter)}.
+ * <p>
+ * Compared to building a tree of {@link com.google.gson.JsonElement}, sorting it in a copy and writing it, no object is
+ * allocated per value, and objects which entries are already in order (i.e. written by a reflective adapter with
+ * sorted fields) are not moved. It also correctly supports {@link org.terracotta.json.Json#NULL}.
+ */
+public class SortingJsonWriter extends JsonWriter {
+  private static final Writer UNWRITABLE_WRITER = new Writer() {
+    @Override
+    public void write(char[] buffer, int offset, int counter) {
+      throw new AssertionError();
+    }
+
+    @Override
+    public void flush() {
+      throw new AssertionError();
+    }
+
+    @Override
+    public void close() {
+      throw new AssertionError();
+    }
+  };
+
+  private static final byte BEGIN_OBJECT = 1;
+  private static final byte END_OBJECT = 2;
+  private static final byte BEGIN_ARRAY = 3;
+  private static final byte END_ARRAY = 4;
+  private static final byte NAME = 5;
+  private static final byte STRING = 6;
+  private static final byte JSON_VALUE = 7;
+  private static final byte NULL = 8;
+  private static final byte BOOLEAN = 9;
+  private static final byte LONG = 10;
+  private static final byte DOUBLE = 11;
+  private static final byte FLOAT = 12;
+  private static final byte NUMBER = 13;
+
+  // events: an op code, and its value as an object (names, strings, numbers) or as bits (primitives)
+  private byte[] ops = new byte[64];
+  private Object[] objects = new Object[64];
+  private long[] bits = new long[64];
+  private int size;
+
+  // for each object or array being written: the position of its first entry in the entries stack (-1 for an array),
+  // and if its entries are in order so far
+  private int[] objectStarts = new int[8];
+  private boolean[] objectSorted = new boolean[8];
+  private int depth;
+
+  // positions of the names of the entries of all the objects being written
+  private int[] entries = new int[32];
+  private int entryCount;
+
+  public SortingJsonWriter(boolean serializeNulls) {
+    super(UNWRITABLE_WRITER);
+    setSerializeNulls(serializeNulls);
+  }
+
+  /**
+   * Writes the recorded events to the given writer, and forgets them
+   */
+  public void writeTo(JsonWriter out) throws IOException {
+    if (depth != 0) {
+      throw new IllegalStateException("Incomplete document");
+    }
+    final boolean backup = out.getSerializeNulls();
+    try {
+      // the nulls which must not be written were not recorded
+      out.setSerializeNulls(true);
+      for (int i = 0; i < size; i++) {
+        switch (ops[i]) {
+          case BEGIN_OBJECT:
+            out.beginObject();
+            break;
+          case END_OBJECT:
+            out.endObject();
+            break;
+          case BEGIN_ARRAY:
+            out.beginArray();
+            break;
+          case END_ARRAY:
+            out.endArray();
+            break;
+          case NAME:
+            out.name((String) objects[i]);
+            break;
+          case STRING:
+            out.value((String) objects[i]);
+            break;
+          case JSON_VALUE:
+            out.jsonValue((String) objects[i]);
+            break;
+          case NULL:
+            out.nullValue();
+            break;
+          case BOOLEAN:
+            out.value(bits[i] != 0);
+            break;
+          case LONG:
+            out.value(bits[i]);
+            break;
+          case DOUBLE:
+            out.value(Double.longBitsToDouble(bits[i]));
+            break;
+          case FLOAT:
+            out.value(Float.intBitsToFloat((int) bits[i]));
+            break;
+          case NUMBER:
+            out.value((Number) objects[i]);
+            break;
+          default:
+            throw new AssertionError(ops[i]);
+        }
+      }
+    } finally {
+      out.setSerializeNulls(backup);
+      Arrays.fill(objects, 0, size, null);
+      size = 0;
+    }
+  }
+
+  @Override
+  public JsonWriter beginArray() {
+    push(-1);
+    add(BEGIN_ARRAY, null, 0);
+    return this;
+  }
+
+  @Override
+  public JsonWriter endArray() {
+    depth--;
+    add(END_ARRAY, null, 0);
+    return this;
+  }
+
+  @Override
+  public JsonWriter beginObject() {
+    add(BEGIN_OBJECT, null, 0);
+    push(entryCount);
+    return this;
+  }
+
+  @Override
+  public JsonWriter endObject() {
+    int start = objectStarts[depth];
+    if (!objectSorted[depth]) {
+      sort(start, entryCount);
+    }
+    entryCount = start;
+    depth--;
+    add(END_OBJECT, null, 0);
+    return this;
+  }
+
+  @Override
+  public JsonWriter name(String name) {
+    if (name == null) {
+      throw new NullPointerException("name == null");
+    }
+    int start = objectStarts[depth];
+    if (objectSorted[depth] && entryCount > start && name.compareTo((String) objects[entries[entryCount - 1]]) < 0) {
+      objectSorted[depth] = false;
+    }
+    if (entryCount == entries.length) {
+      entries = Arrays.copyOf(entries, entryCount * 2);
+    }
+    entries[entryCount++] = size;
+    add(NAME, name, 0);
+    return this;
+  }
+
+  @Override
+  public JsonWriter value(String value) {
+    return value == null ? nullValue() : add(STRING, value, 0);
+  }
+
+  @Override
+  public JsonWriter jsonValue(String value) {
+    // when a null is forced
+    if ("null".equals(value)) {
+      return add(NULL, null, 0);
+    }
+    return value == null ? nullValue() : add(JSON_VALUE, value, 0);
+  }
+
+  @Override
+  public JsonWriter nullValue() {
+    if (!getSerializeNulls() && depth > 0 && objectStarts[depth] >= 0 && size > 0 && ops[size - 1] == NAME) {
+      // the entry is skipped, like it would be by a writer not serializing nulls
+      size--;
+      objects[size] = null;
+      entryCount--;
+      return this;
+    }
+    return add(NULL, null, 0);
+  }
+
+  @Override
+  public JsonWriter value(boolean value) {
+    return add(BOOLEAN, null, value ? 1 : 0);
+  }
+
+  @Override
+  public JsonWriter value(Boolean value) {
+    return value == null ? nullValue() : value(value.booleanValue());
+  }
+
+  @Override
+  public JsonWriter value(float value) {
+    return add(FLOAT, null, Float.floatToRawIntBits(value));
+  }
+
+  @Override
+  public JsonWriter value(double value) {
+    return add(DOUBLE, null, Double.doubleToRawLongBits(value));
+  }
+
+  @Override
+  public JsonWriter value(long value) {
+    return add(LONG, null, value);
+  }
+
+  @Override
+  public JsonWriter value(Number value) {
+    return value == null ? nullValue() : add(NUMBER, value, 0);
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+  }
+
+  private JsonWriter add(byte op, Object object, long value) {
+    if (size == ops.length) {
+      int capacity = size * 2;
+      ops = Arrays.copyOf(ops, capacity);
+      objects = Arrays.copyOf(objects, capacity);
+      bits = Arrays.copyOf(bits, capacity);
+    }
+    ops[size] = op;
+    objects[size] = object;
+    bits[size] = value;
+    size++;
+    return this;
+  }
+
+  private void push(int start) {
+    depth++;
+    if (depth == objectStarts.length) {
+      objectStarts = Arrays.copyOf(objectStarts, depth * 2);
+      objectSorted = Arrays.copyOf(objectSorted, depth * 2);
+    }
+    objectStarts[depth] = start;
+    objectSorted[depth] = true;
+  }
+
+  /**
+   * Puts the entries of an object, which are the last events, in the order of their names
+   */
+  private void sort(int firstEntry, int lastEntry) {
+    int count = lastEntry - firstEntry;
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    // stable, so that entries with the same name keep their order
+    Arrays.sort(order, (a, b) -> ((String) objects[entries[firstEntry + a]]).compareTo((String) objects[entries[firstEntry + b]]));
+
+    int from = entries[firstEntry];
+    int length = size - from;
+    byte[] sortedOps = new byte[length];
+    Object[] sortedObjects = new Object[length];
+    long[] sortedBits = new long[length];
+    int position = 0;
+    for (int i = 0; i < count; i++) {
+      int entry = firstEntry + order[i];
+      int start = entries[entry];
+      int end = entry + 1 < lastEntry ? entries[entry + 1] : size;
+      System.arraycopy(ops, start, sortedOps, position, end - start);
+      System.arraycopy(objects, start, sortedObjects, position, end - start);
+      System.arraycopy(bits, start, sortedBits, position, end - start);
+      position += end - start;
+    }
+    System.arraycopy(sortedOps, 0, ops, from, length);
+    System.arraycopy(sortedObjects, 0, objects, from, length);
+    System.arraycopy(sortedBits, 0, bits, from, length);
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.json;
+
+import com.google.gson.internal.bind.TypeAdapters;
+import org.junit.Test;
+import org.terracotta.json.gson.Adapters;
+import org.terracotta.json.gson.GsonConfig;
+import org.terracotta.json.gson.GsonModule;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link Json#map(Object)} and friends must give the same result as serializing to a String and parsing it back
+ */
+public class MapTest {
+
+  private final List<Json> mappers = Arrays.asList(
+      new DefaultJsonFactory().create(),
+      new DefaultJsonFactory().pretty().create(),
+      new DefaultJsonFactory().withModule(new PlainDoublesModule()).create(),
+      new DefaultJsonFactory().withModule(new GsonNumbersModule()).create());
+
+  @Test
+  public void test_plain_values() {
+    Map<String, Object> nested = new HashMap<>();
+    nested.put("z", 1L);
+    nested.put("a", Long.MAX_VALUE);
+    nested.put("n", null);
+    nested.put("s", "s");
+    nested.put("b", true);
+    nested.put("l", Arrays.asList(1, null, "x", emptyMap(), emptyList()));
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("nested", nested);
+    map.put("empty", emptyMap());
+    map.put("list", singletonList(new TreeMap<>(singletonMap("k", 2))));
+    for (Object o : Arrays.asList(null, "foo", true, 1, 2L, Long.MIN_VALUE, map, nested, new ArrayList<>(map.values()))) {
+      assertMapsAsBefore(o);
+    }
+  }
+
+  @Test
+  public void test_numbers() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("double", 1.1);
+    map.put("float", 1.1f);
+    map.put("big", new BigDecimal("12345678901234567890.123"));
+    map.put("bigint", new BigInteger("123456789012345678901234567890"));
+    map.put("short", (short) 3);
+    map.put("nan", Double.NaN);
+    map.put("inf", Double.NEGATIVE_INFINITY);
+    map.put("exp", 1e20);
+    for (Object o : Arrays.asList(1.1, 1e-10, 2.5f, (byte) 1, new BigDecimal("0.1"), map)) {
+      assertMapsAsBefore(o);
+    }
+  }
+
+  @Test
+  public void test_module_types() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("null", Json.NULL);
+    map.put("path", Paths.get("foo", "bar"));
+    map.put("optional", Optional.of("opt"));
+    map.put("empty", Optional.empty());
+    map.put("instant", Instant.ofEpochMilli(1687969053056L));
+    map.put("duration", Duration.ofMillis(1));
+    map.put("unit", TimeUnit.SECONDS);
+    map.put("nested", singletonMap("null", Json.NULL));
+    for (Object o : Arrays.asList(Json.NULL, TimeUnit.DAYS, Paths.get("foo"), Instant.ofEpochMilli(0), map, singletonList(map))) {
+      assertMapsAsBefore(o);
+    }
+  }
+
+  @Test
+  public void test_objects() {
+    for (Json json : mappers) {
+      Foo foo = new Foo();
+      assertThat(json.map(foo), is(equalTo(json.parse(json.toString(foo), Object.class))));
+      assertThat(json.mapToObject(foo), is(equalTo(json.parseObject(json.toString(foo)))));
+      assertThat(json.mapToList(singletonList(foo)), is(equalTo(json.parseList(json.toString(singletonList(foo))))));
+
+      // and back to an object
+      Foo copy = json.map(json.map(foo), Foo.class);
+      assertThat(json.toString(copy), is(equalTo(json.toString(foo))));
+      assertThat(json.map(json.mapToObject(foo), Foo.class).values, is(equalTo(foo.values)));
+      assertThat(json.map(foo, Map.class), is(instanceOf(Map.class)));
+    }
+  }
+
+  private void assertMapsAsBefore(Object o) {
+    for (Json json : mappers) {
+      String serialized = json.toString(o);
+      assertThat(serialized, json.map(o), is(equalTo(json.parse(serialized, Object.class))));
+      assertThat(serialized, json.map(o, Object.class), is(equalTo(json.parse(serialized, Object.class))));
+      if (o instanceof Map) {
+        assertThat(serialized, json.mapToObject(o), is(equalTo(json.parseObject(serialized))));
+      }
+      if (o instanceof List) {
+        assertThat(serialized, json.mapToList(o), is(equalTo(json.parseList(serialized))));
+      }
+      if (!serialized.startsWith("{") && !serialized.startsWith("[")) {
+        assertThat(serialized, json.map(o, String.class), is(equalTo(json.parse(serialized, String.class))));
+      }
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private static class Foo {
+    String name = "foo";
+    String nothing;
+    long count = 42;
+    double ratio = 0.5;
+    Optional<String> optional = Optional.of("opt");
+    TimeUnit unit = TimeUnit.MINUTES;
+    List<Integer> values = Arrays.asList(3, 1, 2);
+    Map<String, Object> extra = new HashMap<>(singletonMap("b", singletonMap("a", 1)));
+  }
+
+  @Json.Module.Overrides(TerracottaJsonModule.class)
+  private static class PlainDoublesModule implements GsonModule {
+    @Override
+    public void configure(GsonConfig config) {
+      config.getBuilder().setObjectToNumberStrategy(Adapters.JACKSON_LIKE_NUMBER_STRATEGY);
+      config.getBuilder().setNumberToNumberStrategy(Adapters.JACKSON_LIKE_NUMBER_STRATEGY);
+      config.registerTypeAdapterFactory(TypeAdapters.newFactory(double.class, Double.class, Adapters.PLAIN_DOUBLES));
+      config.registerTypeAdapterFactory(TypeAdapters.newFactory(float.class, Float.class, Adapters.PLAIN_FLOATS));
+    }
+  }
+
+  // keeps the Gson defaults for numbers
+  @Json.Module.Overrides(TerracottaJsonModule.class)
+  private static class GsonNumbersModule implements GsonModule {
+    @Override
+    public void configure(GsonConfig config) {
+    }
+  }
+}
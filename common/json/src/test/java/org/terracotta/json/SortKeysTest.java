@@ -0,0 +1,83 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.json;
+
+import org.junit.Test;
+import org.terracotta.json.gson.Adapters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class SortKeysTest {
+
+  @Test
+  public void test_streaming() {
+    Json json = new DefaultJsonFactory().create();
+    assertThat(json.toString(new Foo(Json.NULL)), is(equalTo("{\"a\":{\"x\":[{\"b\":2,\"c\":null}],\"y\":1},\"b\":\"b\",\"z\":[3,{\"m\":true,\"n\":null}]}")));
+    assertThat(json.toString(new Foo(null)), is(equalTo("{\"a\":{\"x\":[{\"b\":2}],\"y\":1},\"b\":\"b\",\"z\":[3,{\"m\":true}]}")));
+    assertThat(json.toString(Arrays.asList(new Foo(null), 1, null)), is(equalTo("[" + json.toString(new Foo(null)) + ",1,null]")));
+  }
+
+  @Test
+  public void test_streaming_same_as_tree() {
+    for (boolean pretty : new boolean[]{false, true}) {
+      Json streaming = new DefaultJsonFactory().pretty(pretty).create();
+      Json tree;
+      System.setProperty(Adapters.SORT_KEYS_TREE_PROPERTY, "true");
+      try {
+        tree = new DefaultJsonFactory().pretty(pretty).create();
+      } finally {
+        System.clearProperty(Adapters.SORT_KEYS_TREE_PROPERTY);
+      }
+      // the tree copy only honors Json.NULL on the first level
+      Foo foo = new Foo(null);
+      assertThat(streaming.toString(foo), is(equalTo(tree.toString(foo))));
+      assertThat(streaming.map(foo), is(equalTo(tree.map(foo))));
+      assertThat(streaming.toString(foo.a), is(equalTo(tree.toString(foo.a))));
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private static class Foo {
+    List<Object> z = new ArrayList<>();
+    String b = "b";
+    String nothing = null;
+    Map<String, Object> a = new LinkedHashMap<>();
+
+    Foo(Object nil) {
+      Map<String, Object> c = new HashMap<>();
+      c.put("n", nil);
+      c.put("m", true);
+      c.put("o", null);
+      z.add(3);
+      z.add(c);
+      Map<String, Object> x = new LinkedHashMap<>();
+      x.put("c", nil);
+      x.put("b", 2);
+      a.put("y", 1);
+      a.put("x", Arrays.asList(x));
+    }
+  }
+}
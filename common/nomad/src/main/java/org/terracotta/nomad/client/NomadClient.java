@@ -35,6 +35,7 @@ public class NomadClient<T> implements AutoCloseable {
   private final String host;
   private final String user;
   private final Clock clock;
+  private final NomadMessageDispatcher dispatcher;
 
   /**
    * @param servers the set of servers to run the Nomad protocol across
@@ -42,9 +43,22 @@ public class NomadClient<T> implements AutoCloseable {
    * @param user    the name of the user the current process is running as
    */
   @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
-   public NomadClient(List<NomadEndpoint<T>> servers, String host, String user, Clock clock) {
+  public NomadClient(List<NomadEndpoint<T>> servers, String host, String user, Clock clock) {
+    this(servers, host, user, clock, NomadMessageDispatcher.sequential());
+  }
+
+  /**
+   * @param servers    the set of servers to run the Nomad protocol across
+   * @param host       the name of the local machine
+   * @param user       the name of the user the current process is running as
+   * @param dispatcher how the messages of each phase are sent to the servers. It is closed with this client.
+   */
+  @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
+  public NomadClient(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
     this.clock = clock;
+    this.dispatcher = dispatcher;
     if (servers.isEmpty()) {
+      dispatcher.close();
       throw new IllegalArgumentException("There must be at least one server");
     }
 
@@ -54,23 +68,28 @@ public class NomadClient<T> implements AutoCloseable {
   }
 
   public void tryApplyChange(ChangeResultReceiver<T> results, NomadChange change) {
-    ChangeProcess<T> changeProcess = new ChangeProcess<>(servers, host, user, clock);
+    ChangeProcess<T> changeProcess = new ChangeProcess<>(servers, host, user, clock, dispatcher);
     changeProcess.applyChange(results, change);
   }
 
   public void tryRecovery(RecoveryResultReceiver<T> results, int expectedTotalNodeCount, ChangeRequestState forcedState) {
-    RecoveryProcess<T> recoveryProcess = new RecoveryProcess<>(servers, host, user, clock);
+    RecoveryProcess<T> recoveryProcess = new RecoveryProcess<>(servers, host, user, clock, dispatcher);
     recoveryProcess.recover(results, expectedTotalNodeCount, forcedState);
   }
 
   public void tryDiscovery(DiscoverResultsReceiver<T> results) {
-    DiscoveryProcess<T> discoveryProcess = new DiscoveryProcess<>(servers, host, user, clock);
+    DiscoveryProcess<T> discoveryProcess = new DiscoveryProcess<>(servers, host, user, clock, dispatcher);
     discoveryProcess.discover(results);
   }
 
   @Override
   public void close() {
     RuntimeException error = null;
+    try {
+      dispatcher.close();
+    } catch (RuntimeException e) {
+      error = e;
+    }
     for (NomadEndpoint<T> server : servers) {
       try {
         server.close();
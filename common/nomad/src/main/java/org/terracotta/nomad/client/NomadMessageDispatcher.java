@@ -0,0 +1,196 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.nomad.client;
+
+import org.terracotta.inet.HostPort;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.partitioningBy;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Sends the messages of a Nomad phase to a list of servers.
+ * <p>
+ * The {@link #sequential()} dispatcher calls the servers one after another, in order.
+ * A {@link #concurrent(int, Duration)} dispatcher calls them in parallel on a bounded thread pool, and hands the responses
+ * back to the calling thread as they arrive: callbacks are never called concurrently, so the results receivers do not
+ * need to be thread-safe. Servers that have not answered before the phase timeout expires are reported as failed.
+ * <p>
+ * {@link #firstTo(Predicate)} keeps an order between groups of servers, like actives before passives.
+ */
+public abstract class NomadMessageDispatcher implements AutoCloseable {
+
+  private static final NomadMessageDispatcher SEQUENTIAL = new NomadMessageDispatcher() {
+    @Override
+    public <T, U> void dispatch(Collection<NomadEndpoint<T>> servers, Call<T, U> call, BiConsumer<NomadEndpoint<T>, U> onSuccess, BiConsumer<NomadEndpoint<T>, Throwable> onError) {
+      for (NomadEndpoint<T> server : servers) {
+        U response;
+        try {
+          response = call.call(server);
+        } catch (Exception e) {
+          onError.accept(server, e);
+          continue;
+        }
+        complete(server, response, onSuccess, onError);
+      }
+    }
+  };
+
+  public static NomadMessageDispatcher sequential() {
+    return SEQUENTIAL;
+  }
+
+  /**
+   * @param threadCount  the maximum number of servers called at the same time
+   * @param phaseTimeout the maximum time to wait for all the servers to answer during a phase, or null to wait forever
+   */
+  public static NomadMessageDispatcher concurrent(int threadCount, Duration phaseTimeout) {
+    return threadCount <= 1 && phaseTimeout == null ? SEQUENTIAL : new Concurrent(threadCount, phaseTimeout);
+  }
+
+  public abstract <T, U> void dispatch(Collection<NomadEndpoint<T>> servers, Call<T, U> call, BiConsumer<NomadEndpoint<T>, U> onSuccess, BiConsumer<NomadEndpoint<T>, Throwable> onError);
+
+  /**
+   * @return a dispatcher sending the messages of a phase to the servers matching {@code first}, and then only to the others.
+   * Each group is dispatched with this dispatcher, so with a phase timeout, each group has its own timeout.
+   * Closing the returned dispatcher closes this one.
+   */
+  public NomadMessageDispatcher firstTo(Predicate<HostPort> first) {
+    NomadMessageDispatcher delegate = this;
+    return new NomadMessageDispatcher() {
+      @Override
+      public <T, U> void dispatch(Collection<NomadEndpoint<T>> servers, Call<T, U> call, BiConsumer<NomadEndpoint<T>, U> onSuccess, BiConsumer<NomadEndpoint<T>, Throwable> onError) {
+        Map<Boolean, List<NomadEndpoint<T>>> groups = servers.stream().collect(partitioningBy(server -> first.test(server.getHostPort())));
+        delegate.dispatch(groups.get(true), call, onSuccess, onError);
+        delegate.dispatch(groups.get(false), call, onSuccess, onError);
+      }
+
+      @Override
+      public void close() {
+        delegate.close();
+      }
+    };
+  }
+
+  @Override
+  public void close() {
+  }
+
+  static <T, U> void complete(NomadEndpoint<T> server, U response, BiConsumer<NomadEndpoint<T>, U> onSuccess, BiConsumer<NomadEndpoint<T>, Throwable> onError) {
+    if (response == null) {
+      throw new AssertionError("Response expected. Bug or wrong mocking ?");
+    }
+    try {
+      onSuccess.accept(server, response);
+    } catch (Exception e) {
+      onError.accept(server, e);
+    }
+  }
+
+  @FunctionalInterface
+  public interface Call<T, U> {
+    U call(NomadEndpoint<T> server) throws Exception;
+  }
+
+  private static class Concurrent extends NomadMessageDispatcher {
+    private final ExecutorService executor;
+    private final Duration phaseTimeout;
+
+    Concurrent(int threadCount, Duration phaseTimeout) {
+      this.phaseTimeout = phaseTimeout;
+      this.executor = Executors.newFixedThreadPool(Math.max(1, threadCount), r -> {
+        Thread thread = new Thread(r, "nomad-messages");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    @Override
+    public <T, U> void dispatch(Collection<NomadEndpoint<T>> servers, Call<T, U> call, BiConsumer<NomadEndpoint<T>, U> onSuccess, BiConsumer<NomadEndpoint<T>, Throwable> onError) {
+      long deadline = phaseTimeout == null ? 0 : System.nanoTime() + phaseTimeout.toNanos();
+      CompletionService<U> completionService = new ExecutorCompletionService<>(executor);
+      Map<Future<U>, NomadEndpoint<T>> pending = new LinkedHashMap<>(servers.size());
+      for (NomadEndpoint<T> server : servers) {
+        pending.put(completionService.submit(() -> call.call(server)), server);
+      }
+
+      Throwable failure = null;
+      try {
+        while (!pending.isEmpty()) {
+          Future<U> done;
+          if (phaseTimeout == null) {
+            done = completionService.take();
+          } else {
+            long remaining = deadline - System.nanoTime();
+            done = remaining > 0 ? completionService.poll(remaining, NANOSECONDS) : null;
+          }
+          if (done == null) {
+            failure = new TimeoutException("Timed out after " + phaseTimeout.toMillis() + "ms waiting for a response");
+            break;
+          }
+          NomadEndpoint<T> server = pending.remove(done);
+          U response;
+          try {
+            response = done.get();
+          } catch (ExecutionException e) {
+            Throwable cause = requireNonNull(e.getCause());
+            if (cause instanceof Error) {
+              throw (Error) cause;
+            }
+            onError.accept(server, cause);
+            continue;
+          }
+          complete(server, response, onSuccess, onError);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      } finally {
+        // servers that did not answer in time are reported as failed, in the order they were called
+        for (Iterator<Map.Entry<Future<U>, NomadEndpoint<T>>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+          Map.Entry<Future<U>, NomadEndpoint<T>> entry = it.next();
+          it.remove();
+          entry.getKey().cancel(true);
+          if (failure != null) {
+            onError.accept(entry.getValue(), failure);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+    }
+  }
+}
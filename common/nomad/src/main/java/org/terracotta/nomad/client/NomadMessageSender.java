@@ -37,17 +37,17 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
 
 import static java.util.stream.Collectors.toList;
 
 public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
   private final List<NomadEndpoint<T>> servers;
+  private final NomadMessageDispatcher dispatcher;
   private final Clock clock;
   private final String host;
   private final String user;
@@ -58,21 +58,25 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
   protected volatile UUID changeUuid;
 
   public NomadMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock) {
+    this(servers, host, user, clock, NomadMessageDispatcher.sequential());
+  }
+
+  public NomadMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
     this.host = host;
     this.user = user;
     this.servers = servers;
     this.clock = clock;
+    this.dispatcher = dispatcher;
   }
 
   public void sendDiscovers(DiscoverResultsReceiver<T> results) {
     results.startDiscovery(servers.stream().map(NomadEndpoint::getHostPort).collect(toList()));
-    for (NomadEndpoint<T> server : servers) {
-      runSync(
-          server::discover,
-          discovery -> results.discovered(server.getHostPort(), discovery),
-          unwrap(e -> results.discoverFail(server.getHostPort(), e))
-      );
-    }
+    dispatcher.dispatch(
+        servers,
+        NomadEndpoint::discover,
+        (server, discovery) -> results.discovered(server.getHostPort(), discovery),
+        unwrap((server, e) -> results.discoverFail(server.getHostPort(), e))
+    );
 
     results.endDiscovery();
   }
@@ -80,23 +84,21 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
   public void sendSecondDiscovers(DiscoverResultsReceiver<T> results) {
     results.startSecondDiscovery();
 
-    for (NomadEndpoint<T> server : servers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          server::discover,
-          discovery -> {
-            long secondMutativeMessageCount = discovery.getMutativeMessageCount();
-            if (secondMutativeMessageCount == mutativeMessageCount) {
-              results.discoverRepeated(server.getHostPort());
-            } else {
-              String lastMutationHost = discovery.getLastMutationHost();
-              String lastMutationUser = discovery.getLastMutationUser();
-              results.discoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-            }
-          },
-          unwrap(e -> results.discoverFail(server.getHostPort(), e))
-      );
-    }
+    dispatcher.dispatch(
+        servers,
+        NomadEndpoint::discover,
+        (server, discovery) -> {
+          long secondMutativeMessageCount = discovery.getMutativeMessageCount();
+          if (secondMutativeMessageCount == mutativeMessageCounts.get(server.getHostPort())) {
+            results.discoverRepeated(server.getHostPort());
+          } else {
+            String lastMutationHost = discovery.getLastMutationHost();
+            String lastMutationUser = discovery.getLastMutationUser();
+            results.discoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+          }
+        },
+        unwrap((server, e) -> results.discoverFail(server.getHostPort(), e))
+    );
 
     // The endSecondDiscovery() call is made outside this method
   }
@@ -107,46 +109,44 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
     long newVersionNumber = maxVersionNumber.get() + 1;
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : servers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.prepare(
-              new PrepareMessage(
-                  mutativeMessageCount,
-                  host,
-                  user,
-                  now,
-                  changeUuid,
-                  newVersionNumber,
-                  change
-              )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.prepared(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  String rejectionMessage = response.getRejectionMessage();
-                  results.prepareChangeUnacceptable(server.getHostPort(), rejectionMessage);
-                  break;
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.prepareOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+    dispatcher.dispatch(
+        servers,
+        server -> server.prepare(
+            new PrepareMessage(
+                mutativeMessageCounts.get(server.getHostPort()),
+                host,
+                user,
+                now,
+                changeUuid,
+                newVersionNumber,
+                change
+            )
+        ),
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.prepared(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                String rejectionMessage = response.getRejectionMessage();
+                results.prepareChangeUnacceptable(server.getHostPort(), rejectionMessage);
+                break;
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.prepareOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.prepareFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        unwrap((server, e) -> results.prepareFail(server.getHostPort(), e))
+    );
 
     results.endPrepare();
   }
@@ -156,41 +156,39 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : preparedServers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.commit(
-              new CommitMessage(
-                  mutativeMessageCount + 1,
-                  host,
-                  user,
-                  now,
-                  changeUuid
-              )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.committed(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  throw new AssertionError("Commit should not return UNACCEPTABLE");
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.commitOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+    dispatcher.dispatch(
+        preparedServers,
+        server -> server.commit(
+            new CommitMessage(
+                mutativeMessageCounts.get(server.getHostPort()) + 1,
+                host,
+                user,
+                now,
+                changeUuid
+            )
+        ),
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.committed(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                throw new AssertionError("Commit should not return UNACCEPTABLE");
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.commitOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.commitFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        unwrap((server, e) -> results.commitFail(server.getHostPort(), e))
+    );
 
     results.endCommit();
   }
@@ -200,41 +198,39 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : preparedServers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.rollback(
-              new RollbackMessage(
-                  mutativeMessageCount + 1,
-                  host,
-                  user,
-                  now,
-                  changeUuid
-              )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.rolledBack(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  throw new AssertionError("Rollback should not return UNACCEPTABLE");
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.rollbackOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+    dispatcher.dispatch(
+        preparedServers,
+        server -> server.rollback(
+            new RollbackMessage(
+                mutativeMessageCounts.get(server.getHostPort()) + 1,
+                host,
+                user,
+                now,
+                changeUuid
+            )
+        ),
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.rolledBack(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                throw new AssertionError("Rollback should not return UNACCEPTABLE");
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.rollbackOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.rollbackFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        unwrap((server, e) -> results.rollbackFail(server.getHostPort(), e))
+    );
 
     results.endRollback();
   }
@@ -244,40 +240,38 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
 
     Instant now = clock.instant();
 
-    for (NomadEndpoint<T> server : servers) {
-      long mutativeMessageCount = mutativeMessageCounts.get(server.getHostPort());
-      runSync(
-          () -> server.takeover(
-              new TakeoverMessage(
-                  mutativeMessageCount,
-                  host,
-                  user,
-                  now
-              )
-          ),
-          response -> {
-            if (response.isAccepted()) {
-              results.takeover(server.getHostPort());
-            } else {
-              RejectionReason rejectionReason = response.getRejectionReason();
-              switch (rejectionReason) {
-                case UNACCEPTABLE:
-                  throw new AssertionError("Takeover should not return UNACCEPTABLE");
-                case DEAD:
-                  String lastMutationHost = response.getLastMutationHost();
-                  String lastMutationUser = response.getLastMutationUser();
-                  results.takeoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
-                  break;
-                case BAD:
-                  throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
-                default:
-                  throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
-              }
+    dispatcher.dispatch(
+        servers,
+        server -> server.takeover(
+            new TakeoverMessage(
+                mutativeMessageCounts.get(server.getHostPort()),
+                host,
+                user,
+                now
+            )
+        ),
+        (server, response) -> {
+          if (response.isAccepted()) {
+            results.takeover(server.getHostPort());
+          } else {
+            RejectionReason rejectionReason = response.getRejectionReason();
+            switch (rejectionReason) {
+              case UNACCEPTABLE:
+                throw new AssertionError("Takeover should not return UNACCEPTABLE");
+              case DEAD:
+                String lastMutationHost = response.getLastMutationHost();
+                String lastMutationUser = response.getLastMutationUser();
+                results.takeoverOtherClient(server.getHostPort(), lastMutationHost, lastMutationUser);
+                break;
+              case BAD:
+                throw new AssertionError("A server rejected a message as bad: " + server.getHostPort());
+              default:
+                throw new AssertionError("Unexpected RejectionReason: " + rejectionReason);
             }
-          },
-          unwrap(e -> results.takeoverFail(server.getHostPort(), e))
-      );
-    }
+          }
+        },
+        unwrap((server, e) -> results.takeoverFail(server.getHostPort(), e))
+    );
 
     results.endTakeover();
   }
@@ -296,19 +290,7 @@ public class NomadMessageSender<T> implements AllResultsReceiver<T> {
     preparedServers.add(servers.stream().filter(s -> s.getHostPort().equals(address)).findAny().get());
   }
 
-  private <U> void runSync(Callable<U> callable, Consumer<U> onSuccess, Consumer<Throwable> onError) {
-    try {
-      U result = callable.call();
-      if (result == null) {
-        throw new AssertionError("Response expected. Bug or wrong mocking ?");
-      }
-      onSuccess.accept(result);
-    } catch (Exception e) {
-      onError.accept(e);
-    }
-  }
-
-  private static Consumer<Throwable> unwrap(Consumer<Throwable> c) {
-    return t -> c.accept(t instanceof NomadException && t.getCause() != null && t.getCause() != t ? t.getCause() : t);
+  private static <T> BiConsumer<NomadEndpoint<T>, Throwable> unwrap(BiConsumer<NomadEndpoint<T>, Throwable> c) {
+    return (server, t) -> c.accept(server, t instanceof NomadException && t.getCause() != null && t.getCause() != t ? t.getCause() : t);
   }
 }
@@ -18,6 +18,7 @@ package org.terracotta.nomad.client.change;
 
 import org.terracotta.inet.HostPort;
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.NomadMessageSender;
 
 import java.time.Clock;
@@ -29,6 +30,10 @@ public class ChangeMessageSender<T> extends NomadMessageSender<T> {
     super(servers, host, user, clock);
   }
 
+  public ChangeMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
+    super(servers, host, user, clock, dispatcher);
+  }
+
   @Override
   public void startPrepare(UUID newChangeUuid) {
     super.startPrepare(newChangeUuid);
@@ -19,6 +19,7 @@ package org.terracotta.nomad.client.change;
 import org.terracotta.nomad.client.NomadClientProcess;
 import org.terracotta.nomad.client.NomadDecider;
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.client.results.AllResultsReceiver;
 
@@ -31,11 +32,15 @@ public class ChangeProcess<T> extends NomadClientProcess<NomadChange, T> {
     super(servers, host, user, clock);
   }
 
+  public ChangeProcess(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
+    super(servers, host, user, clock, dispatcher);
+  }
+
   public void applyChange(ChangeResultReceiver<T> results, NomadChange change) {
     runProcess(
         new ChangeAllResultsReceiverAdapter<>(results),
         new ChangeProcessDecider<>(),
-        new ChangeMessageSender<>(servers, host, user, clock),
+        new ChangeMessageSender<>(servers, host, user, clock, dispatcher),
         change
     );
   }
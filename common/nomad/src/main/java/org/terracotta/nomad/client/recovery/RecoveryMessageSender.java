@@ -18,6 +18,7 @@ package org.terracotta.nomad.client.recovery;
 
 import org.terracotta.inet.HostPort;
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.messages.DiscoverResponse;
 import org.terracotta.nomad.server.NomadServerMode;
@@ -30,6 +31,10 @@ public class RecoveryMessageSender<T> extends NomadMessageSender<T> {
     super(servers, host, user, clock);
   }
 
+  public RecoveryMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
+    super(servers, host, user, clock, dispatcher);
+  }
+
   @Override
   public void discovered(HostPort server, DiscoverResponse<T> discovery) {
     super.discovered(server, discovery);
@@ -19,6 +19,7 @@ package org.terracotta.nomad.client.recovery;
 import org.terracotta.nomad.client.NomadClientProcess;
 import org.terracotta.nomad.client.NomadDecider;
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.client.results.AllResultsReceiver;
 import org.terracotta.nomad.server.ChangeRequestState;
@@ -31,11 +32,15 @@ public class RecoveryProcess<T> extends NomadClientProcess<Void, T> {
     super(servers, host, user, clock);
   }
 
+  public RecoveryProcess(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
+    super(servers, host, user, clock, dispatcher);
+  }
+
   public void recover(RecoveryResultReceiver<T> results, int expectedTotalNodeCount, ChangeRequestState forcedState) {
     runProcess(
         new RecoveryAllResultsReceiverAdapter<>(results),
         new RecoveryProcessDecider<>(expectedTotalNodeCount, forcedState),
-        new RecoveryMessageSender<>(servers, host, user, clock),
+        new RecoveryMessageSender<>(servers, host, user, clock, dispatcher),
         null
     );
   }
@@ -17,6 +17,7 @@
 package org.terracotta.nomad.client.status;
 
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.client.change.NomadChange;
 import org.terracotta.nomad.client.results.CommitResultsReceiver;
@@ -36,6 +37,10 @@ public class DiscoveryMessageSender<T> extends NomadMessageSender<T> {
     super(servers, host, user, clock);
   }
 
+  public DiscoveryMessageSender(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
+    super(servers, host, user, clock, dispatcher);
+  }
+
   @Override
   public void sendPrepares(PrepareResultsReceiver results, UUID changeUuid, NomadChange change) {
     // ensure we do nothing
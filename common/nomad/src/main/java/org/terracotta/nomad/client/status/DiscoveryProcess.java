@@ -19,6 +19,7 @@ package org.terracotta.nomad.client.status;
 import org.terracotta.nomad.client.NomadClientProcess;
 import org.terracotta.nomad.client.NomadDecider;
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.NomadMessageSender;
 import org.terracotta.nomad.client.change.NomadChange;
 import org.terracotta.nomad.client.results.AllResultsReceiver;
@@ -35,11 +36,15 @@ public class DiscoveryProcess<T> extends NomadClientProcess<NomadChange, T> {
     super(servers, host, user, clock);
   }
 
+  public DiscoveryProcess(List<NomadEndpoint<T>> servers, String host, String user, Clock clock, NomadMessageDispatcher dispatcher) {
+    super(servers, host, user, clock, dispatcher);
+  }
+
   public void discover(DiscoverResultsReceiver<T> results) {
     runProcess(
         new DiscoveryAllResultsReceiverAdapter<>(results),
         new DiscoveryProcessDecider<>(),
-        new DiscoveryMessageSender<>(servers, host, user, clock),
+        new DiscoveryMessageSender<>(servers, host, user, clock, dispatcher),
         null
     );
   }
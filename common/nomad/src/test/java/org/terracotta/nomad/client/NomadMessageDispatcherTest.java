@@ -0,0 +1,139 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.nomad.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terracotta.inet.HostPort;
+import org.terracotta.nomad.server.NomadServerImpl;
+import org.terracotta.nomad.server.state.MemoryNomadServerState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NomadMessageDispatcherTest {
+
+  private final List<NomadEndpoint<String>> servers = new ArrayList<>();
+
+  @Before
+  public void before() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      servers.add(new NomadEndpoint<>(HostPort.create("localhost", 9410 + i), new NomadServerImpl<>(new MemoryNomadServerState<>())));
+    }
+  }
+
+  @After
+  public void after() {
+    servers.forEach(NomadEndpoint::close);
+  }
+
+  @Test
+  public void sequentialCallsServersInOrder() {
+    List<HostPort> called = new ArrayList<>();
+    List<HostPort> succeeded = new ArrayList<>();
+    List<HostPort> failed = new ArrayList<>();
+
+    NomadMessageDispatcher.sequential().dispatch(servers, server -> {
+      called.add(server.getHostPort());
+      if (server == servers.get(1)) {
+        throw new IllegalStateException("down");
+      }
+      return server.getHostPort().getPort();
+    }, (server, port) -> succeeded.add(server.getHostPort()), (server, e) -> failed.add(server.getHostPort()));
+
+    assertThat(called, contains(servers.stream().map(NomadEndpoint::getHostPort).toArray()));
+    assertThat(succeeded, contains(servers.get(0).getHostPort(), servers.get(2).getHostPort(), servers.get(3).getHostPort()));
+    assertThat(failed, contains(servers.get(1).getHostPort()));
+  }
+
+  @Test
+  public void concurrentCallsAllServersAtOnceAndCallsBackOnCallingThread() throws Exception {
+    CountDownLatch allCalled = new CountDownLatch(servers.size());
+    Map<HostPort, Thread> callbackThreads = new ConcurrentHashMap<>();
+
+    try (NomadMessageDispatcher dispatcher = NomadMessageDispatcher.concurrent(servers.size(), Duration.ofSeconds(30))) {
+      dispatcher.dispatch(servers, server -> {
+        allCalled.countDown();
+        // only completes if all the servers are called at the same time
+        assertTrue(allCalled.await(10, SECONDS));
+        return server.getHostPort().getPort();
+      }, (server, port) -> callbackThreads.put(server.getHostPort(), Thread.currentThread()), (server, e) -> {
+        throw new AssertionError(e);
+      });
+    }
+
+    assertEquals(servers.size(), callbackThreads.size());
+    callbackThreads.values().forEach(thread -> assertSame(Thread.currentThread(), thread));
+  }
+
+  @Test
+  public void concurrentReportsServersNotAnsweringInTimeAsFailed() throws Exception {
+    CountDownLatch never = new CountDownLatch(1);
+    List<HostPort> succeeded = new ArrayList<>();
+    Map<HostPort, Throwable> failed = new ConcurrentHashMap<>();
+
+    try (NomadMessageDispatcher dispatcher = NomadMessageDispatcher.concurrent(servers.size(), Duration.ofMillis(500))) {
+      dispatcher.dispatch(servers, server -> {
+        if (server == servers.get(2)) {
+          never.await();
+        }
+        return server.getHostPort().getPort();
+      }, (server, port) -> succeeded.add(server.getHostPort()), (server, e) -> failed.put(server.getHostPort(), e));
+    }
+
+    assertEquals(3, succeeded.size());
+    assertEquals(1, failed.size());
+    assertThat(failed.get(servers.get(2).getHostPort()), instanceOf(TimeoutException.class));
+  }
+
+  @Test
+  public void firstToCallsTheOtherServersOnlyOnceTheFirstOnesAnswered() throws Exception {
+    List<HostPort> first = asList(servers.get(1).getHostPort(), servers.get(3).getHostPort());
+    List<HostPort> called = Collections.synchronizedList(new ArrayList<>());
+    List<HostPort> succeeded = new ArrayList<>();
+
+    try (NomadMessageDispatcher dispatcher = NomadMessageDispatcher.concurrent(servers.size(), Duration.ofSeconds(30)).firstTo(first::contains)) {
+      dispatcher.dispatch(servers, server -> {
+        called.add(server.getHostPort());
+        return server.getHostPort().getPort();
+      }, (server, port) -> succeeded.add(server.getHostPort()), (server, e) -> {
+        throw new AssertionError(e);
+      });
+    }
+
+    assertThat(called.subList(0, 2), containsInAnyOrder(first.toArray()));
+    assertThat(succeeded.subList(0, 2), containsInAnyOrder(first.toArray()));
+    assertEquals(servers.size(), succeeded.size());
+  }
+}
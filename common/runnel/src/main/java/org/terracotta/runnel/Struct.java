@@ -17,6 +17,7 @@
 package org.terracotta.runnel;
 
 import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.compiled.StructPlan;
 import org.terracotta.runnel.decoding.fields.Field;
 import org.terracotta.runnel.decoding.fields.StructField;
 import org.terracotta.runnel.encoding.StructEncoder;
@@ -55,6 +56,31 @@ public class Struct {
     return new StructEncoder<>(root);
   }
 
+  /**
+   * Create a non-thread safe encoder writing fields as they are encoded into a byte buffer pooled in the calling
+   * thread, without allocating anything per field. The encoded bytes are the same as the ones produced by
+   * {@link #encoder()}, and get copied out when the encoder's {@code encode} method is called.
+   * Note: this method is thread-safe.
+   * @return the encoder.
+   */
+  public StructEncoder<Void> streamingEncoder() {
+    root.checkFullyInitialized();
+    return StructEncoder.streaming(root);
+  }
+
+  /**
+   * Create a non-thread safe encoder writing fields as they are encoded into the given byte buffer, starting at
+   * its current position. Call {@link StructEncoder#encode(ByteBuffer)} with that same byte buffer to complete
+   * the encoding in place.
+   * Note: this method is thread-safe.
+   * @param target the byte buffer to write to.
+   * @return the encoder.
+   */
+  public StructEncoder<Void> streamingEncoder(ByteBuffer target) {
+    root.checkFullyInitialized();
+    return StructEncoder.streaming(root, target);
+  }
+
   /**
    * Create a non-thread safe decoder allowing decoding according to the present structure.
    * Note: this method is thread-safe.
@@ -66,6 +92,17 @@ public class Struct {
     return new StructDecoder<>(root, new ReadBuffer(byteBuffer));
   }
 
+  /**
+   * Compile the present structure into a plan, from which typed field handles can be resolved once and then used
+   * to decode without looking fields up by name, boxing primitive values, or allocating decoders per nested struct.
+   * Note: this method is thread-safe.
+   * @return the plan.
+   */
+  public StructPlan compile() {
+    root.checkFullyInitialized();
+    return new StructPlan(root);
+  }
+
   /**
    * Recursively decode a byte buffer according to the present structure and print the decoded outcome to a print stream.
    * Note: this method is thread-safe.
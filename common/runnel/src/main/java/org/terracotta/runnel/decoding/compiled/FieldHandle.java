@@ -0,0 +1,58 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding.compiled;
+
+import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.metadata.Metadata;
+
+/**
+ * A field resolved once against a {@link StructPlan}, allowing its value to be read by position instead of by name.
+ * Handles are immutable and thread-safe.
+ */
+public abstract class FieldHandle {
+
+  private final Metadata metadata;
+  private final Field field;
+  private final int ordinal;
+
+  FieldHandle(Metadata metadata, Field field, int ordinal) {
+    this.metadata = metadata;
+    this.field = field;
+    this.ordinal = ordinal;
+  }
+
+  Metadata metadata() {
+    return metadata;
+  }
+
+  int ordinal() {
+    return ordinal;
+  }
+
+  public String name() {
+    return field.name();
+  }
+
+  public int index() {
+    return field.index();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{name='" + field.name() + "', index=" + field.index() + "}";
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding.compiled;
+
+import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.metadata.Metadata;
+
+/**
+ * Handle to an array of structs field.
+ */
+public final class StructArrayHandle extends FieldHandle {
+
+  private final StructPlan plan;
+
+  StructArrayHandle(Metadata metadata, Field field, int ordinal, StructPlan plan) {
+    super(metadata, field, ordinal);
+    this.plan = plan;
+  }
+
+  /**
+   * @return the plan of the structs this array holds, from which their own field handles can be resolved.
+   */
+  public StructPlan plan() {
+    return plan;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding.compiled;
+
+import org.terracotta.runnel.utils.LimitReachedException;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+/**
+ * A decoder iterating over an array of structs, handing out the same reused {@link StructPlanDecoder} for
+ * every element.
+ * Note: Instances of this class are not thread-safe.
+ */
+public final class StructArrayPlanDecoder {
+
+  private final StructPlanDecoder elementDecoder;
+  private ByteBuffer buffer;
+  private int cursor;
+  private int end;
+  private int length;
+
+  StructArrayPlanDecoder(StructPlanDecoder elementDecoder) {
+    this.elementDecoder = elementDecoder;
+  }
+
+  void reset(ByteBuffer byteBuffer, int start, int size) {
+    this.buffer = byteBuffer;
+    this.cursor = start;
+    this.end = start + size;
+    if (end > byteBuffer.limit()) {
+      throw new LimitReachedException();
+    }
+    this.length = readVlq();
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public boolean hasNext() {
+    return cursor < end;
+  }
+
+  /**
+   * @return the element decoder, reset onto the next element of the array.
+   */
+  public StructPlanDecoder next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    int size = readVlq();
+    elementDecoder.scan(buffer, cursor, size);
+    cursor += size;
+    return elementDecoder;
+  }
+
+  private int readVlq() {
+    int value = 0;
+    for (int i = 0; i < 5; i++) {
+      byte b = buffer.get(cursor++);
+      value |= b & 0x7F;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      value <<= 7;
+    }
+    throw new IllegalArgumentException("Cannot decode value greater than Integer.MAX_VALUE");
+  }
+
+}
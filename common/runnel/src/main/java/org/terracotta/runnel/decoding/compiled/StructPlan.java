@@ -0,0 +1,197 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding.compiled;
+
+import org.terracotta.runnel.decoding.fields.ArrayField;
+import org.terracotta.runnel.decoding.fields.BoolField;
+import org.terracotta.runnel.decoding.fields.ByteBufferField;
+import org.terracotta.runnel.decoding.fields.CharField;
+import org.terracotta.runnel.decoding.fields.EnumField;
+import org.terracotta.runnel.decoding.fields.Field;
+import org.terracotta.runnel.decoding.fields.FloatingPoint64Field;
+import org.terracotta.runnel.decoding.fields.Int32Field;
+import org.terracotta.runnel.decoding.fields.Int64Field;
+import org.terracotta.runnel.decoding.fields.StringField;
+import org.terracotta.runnel.decoding.fields.StructField;
+import org.terracotta.runnel.metadata.Metadata;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A struct compiled into lookup tables, so that decoding does not need to search fields by name.
+ * <p>
+ * Field handles get resolved once from the plan, then values are read from a {@link StructPlanDecoder} by
+ * handle: the field's wire index maps to a slot of an array through a dense table, values of primitive fields are
+ * returned unboxed, and decoders of nested structs are reused.
+ * Note: Instances of this class are thread-safe.
+ */
+public final class StructPlan {
+
+  private static final int MAX_DENSE_INDEX = 1024;
+
+  private final Metadata metadata;
+  private final Field[] fields;
+  private final int[] indexes;
+  private final int[] ordinalsByIndex;
+  private final StructPlan[] children;
+  private final ThreadLocal<StructPlanDecoder> decoders = ThreadLocal.withInitial(this::newDecoder);
+
+  public StructPlan(StructField structField) {
+    structField.checkFullyInitialized();
+    this.metadata = structField.getMetadata();
+    List<Field> fieldList = metadata.getFields();
+    this.fields = fieldList.toArray(new Field[0]);
+    this.indexes = new int[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      indexes[i] = fields[i].index();
+    }
+    int maxIndex = fields.length == 0 ? 0 : indexes[fields.length - 1];
+    if (maxIndex <= MAX_DENSE_INDEX) {
+      this.ordinalsByIndex = new int[maxIndex + 1];
+      Arrays.fill(ordinalsByIndex, -1);
+      for (int i = 0; i < fields.length; i++) {
+        ordinalsByIndex[indexes[i]] = i;
+      }
+    } else {
+      this.ordinalsByIndex = null;
+    }
+    this.children = new StructPlan[fields.length];
+  }
+
+  public BoolHandle bool(String name) {
+    Field field = findField(name, BoolField.class, null);
+    return new BoolHandle(metadata, field, ordinal(field.index()));
+  }
+
+  public CharHandle chr(String name) {
+    Field field = findField(name, CharField.class, null);
+    return new CharHandle(metadata, field, ordinal(field.index()));
+  }
+
+  public Int32Handle int32(String name) {
+    Field field = findField(name, Int32Field.class, null);
+    return new Int32Handle(metadata, field, ordinal(field.index()));
+  }
+
+  public Int64Handle int64(String name) {
+    Field field = findField(name, Int64Field.class, null);
+    return new Int64Handle(metadata, field, ordinal(field.index()));
+  }
+
+  public Fp64Handle fp64(String name) {
+    Field field = findField(name, FloatingPoint64Field.class, null);
+    return new Fp64Handle(metadata, field, ordinal(field.index()));
+  }
+
+  public StringHandle string(String name) {
+    Field field = findField(name, StringField.class, null);
+    return new StringHandle(metadata, field, ordinal(field.index()));
+  }
+
+  public ByteBufferHandle byteBuffer(String name) {
+    Field field = findField(name, ByteBufferField.class, null);
+    return new ByteBufferHandle(metadata, field, ordinal(field.index()));
+  }
+
+  @SuppressWarnings("unchecked")
+  public <E> EnumHandle<E> enm(String name) {
+    EnumField<E> field = (EnumField<E>) findField(name, EnumField.class, null);
+    return new EnumHandle<>(metadata, field, ordinal(field.index()));
+  }
+
+  public StructHandle struct(String name) {
+    Field field = findField(name, StructField.class, null);
+    int ordinal = ordinal(field.index());
+    return new StructHandle(metadata, field, ordinal, child(ordinal));
+  }
+
+  public StructArrayHandle structs(String name) {
+    Field field = findField(name, ArrayField.class, StructField.class);
+    int ordinal = ordinal(field.index());
+    return new StructArrayHandle(metadata, field, ordinal, child(ordinal));
+  }
+
+  /**
+   * Create a new, non-thread safe decoder for this plan, which can be reused by calling
+   * {@link StructPlanDecoder#reset(ByteBuffer)}.
+   * @return the decoder.
+   */
+  public StructPlanDecoder newDecoder() {
+    return new StructPlanDecoder(this);
+  }
+
+  /**
+   * Get the decoder of this plan owned by the calling thread, reset to decode the given byte buffer.
+   * The returned decoder, as well as the nested decoders it returns, are only valid until the next call to this
+   * method from the same thread.
+   * @param byteBuffer the byte buffer containing the data to be decoded.
+   * @return the decoder.
+   */
+  public StructPlanDecoder decoder(ByteBuffer byteBuffer) {
+    return decoders.get().reset(byteBuffer);
+  }
+
+  Metadata metadata() {
+    return metadata;
+  }
+
+  int fieldCount() {
+    return fields.length;
+  }
+
+  /**
+   * @return the slot of the field with the given wire index, or -1 if this plan does not know about it.
+   */
+  int ordinal(int index) {
+    if (ordinalsByIndex != null) {
+      return index < ordinalsByIndex.length ? ordinalsByIndex[index] : -1;
+    }
+    int ordinal = Arrays.binarySearch(indexes, index);
+    return ordinal < 0 ? -1 : ordinal;
+  }
+
+  StructPlan child(int ordinal) {
+    StructPlan child = children[ordinal];
+    if (child == null) {
+      Field field = fields[ordinal];
+      StructField structField = (StructField) (field instanceof ArrayField ? ((ArrayField) field).subField() : field);
+      child = new StructPlan(structField);
+      children[ordinal] = child;
+    }
+    return child;
+  }
+
+  private Field findField(String name, Class<? extends Field> fieldClazz, Class<? extends Field> subFieldClazz) {
+    Field field = metadata.getFieldByName(name);
+    if (field == null) {
+      throw new IllegalArgumentException("No such field : " + name);
+    }
+    if (field.getClass() != fieldClazz) {
+      throw new IllegalArgumentException("Invalid type for field '" + name + "', expected : '" + fieldClazz.getSimpleName() + "' but was '" + field.getClass().getSimpleName() + "'");
+    }
+    if (subFieldClazz != null) {
+      Field subField = ((ArrayField) field).subField();
+      if (subField.getClass() != subFieldClazz) {
+        throw new IllegalArgumentException("Invalid subtype for field '" + name + "', expected : '" + subFieldClazz.getSimpleName() + "' but was '" + subField.getClass().getSimpleName() + "'");
+      }
+    }
+    return field;
+  }
+
+}
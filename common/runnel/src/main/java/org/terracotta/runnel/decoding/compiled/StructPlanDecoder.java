@@ -0,0 +1,244 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding.compiled;
+
+import org.terracotta.runnel.utils.CorruptDataException;
+import org.terracotta.runnel.utils.LimitReachedException;
+import org.terracotta.runnel.utils.StringTool;
+
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A decoder reading the fields of a struct by {@link FieldHandle}, in any order.
+ * <p>
+ * When reset onto a byte buffer, the decoder records the position of every field of the struct in a table, so
+ * reading a value is a table lookup followed by an absolute read. The position of the byte buffer is never changed.
+ * Decoders of nested structs and arrays are reused, so they are only valid until their parent gets reset.
+ * Note: Instances of this class are not thread-safe.
+ */
+public final class StructPlanDecoder {
+
+  private final StructPlan plan;
+  private final int[] positions;
+  private final StructPlanDecoder[] structDecoders;
+  private final StructArrayPlanDecoder[] arrayDecoders;
+  private ByteBuffer buffer;
+  private int cursor;
+
+  StructPlanDecoder(StructPlan plan) {
+    this.plan = plan;
+    this.positions = new int[plan.fieldCount()];
+    this.structDecoders = new StructPlanDecoder[plan.fieldCount()];
+    this.arrayDecoders = new StructArrayPlanDecoder[plan.fieldCount()];
+  }
+
+  /**
+   * Make this decoder decode the struct encoded at the current position of the given byte buffer.
+   * @param byteBuffer the byte buffer containing the data to be decoded.
+   * @return this.
+   */
+  public StructPlanDecoder reset(ByteBuffer byteBuffer) {
+    this.buffer = byteBuffer;
+    this.cursor = byteBuffer.position();
+    int size = readVlq();
+    scan(byteBuffer, cursor, size);
+    return this;
+  }
+
+  void scan(ByteBuffer byteBuffer, int start, int size) {
+    this.buffer = byteBuffer;
+    int end = start + size;
+    if (end > byteBuffer.limit()) {
+      throw new LimitReachedException();
+    }
+    Arrays.fill(positions, -1);
+    cursor = start;
+    while (cursor < end) {
+      int index = readVlq();
+      int position = cursor;
+      int fieldSize = readVlq();
+      if (fieldSize < 0 || cursor + fieldSize > end) {
+        throw new LimitReachedException();
+      }
+      cursor += fieldSize;
+      int ordinal = plan.ordinal(index);
+      if (ordinal >= 0) {
+        positions[ordinal] = position;
+      }
+    }
+  }
+
+  /**
+   * @param handle the field handle.
+   * @return true if the decoded struct contains a value for the field.
+   */
+  public boolean has(FieldHandle handle) {
+    return positions[ordinal(handle)] >= 0;
+  }
+
+  public boolean bool(BoolHandle handle) {
+    return buffer.get(valuePosition(handle, 1)) != (byte) 0;
+  }
+
+  public char chr(CharHandle handle) {
+    return buffer.getChar(valuePosition(handle, 2));
+  }
+
+  public int int32AsInt(Int32Handle handle) {
+    return buffer.getInt(valuePosition(handle, 4));
+  }
+
+  public long int64AsLong(Int64Handle handle) {
+    return buffer.getLong(valuePosition(handle, 8));
+  }
+
+  public double fp64AsDouble(Fp64Handle handle) {
+    return buffer.getDouble(valuePosition(handle, 8));
+  }
+
+  /**
+   * @param handle the field handle.
+   * @param <E> the enumeration's actual type.
+   * @return the decoded enum, or null if the field is absent or its value is not mapped.
+   */
+  public <E> E enm(EnumHandle<E> handle) {
+    int position = positions[ordinal(handle)];
+    if (position < 0) {
+      return null;
+    }
+    cursor = position;
+    readVlq();
+    return handle.enumMapping().toEnum(readVlq());
+  }
+
+  /**
+   * @param handle the field handle.
+   * @return the decoded character string, or null if the field is absent.
+   */
+  public String string(StringHandle handle) {
+    int position = positions[ordinal(handle)];
+    if (position < 0) {
+      return null;
+    }
+    cursor = position;
+    int size = readVlq();
+    int savedPosition = buffer.position();
+    buffer.position(cursor);
+    try {
+      return StringTool.decodeString(buffer, size);
+    } catch (UTFDataFormatException e) {
+      CorruptDataException cde = new CorruptDataException("Unexpected encoding");
+      cde.addSuppressed(e);
+      throw cde;
+    } finally {
+      buffer.position(savedPosition);
+    }
+  }
+
+  /**
+   * @param handle the field handle.
+   * @return a slice of the decoded byte buffer, or null if the field is absent.
+   */
+  public ByteBuffer byteBuffer(ByteBufferHandle handle) {
+    int position = positions[ordinal(handle)];
+    if (position < 0) {
+      return null;
+    }
+    cursor = position;
+    int size = readVlq();
+    ByteBuffer slice = buffer.duplicate();
+    slice.limit(cursor + size).position(cursor);
+    return slice.slice();
+  }
+
+  /**
+   * @param handle the field handle.
+   * @return the reused decoder of the nested struct, or null if the field is absent.
+   */
+  public StructPlanDecoder struct(StructHandle handle) {
+    int ordinal = ordinal(handle);
+    int position = positions[ordinal];
+    if (position < 0) {
+      return null;
+    }
+    StructPlanDecoder decoder = structDecoders[ordinal];
+    if (decoder == null) {
+      decoder = structDecoders[ordinal] = new StructPlanDecoder(plan.child(ordinal));
+    }
+    cursor = position;
+    int size = readVlq();
+    decoder.scan(buffer, cursor, size);
+    return decoder;
+  }
+
+  /**
+   * @param handle the field handle.
+   * @return the reused decoder of the array, or null if the field is absent.
+   */
+  public StructArrayPlanDecoder structs(StructArrayHandle handle) {
+    int ordinal = ordinal(handle);
+    int position = positions[ordinal];
+    if (position < 0) {
+      return null;
+    }
+    StructArrayPlanDecoder decoder = arrayDecoders[ordinal];
+    if (decoder == null) {
+      decoder = arrayDecoders[ordinal] = new StructArrayPlanDecoder(new StructPlanDecoder(plan.child(ordinal)));
+    }
+    cursor = position;
+    int size = readVlq();
+    decoder.reset(buffer, cursor, size);
+    return decoder;
+  }
+
+  private int valuePosition(FieldHandle handle, int expectedSize) {
+    int position = positions[ordinal(handle)];
+    if (position < 0) {
+      throw new NoSuchElementException("No value for field : " + handle.name());
+    }
+    cursor = position;
+    int size = readVlq();
+    if (size != expectedSize) {
+      throw new CorruptDataException("Expected field size of " + expectedSize + ", read : " + size);
+    }
+    return cursor;
+  }
+
+  private int ordinal(FieldHandle handle) {
+    if (handle.metadata() != plan.metadata()) {
+      throw new IllegalArgumentException("Handle " + handle + " does not belong to this struct");
+    }
+    return handle.ordinal();
+  }
+
+  private int readVlq() {
+    int value = 0;
+    for (int i = 0; i < 5; i++) {
+      byte b = buffer.get(cursor++);
+      value |= b & 0x7F;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      value <<= 7;
+    }
+    throw new IllegalArgumentException("Cannot decode value greater than Integer.MAX_VALUE");
+  }
+
+}
@@ -27,13 +27,23 @@ public abstract class ArrayEncoder<T, P> {
 
   private final P parent;
   private final List<DataHolder> values;
+  private final StreamingWriter writer;
+  private final int depth;
 
-  ArrayEncoder(List<DataHolder> values, P parent) {
+  ArrayEncoder(List<DataHolder> values, StreamingWriter writer, P parent) {
     this.values = values;
+    this.writer = writer;
+    this.depth = writer == null ? -1 : writer.depth();
     this.parent = parent;
   }
 
   public ArrayEncoder<T, P> value(T value) {
+    if (writer != null) {
+      writer.closeTo(depth);
+      writeValue(writer, value);
+      writer.elementAdded(depth);
+      return this;
+    }
     DataHolder dataHolder = buildDataHolder(value);
     this.values.add(dataHolder);
     return this;
@@ -41,7 +51,12 @@ public abstract class ArrayEncoder<T, P> {
 
   protected abstract DataHolder buildDataHolder(T value);
 
+  protected abstract void writeValue(StreamingWriter writer, T value);
+
   public P end() {
+    if (writer != null) {
+      writer.closeTo(depth - 1);
+    }
     return parent;
   }
 
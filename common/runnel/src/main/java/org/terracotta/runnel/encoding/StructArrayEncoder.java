@@ -29,18 +29,27 @@ import java.util.List;
 public class StructArrayEncoder<P> {
 
   private final List<StructDataHolder> values;
+  private final StreamingWriter writer;
+  private final int depth;
   private final P parent;
   private final StructField structField;
   private List<DataHolder> currentData;
 
-  StructArrayEncoder(List<StructDataHolder> values, P parent, StructField structField) {
+  StructArrayEncoder(List<StructDataHolder> values, StreamingWriter writer, P parent, StructField structField) {
     this.structField = structField;
     this.values = values;
+    this.writer = writer;
+    this.depth = writer == null ? -1 : writer.depth();
     this.parent = parent;
-    this.currentData = new ArrayList<>();
+    this.currentData = writer == null ? new ArrayList<>() : null;
   }
 
   public StructEncoder<StructArrayEncoder<P>> add() {
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.openElement();
+      return writer.encoder(depth + 1, structField, this);
+    }
     if (!currentData.isEmpty()) {
       values.add(new StructDataHolder(currentData, -1));
     }
@@ -48,6 +57,10 @@ public class StructArrayEncoder<P> {
   }
 
   public P end() {
+    if (writer != null) {
+      writer.closeTo(depth - 1);
+      return parent;
+    }
     if (!currentData.isEmpty()) {
       values.add(new StructDataHolder(currentData, -1));
     }
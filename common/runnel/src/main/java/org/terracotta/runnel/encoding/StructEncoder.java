@@ -48,13 +48,20 @@ import java.util.List;
 
 /**
  * An encoder allows encoding structured data described by a {@link org.terracotta.runnel.Struct}.
+ * <p>
+ * A buffering encoder collects the fields and encodes them all at once when {@link #encode()} is called, while a
+ * streaming encoder writes every field straight into its byte buffer as it is handed over.
+ * Nested encoders of a streaming encoder get reused, so they must not be used anymore once they have been ended,
+ * or once a field that comes after them has been written to their parent.
  * Note: Instances of this class are not thread-safe.
  */
 public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<P>> {
 
   private final FieldSearcher fieldSearcher;
   private final List<DataHolder> data;
-  private final P parent;
+  private final StreamingWriter writer;
+  private final int depth;
+  private P parent;
 
   public StructEncoder(StructField structField) {
     this(structField, new ArrayList<>(), null);
@@ -63,20 +70,70 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
   StructEncoder(StructField structField, List<DataHolder> values, P parent) {
     this.fieldSearcher = structField.getMetadata().fieldSearcher();
     this.data = values;
+    this.writer = null;
+    this.depth = -1;
+    this.parent = parent;
+  }
+
+  StructEncoder(StructField structField, StreamingWriter writer, P parent, int depth) {
+    this.fieldSearcher = structField.getMetadata().fieldSearcher();
+    this.data = null;
+    this.writer = writer;
+    this.depth = depth;
+    this.parent = parent;
+  }
+
+  /**
+   * Create a streaming encoder writing into a byte buffer pooled in the calling thread, which grows as needed.
+   * @param structField the root struct field.
+   * @return the encoder.
+   */
+  public static StructEncoder<Void> streaming(StructField structField) {
+    return streaming(structField, StreamingWriter.pooled());
+  }
+
+  /**
+   * Create a streaming encoder writing into the given byte buffer, starting at its current position.
+   * @param structField the root struct field.
+   * @param target the byte buffer to write to.
+   * @return the encoder.
+   */
+  public static StructEncoder<Void> streaming(StructField structField, ByteBuffer target) {
+    return streaming(structField, StreamingWriter.wrap(target));
+  }
+
+  private static StructEncoder<Void> streaming(StructField structField, StreamingWriter writer) {
+    StructEncoder<Void> encoder = new StructEncoder<>(structField, writer, null, 0);
+    writer.openRoot();
+    return encoder;
+  }
+
+  void reuse(StructField structField, P parent) {
+    this.fieldSearcher.reset(structField.getMetadata());
     this.parent = parent;
   }
 
   @Override
   public StructEncoder<P> bool(String name, boolean value) {
     BoolField field = fieldSearcher.findField(name, BoolField.class, null);
-    data.add(new BoolDataHolder(value, field.index()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.bool(field.index(), value);
+    } else {
+      data.add(new BoolDataHolder(value, field.index()));
+    }
     return this;
   }
 
   @Override
   public StructEncoder<P> chr(String name, char value) {
     CharField field = fieldSearcher.findField(name, CharField.class, null);
-    data.add(new CharDataHolder(value, field.index()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.chr(field.index(), value);
+    } else {
+      data.add(new CharDataHolder(value, field.index()));
+    }
     return this;
   }
 
@@ -84,35 +141,61 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
   @Override
   public <E> StructEncoder<P> enm(String name, E value) {
     EnumField<E> field = (EnumField<E>) fieldSearcher.findField(name, EnumField.class, null);
-    data.add(new EnumDataHolder<>(value, field.index(), field.getEnumMapping()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.enm(field.index(), field.getEnumMapping().toInt(value));
+    } else {
+      data.add(new EnumDataHolder<>(value, field.index(), field.getEnumMapping()));
+    }
     return this;
   }
 
   @Override
   public StructEncoder<P> int32(String name, int value) {
     Int32Field field = fieldSearcher.findField(name, Int32Field.class, null);
-    data.add(new Int32DataHolder(value, field.index()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.int32(field.index(), value);
+    } else {
+      data.add(new Int32DataHolder(value, field.index()));
+    }
     return this;
   }
 
   @Override
   public StructEncoder<P> int64(String name, long value) {
     Int64Field field = fieldSearcher.findField(name, Int64Field.class, null);
-    data.add(new Int64DataHolder(value, field.index()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.int64(field.index(), value);
+    } else {
+      data.add(new Int64DataHolder(value, field.index()));
+    }
     return this;
   }
 
   @Override
   public StructEncoder<P> fp64(String name, double value) {
     FloatingPoint64Field field = fieldSearcher.findField(name, FloatingPoint64Field.class, null);
-    data.add(new FloatingPoint64DataHolder(value, field.index()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.fp64(field.index(), value);
+    } else {
+      data.add(new FloatingPoint64DataHolder(value, field.index()));
+    }
     return this;
   }
 
   @Override
   public StructEncoder<P> string(String name, String value) {
     StringField field = fieldSearcher.findField(name, StringField.class, null);
-    if (value != null) {
+    if (value == null) {
+      return this;
+    }
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.string(field.index(), value);
+    } else {
       data.add(new StringDataHolder(value, field.index()));
     }
     return this;
@@ -121,7 +204,12 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
   @Override
   public StructEncoder<P> byteBuffer(String name, ByteBuffer value) {
     ByteBufferField field = fieldSearcher.findField(name, ByteBufferField.class, null);
-    data.add(new ByteBufferDataHolder(value, field.index()));
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.byteBuffer(field.index(), value);
+    } else {
+      data.add(new ByteBufferDataHolder(value, field.index()));
+    }
     return this;
   }
 
@@ -134,6 +222,11 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
 
   public StructEncoder<StructEncoder<P>> struct(String name) {
     StructField field = fieldSearcher.findField(name, StructField.class, null);
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.openStruct(field.index());
+      return writer.encoder(depth + 1, field, this);
+    }
     List<DataHolder> values = new ArrayList<>();
     data.add(new StructDataHolder(values, field.index()));
     return new StructEncoder<>(field, values, this);
@@ -143,98 +236,138 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
     if (parent == null) {
       throw new IllegalStateException("Cannot end root encoder");
     }
+    if (writer != null) {
+      writer.closeTo(depth - 1);
+    }
     return parent;
   }
 
   public ArrayEncoder<Boolean, StructEncoder<P>> bools(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, BoolField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Boolean, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<Boolean, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(Boolean value) {
         return new BoolDataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, Boolean value) {
+        writer.bool(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public ArrayEncoder<Character, StructEncoder<P>> chrs(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, CharField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Character, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<Character, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(Character value) {
         return new CharDataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, Character value) {
+        writer.chr(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public ArrayEncoder<Integer, StructEncoder<P>> int32s(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, Int32Field.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Integer, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<Integer, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(Integer value) {
         return new Int32DataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, Integer value) {
+        writer.int32(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public ArrayEncoder<Long, StructEncoder<P>> int64s(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, Int64Field.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Long, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<Long, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(Long value) {
         return new Int64DataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, Long value) {
+        writer.int64(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public ArrayEncoder<Double, StructEncoder<P>> fp64s(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, FloatingPoint64Field.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<Double, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<Double, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(Double value) {
         return new FloatingPoint64DataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, Double value) {
+        writer.fp64(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public ArrayEncoder<String, StructEncoder<P>> strings(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, StringField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<String, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<String, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(String value) {
         return new StringDataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, String value) {
+        writer.string(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public ArrayEncoder<ByteBuffer, StructEncoder<P>> byteBuffers(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, ByteBufferField.class);
-    List<DataHolder> values = new ArrayList<>();
-    data.add(new ArrayDataHolder(values, field.index()));
-    return new ArrayEncoder<ByteBuffer, StructEncoder<P>>(values, this) {
+    return new ArrayEncoder<ByteBuffer, StructEncoder<P>>(arrayValues(field), writer, this) {
       @Override
       protected DataHolder buildDataHolder(ByteBuffer value) {
         return new ByteBufferDataHolder(value, field.index());
       }
+
+      @Override
+      protected void writeValue(StreamingWriter writer, ByteBuffer value) {
+        writer.byteBuffer(StreamingWriter.NO_INDEX, value);
+      }
     };
   }
 
   public StructArrayEncoder<StructEncoder<P>> structs(String name) {
     final ArrayField field = fieldSearcher.findField(name, ArrayField.class, StructField.class);
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.openArray(field.index());
+      return new StructArrayEncoder<>(null, writer, this, ((StructField) field.subField()));
+    }
     List<StructDataHolder> values = new ArrayList<>();
     data.add(new ArrayDataHolder(values, field.index()));
-    return new StructArrayEncoder<>(values, this, ((StructField) field.subField()));
+    return new StructArrayEncoder<>(values, null, this, ((StructField) field.subField()));
+  }
+
+  private List<DataHolder> arrayValues(ArrayField field) {
+    if (writer != null) {
+      writer.closeTo(depth);
+      writer.openArray(field.index());
+      return null;
+    }
+    List<DataHolder> values = new ArrayList<>();
+    data.add(new ArrayDataHolder(values, field.index()));
+    return values;
   }
 
   public <T> StructEncoder<P> structs(String name, T[] array, StructEncoderFunction<T> function) {
@@ -253,6 +386,7 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
 
   /**
    * Encode the structure in the given byte buffer.
+   * A streaming encoder copies what it wrote, unless the given byte buffer is the one it wrote to.
    * @param bb the byte buffer to fill with the encoded structure.
    * @return the passed-in byte buffer.
    */
@@ -260,6 +394,12 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
     if (parent != null) {
       throw new IllegalStateException("Cannot encode non-root encoder");
     }
+    if (writer != null) {
+      writer.finish();
+      writer.copyTo(bb);
+      writer.release();
+      return bb;
+    }
     int size = calculateSize();
     return performEncoding(bb, size);
   }
@@ -273,6 +413,12 @@ public class StructEncoder<P> implements PrimitiveEncodingSupport<StructEncoder<
     if (parent != null) {
       throw new IllegalStateException("Cannot encode non-root encoder");
     }
+    if (writer != null) {
+      ByteBuffer bb = ByteBuffer.allocate(writer.finish());
+      writer.copyTo(bb);
+      writer.release();
+      return bb;
+    }
     int size = calculateSize();
     ByteBuffer bb = ByteBuffer.allocate(size + VLQ.encodedSize(size));
     return performEncoding(bb, size);
@@ -24,13 +24,22 @@ import org.terracotta.runnel.decoding.fields.Field;
  */
 public class FieldSearcher {
 
-  private final Metadata metadata;
+  private Metadata metadata;
   private int lastIndex = -1;
 
   FieldSearcher(Metadata metadata) {
     this.metadata = metadata;
   }
 
+  /**
+   * Make this searcher start over on the given metadata, so that the instance can be reused.
+   * @param metadata the metadata to search.
+   */
+  public void reset(Metadata metadata) {
+    this.metadata = metadata;
+    this.lastIndex = -1;
+  }
+
   public <T extends Field, S extends Field> T findField(String name, Class<T> fieldClazz, Class<S> subFieldClazz) {
     @SuppressWarnings("unchecked")
     T field = (T) metadata.getFieldByName(name);
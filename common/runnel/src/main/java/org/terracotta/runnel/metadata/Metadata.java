@@ -21,6 +21,7 @@ import org.terracotta.runnel.decoding.fields.StructField;
 import org.terracotta.runnel.utils.ReadBuffer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,7 +95,14 @@ public class Metadata {
     return map;
   }
 
-  Field getFieldByName(String name) {
+  /**
+   * @return the fields, in growing index order.
+   */
+  public List<Field> getFields() {
+    return Collections.unmodifiableList(fields);
+  }
+
+  public Field getFieldByName(String name) {
     return fieldsByName.get(name);
   }
 
@@ -53,6 +53,22 @@ public class VLQ {
     out.put((byte) (b));
   }
 
+  /**
+   * Encode a value at an absolute index of a buffer, without modifying its position.
+   * @param value the value to encode.
+   * @param out the buffer to write to.
+   * @param index the index of the first byte to write.
+   * @return the number of bytes written.
+   */
+  public static int encode(int value, ByteBuffer out, int index) {
+    int size = encodedSize(value);
+    for (int i = 0; i < size - 1; i++) {
+      out.put(index + i, (byte) (((value >>> (7 * (size - 1 - i))) & 0x7F) | 0x80));
+    }
+    out.put(index + size - 1, (byte) (value & 0x7F));
+    return size;
+  }
+
   public static int decode(ReadBuffer in) {
     int b;
     int value = 0;
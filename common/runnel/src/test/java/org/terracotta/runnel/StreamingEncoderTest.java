@@ -0,0 +1,225 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel;
+
+import org.junit.Test;
+import org.terracotta.runnel.decoding.StructArrayDecoder;
+import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.encoding.ArrayEncoder;
+import org.terracotta.runnel.encoding.StructArrayEncoder;
+import org.terracotta.runnel.encoding.StructEncoder;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StreamingEncoderTest {
+
+  private enum Letter {
+    A, B
+  }
+
+  private static final EnumMapping<Letter> LETTER_MAPPING = EnumMappingBuilder.newEnumMappingBuilder(Letter.class)
+      .mapping(Letter.A, 1)
+      .mapping(Letter.B, 300)
+      .build();
+
+  private static final Struct ENTRY = StructBuilder.newStructBuilder()
+      .string("key", 10)
+      .int64("value", 20)
+      .build();
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .enm("letter", 10, LETTER_MAPPING)
+      .bool("bool", 20)
+      .chr("chr", 30)
+      .int32("int", 40)
+      .int64("long", 50)
+      .fp64("double", 60)
+      .string("string", 70)
+      .byteBuffer("bytes", 80)
+      .struct("entry", 90, ENTRY)
+      .structs("entries", 100, ENTRY)
+      .strings("strings", 110)
+      .int64s("longs", 120)
+      .build();
+
+  @Test
+  public void testSameBytesAsBufferingEncoder() throws Exception {
+    for (int seed = 0; seed < 500; seed++) {
+      StructEncoder<Void> buffering = STRUCT.encoder();
+      fill(buffering, new Random(seed));
+      StructEncoder<Void> streaming = STRUCT.streamingEncoder();
+      fill(streaming, new Random(seed));
+
+      assertThat("seed " + seed, streaming.encode().array(), is(buffering.encode().array()));
+    }
+  }
+
+  @Test
+  public void testSameBytesInCallerSuppliedBuffers() throws Exception {
+    for (int seed = 0; seed < 100; seed++) {
+      StructEncoder<Void> buffering = STRUCT.encoder();
+      fill(buffering, new Random(seed));
+      byte[] expected = buffering.encode().array();
+
+      for (ByteBuffer target : new ByteBuffer[]{ByteBuffer.allocate(65536), ByteBuffer.allocateDirect(65536)}) {
+        target.position(3);
+        StructEncoder<Void> streaming = STRUCT.streamingEncoder(target);
+        fill(streaming, new Random(seed));
+        assertThat(streaming.encode(target), is(target));
+
+        target.flip().position(3);
+        byte[] actual = new byte[target.remaining()];
+        target.get(actual);
+        assertThat("seed " + seed, actual, is(expected));
+      }
+    }
+  }
+
+  @Test
+  public void testDecode() throws Exception {
+    ByteBuffer bb = STRUCT.streamingEncoder()
+        .enm("letter", Letter.B)
+        .int64("long", 42L)
+        .struct("entry")
+          .string("key", "one")
+          .int64("value", 1L)
+        .end()
+        .structs("entries", new String[]{"a", "b"}, (encoder, key) -> encoder.string("key", key))
+        .encode();
+
+    bb.rewind();
+    StructDecoder<Void> decoder = STRUCT.decoder(bb);
+    assertThat(decoder.<Letter>enm("letter").get(), is(Letter.B));
+    assertThat(decoder.int64("long"), is(42L));
+    StructDecoder<StructDecoder<Void>> entry = decoder.struct("entry");
+    assertThat(entry.string("key"), is("one"));
+    assertThat(entry.int64("value"), is(1L));
+    entry.end();
+    StructArrayDecoder<StructDecoder<Void>> entries = decoder.structs("entries");
+    assertThat(entries.length(), is(2));
+    assertThat(entries.next().string("key"), is("a"));
+    assertThat(entries.next().string("key"), is("b"));
+    entries.end();
+    assertThat(decoder.strings("strings"), is(nullValue()));
+  }
+
+  @Test
+  public void testNestedStructClosedByNextField() throws Exception {
+    ByteBuffer expected = STRUCT.encoder()
+        .struct("entry")
+          .string("key", "one")
+        .end()
+        .strings("strings")
+          .value("two")
+        .end()
+        .encode();
+
+    StructEncoder<Void> encoder = STRUCT.streamingEncoder();
+    encoder.struct("entry").string("key", "one");
+    encoder.strings("strings").value("two").end();
+
+    assertThat(encoder.encode().array(), is(expected.array()));
+  }
+
+  @Test
+  public void testPooledBufferGrows() throws Exception {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      sb.append((char) ('a' + i % 26));
+    }
+    String big = sb.toString();
+
+    ByteBuffer bb = STRUCT.streamingEncoder()
+        .string("string", big)
+        .struct("entry")
+          .string("key", big)
+        .end()
+        .encode();
+
+    bb.rewind();
+    StructDecoder<Void> decoder = STRUCT.decoder(bb);
+    assertThat(decoder.string("string"), is(big));
+    assertThat(decoder.struct("entry").string("key"), is(big));
+  }
+
+  @Test(expected = BufferOverflowException.class)
+  public void testCallerSuppliedBufferDoesNotGrow() throws Exception {
+    STRUCT.streamingEncoder(ByteBuffer.allocate(16))
+        .string("string", "this is longer than sixteen bytes");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCannotEncodeNonRoot() throws Exception {
+    STRUCT.streamingEncoder()
+        .struct("entry")
+          .string("key", "one")
+        .encode();
+  }
+
+  private static void fill(StructEncoder<Void> encoder, Random random) {
+    StringBuilder sb = new StringBuilder();
+    int length = random.nextInt(300);
+    for (int i = 0; i < length; i++) {
+      sb.append((char) (random.nextInt(3) == 0 ? random.nextInt(0x10000) : 'a' + random.nextInt(26)));
+    }
+    String string = sb.toString();
+    byte[] bytes = new byte[random.nextInt(500)];
+    random.nextBytes(bytes);
+
+    encoder.enm("letter", random.nextBoolean() ? Letter.A : Letter.B)
+        .bool("bool", random.nextBoolean())
+        .chr("chr", string.isEmpty() ? 'x' : string.charAt(0))
+        .int32("int", random.nextInt())
+        .int64("long", random.nextLong())
+        .fp64("double", random.nextDouble())
+        .string("string", string)
+        .byteBuffer("bytes", ByteBuffer.wrap(bytes));
+    if (random.nextBoolean()) {
+      encoder.struct("entry")
+          .string("key", string)
+          .int64("value", random.nextLong())
+          .end();
+    }
+    StructArrayEncoder<StructEncoder<Void>> entries = encoder.structs("entries");
+    int count = random.nextInt(20);
+    for (int i = 0; i < count; i++) {
+      StructEncoder<StructArrayEncoder<StructEncoder<Void>>> entry = entries.add();
+      if (random.nextInt(4) != 0) { // empty entries are skipped
+        entry.string("key", string + i).int64("value", i);
+      }
+    }
+    entries.end();
+    ArrayEncoder<String, StructEncoder<Void>> strings = encoder.strings("strings");
+    int stringCount = random.nextInt(50);
+    for (int i = 0; i < stringCount; i++) {
+      strings.value(string + i);
+    }
+    strings.end();
+    ArrayEncoder<Long, StructEncoder<Void>> longs = encoder.int64s("longs");
+    int longCount = random.nextInt(50);
+    for (int i = 0; i < longCount; i++) {
+      longs.value(random.nextLong());
+    }
+    longs.end();
+  }
+}
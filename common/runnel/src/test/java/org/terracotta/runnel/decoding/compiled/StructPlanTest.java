@@ -0,0 +1,209 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.runnel.decoding.compiled;
+
+import org.junit.Test;
+import org.terracotta.runnel.EnumMapping;
+import org.terracotta.runnel.EnumMappingBuilder;
+import org.terracotta.runnel.Struct;
+import org.terracotta.runnel.StructBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StructPlanTest {
+
+  private enum Letter {
+    A, B
+  }
+
+  private static final EnumMapping<Letter> LETTER_MAPPING = EnumMappingBuilder.newEnumMappingBuilder(Letter.class)
+      .mapping(Letter.A, 1)
+      .mapping(Letter.B, 2)
+      .build();
+
+  private static final Struct ENTRY = StructBuilder.newStructBuilder()
+      .string("key", 10)
+      .int64("value", 20)
+      .build();
+
+  private static final Struct STRUCT = StructBuilder.newStructBuilder()
+      .enm("letter", 10, LETTER_MAPPING)
+      .bool("bool", 20)
+      .chr("chr", 30)
+      .int32("int", 40)
+      .int64("long", 50)
+      .fp64("double", 60)
+      .string("string", 70)
+      .byteBuffer("bytes", 80)
+      .struct("entry", 90, ENTRY)
+      .structs("entries", 100, ENTRY)
+      .build();
+
+  private static final Struct SPARSE = StructBuilder.newStructBuilder()
+      .int64("low", 1)
+      .int64("high", 100_000)
+      .build();
+
+  private final StructPlan plan = STRUCT.compile();
+  private final EnumHandle<Letter> letter = plan.enm("letter");
+  private final BoolHandle bool = plan.bool("bool");
+  private final CharHandle chr = plan.chr("chr");
+  private final Int32Handle int32 = plan.int32("int");
+  private final Int64Handle int64 = plan.int64("long");
+  private final Fp64Handle fp64 = plan.fp64("double");
+  private final StringHandle string = plan.string("string");
+  private final ByteBufferHandle bytes = plan.byteBuffer("bytes");
+  private final StructHandle entry = plan.struct("entry");
+  private final StructArrayHandle entries = plan.structs("entries");
+  private final StringHandle entryKey = entry.plan().string("key");
+  private final Int64Handle entryValue = entry.plan().int64("value");
+
+  @Test
+  public void testDecodeAllFieldsInAnyOrder() throws Exception {
+    ByteBuffer bb = STRUCT.encoder()
+        .enm("letter", Letter.B)
+        .bool("bool", true)
+        .chr("chr", 'x')
+        .int32("int", -5)
+        .int64("long", 1L << 40)
+        .fp64("double", 2.5)
+        .string("string", "h\u00e9llo \u20ac")
+        .byteBuffer("bytes", ByteBuffer.wrap(new byte[]{1, 2, 3}))
+        .struct("entry")
+          .string("key", "one")
+          .int64("value", 1L)
+        .end()
+        .structs("entries", new String[]{"a", "b", "c"}, (encoder, key) -> encoder.string("key", key).int64("value", key.charAt(0)))
+        .encode();
+    bb.rewind();
+
+    StructPlanDecoder decoder = plan.decoder(bb);
+    assertThat(decoder.int64AsLong(int64), is(1L << 40));
+    assertThat(decoder.<Letter>enm(letter), is(Letter.B));
+    assertThat(decoder.bool(bool), is(true));
+    assertThat(decoder.chr(chr), is('x'));
+    assertThat(decoder.int32AsInt(int32), is(-5));
+    assertThat(decoder.fp64AsDouble(fp64), is(2.5));
+    assertThat(decoder.string(string), is("h\u00e9llo \u20ac"));
+    assertThat(decoder.byteBuffer(bytes), is(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+    StructPlanDecoder entryDecoder = decoder.struct(entry);
+    assertThat(entryDecoder.string(entryKey), is("one"));
+    assertThat(entryDecoder.int64AsLong(entryValue), is(1L));
+
+    StructArrayPlanDecoder arrayDecoder = decoder.structs(entries);
+    assertThat(arrayDecoder.length(), is(3));
+    for (String key : new String[]{"a", "b", "c"}) {
+      StructPlanDecoder element = arrayDecoder.next();
+      assertThat(element.string(entryKey), is(key));
+      assertThat(element.int64AsLong(entryValue), is((long) key.charAt(0)));
+    }
+    assertThat(arrayDecoder.hasNext(), is(false));
+
+    assertThat(bb.position(), is(0));
+  }
+
+  @Test
+  public void testAbsentFields() throws Exception {
+    ByteBuffer bb = STRUCT.encoder()
+        .int32("int", 1)
+        .encode();
+    bb.rewind();
+
+    StructPlanDecoder decoder = plan.decoder(bb);
+    assertThat(decoder.has(int32), is(true));
+    assertThat(decoder.has(int64), is(false));
+    assertThat(decoder.<Letter>enm(letter), is(nullValue()));
+    assertThat(decoder.string(string), is(nullValue()));
+    assertThat(decoder.byteBuffer(bytes), is(nullValue()));
+    assertThat(decoder.struct(entry), is(nullValue()));
+    assertThat(decoder.structs(entries), is(nullValue()));
+  }
+
+  @Test(expected = NoSuchElementException.class)
+  public void testAbsentPrimitiveField() throws Exception {
+    ByteBuffer bb = STRUCT.encoder()
+        .int32("int", 1)
+        .encode();
+    bb.rewind();
+
+    plan.decoder(bb).int64AsLong(int64);
+  }
+
+  @Test
+  public void testDecoderIsReusable() throws Exception {
+    StructPlanDecoder decoder = plan.newDecoder();
+    for (long i = 0; i < 10; i++) {
+      ByteBuffer bb = STRUCT.encoder().int64("long", i).encode();
+      bb.rewind();
+      assertThat(decoder.reset(bb).int64AsLong(int64), is(i));
+    }
+  }
+
+  @Test
+  public void testUnknownFieldsAreSkipped() throws Exception {
+    Struct newer = StructBuilder.newStructBuilder()
+        .int32("int", 40)
+        .int32("added", 45)
+        .int64("long", 50)
+        .build();
+    ByteBuffer bb = newer.encoder()
+        .int32("int", 1)
+        .int32("added", 2)
+        .int64("long", 3L)
+        .encode();
+    bb.rewind();
+
+    StructPlanDecoder decoder = plan.decoder(bb);
+    assertThat(decoder.int32AsInt(int32), is(1));
+    assertThat(decoder.int64AsLong(int64), is(3L));
+  }
+
+  @Test
+  public void testSparseIndexes() throws Exception {
+    StructPlan sparsePlan = SPARSE.compile();
+    Int64Handle low = sparsePlan.int64("low");
+    Int64Handle high = sparsePlan.int64("high");
+    ByteBuffer bb = SPARSE.encoder()
+        .int64("low", 1L)
+        .int64("high", 2L)
+        .encode();
+    bb.rewind();
+
+    StructPlanDecoder decoder = sparsePlan.decoder(bb);
+    assertThat(decoder.int64AsLong(high), is(2L));
+    assertThat(decoder.int64AsLong(low), is(1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongFieldType() throws Exception {
+    plan.int64("int");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHandleOfAnotherStruct() throws Exception {
+    ByteBuffer bb = STRUCT.encoder().int64("long", 1L).encode();
+    bb.rewind();
+
+    plan.decoder(bb).int64AsLong(entryValue);
+  }
+}
@@ -31,4 +31,6 @@ public interface FilesystemDirectory {
   void delete(String filename) throws IOException;
 
   void backup(String filename) throws IOException;
+
+  void move(String source, String target) throws IOException;
 }
@@ -25,6 +25,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
@@ -43,35 +44,58 @@ import static org.terracotta.persistence.sanskrit.MarkableLineParser.LS;
 /**
  * The main class for reading and writing a Sanskrit append log.
  * This class is intended to be used by a single thread and so it is not thread-safe.
+ * <p>
+ * Once the append log holds more records than the compaction threshold, it is compacted: the current state is written
+ * as the single record of a new append log, which then replaces the old one (kept as a backup). The new log starts a new
+ * hash chain, protected by the same hash0 / hash1 files, so that it can be read back by any version of this class,
+ * and so that loading only replays the records appended since the last compaction.
  */
 @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
 public class SanskritImpl implements Sanskrit {
   private static final Logger LOGGER = LoggerFactory.getLogger(SanskritImpl.class);
 
   private static final String APPEND_LOG_FILE = "append.log";
+  private static final String COMPACTED_LOG_FILE = "append.log.compacted";
   private static final String HASH_0_FILE = "hash0";
   private static final String HASH_1_FILE = "hash1";
   private static final String FORMAT_VERSION = "format version: ";
 
+  public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
   private final FilesystemDirectory filesystemDirectory;
   private final SanskritMapper mapper;
+  private final int compactionThreshold;
 
   private volatile MutableSanskritObject data;
   private volatile String lastHash;
   private volatile String nextHashFile;
+  private volatile long recordCount;
+  private volatile boolean compactionFailed;
 
   public SanskritImpl(FilesystemDirectory filesystemDirectory, SanskritMapper mapper) throws SanskritException {
+    this(filesystemDirectory, mapper, DEFAULT_COMPACTION_THRESHOLD);
+  }
+
+  /**
+   * @param compactionThreshold the number of records above which the append log gets compacted, or 0 to never compact
+   */
+  public SanskritImpl(FilesystemDirectory filesystemDirectory, SanskritMapper mapper, int compactionThreshold) throws SanskritException {
     this.filesystemDirectory = filesystemDirectory;
     this.mapper = mapper;
+    this.compactionThreshold = compactionThreshold;
     init();
+    tryCompact();
   }
 
   private void init() throws SanskritException {
     lastHash = null;
     nextHashFile = null;
+    recordCount = 0;
     this.data = newMutableSanskritObject();
 
     try {
+      recoverCompaction();
+
       List<String> filesToDelete = new ArrayList<>();
       String hash0 = getHashFromFile(HASH_0_FILE, filesToDelete);
       String hash1 = getHashFromFile(HASH_1_FILE, filesToDelete);
@@ -91,27 +115,14 @@ public class SanskritImpl implements Sanskrit {
           try {
             records.forEach(record -> {
               try {
-                if (record.size() < 3) {
-                  throw new SanskritException("Invalid record");
-                }
+                LogRecord logRecord = LogRecord.parse(record);
+                String timestamp = logRecord.timestamp;
+                String version = logRecord.version;
+                String data = logRecord.data;
+                String hash = logRecord.hash;
 
                 long idx = counter.incrementAndGet();
 
-                String timestamp;
-                String version;
-                String first = record.removeFirst();
-                if (first.startsWith(FORMAT_VERSION)) {
-                  // V2 and so on
-                  timestamp = record.removeFirst();
-                  version = first.substring(16);
-                } else {
-                  // V1 change format don't have a version flag
-                  timestamp = first;
-                  version = "";
-                }
-                String hash = record.removeLast();
-                String data = String.join(LS, record);
-
                 LOGGER.trace("init(): record {}: timestamp={}, version={}, hash={}, data={}", idx, timestamp, version, hash, data);
 
                 hash = checkHash(timestamp, data, hash);
@@ -125,6 +136,7 @@ public class SanskritImpl implements Sanskrit {
                   mapper.fromString(data, version, result);
                   onNewRecord(timestamp, data);
                   lastHash = hash;
+                  recordCount++;
                 }
               } catch (SanskritException e) {
                 error.set(e);
@@ -171,6 +183,93 @@ public class SanskritImpl implements Sanskrit {
     }
   }
 
+  /**
+   * Finishes or discards a compaction interrupted by a crash. The compaction got committed if one of the hash files
+   * matches the record of the compacted log, in which case the old log can be replaced. Otherwise the compacted log is
+   * discarded and the old log is still valid.
+   */
+  private boolean recoverCompaction() throws SanskritException, IOException {
+    String compactedHash;
+    try (FileData compactedLog = filesystemDirectory.getFileData(COMPACTED_LOG_FILE)) {
+      if (compactedLog == null) {
+        return false;
+      }
+      compactedHash = readSingleRecordHash(compactedLog);
+    }
+
+    List<String> ignored = new ArrayList<>();
+    String finalHash = compactedHash == null ? null : HashUtils.generateHash(compactedHash);
+    boolean hash0Matches = finalHash != null && finalHash.equals(getHashFromFile(HASH_0_FILE, ignored));
+    boolean hash1Matches = finalHash != null && finalHash.equals(getHashFromFile(HASH_1_FILE, ignored));
+
+    LOGGER.trace("recoverCompaction(): finalHash={}, hash0Matches={}, hash1Matches={}", finalHash, hash0Matches, hash1Matches);
+
+    if (hash0Matches || hash1Matches) {
+      filesystemDirectory.delete(hash0Matches ? HASH_1_FILE : HASH_0_FILE);
+      filesystemDirectory.backup(APPEND_LOG_FILE);
+      filesystemDirectory.move(COMPACTED_LOG_FILE, APPEND_LOG_FILE);
+      return true;
+    } else {
+      filesystemDirectory.delete(COMPACTED_LOG_FILE);
+      return false;
+    }
+  }
+
+  /**
+   * Puts the files back in a consistent state after a compaction failed in this process, before appending to them:
+   * the compaction is either finished, if it got committed, or discarded. A failure here is reported as a failure to
+   * append.
+   */
+  private void recoverFailedCompaction() throws SanskritException {
+    if (!compactionFailed) {
+      return;
+    }
+    try {
+      if (recoverCompaction()) {
+        // same state as after a successful compaction
+        lastHash = readSingleRecordHash(APPEND_LOG_FILE);
+        nextHashFile = flipHashFile();
+        recordCount = 1;
+      } else {
+        // the hash file of the compacted log might have been partially written
+        filesystemDirectory.delete(nextHashFile);
+      }
+      compactionFailed = false;
+    } catch (IOException e) {
+      throw new SanskritException(e);
+    }
+  }
+
+  private String readSingleRecordHash(String filename) throws SanskritException, IOException {
+    try (FileData log = filesystemDirectory.getFileData(filename)) {
+      String hash = log == null ? null : readSingleRecordHash(log);
+      if (hash == null) {
+        throw new SanskritException("Unable to read the record of the compacted log " + filename);
+      }
+      return hash;
+    }
+  }
+
+  /**
+   * @return the hash of the first record of a log starting a hash chain, or null if that record is not complete
+   */
+  private String readSingleRecordHash(FileData log) {
+    InputStream logStream = new BufferedInputStream(Channels.newInputStream(log));
+    try {
+      Deque<String> record = groupByEmptyLines(new MarkableLineParser(logStream).lines()).findFirst().orElse(null);
+      if (record == null) {
+        return null;
+      }
+      LogRecord logRecord = LogRecord.parse(record);
+      // not chained to the last hash of this instance, which is still the one of the old log after a failed compaction
+      String hash = HashUtils.generateHash(logRecord.timestamp, LS, logRecord.data);
+      return hash.equals(logRecord.hash) ? hash : null;
+    } catch (SanskritException | UncheckedIOException e) {
+      LOGGER.trace("readSingleRecordHash(): {}", e.getMessage());
+      return null;
+    }
+  }
+
   String getHashToDelete(HashChecker hashChecker) throws SanskritException {
     return hashChecker.done();
   }
@@ -274,8 +373,10 @@ public class SanskritImpl implements Sanskrit {
 
   @Override
   public void applyChange(SanskritChange change) throws SanskritException {
+    recoverFailedCompaction();
     change.accept(data);
     appendChange(change);
+    tryCompact();
   }
 
   @Override
@@ -288,6 +389,7 @@ public class SanskritImpl implements Sanskrit {
     try {
       filesystemDirectory.delete(HASH_0_FILE);
       filesystemDirectory.delete(HASH_1_FILE);
+      filesystemDirectory.delete(COMPACTED_LOG_FILE);
       filesystemDirectory.backup(APPEND_LOG_FILE);
       init();
     } catch (IOException e) {
@@ -309,7 +411,68 @@ public class SanskritImpl implements Sanskrit {
   void appendRecord(String timestamp, String data) throws SanskritException {
     LOGGER.trace("appendRecord({}, {})", timestamp, data);
     String hash = calculateHash(timestamp, data);
-    appendEntry((FORMAT_VERSION + mapper.getCurrentFormatVersion()) + LS + timestamp + LS + data + LS + hash + LS + LS, hash);
+    appendEntry(formatRecord(timestamp, data, hash), hash);
+  }
+
+  private String formatRecord(String timestamp, String data, String hash) {
+    return (FORMAT_VERSION + mapper.getCurrentFormatVersion()) + LS + timestamp + LS + data + LS + hash + LS + LS;
+  }
+
+  /**
+   * Compacts the append log if needed. A failure is not reported: the log is still valid, so the compaction is only
+   * retried on the next change, after {@link #recoverFailedCompaction()}.
+   */
+  private void tryCompact() {
+    try {
+      compactIfNeeded();
+    } catch (SanskritException | RuntimeException e) {
+      LOGGER.warn("Failed to compact the append log, will retry on the next change: {}", e.getMessage(), e);
+      compactionFailed = true;
+    }
+  }
+
+  private void compactIfNeeded() throws SanskritException {
+    if (compactionThreshold > 0 && recordCount > compactionThreshold) {
+      compact();
+    }
+  }
+
+  /**
+   * Replaces the append log by a new one holding the current state as a single record.
+   * <p>
+   * The compacted log is written and forced first, then committed by writing its hash in the next hash file. Only then
+   * the hash file of the old log is removed and the old log replaced. A crash at any point is recovered by
+   * {@link #recoverCompaction()}.
+   */
+  void compact() throws SanskritException {
+    String timestamp = getTimestamp();
+    SanskritChange snapshot = data::accept;
+    String snapshotData = mapper.toString(snapshot);
+    String hash = HashUtils.generateHash(timestamp, LS, snapshotData);
+    String finalHash = HashUtils.generateHash(hash);
+    String currentHashFile = flipHashFile();
+
+    LOGGER.debug("Compacting append log of {} records", recordCount);
+
+    try {
+      filesystemDirectory.delete(COMPACTED_LOG_FILE);
+      try (FileData compactedLog = filesystemDirectory.create(COMPACTED_LOG_FILE, false)) {
+        write(compactedLog, formatRecord(timestamp, snapshotData, hash));
+      }
+      try (FileData hashFile = createNewHashFile()) {
+        write(hashFile, finalHash);
+      }
+
+      filesystemDirectory.delete(currentHashFile);
+      filesystemDirectory.backup(APPEND_LOG_FILE);
+      filesystemDirectory.move(COMPACTED_LOG_FILE, APPEND_LOG_FILE);
+
+      nextHashFile = currentHashFile;
+      lastHash = hash;
+      recordCount = 1;
+    } catch (IOException e) {
+      throw new SanskritException(e);
+    }
   }
 
   private String getTimestamp() {
@@ -332,6 +495,7 @@ public class SanskritImpl implements Sanskrit {
       filesystemDirectory.delete(nextHashFile);
 
       lastHash = entryHash;
+      recordCount++;
     } catch (IOException e) {
       throw new SanskritException(e);
     }
@@ -376,4 +540,40 @@ public class SanskritImpl implements Sanskrit {
       throw new SanskritException(e);
     }
   }
+
+  private static final class LogRecord {
+    private final String version;
+    private final String timestamp;
+    private final String data;
+    private final String hash;
+
+    private LogRecord(String version, String timestamp, String data, String hash) {
+      this.version = version;
+      this.timestamp = timestamp;
+      this.data = data;
+      this.hash = hash;
+    }
+
+    static LogRecord parse(Deque<String> record) throws SanskritException {
+      if (record.size() < 3) {
+        throw new SanskritException("Invalid record");
+      }
+
+      String timestamp;
+      String version;
+      String first = record.removeFirst();
+      if (first.startsWith(FORMAT_VERSION)) {
+        // V2 and so on
+        timestamp = record.removeFirst();
+        version = first.substring(16);
+      } else {
+        // V1 change format don't have a version flag
+        timestamp = first;
+        version = "";
+      }
+      String hash = record.removeLast();
+      String data = String.join(LS, record);
+      return new LogRecord(version, timestamp, data, hash);
+    }
+  }
 }
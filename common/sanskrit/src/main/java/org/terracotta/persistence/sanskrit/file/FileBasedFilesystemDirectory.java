@@ -33,6 +33,7 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 import static java.nio.file.StandardOpenOption.READ;
@@ -98,4 +99,9 @@ public class FileBasedFilesystemDirectory implements FilesystemDirectory {
       org.terracotta.utilities.io.Files.relocate(path, dest);
     }
   }
+
+  @Override
+  public void move(String source, String target) throws IOException {
+    Files.move(directory.resolve(source), directory.resolve(target), ATOMIC_MOVE);
+  }
 }
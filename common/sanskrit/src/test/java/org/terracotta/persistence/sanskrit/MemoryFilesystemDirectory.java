@@ -35,11 +35,19 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
   private final Set<String> locks = new HashSet<>();
   private final Semaphore directoryLock = new Semaphore(1);
   private boolean fail;
+  private volatile String failingOperation;
 
   public void fail() {
     fail = true;
   }
 
+  /**
+   * Makes a single operation fail, like "create hash1" or "move append.log.compacted", or none if null
+   */
+  public void failOn(String operation) {
+    failingOperation = operation;
+  }
+
   @Override
   public DirectoryLock lock() throws IOException {
     checkFail();
@@ -53,7 +61,7 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
 
   @Override
   public FileData create(String filename, boolean canExist) throws IOException {
-    checkFail();
+    checkFail("create", filename);
 
     if (files.containsKey(filename)) {
       if (!canExist) {
@@ -91,7 +99,7 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
 
   @Override
   public void delete(String filename) throws IOException {
-    checkFail();
+    checkFail("delete", filename);
     files.remove(filename);
   }
 
@@ -100,12 +108,29 @@ public class MemoryFilesystemDirectory implements FilesystemDirectory {
     delete(filename);
   }
 
+  @Override
+  public void move(String source, String target) throws IOException {
+    checkFail("move", source);
+    String content = files.remove(source);
+    if (content == null) {
+      throw new IOException("No such file: " + source);
+    }
+    files.put(target, content);
+  }
+
   private void checkFail() throws IOException {
     if (fail) {
       throw new IOException("fail");
     }
   }
 
+  private void checkFail(String operation, String filename) throws IOException {
+    checkFail();
+    if ((operation + " " + filename).equals(failingOperation)) {
+      throw new IOException("fail: " + failingOperation);
+    }
+  }
+
   private class MemoryFileData implements FileData {
     private final String filename;
     private final AtomicInteger position;
@@ -440,6 +440,178 @@ public class SanskritTest {
     }
   }
 
+  @Test
+  public void compaction() throws Exception {
+    SanskritObjectImpl object = new SanskritObjectImpl(mapper);
+    object.setString("A", "B");
+
+    try (SanskritImpl sanskrit = new SanskritImpl(filesystemDirectory, mapper, 3)) {
+      sanskrit.setString("key1", "value1");
+      sanskrit.setLong("key2", 2L);
+      sanskrit.setString("key3", "value3");
+      assertEquals(3, countRecords());
+
+      sanskrit.removeKey("key3");
+      assertEquals(1, countRecords());
+
+      sanskrit.setObject("key4", object);
+      assertEquals(2, countRecords());
+    }
+
+    assertNullFiles("hash0", "append.log.compacted");
+    loadAndAssertState(makeMap("key1", "value1", "key2", 2L, "key4", makeMap("A", "B")), "key3");
+
+    try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
+      sanskrit.setString("key1", "value");
+    }
+
+    assertEquals(3, countRecords());
+    loadAndAssertState(makeMap("key1", "value", "key2", 2L, "key4", makeMap("A", "B")), "key3");
+  }
+
+  @Test
+  public void compactionOnLoad() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"), makeMap("other", "value"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash());
+
+    try (SanskritImpl sanskrit = new SanskritImpl(filesystemDirectory, mapper, 2)) {
+      assertState(sanskrit, makeMap("key", "value2", "other", "value"));
+    }
+
+    assertEquals(1, countRecords());
+    assertNullFiles("hash0");
+    loadAndAssertState(makeMap("key", "value2", "other", "value"));
+  }
+
+  @Test
+  public void failedCompactionOnLoadIsRetried() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"), makeMap("other", "value"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("hash0", logInfo.getHash());
+
+    // opening does not fail because of the compaction
+    filesystemDirectory.failOn("create append.log.compacted");
+    try (SanskritImpl sanskrit = new SanskritImpl(filesystemDirectory, mapper, 2)) {
+      assertState(sanskrit, makeMap("key", "value2", "other", "value"));
+      assertEquals(3, countRecords());
+      assertNullFiles("append.log.compacted");
+
+      filesystemDirectory.failOn(null);
+      sanskrit.setString("key", "value3");
+      assertEquals(1, countRecords());
+    }
+
+    loadAndAssertState(makeMap("key", "value3", "other", "value"));
+  }
+
+  @Test
+  public void uncommittedCompactionIsDiscarded() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"));
+    LogInfo compacted = LogUtil.createLog(makeMap("key", "value3"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("append.log.compacted", compacted.getText());
+    createFileWithContent("hash0", logInfo.getHash());
+
+    loadAndAssertState(makeMap("key", "value2"));
+
+    assertAppendLog(logInfo.getText());
+    assertFile("hash0", logInfo.getHash());
+    assertNullFiles("hash1", "append.log.compacted");
+  }
+
+  @Test
+  public void partialCompactionIsDiscarded() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"));
+    LogInfo compacted = LogUtil.createLog(makeMap("key", "value3"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("append.log.compacted", compacted.getText().substring(0, 30));
+    createFileWithContent("hash0", logInfo.getHash());
+    createFileWithContent("hash1", compacted.getHash().substring(0, 20));
+
+    loadAndAssertState(makeMap("key", "value2"));
+
+    assertAppendLog(logInfo.getText());
+    assertFile("hash0", logInfo.getHash());
+    assertNullFiles("hash1", "append.log.compacted");
+  }
+
+  @Test
+  public void committedCompactionIsCompleted() throws Exception {
+    LogInfo logInfo = LogUtil.createLog(makeMap("key", "value1"), makeMap("key", "value2"));
+    LogInfo compacted = LogUtil.createLog(makeMap("key", "value2", "other", "value"));
+    createFileWithContent("append.log", logInfo.getText());
+    createFileWithContent("append.log.compacted", compacted.getText());
+    createFileWithContent("hash0", logInfo.getHash());
+    createFileWithContent("hash1", compacted.getHash());
+
+    loadAndAssertState(makeMap("key", "value2", "other", "value"));
+
+    assertAppendLog(compacted.getText());
+    assertFile("hash1", compacted.getHash());
+    assertNullFiles("hash0", "append.log.compacted");
+  }
+
+  @Test
+  public void committedCompactionIsCompletedWithoutOldLog() throws Exception {
+    LogInfo compacted = LogUtil.createLog(makeMap("key", "value2", "other", "value"));
+    createFileWithContent("append.log.compacted", compacted.getText());
+    createFileWithContent("hash1", compacted.getHash());
+
+    loadAndAssertState(makeMap("key", "value2", "other", "value"));
+
+    assertAppendLog(compacted.getText());
+    assertFile("hash1", compacted.getHash());
+    assertNullFiles("hash0", "append.log.compacted");
+  }
+
+  @Test
+  public void failedCompactionIsRetried() throws Exception {
+    try (SanskritImpl sanskrit = new SanskritImpl(filesystemDirectory, mapper, 2)) {
+      sanskrit.setString("key1", "value1");
+      sanskrit.setString("key2", "value2");
+
+      // the change is appended even if the compaction fails before being committed
+      filesystemDirectory.failOn("create append.log.compacted");
+      sanskrit.setString("key3", "value3");
+      assertEquals(3, countRecords());
+      assertNullFiles("append.log.compacted");
+
+      filesystemDirectory.failOn(null);
+      sanskrit.setString("key4", "value4");
+      assertEquals(1, countRecords());
+    }
+
+    loadAndAssertState(makeMap("key1", "value1", "key2", "value2", "key3", "value3", "key4", "value4"));
+  }
+
+  @Test
+  public void committedCompactionIsCompletedAfterFailure() throws Exception {
+    try (SanskritImpl sanskrit = new SanskritImpl(filesystemDirectory, mapper, 2)) {
+      sanskrit.setString("key1", "value1");
+      sanskrit.setString("key2", "value2");
+
+      // the compaction fails after being committed, when replacing the old log
+      filesystemDirectory.failOn("move append.log.compacted");
+      sanskrit.setString("key3", "value3");
+
+      // the next change cannot be appended until the compaction is completed
+      try {
+        sanskrit.setString("key4", "value4");
+        fail("Exception expected");
+      } catch (SanskritException e) {
+        // Expected
+      }
+
+      filesystemDirectory.failOn(null);
+      sanskrit.setString("key4", "value4");
+      assertEquals(2, countRecords());
+      assertNullFiles("append.log.compacted");
+    }
+
+    loadAndAssertState(makeMap("key1", "value1", "key2", "value2", "key3", "value3", "key4", "value4"));
+  }
+
   @Test(expected = SanskritException.class)
   public void shouldBeUnusableAfterFailure() throws Exception {
     try (Sanskrit sanskrit = Sanskrit.init(filesystemDirectory, mapper)) {
@@ -537,6 +709,10 @@ public class SanskritTest {
     }
   }
 
+  private int countRecords() throws Exception {
+    return getFileText("append.log").split(LS + LS, -1).length - 1;
+  }
+
   private void assertAppendLog(String expectedText) throws Exception {
     assertFile("append.log", expectedText);
   }
@@ -76,7 +76,8 @@ public class OssServiceProvider implements ServiceProvider {
   }
 
   protected NomadManager<NodeContext> createNomadManager(Configuration config) {
-    NomadManager<NodeContext> nomadManager = new DefaultNomadManager<>(new NomadEnvironment(), createMultiDiagnosticServiceProvider(config), createNomadEntityProvider(config));
+    NomadManager<NodeContext> nomadManager = new DefaultNomadManager<>(new NomadEnvironment(), createMultiDiagnosticServiceProvider(config), createNomadEntityProvider(config),
+        getConcurrencySizing(config), getNomadPhaseTimeout(config));
     if (config.getLockToken() != null) {
       nomadManager = new LockAwareNomadManager<>(config.getLockToken(), nomadManager);
     }
@@ -141,6 +142,17 @@ public class OssServiceProvider implements ServiceProvider {
     return Duration.ofMillis(config.getConnectionTimeout().getQuantity(TimeUnit.MILLISECONDS));
   }
 
+  /**
+   * A Nomad phase sends one message per node, and each message is bounded by the request or entity operation timeout.
+   * When the nodes are called in parallel, the phase is bounded by the longest of them, plus some room to queue calls
+   * when there are more nodes than threads.
+   */
+  protected Duration getNomadPhaseTimeout(Configuration config) {
+    Duration requestTimeout = getRequestTimeout(config);
+    Duration entityOperationTimeout = getEntityOperationTimeout(config);
+    return (requestTimeout.compareTo(entityOperationTimeout) >= 0 ? requestTimeout : entityOperationTimeout).multipliedBy(2);
+  }
+
   protected ConcurrencySizing getConcurrencySizing(Configuration config) {
     return new ConcurrencySizing();
   }
@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import org.terracotta.connection.ConnectionException;
 import org.terracotta.connection.entity.Entity;
 import org.terracotta.diagnostic.client.DiagnosticService;
+import org.terracotta.diagnostic.client.connection.ConcurrencySizing;
 import org.terracotta.diagnostic.client.connection.DiagnosticServices;
 import org.terracotta.diagnostic.client.connection.MultiDiagnosticServiceProvider;
 import org.terracotta.diagnostic.model.LogicalServerState;
@@ -35,6 +36,7 @@ import org.terracotta.inet.HostPort;
 import org.terracotta.nomad.NomadEnvironment;
 import org.terracotta.nomad.client.NomadClient;
 import org.terracotta.nomad.client.NomadEndpoint;
+import org.terracotta.nomad.client.NomadMessageDispatcher;
 import org.terracotta.nomad.client.change.ChangeResultReceiver;
 import org.terracotta.nomad.client.recovery.RecoveryResultReceiver;
 import org.terracotta.nomad.client.results.DiscoverResultsReceiver;
@@ -51,6 +53,7 @@ import org.terracotta.nomad.server.NomadException;
 import org.terracotta.nomad.server.NomadServer;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -58,6 +61,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -68,6 +72,7 @@ import java.util.stream.Stream;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 import static org.terracotta.diagnostic.model.LogicalServerState.ACTIVE;
 import static org.terracotta.diagnostic.model.LogicalServerState.ACTIVE_RECONNECTING;
 import static org.terracotta.diagnostic.model.LogicalServerState.DIAGNOSTIC;
@@ -86,24 +91,38 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
   private final NomadEnvironment environment;
   private final MultiDiagnosticServiceProvider multiDiagnosticServiceProvider;
   private final NomadEntityProvider nomadEntityProvider;
+  private final ConcurrencySizing concurrencySizing;
+  private final Duration phaseTimeout;
 
   public DefaultNomadManager(NomadEnvironment environment, MultiDiagnosticServiceProvider multiDiagnosticServiceProvider, NomadEntityProvider nomadEntityProvider) {
+    this(environment, multiDiagnosticServiceProvider, nomadEntityProvider, null, null);
+  }
+
+  /**
+   * @param concurrencySizing if not null, the messages of each Nomad phase are sent to the nodes in parallel, except for repairs.
+   *                          For configuration changes, they are sent to the active nodes in parallel, and then to the passive nodes.
+   * @param phaseTimeout      when sending messages in parallel, the maximum time to wait for all the nodes to answer during a phase, or null to wait forever
+   */
+  public DefaultNomadManager(NomadEnvironment environment, MultiDiagnosticServiceProvider multiDiagnosticServiceProvider, NomadEntityProvider nomadEntityProvider,
+                             ConcurrencySizing concurrencySizing, Duration phaseTimeout) {
     this.environment = environment;
     this.multiDiagnosticServiceProvider = multiDiagnosticServiceProvider;
     this.nomadEntityProvider = nomadEntityProvider;
+    this.concurrencySizing = concurrencySizing;
+    this.phaseTimeout = phaseTimeout;
   }
 
   public void runConfigurationDiscovery(Map<Endpoint, LogicalServerState> nodes, DiscoverResultsReceiver<T> results) {
     LOGGER.debug("Attempting to discover nodes: {}", nodes);
     List<Endpoint> orderedList = keepOnlineAndOrderPassivesFirst(nodes);
-    try (NomadClient<T> client = createDiagnosticNomadClient(orderedList)) {
+    try (NomadClient<T> client = createDiagnosticNomadClient(orderedList, createDispatcher(orderedList.size()))) {
       client.tryDiscovery(new MultiDiscoveryResultReceiver<>(asList(new LoggingResultReceiver<>(), results)));
     }
   }
 
   public void runClusterActivation(Collection<Endpoint> nodes, Cluster cluster, ChangeResultReceiver<T> results) {
     LOGGER.debug("Attempting to activate cluster: {}", cluster.toShapeString());
-    try (NomadClient<T> client = createDiagnosticNomadClient(new ArrayList<>(nodes))) {
+    try (NomadClient<T> client = createDiagnosticNomadClient(new ArrayList<>(nodes), createDispatcher(nodes.size()))) {
       client.tryApplyChange(new MultiChangeResultReceiver<>(asList(new LoggingResultReceiver<>(), results)), new ClusterActivationNomadChange(cluster));
     }
   }
@@ -120,7 +139,8 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
   public void runConfigurationRepair(Map<Endpoint, LogicalServerState> onlineActivatedNodes, int totalNodeCount, RecoveryResultReceiver<T> results, ChangeRequestState forcedState) {
     LOGGER.debug("Attempting to repair configuration on nodes: {}", onlineActivatedNodes.keySet());
     List<Endpoint> orderedList = keepOnlineAndOrderPassivesFirst(onlineActivatedNodes);
-    try (NomadClient<T> client = createDiagnosticNomadClient(orderedList)) {
+    // passive servers are repaired first, so messages are sent in order
+    try (NomadClient<T> client = createDiagnosticNomadClient(orderedList, NomadMessageDispatcher.sequential())) {
       client.tryRecovery(new MultiRecoveryResultReceiver<>(asList(new LoggingResultReceiver<>(), results)), totalNodeCount, forcedState);
     }
   }
@@ -128,15 +148,21 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
   /**
    * create a nomad client that is preparing through diagnostic port and committing through diagnostic port
    */
-  private NomadClient<T> createDiagnosticNomadClient(List<Endpoint> expectedOnlineNodes) {
+  private NomadClient<T> createDiagnosticNomadClient(List<Endpoint> expectedOnlineNodes, NomadMessageDispatcher dispatcher) {
     LOGGER.trace("createDiagnosticNomadClient({})", expectedOnlineNodes);
     // create normal diagnostic endpoints
-    List<NomadEndpoint<T>> nomadEndpoints = createDiagnosticNomadEndpoints(expectedOnlineNodes);
+    List<NomadEndpoint<T>> nomadEndpoints;
+    try {
+      nomadEndpoints = createDiagnosticNomadEndpoints(expectedOnlineNodes);
+    } catch (RuntimeException e) {
+      dispatcher.close();
+      throw e;
+    }
     // create the client
     String host = environment.getHost();
     String user = environment.getUser();
     Clock clock = environment.getClock();
-    return new NomadClient<>(nomadEndpoints, host, user, clock);
+    return new NomadClient<>(nomadEndpoints, host, user, clock, dispatcher);
   }
 
   /**
@@ -189,9 +215,11 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
 
     // create normal diagnostic endpoints for the prepare phase
     List<NomadEndpoint<T>> nomadEndpoints;
+    Set<HostPort> actives;
     try {
       List<Endpoint> orderedList = keepOnlineAndOrderPassivesFirst(onlineNodes);
       Collections.reverse(orderedList); // put actives first
+      actives = orderedList.stream().filter(endpoint -> onlineNodes.get(endpoint).isActive()).map(Endpoint::getHostPort).collect(toSet());
       LOGGER.trace("Connecting to diagnostic ports: {}", orderedList);
       nomadEndpoints = createDiagnosticNomadEndpoints(orderedList);
     } catch (RuntimeException e) {
@@ -218,11 +246,14 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
             .map(Map.Entry::getKey)
             .get();
 
-        CompletableFuture<AcceptRejectResponse> result = cache.computeIfAbsent(stripeUID, uid -> {
+        // The nodes of a stripe can be committed concurrently: the first one does the call while the others wait for its outcome.
+        CompletableFuture<AcceptRejectResponse> c = new CompletableFuture<>();
+        CompletableFuture<AcceptRejectResponse> result = cache.putIfAbsent(stripeUID, c);
+        if (result == null) {
+          result = c;
           LOGGER.trace("Committing topology change to stripe UID: {}", stripeUID);
 
           LOGGER.trace("Sending commit message: {} to stripe UID: {}", message, stripeUID);
-          CompletableFuture<AcceptRejectResponse> c = new CompletableFuture<>();
           try {
             AcceptRejectResponse acceptRejectResponse = stripeEndpoints.get(stripeUID).commit(message);
             LOGGER.trace("Received commit response: {} from stripe UID: {}", message, stripeUID);
@@ -231,8 +262,7 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
             LOGGER.trace("Received commit failure: '{}' from stripe UID: {}", e.getMessage(), stripeUID, e);
             c.completeExceptionally(e);
           }
-          return c;
-        });
+        }
         try {
           return result.get();
         } catch (InterruptedException ie) {
@@ -258,7 +288,8 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
     String host = environment.getHost();
     String user = environment.getUser();
     Clock clock = environment.getClock();
-    return new NomadClient<T>(nomadEndpoints, host, user, clock) {
+    // when sending in parallel, actives still get the messages of a phase before passives
+    return new NomadClient<T>(nomadEndpoints, host, user, clock, createDispatcher(nomadEndpoints.size()).firstTo(actives::contains)) {
       @Override
       public void close() {
         try {
@@ -270,6 +301,12 @@ public class DefaultNomadManager<T> implements NomadManager<T> {
     };
   }
 
+  private NomadMessageDispatcher createDispatcher(int nodeCount) {
+    return concurrencySizing == null ?
+        NomadMessageDispatcher.sequential() :
+        NomadMessageDispatcher.concurrent(concurrencySizing.getThreadCount(nodeCount), phaseTimeout);
+  }
+
   /**
    * build a list of endpoints through diagnostic port, keeping the same order wanted by user
    */
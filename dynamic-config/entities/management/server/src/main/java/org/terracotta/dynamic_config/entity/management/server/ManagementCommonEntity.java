@@ -25,6 +25,7 @@ import org.terracotta.dynamic_config.api.model.Stripe;
 import org.terracotta.dynamic_config.api.model.UID;
 import org.terracotta.dynamic_config.api.model.nomad.SettingNomadChange;
 import org.terracotta.dynamic_config.api.service.Props;
+import org.terracotta.dynamic_config.api.service.RenderCache;
 import org.terracotta.dynamic_config.api.service.TopologyService;
 import org.terracotta.dynamic_config.api.server.DynamicConfigEventService;
 import org.terracotta.dynamic_config.api.server.DynamicConfigListener;
@@ -52,18 +53,40 @@ public class ManagementCommonEntity implements CommonServerEntity<EntityMessage,
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ManagementCommonEntity.class);
 
+  /**
+   * System property to only send what changed since the previous version in the notifications of saved configurations,
+   * instead of the whole configuration
+   */
+  public static final String NOTIFY_DIFF_PROPERTY = "terracotta.dynamic-config.management.notifyDiff";
+
+  // number of saved configurations kept to compute what changed in the next one
+  private static final int DIFF_VERSIONS = 16;
+
   final EntityManagementRegistry managementRegistry;
   final boolean active;
 
   private final DynamicConfigEventService dynamicConfigEventService;
   private final TopologyService topologyService;
+  private final RenderCache renderCache;
+  // records the configuration versions saved on this server only, so it must not be the shared cache
+  private final RenderCache diffCache;
   private volatile EventRegistration eventRegistration;
 
   public ManagementCommonEntity(EntityManagementRegistry managementRegistry, DynamicConfigEventService dynamicConfigEventService, TopologyService topologyService) {
+    this(managementRegistry, dynamicConfigEventService, topologyService, RenderCache.shared(), Boolean.getBoolean(NOTIFY_DIFF_PROPERTY) ? new RenderCache(DIFF_VERSIONS) : null);
+  }
+
+  /**
+   * @param diffCache the cache recording the saved configurations to notify only what changed, or null to always notify
+   *                  the whole configuration
+   */
+  ManagementCommonEntity(EntityManagementRegistry managementRegistry, DynamicConfigEventService dynamicConfigEventService, TopologyService topologyService, RenderCache renderCache, RenderCache diffCache) {
     // these can be null if management is not wired or if dynamic config is not available
     this.managementRegistry = managementRegistry;
     this.dynamicConfigEventService = dynamicConfigEventService;
     this.topologyService = topologyService;
+    this.renderCache = renderCache;
+    this.diffCache = diffCache;
     this.active = managementRegistry != null && dynamicConfigEventService != null;
   }
 
@@ -106,7 +129,7 @@ public class ManagementCommonEntity implements CommonServerEntity<EntityMessage,
           boolean restartRequired = !change.canUpdateRuntimeTopology(nodeContext);
           Map<String, String> data = new TreeMap<>();
           data.put("change", change.toString());
-          data.put("result", Props.toString(updated.toProperties(false, false, true)));
+          data.put("result", renderCache.render(updated));
           data.put("operation", change.getOperation().name().toLowerCase());
           data.put("setting", change.getSetting().toString());
           data.put("name", change.getName());
@@ -135,7 +158,14 @@ public class ManagementCommonEntity implements CommonServerEntity<EntityMessage,
         public void onNewConfigurationSaved(NodeContext nodeContext, Long version) {
           Map<String, String> data = new TreeMap<>();
           data.put("version", String.valueOf(version));
-          data.put("upcomingConfig", Props.toString(nodeContext.getCluster().toProperties(false, false, true)));
+          RenderCache.Diff diff = diffCache != null && version != null ? diffCache.diff(version, nodeContext.getCluster()) : null;
+          if (diff == null || diff.isFull()) {
+            data.put("upcomingConfig", renderCache.render(nodeContext));
+          } else {
+            data.put("previousVersion", String.valueOf(diff.getPreviousVersion()));
+            data.put("upcomingConfigChanges", Props.toString(diff.getChanged()));
+            data.put("upcomingConfigRemovals", String.join(",", diff.getRemoved()));
+          }
           monitoringService.pushNotification(new ContextualNotification(source, "DYNAMIC_CONFIG_SAVED", data));
         }
 
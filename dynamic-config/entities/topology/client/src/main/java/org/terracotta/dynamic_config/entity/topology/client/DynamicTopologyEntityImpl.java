@@ -26,14 +26,22 @@ import org.terracotta.dynamic_config.api.model.Stripe;
 import org.terracotta.dynamic_config.api.model.UID;
 import org.terracotta.dynamic_config.entity.topology.common.Message;
 import org.terracotta.dynamic_config.entity.topology.common.Response;
+import org.terracotta.dynamic_config.entity.topology.common.TopologyVersion;
 import org.terracotta.dynamic_config.entity.topology.common.Type;
 import org.terracotta.entity.EndpointDelegate;
 import org.terracotta.entity.EntityClientEndpoint;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -41,6 +49,7 @@ import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_HAS_
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_LICENSE;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_MUST_BE_RESTARTED;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER;
+import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER_DELTAS;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_UPCOMING_CLUSTER;
 
 /**
@@ -49,11 +58,32 @@ import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_UPCO
 class DynamicTopologyEntityImpl implements DynamicTopologyEntity {
   private static final Logger LOGGER = LoggerFactory.getLogger(DynamicTopologyEntityImpl.class);
 
+  // maximum number of events kept while the runtime cluster is fetched again: the oldest ones are dropped after
+  private static final int MAX_PENDING_EVENTS = 1024;
+  private static final int MAX_RESYNC_ATTEMPTS = 3;
+  private static final Duration RESYNC_RETRY_DELAY = Duration.ofSeconds(1);
+
   private final EntityClientEndpoint<Message, Response> endpoint;
   private final Settings settings;
 
   private volatile Listener listener = new Listener() {};
 
+  // When the server versions its events, the runtime cluster is kept up to date from the events, so that the server
+  // can send only the changes instead of the whole cluster. A full copy is fetched again whenever the events received
+  // cannot be applied: when some were missed, when the cluster diverged or when the active server changed.
+  private final Object topologyLock = new Object();
+  private final Deque<Response> pendingEvents = new ArrayDeque<>();
+  // the listener is called from this thread after a resync, while holding the topology lock, so a slow listener
+  // cannot hold up the threads of a shared pool
+  private final ExecutorService resyncExecutor = new ThreadPoolExecutor(0, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+    Thread thread = new Thread(r, "DynamicTopologyEntity-resync");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private Cluster cluster;
+  private TopologyVersion topologyVersion;
+  private boolean resyncing;
+
   public DynamicTopologyEntityImpl(EntityClientEndpoint<Message, Response> endpoint, Settings settings) {
     this.endpoint = endpoint;
     this.settings = settings == null ? new Settings() : settings;
@@ -61,39 +91,13 @@ class DynamicTopologyEntityImpl implements DynamicTopologyEntity {
     endpoint.setDelegate(new EndpointDelegate<Response>() {
       @Override
       public void handleMessage(Response messageFromServer) {
-        try {
-          LOGGER.trace("handleMessage({})", messageFromServer);
-          switch (messageFromServer.getType()) {
-            case EVENT_NODE_ADDITION: {
-              List<Object> payload = messageFromServer.getPayload();
-              listener.onNodeAddition((Cluster) payload.get(0), (UID) payload.get(1));
-              break;
-            }
-            case EVENT_NODE_REMOVAL: {
-              List<Object> payload = messageFromServer.getPayload();
-              listener.onNodeRemoval((Cluster) payload.get(0), (UID) payload.get(1), (Node) payload.get(2));
-              break;
-            }
-            case EVENT_SETTING_CHANGED: {
-              List<Object> payload = messageFromServer.getPayload();
-              listener.onSettingChange((Cluster) payload.get(0), (Configuration) payload.get(1));
-              break;
-            }
-            case EVENT_STRIPE_ADDITION: {
-              List<Object> payload = messageFromServer.getPayload();
-              listener.onStripeAddition((Cluster) payload.get(0), (UID) payload.get(1));
-              break;
-            }
-            case EVENT_STRIPE_REMOVAL: {
-              List<Object> payload = messageFromServer.getPayload();
-              listener.onStripeRemoval((Cluster) payload.get(0), (Stripe) payload.get(1));
-              break;
-            }
-            default:
-              throw new AssertionError(messageFromServer);
+        LOGGER.trace("handleMessage({})", messageFromServer);
+        synchronized (topologyLock) {
+          if (resyncing) {
+            addPendingEvent(messageFromServer);
+          } else {
+            onEvent(messageFromServer);
           }
-        } catch (RuntimeException e) {
-          LOGGER.error("Error handling message: " + messageFromServer + ": " + e.getMessage(), e);
         }
       }
 
@@ -111,6 +115,7 @@ class DynamicTopologyEntityImpl implements DynamicTopologyEntity {
 
   @Override
   public void close() {
+    resyncExecutor.shutdownNow();
     endpoint.close();
   }
 
@@ -150,6 +155,10 @@ class DynamicTopologyEntityImpl implements DynamicTopologyEntity {
   }
 
   public <T> T request(Type messageType, Class<T> type) throws TimeoutException, InterruptedException {
+    return type.cast(invoke(messageType).getPayload());
+  }
+
+  private Response invoke(Type messageType) throws TimeoutException, InterruptedException {
     LOGGER.trace("request({})", messageType);
     Duration requestTimeout = settings.getRequestTimeout();
     try {
@@ -157,9 +166,166 @@ class DynamicTopologyEntityImpl implements DynamicTopologyEntity {
           .invoke();
       Response response = (requestTimeout == null ? invoke.get() : invoke.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS));
       LOGGER.trace("response({})", response);
-      return type.cast(response.getPayload());
+      return response;
     } catch (ExecutionException e) {
       throw new AssertionError(e); // programming error
     }
   }
+
+  // must be called while holding the topology lock, to keep the events in order
+  private void onEvent(Response event) {
+    TopologyVersion version = event.getTopologyVersion();
+    List<Object> payload = event.getPayload();
+
+    if (!event.isDelta()) {
+      Cluster eventCluster = (Cluster) payload.get(0);
+      if (version != null) {
+        // the server is able to send deltas, but does not know yet that this client can apply them
+        cluster = eventCluster.clone();
+        topologyVersion = version;
+        resync();
+      }
+      dispatch(event.getType(), eventCluster, payload);
+      return;
+    }
+
+    Cluster updated = topologyVersion != null && topologyVersion.isFollowedBy(version) ? apply(cluster, event) : null;
+    if (updated == null || TopologyVersion.digest(updated) != version.getDigest()) {
+      LOGGER.debug("Unable to apply event: {} to topology version: {}", event, topologyVersion);
+      addPendingEvent(event);
+      resync();
+      return;
+    }
+    cluster = updated;
+    topologyVersion = version;
+    dispatch(event.getType(), updated.clone(), payload);
+  }
+
+  // must be called while holding the topology lock
+  private void addPendingEvent(Response event) {
+    if (pendingEvents.size() >= MAX_PENDING_EVENTS) {
+      // the change is still part of the fetched cluster, but the listener will not be notified of it
+      LOGGER.warn("Too many events received while fetching the runtime cluster. Dropping event: {}", pendingEvents.pollFirst());
+    }
+    pendingEvents.addLast(event);
+  }
+
+  // must be called while holding the topology lock
+  private void resync() {
+    if (!resyncing) {
+      resyncing = true;
+      try {
+        // the events are received on a platform thread, which must not be blocked by a request to the server
+        resyncExecutor.execute(this::fetchRuntimeCluster);
+      } catch (RejectedExecutionException e) {
+        // closed
+        resyncing = false;
+        pendingEvents.clear();
+      }
+    }
+  }
+
+  private void fetchRuntimeCluster() {
+    Response snapshot = null;
+    try {
+      for (int attempt = 1; snapshot == null && attempt <= MAX_RESYNC_ATTEMPTS; attempt++) {
+        try {
+          // also subscribes this client to the deltas
+          snapshot = invoke(REQ_RUNTIME_CLUSTER_DELTAS);
+        } catch (TimeoutException | RuntimeException e) {
+          LOGGER.warn("Unable to fetch the runtime cluster (attempt {}/{}): {}", attempt, MAX_RESYNC_ATTEMPTS, e.getMessage(), e);
+          if (attempt < MAX_RESYNC_ATTEMPTS) {
+            Thread.sleep(RESYNC_RETRY_DELAY.toMillis());
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      // whatever happened, the events received in the meantime are handled, and a next event can resync again
+      synchronized (topologyLock) {
+        resynced(snapshot);
+      }
+    }
+  }
+
+  // must be called while holding the topology lock
+  private void resynced(Response snapshot) {
+    resyncing = false;
+    cluster = snapshot == null ? null : snapshot.getPayload();
+    topologyVersion = snapshot == null ? null : snapshot.getTopologyVersion();
+
+    List<Response> events = new ArrayList<>(pendingEvents);
+    pendingEvents.clear();
+    for (Response event : events) {
+      TopologyVersion version = event.getTopologyVersion();
+      if (resyncing) {
+        addPendingEvent(event);
+      } else if (topologyVersion != null && version != null && topologyVersion.includes(version)) {
+        // the change is already part of the fetched cluster
+        List<Object> payload = event.getPayload();
+        dispatch(event.getType(), event.isDelta() ? cluster.clone() : (Cluster) payload.get(0), payload);
+      } else if (event.isDelta() && topologyVersion == null) {
+        LOGGER.warn("Unable to apply event: {}", event);
+      } else {
+        onEvent(event);
+      }
+    }
+  }
+
+  private static Cluster apply(Cluster cluster, Response delta) {
+    List<Object> payload = delta.getPayload();
+    Cluster updated = cluster.clone();
+    try {
+      switch (delta.getType()) {
+        case EVENT_NODE_ADDITION:
+          updated.getStripe((UID) payload.get(2)).get().addNode((Node) payload.get(3));
+          break;
+        case EVENT_NODE_REMOVAL:
+          updated.removeNode(((Node) payload.get(2)).getUID());
+          break;
+        case EVENT_SETTING_CHANGED:
+          ((Configuration) payload.get(1)).apply(updated);
+          break;
+        case EVENT_STRIPE_ADDITION:
+          updated.addStripe((Stripe) payload.get(2));
+          break;
+        case EVENT_STRIPE_REMOVAL:
+          updated.removeStripe(((Stripe) payload.get(1)).getUID());
+          break;
+        default:
+          throw new AssertionError(delta);
+      }
+      return updated;
+    } catch (RuntimeException e) {
+      LOGGER.debug("Unable to apply event: {}: {}", delta, e.getMessage(), e);
+      return null;
+    }
+  }
+
+  private void dispatch(Type type, Cluster cluster, List<Object> payload) {
+    try {
+      switch (type) {
+        case EVENT_NODE_ADDITION:
+          listener.onNodeAddition(cluster, (UID) payload.get(1));
+          break;
+        case EVENT_NODE_REMOVAL:
+          listener.onNodeRemoval(cluster, (UID) payload.get(1), (Node) payload.get(2));
+          break;
+        case EVENT_SETTING_CHANGED:
+          listener.onSettingChange(cluster, (Configuration) payload.get(1));
+          break;
+        case EVENT_STRIPE_ADDITION:
+          listener.onStripeAddition(cluster, (UID) payload.get(1));
+          break;
+        case EVENT_STRIPE_REMOVAL:
+          listener.onStripeRemoval(cluster, (Stripe) payload.get(1));
+          break;
+        default:
+          throw new AssertionError(type);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.error("Error handling message: " + type + ": " + e.getMessage(), e);
+    }
+  }
 }
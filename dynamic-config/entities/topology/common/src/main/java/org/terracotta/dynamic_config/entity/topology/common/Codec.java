@@ -26,6 +26,7 @@ import org.terracotta.dynamic_config.api.model.Stripe;
 import org.terracotta.dynamic_config.api.model.UID;
 import org.terracotta.dynamic_config.api.service.ClusterFactory;
 import org.terracotta.dynamic_config.api.service.Props;
+import org.terracotta.dynamic_config.api.service.RenderCache;
 import org.terracotta.entity.MessageCodec;
 import org.terracotta.entity.MessageCodecException;
 import org.terracotta.runnel.Struct;
@@ -35,6 +36,7 @@ import org.terracotta.runnel.encoding.StructEncoder;
 import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -53,6 +55,7 @@ import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_HAS_
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_LICENSE;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_MUST_BE_RESTARTED;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER;
+import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER_DELTAS;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_UPCOMING_CLUSTER;
 import static org.terracotta.runnel.EnumMappingBuilder.newEnumMappingBuilder;
 import static org.terracotta.runnel.StructBuilder.newStructBuilder;
@@ -66,6 +69,8 @@ public class Codec implements MessageCodec<Message, Response> {
 
   private static final DateTimeFormatter DT_FORMATTER = DateTimeFormatter.ofPattern("yyyy/MM/dd", Locale.ENGLISH);
 
+  private static final EnumSet<Type> EVENTS = EnumSet.of(EVENT_NODE_ADDITION, EVENT_NODE_REMOVAL, EVENT_SETTING_CHANGED, EVENT_STRIPE_ADDITION, EVENT_STRIPE_REMOVAL);
+
   private final Struct struct = newStructBuilder()
       .enm("type", 10, newEnumMappingBuilder(Type.class)
           .mapping(REQ_LICENSE, 1)
@@ -78,6 +83,7 @@ public class Codec implements MessageCodec<Message, Response> {
           .mapping(EVENT_SETTING_CHANGED, 8)
           .mapping(EVENT_STRIPE_ADDITION, 9)
           .mapping(EVENT_STRIPE_REMOVAL, 10)
+          .mapping(REQ_RUNTIME_CLUSTER_DELTAS, 11)
           .build())
       .struct(REQ_LICENSE.name(), 20, newStructBuilder()
           .string("date", 10)
@@ -119,13 +125,21 @@ public class Codec implements MessageCodec<Message, Response> {
           .string("stripe", 10)
           .string("cluster", 20)
           .build())
+      .string(REQ_RUNTIME_CLUSTER_DELTAS.name(), 135) // since V3
+      // since V3: version of the topology after an event, or of the cluster returned by REQ_RUNTIME_CLUSTER_DELTAS.
+      // The events sent as deltas do not contain the cluster fields.
+      .struct("TOPOLOGY_VERSION", 140, newStructBuilder()
+          .string("epoch", 10)
+          .int64("version", 20)
+          .int32("digest", 30)
+          .build())
       .build();
 
   @Override
   public byte[] encodeMessage(Message message) throws MessageCodecException {
     LOGGER.trace("encodeMessage({})", message);
     try {
-      return struct.encoder()
+      return struct.streamingEncoder()
           .enm("type", message.getType())
           .encode()
           .array();
@@ -148,9 +162,14 @@ public class Codec implements MessageCodec<Message, Response> {
   @Override
   public byte[] encodeResponse(Response response) throws MessageCodecException {
     LOGGER.trace("encodeResponse({})", response);
+    // events are broadcast to all the clients: they are only encoded once
+    byte[] encoded = response.getEncoded();
+    if (encoded != null) {
+      return encoded;
+    }
     try {
       Type type = response.getType();
-      StructEncoder<Void> encoder = struct.encoder();
+      StructEncoder<Void> encoder = struct.streamingEncoder();
       encoder.enm("type", type);
       switch (type) {
         case REQ_LICENSE: {
@@ -173,7 +192,8 @@ public class Codec implements MessageCodec<Message, Response> {
           break;
         }
         case REQ_RUNTIME_CLUSTER:
-        case REQ_UPCOMING_CLUSTER: {
+        case REQ_UPCOMING_CLUSTER:
+        case REQ_RUNTIME_CLUSTER_DELTAS: {
           encoder.string(type.name(), encodeCluster(response.getPayload()));
           break;
         }
@@ -181,11 +201,13 @@ public class Codec implements MessageCodec<Message, Response> {
           List<Object> oo = response.getPayload();
           Cluster cluster = (Cluster) oo.get(0);
           UID addedNodeUID = (UID) oo.get(1);
-          encoder.struct(type.name())
+          StructEncoder<StructEncoder<Void>> event = encoder.struct(type.name())
               .string("stripeUID", cluster.getStripeByNode(addedNodeUID).get().getUID().toString()) // V1 (deprecated)
               .string("node", encodeNode(cluster.getNode(addedNodeUID).get())) // V1 (deprecated)
-              .string("nodeUID", addedNodeUID.toString()) // since V2
-              .string("cluster", encodeCluster(cluster)); // since V2
+              .string("nodeUID", addedNodeUID.toString()); // since V2
+          if (!response.isDelta()) {
+            event.string("cluster", encodeCluster(cluster)); // since V2
+          }
           break;
         }
         case EVENT_NODE_REMOVAL: {
@@ -193,47 +215,69 @@ public class Codec implements MessageCodec<Message, Response> {
           Cluster cluster = (Cluster) oo.get(0);
           UID stripeUID = (UID) oo.get(1);
           Node node = (Node) oo.get(2);
-          encoder.struct(type.name())
+          StructEncoder<StructEncoder<Void>> event = encoder.struct(type.name())
               .string("stripeUID", stripeUID.toString())
-              .string("node", encodeNode(node))
-              .string("cluster", encodeCluster(cluster)); // since V2
+              .string("node", encodeNode(node));
+          if (!response.isDelta()) {
+            event.string("cluster", encodeCluster(cluster)); // since V2
+          }
           break;
         }
         case EVENT_SETTING_CHANGED: {
           List<Object> oo = response.getPayload();
-          encoder.struct(type.name())
-              .string("configuration", encodeConfiguration((Configuration) oo.get(1)))
-              .string("cluster", encodeCluster((Cluster) oo.get(0)));
+          StructEncoder<StructEncoder<Void>> event = encoder.struct(type.name())
+              .string("configuration", encodeConfiguration((Configuration) oo.get(1)));
+          if (!response.isDelta()) {
+            event.string("cluster", encodeCluster((Cluster) oo.get(0)));
+          }
           break;
         }
         case EVENT_STRIPE_ADDITION: {
           List<Object> oo = response.getPayload();
           Cluster cluster = (Cluster) oo.get(0);
           UID stripeUID = (UID) oo.get(1);
-          // V1 (deprecated)
+          // V1 (deprecated), but also the stripe to add for a delta
           encoder.string(type.name(), encodeStripe(cluster.getStripe(stripeUID).get()));
           // since V2
-          encoder.struct("EVENT_STRIPE_ADDITION_V2")
-              .string("stripeUID", stripeUID.toString())
-              .string("cluster", encodeCluster(cluster));
+          StructEncoder<StructEncoder<Void>> event = encoder.struct("EVENT_STRIPE_ADDITION_V2")
+              .string("stripeUID", stripeUID.toString());
+          if (!response.isDelta()) {
+            event.string("cluster", encodeCluster(cluster));
+          }
           break;
         }
         case EVENT_STRIPE_REMOVAL: {
           List<Object> oo = response.getPayload();
           Cluster cluster = (Cluster) oo.get(0);
           Stripe stripe = (Stripe) oo.get(1);
-          // V1 (deprecated)
-          encoder.string(type.name(), encodeStripe(stripe));
+          if (!response.isDelta()) {
+            // V1 (deprecated)
+            encoder.string(type.name(), encodeStripe(stripe));
+          }
           // since V2
-          encoder.struct("EVENT_STRIPE_REMOVAL_V2")
-              .string("stripe", encodeStripe(stripe))
-              .string("cluster", encodeCluster(cluster));
+          StructEncoder<StructEncoder<Void>> event = encoder.struct("EVENT_STRIPE_REMOVAL_V2")
+              .string("stripe", encodeStripe(stripe));
+          if (!response.isDelta()) {
+            event.string("cluster", encodeCluster(cluster));
+          }
           break;
         }
         default:
           throw new UnsupportedOperationException(type.name());
       }
-      return encoder.encode().array();
+      TopologyVersion topologyVersion = response.getTopologyVersion();
+      if (topologyVersion != null) {
+        // since V3
+        encoder.struct("TOPOLOGY_VERSION")
+            .string("epoch", topologyVersion.getEpoch().toString())
+            .int64("version", topologyVersion.getVersion())
+            .int32("digest", topologyVersion.getDigest());
+      }
+      encoded = encoder.encode().array();
+      if (EVENTS.contains(type)) {
+        response.setEncoded(encoded);
+      }
+      return encoded;
     } catch (RuntimeException e) {
       LOGGER.error("encodeResponse({}): {}", response, e.getMessage(), e);
       throw new MessageCodecException(e.getMessage(), e);
@@ -266,40 +310,63 @@ public class Codec implements MessageCodec<Message, Response> {
         case REQ_RUNTIME_CLUSTER:
         case REQ_UPCOMING_CLUSTER:
           return new Response(type, decodeCluster(decoder.string(type.name())));
+        case REQ_RUNTIME_CLUSTER_DELTAS: {
+          Cluster cluster = decodeCluster(decoder.string(type.name()));
+          return new Response(type, cluster, decodeTopologyVersion(decoder), false);
+        }
         case EVENT_NODE_ADDITION: {
           // since V2
-          StructDecoder<?> event = decoder.struct(type.name());
+          StructDecoder<StructDecoder<Void>> event = decoder.struct(type.name());
+          String stripeUID = event.string("stripeUID");
+          String node = event.string("node");
           UID nodeUID = UID.valueOf(event.string("nodeUID"));
-          Cluster cluster = decodeCluster(event.string("cluster"));
-          return new Response(type, asList(cluster, nodeUID));
+          String cluster = event.string("cluster");
+          event.end();
+          return cluster != null ?
+              new Response(type, asList(decodeCluster(cluster), nodeUID), decodeTopologyVersion(decoder), false) :
+              new Response(type, asList(null, nodeUID, UID.valueOf(stripeUID), decodeNode(node)), decodeTopologyVersion(decoder), true);
         }
         case EVENT_NODE_REMOVAL: {
           // since V2
-          StructDecoder<?> event = decoder.struct(type.name());
+          StructDecoder<StructDecoder<Void>> event = decoder.struct(type.name());
           UID stripeUID = UID.valueOf(event.string("stripeUID"));
           Node removedNode = decodeNode(event.string("node"));
-          Cluster cluster = decodeCluster(event.string("cluster"));
-          return new Response(type, asList(cluster, stripeUID, removedNode));
+          String cluster = event.string("cluster");
+          event.end();
+          return cluster != null ?
+              new Response(type, asList(decodeCluster(cluster), stripeUID, removedNode), decodeTopologyVersion(decoder), false) :
+              new Response(type, asList(null, stripeUID, removedNode), decodeTopologyVersion(decoder), true);
         }
         case EVENT_SETTING_CHANGED: {
-          StructDecoder<?> event = decoder.struct(type.name());
-          final String configuration = event.string("configuration");
+          StructDecoder<StructDecoder<Void>> event = decoder.struct(type.name());
+          final Configuration configuration = decodeConfiguration(event.string("configuration"));
           final String cluster = event.string("cluster");
-          return new Response(type, asList(decodeCluster(cluster), decodeConfiguration(configuration)));
+          event.end();
+          return cluster != null ?
+              new Response(type, asList(decodeCluster(cluster), configuration), decodeTopologyVersion(decoder), false) :
+              new Response(type, asList(null, configuration), decodeTopologyVersion(decoder), true);
         }
         case EVENT_STRIPE_ADDITION: {
+          String stripe = decoder.string(type.name());
           // since V2
-          StructDecoder<?> event = decoder.struct("EVENT_STRIPE_ADDITION_V2");
+          StructDecoder<StructDecoder<Void>> event = decoder.struct("EVENT_STRIPE_ADDITION_V2");
           UID stripeUID = UID.valueOf(event.string("stripeUID"));
-          Cluster cluster = decodeCluster(event.string("cluster"));
-          return new Response(type, asList(cluster, stripeUID));
+          String cluster = event.string("cluster");
+          event.end();
+          return cluster != null ?
+              new Response(type, asList(decodeCluster(cluster), stripeUID), decodeTopologyVersion(decoder), false) :
+              new Response(type, asList(null, stripeUID, decodeStripe(stripe)), decodeTopologyVersion(decoder), true);
         }
-        case EVENT_STRIPE_REMOVAL:
+        case EVENT_STRIPE_REMOVAL: {
           // since V2
-          StructDecoder<?> event = decoder.struct("EVENT_STRIPE_REMOVAL_V2");
+          StructDecoder<StructDecoder<Void>> event = decoder.struct("EVENT_STRIPE_REMOVAL_V2");
           Stripe stripe = decodeStripe(event.string("stripe"));
-          Cluster cluster = decodeCluster(event.string("cluster"));
-          return new Response(type, asList(cluster, stripe));
+          String cluster = event.string("cluster");
+          event.end();
+          return cluster != null ?
+              new Response(type, asList(decodeCluster(cluster), stripe), decodeTopologyVersion(decoder), false) :
+              new Response(type, asList(null, stripe), decodeTopologyVersion(decoder), true);
+        }
         default:
           throw new UnsupportedOperationException(type.name());
       }
@@ -309,11 +376,21 @@ public class Codec implements MessageCodec<Message, Response> {
     }
   }
 
+  private static TopologyVersion decodeTopologyVersion(StructDecoder<Void> decoder) {
+    // since V3: absent when the server does not version its events
+    StructDecoder<StructDecoder<Void>> topologyVersion = decoder.struct("TOPOLOGY_VERSION");
+    if (topologyVersion == null) {
+      return null;
+    }
+    return new TopologyVersion(UID.valueOf(topologyVersion.string("epoch")), topologyVersion.int64("version"), topologyVersion.int32("digest"));
+  }
+
   // the encode / decode methods below re-uses the inner mapping mechanism we have
 
   private String encodeCluster(Cluster cluster) {
     requireNonNull(cluster);
-    return Props.toString(cluster.toProperties(false, false, true));
+    // the same cluster is also rendered for the digest of the topology version, and by the other listeners of the event
+    return RenderCache.shared().render(cluster);
   }
 
   private Cluster decodeCluster(String payload) {
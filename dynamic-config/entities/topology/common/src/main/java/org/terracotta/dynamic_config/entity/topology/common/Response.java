@@ -24,6 +24,11 @@ import java.util.Objects;
 import static java.util.Objects.requireNonNull;
 
 /**
+ * An event fired by the server can be sent either in full, carrying the whole cluster, or as a delta, carrying only
+ * the change to apply to the cluster of the previous {@link TopologyVersion}. On the server side, the payload of a delta
+ * is the same as the one of the full event. Once decoded on the client side, the cluster of a delta is null and the
+ * payload is completed with what is needed to apply the change.
+ *
  * @author Mathieu Carbou
  */
 public class Response implements EntityMessage, EntityResponse {
@@ -32,9 +37,25 @@ public class Response implements EntityMessage, EntityResponse {
 
   private final Object payload;
 
+  private final TopologyVersion topologyVersion;
+
+  private final boolean delta;
+
+  // encoded form of an event, which is sent to every client of the entity
+  private volatile byte[] encoded;
+
   public Response(Type type, Object payload) {
+    this(type, payload, null, false);
+  }
+
+  public Response(Type type, Object payload, TopologyVersion topologyVersion, boolean delta) {
     this.type = requireNonNull(type);
     this.payload = payload;
+    this.topologyVersion = topologyVersion;
+    this.delta = delta;
+    if (delta && topologyVersion == null) {
+      throw new IllegalArgumentException("A delta requires a topology version");
+    }
   }
 
   public Type getType() {
@@ -46,11 +67,32 @@ public class Response implements EntityMessage, EntityResponse {
     return (T) payload;
   }
 
+  /**
+   * @return the version of the topology after this event, or null if it was sent by a server not versioning its events
+   */
+  public TopologyVersion getTopologyVersion() {
+    return topologyVersion;
+  }
+
+  public boolean isDelta() {
+    return delta;
+  }
+
+  byte[] getEncoded() {
+    return encoded;
+  }
+
+  void setEncoded(byte[] encoded) {
+    this.encoded = encoded;
+  }
+
   @Override
   public String toString() {
     return "Response{" +
         "type=" + type +
         ", payload=" + payload +
+        (topologyVersion == null ? "" : ", topologyVersion=" + topologyVersion) +
+        (delta ? ", delta" : "") +
         '}';
   }
 
@@ -60,11 +102,13 @@ public class Response implements EntityMessage, EntityResponse {
     if (!(o instanceof Response)) return false;
     Response that = (Response) o;
     return getType() == that.getType() &&
-        Objects.equals(getPayload(), that.getPayload());
+        isDelta() == that.isDelta() &&
+        Objects.equals(getPayload(), that.getPayload()) &&
+        Objects.equals(getTopologyVersion(), that.getTopologyVersion());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(getType(), getPayload());
+    return Objects.hash(getType(), getPayload(), getTopologyVersion(), isDelta());
   }
 }
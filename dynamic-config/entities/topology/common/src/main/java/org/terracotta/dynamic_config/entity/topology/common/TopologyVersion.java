@@ -0,0 +1,96 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.entity.topology.common;
+
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.UID;
+import org.terracotta.dynamic_config.api.service.RenderCache;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the state of the topology after an event fired by the topology entity.
+ * <p>
+ * The version is incremented at each event fired by an active entity. The epoch identifies the active entity which
+ * fired the event, so that versions coming from different servers (i.e. after a failover) are never compared.
+ * The digest allows a client applying the changes to its own copy of the cluster to verify that it did not diverge
+ * from the server.
+ */
+public final class TopologyVersion {
+
+  private final UID epoch;
+  private final long version;
+  private final int digest;
+
+  public TopologyVersion(UID epoch, long version, int digest) {
+    this.epoch = requireNonNull(epoch);
+    this.version = version;
+    this.digest = digest;
+  }
+
+  public UID getEpoch() {
+    return epoch;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public int getDigest() {
+    return digest;
+  }
+
+  /**
+   * @return true if the given version is the one directly following this one, on the same server
+   */
+  public boolean isFollowedBy(TopologyVersion next) {
+    return epoch.equals(next.epoch) && version + 1 == next.version;
+  }
+
+  /**
+   * @return true if the given version is this one or an older one, on the same server
+   */
+  public boolean includes(TopologyVersion other) {
+    return epoch.equals(other.epoch) && other.version <= version;
+  }
+
+  public static int digest(Cluster cluster) {
+    return RenderCache.shared().render(cluster).hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return epoch + "@" + version;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof TopologyVersion)) return false;
+    TopologyVersion that = (TopologyVersion) o;
+    return version == that.version &&
+        digest == that.digest &&
+        epoch.equals(that.epoch);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(epoch, version, digest);
+  }
+}
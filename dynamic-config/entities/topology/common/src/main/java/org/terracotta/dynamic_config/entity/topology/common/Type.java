@@ -29,5 +29,10 @@ public enum Type {
   EVENT_NODE_REMOVAL,
   EVENT_SETTING_CHANGED,
   EVENT_STRIPE_ADDITION,
-  EVENT_STRIPE_REMOVAL
+  EVENT_STRIPE_REMOVAL,
+  /**
+   * Requests the runtime cluster along with its {@link TopologyVersion}, and subscribes the client to the events
+   * carrying only the changes instead of the whole cluster
+   */
+  REQ_RUNTIME_CLUSTER_DELTAS
 }
@@ -23,6 +23,7 @@ import org.terracotta.dynamic_config.api.model.License;
 import org.terracotta.dynamic_config.api.model.Node;
 import org.terracotta.dynamic_config.api.model.Stripe;
 import org.terracotta.dynamic_config.api.model.Testing;
+import org.terracotta.dynamic_config.api.model.UID;
 import org.terracotta.entity.MessageCodecException;
 
 import java.time.LocalDate;
@@ -33,6 +34,8 @@ import static java.util.Collections.singletonMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
 import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.EVENT_NODE_ADDITION;
@@ -44,6 +47,7 @@ import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_HAS_
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_LICENSE;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_MUST_BE_RESTARTED;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER;
+import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_RUNTIME_CLUSTER_DELTAS;
 import static org.terracotta.dynamic_config.entity.topology.common.Type.REQ_UPCOMING_CLUSTER;
 
 /**
@@ -78,6 +82,68 @@ public class CodecTest {
     test(EVENT_STRIPE_REMOVAL, asList(cluster, stripe));
   }
 
+  @Test
+  public void test_events_are_encoded_once() throws MessageCodecException {
+    Node node = newTestNode("foo", "localhost", 9410);
+    Stripe stripe = newTestStripe("stripe1").addNodes(node);
+    Cluster cluster = Testing.newTestCluster("bar", stripe);
+    Codec codec = new Codec();
+
+    Response event = new Response(EVENT_NODE_ADDITION, asList(cluster, node.getUID()));
+    assertThat(codec.encodeResponse(event), is(sameInstance(codec.encodeResponse(event))));
+
+    Response response = new Response(REQ_RUNTIME_CLUSTER, cluster);
+    assertThat(codec.encodeResponse(response), is(not(sameInstance(codec.encodeResponse(response)))));
+  }
+
+  @Test
+  public void test_versioned_events() throws MessageCodecException {
+    Node node = newTestNode("foo", "localhost", 9410);
+    Node node2 = newTestNode("foo2", "localhost", 9411);
+    Stripe stripe = newTestStripe("stripe1").addNodes(node, node2);
+    Cluster cluster = Testing.newTestCluster("bar", stripe);
+    TopologyVersion version = new TopologyVersion(UID.newUID(), 3, TopologyVersion.digest(cluster));
+    Codec codec = new Codec();
+
+    Response snapshot = new Response(REQ_RUNTIME_CLUSTER_DELTAS, cluster, version, false);
+    assertThat(codec.decodeResponse(codec.encodeResponse(snapshot)), is(equalTo(snapshot)));
+
+    Response full = new Response(EVENT_NODE_ADDITION, asList(cluster, node.getUID()), version, false);
+    assertThat(codec.decodeResponse(codec.encodeResponse(full)), is(equalTo(full)));
+
+    // deltas do not carry the cluster, but what is needed to apply the change
+    test(new Response(EVENT_NODE_ADDITION, asList(cluster, node.getUID()), version, true),
+        new Response(EVENT_NODE_ADDITION, asList(null, node.getUID(), stripe.getUID(), node), version, true));
+    test(new Response(EVENT_NODE_REMOVAL, asList(cluster, stripe.getUID(), node), version, true),
+        new Response(EVENT_NODE_REMOVAL, asList(null, stripe.getUID(), node), version, true));
+    test(new Response(EVENT_SETTING_CHANGED, asList(cluster, Configuration.valueOf("cluster-name=foo")), version, true),
+        new Response(EVENT_SETTING_CHANGED, asList(null, Configuration.valueOf("cluster-name=foo")), version, true));
+    test(new Response(EVENT_STRIPE_ADDITION, asList(cluster, stripe.getUID()), version, true),
+        new Response(EVENT_STRIPE_ADDITION, asList(null, stripe.getUID(), stripe), version, true));
+    test(new Response(EVENT_STRIPE_REMOVAL, asList(cluster, stripe), version, true),
+        new Response(EVENT_STRIPE_REMOVAL, asList(null, stripe), version, true));
+  }
+
+  @Test
+  public void test_topology_version() {
+    UID epoch = UID.newUID();
+    TopologyVersion version = new TopologyVersion(epoch, 3, 0);
+
+    assertThat(version.isFollowedBy(new TopologyVersion(epoch, 4, 0)), is(true));
+    assertThat(version.isFollowedBy(new TopologyVersion(epoch, 5, 0)), is(false));
+    assertThat(version.isFollowedBy(new TopologyVersion(UID.newUID(), 4, 0)), is(false));
+
+    assertThat(version.includes(new TopologyVersion(epoch, 2, 0)), is(true));
+    assertThat(version.includes(new TopologyVersion(epoch, 3, 0)), is(true));
+    assertThat(version.includes(new TopologyVersion(epoch, 4, 0)), is(false));
+    assertThat(version.includes(new TopologyVersion(UID.newUID(), 2, 0)), is(false));
+  }
+
+  private static void test(Response sent, Response expected) throws MessageCodecException {
+    Codec codec = new Codec();
+    assertThat(codec.decodeResponse(codec.encodeResponse(sent)), is(equalTo(expected)));
+  }
+
   private static void test(Type type, Object payload) throws MessageCodecException {
     Codec codec = new Codec();
 
@@ -27,6 +27,7 @@ import org.terracotta.dynamic_config.api.model.nomad.SettingNomadChange;
 import org.terracotta.dynamic_config.api.service.TopologyService;
 import org.terracotta.dynamic_config.entity.topology.common.Message;
 import org.terracotta.dynamic_config.entity.topology.common.Response;
+import org.terracotta.dynamic_config.entity.topology.common.TopologyVersion;
 import org.terracotta.dynamic_config.api.server.DynamicConfigEventService;
 import org.terracotta.dynamic_config.api.server.DynamicConfigListener;
 import org.terracotta.dynamic_config.api.server.EventRegistration;
@@ -41,6 +42,7 @@ import org.terracotta.entity.PassiveSynchronizationChannel;
 import org.terracotta.entity.StateDumpCollector;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Arrays.asList;
@@ -61,6 +63,18 @@ public class DynamicTopologyActiveServerEntity implements ActiveServerEntity<Mes
   private final ClientCommunicator clientCommunicator;
   private final Collection<ClientDescriptor> clients = ConcurrentHashMap.newKeySet();
 
+  // clients which are receiving the events as deltas
+  private final Collection<ClientDescriptor> deltaClients = ConcurrentHashMap.newKeySet();
+
+  // identifies the versions of the topology fired by this entity, which are reset on failover
+  private final UID epoch = UID.newUID();
+
+  // guards the topology version and the last cluster fired, so that a client subscribing to the deltas
+  // gets the cluster matching the version of the next delta
+  private final Object topologyLock = new Object();
+  private long topologyVersion;
+  private Cluster lastCluster;
+
   private volatile EventRegistration eventRegistration;
 
   public DynamicTopologyActiveServerEntity(TopologyService topologyService, DynamicConfigEventService eventService, ClientCommunicator clientCommunicator) {
@@ -81,6 +95,7 @@ public class DynamicTopologyActiveServerEntity implements ActiveServerEntity<Mes
   @Override
   public void disconnected(ClientDescriptor clientDescriptor) {
     clients.remove(clientDescriptor);
+    deltaClients.remove(clientDescriptor);
   }
 
   @Override
@@ -125,6 +140,13 @@ public class DynamicTopologyActiveServerEntity implements ActiveServerEntity<Mes
       case REQ_LICENSE: {
         return new Response(message.getType(), topologyService.getLicense().orElse(null));
       }
+      case REQ_RUNTIME_CLUSTER_DELTAS: {
+        synchronized (topologyLock) {
+          Cluster cluster = lastCluster != null ? lastCluster : topologyService.getRuntimeNodeContext().getCluster();
+          deltaClients.add(context.getClientDescriptor());
+          return new Response(message.getType(), cluster, new TopologyVersion(epoch, topologyVersion, TopologyVersion.digest(cluster)), false);
+        }
+      }
       default:
         throw new AssertionError(message);
     }
@@ -133,6 +155,10 @@ public class DynamicTopologyActiveServerEntity implements ActiveServerEntity<Mes
   @Override
   public void addStateTo(StateDumpCollector stateDumpCollector) {
     stateDumpCollector.addState("clients", clients.stream().map(Object::toString).collect(toList()));
+    stateDumpCollector.addState("deltaClients", deltaClients.stream().map(Object::toString).collect(toList()));
+    synchronized (topologyLock) {
+      stateDumpCollector.addState("topologyVersion", epoch + "@" + topologyVersion);
+    }
   }
 
   private void listen() {
@@ -176,13 +202,25 @@ public class DynamicTopologyActiveServerEntity implements ActiveServerEntity<Mes
   }
 
   private void fire(Response msg) {
-    if (!clients.isEmpty()) {
-      LOGGER.trace("fire({}): clients: {}", msg, clients);
-      for (ClientDescriptor client : clients) {
-        try {
-          clientCommunicator.sendNoResponse(client, msg);
-        } catch (MessageCodecException e) {
-          throw new AssertionError(e); // should never occur
+    synchronized (topologyLock) {
+      // the first element of the payload of all the events is the cluster after the change
+      Cluster cluster = (Cluster) msg.<List<Object>>getPayload().get(0);
+      lastCluster = cluster.clone();
+      topologyVersion++;
+      ClientDescriptor[] clients = this.clients.toArray(new ClientDescriptor[0]);
+      if (clients.length > 0) {
+        LOGGER.trace("fire({}): clients: {}", msg, asList(clients));
+        TopologyVersion version = new TopologyVersion(epoch, topologyVersion, TopologyVersion.digest(cluster));
+        // the full event is still understood by the clients which do not know about deltas
+        Response full = new Response(msg.getType(), msg.getPayload(), version, false);
+        Response delta = new Response(msg.getType(), msg.getPayload(), version, true);
+        // the codec encodes each of them once, and the same bytes are sent to every client
+        for (ClientDescriptor client : clients) {
+          try {
+            clientCommunicator.sendNoResponse(client, deltaClients.contains(client) ? delta : full);
+          } catch (MessageCodecException e) {
+            throw new AssertionError(e); // should never occur
+          }
         }
       }
     }
@@ -0,0 +1,107 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.api.json;
+
+import org.junit.Test;
+import org.terracotta.common.struct.MemoryUnit;
+import org.terracotta.common.struct.TimeUnit;
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.Node;
+import org.terracotta.dynamic_config.api.model.NodeContext;
+import org.terracotta.dynamic_config.api.model.RawPath;
+import org.terracotta.dynamic_config.api.model.Stripe;
+import org.terracotta.dynamic_config.api.model.Testing;
+import org.terracotta.dynamic_config.api.model.nomad.ClusterActivationNomadChange;
+import org.terracotta.json.DefaultJsonFactory;
+import org.terracotta.json.Json;
+import org.terracotta.nomad.client.change.NomadChange;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.terracotta.dynamic_config.api.model.FailoverPriority.availability;
+
+/**
+ * {@link Json#map(Object)} and friends must give the same result as serializing to a String and parsing it back,
+ * with the types and adapters of the dynamic config modules
+ */
+public class MapTest {
+
+  Node node1 = Testing.newTestNode("node1", "localhost", 9410)
+      .putDataDir("data", RawPath.valueOf("data"))
+      .setBackupDir(RawPath.valueOf("backup"))
+      .setBindAddress("0.0.0.0")
+      .setGroupPort(9430)
+      .setLogDir(RawPath.valueOf("log"));
+  Node node2 = Testing.newTestNode("node2", "localhost", 9411);
+
+  Cluster cluster = Testing.newTestCluster("c", new Stripe().addNodes(node1, node2))
+      .setClientLeaseDuration(1, TimeUnit.SECONDS)
+      .setFailoverPriority(availability())
+      .putOffheapResource("main", 512, MemoryUnit.MB)
+      .setSecuritySslTls(true);
+
+  @SuppressWarnings("deprecation")
+  private final List<Json> mappers = Arrays.asList(
+      new DefaultJsonFactory().withModule(new DynamicConfigJsonModule()).create(),
+      new DefaultJsonFactory().withModule(new DynamicConfigJsonModule()).pretty().create(),
+      new DefaultJsonFactory().withModule(new DynamicConfigJsonModule()).withModule(new DynamicConfigJsonModuleV1()).create());
+
+  @Test
+  public void test_cluster() {
+    assertMapsAsBefore(cluster);
+    assertMapsAsBefore(singletonList(cluster));
+    for (Json json : mappers) {
+      assertThat(json.map(json.map(cluster), Cluster.class), is(equalTo(cluster)));
+    }
+  }
+
+  @Test
+  public void test_node_context() {
+    NodeContext nodeContext = new NodeContext(cluster, node1.getUID());
+    assertMapsAsBefore(nodeContext);
+    for (Json json : mappers) {
+      assertThat(json.map(json.map(nodeContext), NodeContext.class), is(equalTo(nodeContext)));
+    }
+  }
+
+  @Test
+  public void test_nomad_change() {
+    NomadChange change = new ClusterActivationNomadChange(cluster);
+    assertMapsAsBefore(change);
+    for (Json json : mappers) {
+      assertThat(json.map(json.map(change), NomadChange.class), is(equalTo(change)));
+    }
+  }
+
+  private void assertMapsAsBefore(Object o) {
+    for (Json json : mappers) {
+      String serialized = json.toString(o);
+      assertThat(serialized, json.map(o), is(equalTo(json.parse(serialized, Object.class))));
+      assertThat(serialized, json.map(o, Object.class), is(equalTo(json.parse(serialized, Object.class))));
+      if (o instanceof List) {
+        assertThat(serialized, json.mapToList(o), is(equalTo(json.parseList(serialized))));
+      } else {
+        assertThat(serialized, json.mapToObject(o), is(equalTo(json.parseObject(serialized))));
+      }
+    }
+  }
+}
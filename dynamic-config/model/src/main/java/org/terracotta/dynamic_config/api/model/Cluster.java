@@ -79,6 +79,11 @@ public class Cluster implements Cloneable, PropertyHolder {
   private FailoverPriority failoverPriority;
   private Map<String, Measure<MemoryUnit>> offheapResources;
 
+  private transient boolean frozen;
+  private transient volatile ClusterIndex index;
+  private transient volatile long scansGeneration = -1;
+  private transient int scans;
+
   public Cluster() {
     this(emptyList());
   }
@@ -107,6 +112,7 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setUID(UID uid) {
+    checkMutable();
     this.uid = requireNonNull(uid);
     return this;
   }
@@ -140,21 +146,25 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setSecurityAuthc(String securityAuthc) {
+    checkMutable();
     this.securityAuthc = securityAuthc;
     return this;
   }
 
   public Cluster setSecuritySslTls(Boolean securitySslTls) {
+    checkMutable();
     this.securitySslTls = securitySslTls;
     return this;
   }
 
   public Cluster setSecurityWhitelist(Boolean securityWhitelist) {
+    checkMutable();
     this.securityWhitelist = securityWhitelist;
     return this;
   }
 
   public Cluster setFailoverPriority(FailoverPriority failoverPriority) {
+    checkMutable();
     this.failoverPriority = failoverPriority;
     return this;
   }
@@ -168,6 +178,7 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setClientReconnectWindow(Measure<TimeUnit> measure) {
+    checkMutable();
     this.clientReconnectWindow = measure;
     return this;
   }
@@ -181,6 +192,7 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setClientLeaseDuration(Measure<TimeUnit> measure) {
+    checkMutable();
     this.clientLeaseDuration = measure;
     return this;
   }
@@ -194,6 +206,7 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster putOffheapResources(Map<String, Measure<MemoryUnit>> offheapResources) {
+    checkMutable();
     if (this.offheapResources == null) {
       setOffheapResources(Optional.ofNullable(OFFHEAP_RESOURCES.<Map<String, Measure<MemoryUnit>>>getDefaultValue()).orElse(emptyMap()));
     }
@@ -202,11 +215,13 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setOffheapResources(Map<String, Measure<MemoryUnit>> offheapResources) {
+    checkMutable();
     this.offheapResources = offheapResources == null ? null : new ConcurrentHashMap<>(offheapResources);
     return this;
   }
 
   public Cluster removeOffheapResource(String key) {
+    checkMutable();
     if (this.offheapResources == null) {
       // this code is handling the removal of any default value set
       Map<String, Measure<MemoryUnit>> def = OFFHEAP_RESOURCES.getDefaultValue();
@@ -231,16 +246,21 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setStripes(List<Stripe> stripes) {
+    modifying();
     this.stripes = new CopyOnWriteArrayList<>(stripes);
+    modified();
     return this;
   }
 
   public Cluster addStripe(Stripe stripe) {
+    modifying();
     stripes.add(stripe);
+    modified();
     return this;
   }
 
   public Cluster setName(String name) {
+    checkMutable();
     this.name = name;
     return this;
   }
@@ -311,6 +331,10 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public boolean containsNode(String nodeName) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return index.getNodeByName(nodeName) != null;
+    }
     return getNodes().stream().map(Node::getName).anyMatch(isEqual(nodeName));
   }
 
@@ -353,22 +377,34 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public boolean removeStripe(Stripe stripe) {
-    return stripes.remove(stripe);
+    modifying();
+    boolean removed = stripes.remove(stripe);
+    modified();
+    return removed;
   }
 
   public boolean removeStripe(UID stripeUID) {
-    return stripes.removeIf(stripe -> stripe.getUID().equals(stripeUID));
+    modifying();
+    boolean removed = stripes.removeIf(stripe -> stripe.getUID().equals(stripeUID));
+    modified();
+    return removed;
   }
 
   public boolean removeNode(UID uid) {
+    modifying();
     boolean detached = stripes.stream().anyMatch(stripe -> stripe.removeNode(uid));
     if (detached) {
       stripes.removeIf(Stripe::isEmpty);
     }
+    modified();
     return detached;
   }
 
   public Optional<Node> getNode(UID nodeUID) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return Optional.ofNullable(index.getNode(nodeUID));
+    }
     return stripes.stream()
         .flatMap(stripe -> stripe.getNodes().stream())
         .filter(node -> node.getUID().equals(nodeUID))
@@ -376,6 +412,10 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Optional<Node> getNodeByName(String name) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return Optional.ofNullable(index.getNodeByName(name));
+    }
     return stripes.stream()
         .flatMap(stripe -> stripe.getNodes().stream())
         .filter(node -> node.getName().equals(name))
@@ -383,10 +423,18 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Optional<Stripe> getStripe(UID stripeUID) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return Optional.ofNullable(index.getStripe(stripeUID));
+    }
     return getStripes().stream().filter(s -> s.getUID().equals(stripeUID)).findAny();
   }
 
   public Optional<Stripe> getStripeByName(String name) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return Optional.ofNullable(index.getStripeByName(name));
+    }
     return getStripes().stream().filter(s -> s.getName().equals(name)).findAny();
   }
 
@@ -401,6 +449,11 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public OptionalInt getNodeId(UID nodeUID) {
+    ClusterIndex index = index();
+    Integer nodeId = index == null ? null : index.getNodeId(nodeUID);
+    if (nodeId != null) {
+      return OptionalInt.of(nodeId);
+    }
     List<Node> nodes = stripes.stream()
         .filter(s -> s.containsNode(nodeUID))
         .findAny().get().getNodes();
@@ -411,6 +464,10 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public OptionalInt getStripeId(UID stripeUID) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return toOptionalInt(index.getStripeId(stripeUID));
+    }
     return IntStream.range(0, stripes.size())
         .filter(idx -> stripes.get(idx).getUID().equals(stripeUID))
         .map(idx -> idx + 1)
@@ -418,6 +475,10 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public OptionalInt getStripeIdByNode(UID nodeUID) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return toOptionalInt(index.getStripeIdByNode(nodeUID));
+    }
     return IntStream.range(0, stripes.size())
         .filter(idx -> stripes.get(idx).containsNode(nodeUID))
         .map(idx -> idx + 1)
@@ -425,10 +486,18 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Optional<Stripe> getStripeByNode(UID nodeUID) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return Optional.ofNullable(index.getStripeByNode(nodeUID));
+    }
     return getStripes().stream().filter(s -> s.containsNode(nodeUID)).findAny();
   }
 
   public Optional<Stripe> getStripeByNodeName(String nodeName) {
+    ClusterIndex index = index();
+    if (index != null) {
+      return Optional.ofNullable(index.getStripeByNodeName(nodeName));
+    }
     return getStripes().stream().filter(s -> s.containsNode(nodeName)).findAny();
   }
 
@@ -476,7 +545,9 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster removeStripes() {
+    modifying();
     stripes.clear();
+    modified();
     return this;
   }
 
@@ -485,6 +556,7 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Cluster setConfigurationLockContext(LockContext lockContext) {
+    checkMutable();
     this.configurationLockContext = lockContext;
     return this;
   }
@@ -523,6 +595,11 @@ public class Cluster implements Cloneable, PropertyHolder {
   }
 
   public Optional<Node> findReachableNode(HostPort hostPort) {
+    ClusterIndex index = hostPort == null ? null : index();
+    Map<HostPort, Node> reachableNodes = index == null ? null : index.getReachableNodes();
+    if (reachableNodes != null) {
+      return Optional.ofNullable(reachableNodes.get(hostPort));
+    }
     return stripes.stream()
         .map(stripe -> stripe.findReachableNode(hostPort).orElse(null))
         .filter(Objects::nonNull)
@@ -610,6 +687,69 @@ public class Cluster implements Cloneable, PropertyHolder {
     return new Endpoints(this, endpointType);
   }
 
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Returns an immutable copy of this cluster, of its stripes and of its nodes, which is returned as-is if it is already frozen.
+   * <p>
+   * Modifying a frozen cluster throws an {@link UnsupportedOperationException}: clone it to get a modifiable copy.
+   * Since a frozen cluster cannot change, the index used for its lookups is built once and never invalidated.
+   */
+  public Cluster freeze() {
+    if (frozen) {
+      return this;
+    }
+    Cluster copy = clone();
+    copy.stripes.forEach(Stripe::freeze);
+    copy.offheapResources = copy.offheapResources == null ? null : Collections.unmodifiableMap(copy.offheapResources);
+    copy.frozen = true;
+    copy.index = new ClusterIndex(copy.stripes, ClusterIndex.generation());
+    return copy;
+  }
+
+  /**
+   * @return the index of this cluster, or null if the stripes and nodes have to be scanned
+   */
+  private ClusterIndex index() {
+    ClusterIndex index = this.index;
+    if (index == null || !frozen && !index.isCurrent()) {
+      long generation = ClusterIndex.generation();
+      if (scansGeneration != generation) {
+        scansGeneration = generation;
+        scans = 0;
+      }
+      // indexing costs several scans: it is only worth it if the cluster keeps being looked up without changes
+      if (scans++ < ClusterIndex.SCANS_BEFORE_INDEXING) {
+        return null;
+      }
+      this.index = index = new ClusterIndex(stripes, generation);
+    }
+    return index.isComplete() ? index : null;
+  }
+
+  private static OptionalInt toOptionalInt(Integer id) {
+    return id == null ? OptionalInt.empty() : OptionalInt.of(id);
+  }
+
+  private void checkMutable() {
+    if (frozen) {
+      throw new UnsupportedOperationException("Cluster " + name + " is frozen");
+    }
+  }
+
+  // called before and after changing the stripes of this cluster, which are indexed: an index built during the change
+  // gets the generation of the first call, and is not current anymore after the second one
+  private void modifying() {
+    checkMutable();
+    ClusterIndex.invalidate();
+  }
+
+  private static void modified() {
+    ClusterIndex.invalidate();
+  }
+
   public boolean is(String nodeName, DisasterRecoveryMode mode) {
     return getNodeByName(nodeName).filter(node -> DisasterRecoveryMode.fromNode(node) == mode).isPresent();
   }
@@ -0,0 +1,192 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.api.model;
+
+import org.terracotta.inet.HostPort;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash indexes of the stripes and nodes of a cluster, used by the lookup methods of {@link Cluster} instead of
+ * scanning all the nodes.
+ * <p>
+ * Stripes and nodes do not know the cluster they belong to, so any change of a topology or of the identity of a
+ * node (UID, name, addresses) in any cluster moves a global generation forward, which invalidates all the indexes
+ * built before. The cost is that a change in any cluster, including one being built, makes the other clusters scan
+ * again until they are indexed again (see {@link #SCANS_BEFORE_INDEXING}). The indexes of frozen clusters are built once.
+ * <p>
+ * When keys are duplicated, the first stripe or node in the topology order is indexed, like a scan would find it.
+ */
+final class ClusterIndex {
+
+  /**
+   * Number of lookups scanning a cluster since its last change before it gets indexed
+   */
+  static final int SCANS_BEFORE_INDEXING = 8;
+
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  private final long generation;
+  private final Map<UID, Node> nodesByUID = new HashMap<>();
+  private final Map<String, Node> nodesByName = new HashMap<>();
+  private final Map<UID, Stripe> stripesByUID = new HashMap<>();
+  private final Map<String, Stripe> stripesByName = new HashMap<>();
+  private final Map<UID, Integer> stripeIds = new HashMap<>();
+  private final Map<UID, Integer> stripeIdsByNodeUID = new HashMap<>();
+  private final Map<String, Integer> stripeIdsByNodeName = new HashMap<>();
+  private final Map<UID, Integer> nodeIds = new HashMap<>();
+  private final List<Stripe> stripes;
+  private final boolean complete;
+  private Map<HostPort, Node> reachableNodes;
+  private boolean reachableNodesIndexed;
+
+  ClusterIndex(List<Stripe> stripes, long generation) {
+    this.stripes = new ArrayList<>(stripes);
+    this.generation = generation;
+    this.complete = index();
+  }
+
+  static long generation() {
+    return GENERATION.get();
+  }
+
+  /**
+   * Called before and after all the changes which can make an index stale
+   */
+  static void invalidate() {
+    GENERATION.incrementAndGet();
+  }
+
+  boolean isCurrent() {
+    return generation == GENERATION.get();
+  }
+
+  /**
+   * @return false if some stripes or nodes have no UID or name yet: lookups have to scan them
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  Node getNode(UID nodeUID) {
+    return nodesByUID.get(nodeUID);
+  }
+
+  Node getNodeByName(String name) {
+    return nodesByName.get(name);
+  }
+
+  Stripe getStripe(UID stripeUID) {
+    return stripesByUID.get(stripeUID);
+  }
+
+  Stripe getStripeByName(String name) {
+    return stripesByName.get(name);
+  }
+
+  Integer getStripeId(UID stripeUID) {
+    return stripeIds.get(stripeUID);
+  }
+
+  Integer getStripeIdByNode(UID nodeUID) {
+    return stripeIdsByNodeUID.get(nodeUID);
+  }
+
+  Integer getStripeIdByNodeName(String nodeName) {
+    return stripeIdsByNodeName.get(nodeName);
+  }
+
+  Stripe getStripeByNode(UID nodeUID) {
+    return getStripe(getStripeIdByNode(nodeUID));
+  }
+
+  Stripe getStripeByNodeName(String nodeName) {
+    return getStripe(getStripeIdByNodeName(nodeName));
+  }
+
+  Integer getNodeId(UID nodeUID) {
+    return nodeIds.get(nodeUID);
+  }
+
+  private Stripe getStripe(Integer stripeId) {
+    return stripeId == null ? null : stripes.get(stripeId - 1);
+  }
+
+  /**
+   * @return the first node reachable with each address, or null if the addresses of some nodes cannot be computed,
+   * in which case the nodes have to be scanned
+   */
+  synchronized Map<HostPort, Node> getReachableNodes() {
+    if (!reachableNodesIndexed) {
+      reachableNodesIndexed = true;
+      reachableNodes = indexReachableNodes();
+    }
+    return reachableNodes;
+  }
+
+  private boolean index() {
+    for (int s = 0; s < stripes.size(); s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe.getUID() == null || stripe.getName() == null) {
+        return false;
+      }
+      Integer stripeId = s + 1;
+      stripesByUID.putIfAbsent(stripe.getUID(), stripe);
+      stripesByName.putIfAbsent(stripe.getName(), stripe);
+      stripeIds.putIfAbsent(stripe.getUID(), stripeId);
+      List<Node> nodes = stripe.getNodes();
+      for (int n = 0; n < nodes.size(); n++) {
+        Node node = nodes.get(n);
+        if (node.getUID() == null || node.getName() == null) {
+          return false;
+        }
+        nodesByUID.putIfAbsent(node.getUID(), node);
+        nodesByName.putIfAbsent(node.getName(), node);
+        stripeIdsByNodeName.putIfAbsent(node.getName(), stripeId);
+        if (stripeIdsByNodeUID.putIfAbsent(node.getUID(), stripeId) == null) {
+          nodeIds.put(node.getUID(), n + 1);
+        }
+      }
+    }
+    return true;
+  }
+
+  private Map<HostPort, Node> indexReachableNodes() {
+    Map<HostPort, Node> index = new HashMap<>();
+    try {
+      for (Stripe stripe : stripes) {
+        for (Node node : stripe.getNodes()) {
+          // same addresses as Node.isReachableWith()
+          index.putIfAbsent(node.getInternalHostPort(), node);
+          node.getPublicHostPort().ifPresent(hostPort -> index.putIfAbsent(hostPort, node));
+          HostPort bind = node.getBindHostPort();
+          if (!bind.isWildcard()) {
+            index.putIfAbsent(bind, node);
+          }
+        }
+      }
+    } catch (AssertionError e) {
+      // some nodes are not correctly defined: a scan will report it when reaching them
+      return null;
+    }
+    return index;
+  }
+}
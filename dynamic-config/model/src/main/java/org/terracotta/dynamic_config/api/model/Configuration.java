@@ -33,15 +33,12 @@ import java.util.stream.Stream;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.empty;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 import static org.terracotta.dynamic_config.api.model.Scope.CLUSTER;
 import static org.terracotta.dynamic_config.api.model.Scope.NODE;
 import static org.terracotta.dynamic_config.api.model.Scope.STRIPE;
 
 public final class Configuration {
 
-  private static final Collection<String> SETTINGS = Stream.of(Setting.values()).map(Setting::toString).collect(toSet());
-
   private static final Map<Pattern, BiFunction<String, Matcher, Configuration>> CLUSTER_PATTERNS = new LinkedHashMap<>();
   private static final Map<Pattern, BiFunction<String, Matcher, Configuration>> STRIPE_PATTERNS = new LinkedHashMap<>();
   private static final Map<Pattern, BiFunction<String, Matcher, Configuration>> NODE_PATTERNS = new LinkedHashMap<>();
@@ -552,35 +549,66 @@ public final class Configuration {
     Integer nodeId = null;
     Setting setting = null;
 
-    try (Scanner scanner = new Scanner(input).useDelimiter("[.:=]")) {
-      while (scanner.hasNext() && setting == null) {
-        String next = scanner.next();
-        switch (next) {
-          case "stripe": {
-            if (stripeId != null) {
-              throw new IllegalArgumentException("Invalid input: '" + input + "'");
+    // Resolves the well-formed keys ("stripe.<id>.node.<id>.<setting>...") without a Scanner, which compiles its
+    // integer pattern for each input. Any other input is parsed by the Scanner, which reports the errors.
+    int from = 0;
+    while (setting == null) {
+      int to = endOfToken(input, from);
+      String next = input.substring(from, to);
+      boolean stripe = next.equals("stripe") && stripeId == null;
+      boolean node = next.equals("node") && stripeId != null && nodeId == null;
+      if (stripe || node) {
+        int idEnd = endOfToken(input, to + 1);
+        if (idEnd == input.length() || !isId(input, to + 1, idEnd)) {
+          break;
+        }
+        int id = Integer.parseInt(input.substring(to + 1, idEnd));
+        if (stripe) {
+          stripeId = id;
+        } else {
+          nodeId = id;
+        }
+        from = idEnd + 1;
+      } else {
+        setting = Setting.findSetting(next).orElse(null);
+        if (setting == null) {
+          break;
+        }
+      }
+    }
+
+    if (setting == null) {
+      stripeId = null;
+      nodeId = null;
+      try (Scanner scanner = new Scanner(input).useDelimiter("[.:=]")) {
+        while (scanner.hasNext() && setting == null) {
+          String next = scanner.next();
+          switch (next) {
+            case "stripe": {
+              if (stripeId != null) {
+                throw new IllegalArgumentException("Invalid input: '" + input + "'");
+              }
+              stripeId = scanner.nextInt(10);
+              break;
             }
-            stripeId = scanner.nextInt(10);
-            break;
-          }
-          case "node": {
-            if (nodeId != null || stripeId == null) {
-              throw new IllegalArgumentException("Invalid input: '" + input + "'");
+            case "node": {
+              if (nodeId != null || stripeId == null) {
+                throw new IllegalArgumentException("Invalid input: '" + input + "'");
+              }
+              nodeId = scanner.nextInt(10);
+              break;
             }
-            nodeId = scanner.nextInt(10);
-            break;
-          }
-          default: {
-            if (SETTINGS.contains(next)) {
-              setting = Setting.fromName(next);
-            } else {
-              throw new IllegalArgumentException("Invalid input: '" + input + "'. Reason: Invalid setting name: '" + next + "'");
+            default: {
+              setting = Setting.findSetting(next).orElse(null);
+              if (setting == null) {
+                throw new IllegalArgumentException("Invalid input: '" + input + "'. Reason: Invalid setting name: '" + next + "'");
+              }
             }
           }
         }
+      } catch (NoSuchElementException e) {
+        throw new IllegalArgumentException("Invalid input: '" + input + "'");
       }
-    } catch (NoSuchElementException e) {
-      throw new IllegalArgumentException("Invalid input: '" + input + "'");
     }
 
     if (setting == null) {
@@ -617,6 +645,27 @@ public final class Configuration {
     throw new IllegalArgumentException("Invalid input: '" + input + "'");
   }
 
+  private static int endOfToken(String input, int from) {
+    int to = from;
+    while (to < input.length() && ".:=".indexOf(input.charAt(to)) < 0) {
+      to++;
+    }
+    return to;
+  }
+
+  private static boolean isId(String input, int from, int to) {
+    if (to == from || to - from > 9) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      char c = input.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static Optional<Node> getNode(Stripe stripe, int nodeId) {
     if (nodeId < 1) {
       throw new IllegalArgumentException("Invalid node ID: " + nodeId);
@@ -92,6 +92,8 @@ public class Node implements Cloneable, PropertyHolder {
   private Integer relayPort;
   private Integer relayGroupPort;
 
+  private transient boolean frozen;
+
   @Override
   public Scope getScope() {
     return NODE;
@@ -199,32 +201,44 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node setUID(UID uid) {
+    modifying();
     this.uid = requireNonNull(uid);
+    modified();
     return this;
   }
 
   public Node setName(String name) {
+    modifying();
     this.name = requireNonNull(name);
+    modified();
     return this;
   }
 
   public Node setHostname(String hostname) {
+    modifying();
     this.hostname = requireNonNull(hostname);
+    modified();
     return this;
   }
 
   public Node setPublicHostname(String publicHostname) {
+    modifying();
     this.publicHostname = publicHostname;
+    modified();
     return this;
   }
 
   public Node setPort(Integer port) {
+    modifying();
     this.port = port;
+    modified();
     return this;
   }
 
   public Node setPublicPort(Integer publicPort) {
+    modifying();
     this.publicPort = publicPort;
+    modified();
     return this;
   }
 
@@ -241,46 +255,56 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node setGroupPort(Integer groupPort) {
+    checkMutable();
     this.groupPort = groupPort;
     return this;
   }
 
   public Node setBindAddress(String bindAddress) {
+    modifying();
     this.bindAddress = bindAddress;
+    modified();
     return this;
   }
 
   public Node setGroupBindAddress(String groupBindAddress) {
+    checkMutable();
     this.groupBindAddress = groupBindAddress;
     return this;
   }
 
   public Node setMetadataDir(RawPath metadataDir) {
+    checkMutable();
     this.metadataDir = metadataDir;
     return this;
   }
 
   public Node setLogDir(RawPath logDir) {
+    checkMutable();
     this.logDir = logDir;
     return this;
   }
 
   public Node setBackupDir(RawPath backupDir) {
+    checkMutable();
     this.backupDir = backupDir;
     return this;
   }
 
   public Node setSecurityDir(RawPath securityDir) {
+    checkMutable();
     this.securityDir = securityDir;
     return this;
   }
 
   public Node setSecurityAuditLogDir(RawPath securityAuditLogDir) {
+    checkMutable();
     this.securityAuditLogDir = securityAuditLogDir;
     return this;
   }
 
   public Node setSecurityLogDir(RawPath securityLogDir) {
+    checkMutable();
     this.securityLogDir = securityLogDir;
     return this;
   }
@@ -290,6 +314,7 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node putLoggerOverrides(Map<String, String> loggerOverrides) {
+    checkMutable();
     if (this.loggerOverrides == null) {
       setLoggerOverrides(Optional.ofNullable(NODE_LOGGER_OVERRIDES.<Map<String, String>>getDefaultValue()).orElse(emptyMap()));
     }
@@ -298,11 +323,13 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node setLoggerOverrides(Map<String, String> loggerOverrides) {
+    checkMutable();
     this.loggerOverrides = loggerOverrides == null ? null : new ConcurrentHashMap<>(loggerOverrides);
     return this;
   }
 
   public Node removeLoggerOverride(String logger) {
+    checkMutable();
     if (this.loggerOverrides == null) {
       // this code is handling the removal of any default value set
       Map<String, String> def = NODE_LOGGER_OVERRIDES.getDefaultValue();
@@ -327,6 +354,7 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node putTcProperties(Map<String, String> tcProperties) {
+    checkMutable();
     if (this.tcProperties == null) {
       setTcProperties(Optional.ofNullable(TC_PROPERTIES.<Map<String, String>>getDefaultValue()).orElse(emptyMap()));
     }
@@ -335,11 +363,13 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node setTcProperties(Map<String, String> tcProperties) {
+    checkMutable();
     this.tcProperties = tcProperties == null ? null : new ConcurrentHashMap<>(tcProperties);
     return this;
   }
 
   public Node removeTcProperty(String key) {
+    checkMutable();
     if (this.tcProperties == null) {
       // this code is handling the removal of any default value set
       Map<String, String> def = TC_PROPERTIES.getDefaultValue();
@@ -364,6 +394,7 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node putDataDirs(Map<String, RawPath> dataDirs) {
+    checkMutable();
     if (this.dataDirs == null) {
       setDataDirs(Optional.ofNullable(DATA_DIRS.<Map<String, RawPath>>getDefaultValue()).orElse(emptyMap()));
     }
@@ -372,46 +403,55 @@ public class Node implements Cloneable, PropertyHolder {
   }
 
   public Node setDataDirs(Map<String, RawPath> dataDirs) {
+    checkMutable();
     this.dataDirs = dataDirs == null ? null : new ConcurrentHashMap<>(dataDirs);
     return this;
   }
 
   public Node setRelay(Boolean relay) {
+    checkMutable();
     this.relay = relay;
     return this;
   }
 
   public Node setReplicaHostname(String hostname) {
+    checkMutable();
     this.replicaHostname = hostname;
     return this;
   }
 
   public Node setReplicaPort(Integer port) {
+    checkMutable();
     this.replicaPort = port;
     return this;
   }
 
   public Node setReplica(Boolean replica) {
+    checkMutable();
     this.replica = replica;
     return this;
   }
 
   public Node setRelayHostname(String hostname) {
+    checkMutable();
     this.relayHostname = hostname;
     return this;
   }
 
   public Node setRelayPort(Integer port) {
+    checkMutable();
     this.relayPort = port;
     return this;
   }
 
   public Node setRelayGroupPort(Integer groupPort) {
+    checkMutable();
     this.relayGroupPort = groupPort;
     return this;
   }
 
   public Node removeDataDir(String key) {
+    checkMutable();
     if (this.dataDirs == null) {
       // this code is handling the removal of any default value set
       Map<String, RawPath> def = DATA_DIRS.getDefaultValue();
@@ -703,6 +743,37 @@ public class Node implements Cloneable, PropertyHolder {
     return getInternalEndpoint().toString();
   }
 
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Makes this node immutable. See {@link Cluster#freeze()}
+   */
+  void freeze() {
+    dataDirs = dataDirs == null ? null : Collections.unmodifiableMap(dataDirs);
+    loggerOverrides = loggerOverrides == null ? null : Collections.unmodifiableMap(loggerOverrides);
+    tcProperties = tcProperties == null ? null : Collections.unmodifiableMap(tcProperties);
+    frozen = true;
+  }
+
+  private void checkMutable() {
+    if (frozen) {
+      throw new UnsupportedOperationException("Node " + name + " is frozen");
+    }
+  }
+
+  // called before and after changing the UID, name or addresses of this node, which are indexed by the clusters: an
+  // index built during the change gets the generation of the first call, and is not current anymore after the second one
+  private void modifying() {
+    checkMutable();
+    ClusterIndex.invalidate();
+  }
+
+  private static void modified() {
+    ClusterIndex.invalidate();
+  }
+
   public Node setHostPort(HostPort hostPort) {
     return setHostname(hostPort.getHost()).setPort(hostPort.getPort());
   }
@@ -27,6 +27,7 @@ import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
@@ -939,6 +940,15 @@ public enum Setting {
     }
   };
 
+  // resolves the settings of the properties being parsed, translated or validated without scanning all the settings
+  private static final Map<String, Setting> SETTINGS_BY_NAME = new HashMap<>();
+
+  static {
+    for (Setting setting : values()) {
+      SETTINGS_BY_NAME.putIfAbsent(setting.name, setting);
+    }
+  }
+
   private final String name;
   private final Collection<Version> versions;
   private final boolean map;
@@ -1292,7 +1302,7 @@ public enum Setting {
   }
 
   public static Optional<Setting> findSetting(String name) {
-    return Stream.of(values()).filter(setting -> setting.name.equals(name)).findAny();
+    return Optional.ofNullable(SETTINGS_BY_NAME.get(name));
   }
 
   public static Properties modelToProperties(PropertyHolder o, boolean expanded, boolean includeDefaultValues, boolean includeHiddenSettings, Version version) {
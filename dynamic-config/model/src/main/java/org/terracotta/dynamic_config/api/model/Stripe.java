@@ -42,12 +42,16 @@ public class Stripe implements Cloneable, PropertyHolder {
   private UID uid;
   private String name;
 
+  private transient boolean frozen;
+
   public List<Node> getNodes() {
     return Collections.unmodifiableList(nodes);
   }
 
   public Stripe setNodes(List<Node> nodes) {
+    modifying();
     this.nodes = new CopyOnWriteArrayList<>(nodes);
+    modified();
     return this;
   }
 
@@ -57,7 +61,9 @@ public class Stripe implements Cloneable, PropertyHolder {
   }
 
   public Stripe setName(String name) {
+    modifying();
     this.name = name;
+    modified();
     return this;
   }
 
@@ -67,7 +73,9 @@ public class Stripe implements Cloneable, PropertyHolder {
   }
 
   public Stripe setUID(UID uid) {
+    modifying();
     this.uid = requireNonNull(uid);
+    modified();
     return this;
   }
 
@@ -133,7 +141,10 @@ public class Stripe implements Cloneable, PropertyHolder {
   }
 
   public boolean removeNode(UID uid) {
-    return nodes.removeIf(node -> node.getUID().equals(uid));
+    modifying();
+    boolean removed = nodes.removeIf(node -> node.getUID().equals(uid));
+    modified();
+    return removed;
   }
 
   public boolean isEmpty() {
@@ -141,7 +152,9 @@ public class Stripe implements Cloneable, PropertyHolder {
   }
 
   public Stripe addNode(Node source) {
+    modifying();
     nodes.add(source);
+    modified();
     return this;
   }
 
@@ -180,6 +193,31 @@ public class Stripe implements Cloneable, PropertyHolder {
     return Scope.STRIPE;
   }
 
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Makes this stripe and its nodes immutable. See {@link Cluster#freeze()}
+   */
+  void freeze() {
+    nodes.forEach(Node::freeze);
+    frozen = true;
+  }
+
+  // called before and after changing the nodes or the identity of this stripe, which are indexed by the clusters: an
+  // index built during the change gets the generation of the first call, and is not current anymore after the second one
+  private void modifying() {
+    if (frozen) {
+      throw new UnsupportedOperationException("Stripe " + name + " is frozen");
+    }
+    ClusterIndex.invalidate();
+  }
+
+  private static void modified() {
+    ClusterIndex.invalidate();
+  }
+
   public Optional<Node> findReachableNode(HostPort hostPort) {
     return nodes.stream().filter(node -> node.isReachableWith(hostPort)).findFirst();
   }
@@ -0,0 +1,193 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.api.service;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.NodeContext;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Collections.unmodifiableCollection;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caches the rendering of cluster configurations ({@code Props.toString(cluster.toProperties(false, false, true))}),
+ * so that all the consumers of a same snapshot (management notifications, topology events and their digest) share
+ * one rendering instead of building it each.
+ * <p>
+ * Renderings are keyed by the identity of the cluster and checked against its hash code: a cluster modified after
+ * having been rendered is rendered again. Clusters are only weakly referenced.
+ * <p>
+ * Renderings can also be recorded by configuration version with {@link #diff(long, Cluster)}, to only carry what
+ * changed since the previous version. The versions recorded must all be those of one configuration, so a consumer
+ * computing diffs needs its own cache instead of the {@link #shared()} one.
+ */
+public final class RenderCache {
+
+  private static final RenderCache SHARED = new RenderCache(16);
+
+  private final Entry[] entries;
+  private final TreeMap<Long, Properties> versions = new TreeMap<>();
+  private final LongAdder renders = new LongAdder();
+  private int next;
+
+  public RenderCache(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.entries = new Entry[capacity];
+  }
+
+  /**
+   * @return the cache shared by all the consumers of the configuration in this JVM, to render clusters. Several servers
+   * can run in a JVM, so it must not be used to compute diffs.
+   */
+  public static RenderCache shared() {
+    return SHARED;
+  }
+
+  public String render(NodeContext nodeContext) {
+    return render(nodeContext.getCluster());
+  }
+
+  public String render(Cluster cluster) {
+    Entry entry = entry(cluster);
+    synchronized (entry) {
+      if (entry.text == null) {
+        entry.text = Props.toString(entry.properties);
+      }
+      return entry.text;
+    }
+  }
+
+  /**
+   * Records the configuration of a version, and returns what changed since the closest older version recorded.
+   * <p>
+   * If no older version is known, all the properties are returned as changed.
+   */
+  public Diff diff(long version, Cluster cluster) {
+    Properties properties = entry(cluster).properties;
+    synchronized (versions) {
+      versions.put(version, properties);
+      while (versions.size() > entries.length) {
+        versions.pollFirstEntry();
+      }
+      Map.Entry<Long, Properties> previous = versions.lowerEntry(version);
+      return previous == null ? new Diff(null, properties, new ArrayList<>()) : Diff.between(previous.getKey(), previous.getValue(), properties);
+    }
+  }
+
+  /**
+   * @return the number of clusters which were rendered, for monitoring and testing
+   */
+  public long getRenderCount() {
+    return renders.sum();
+  }
+
+  private Entry entry(Cluster cluster) {
+    requireNonNull(cluster);
+    int hash = cluster.hashCode();
+    synchronized (entries) {
+      for (Entry entry : entries) {
+        if (entry != null && entry.get() == cluster && entry.hash == hash) {
+          return entry;
+        }
+      }
+    }
+    // rendered outside of the lock: a concurrent render of the same cluster is possible but harmless
+    Properties properties = cluster.toProperties(false, false, true);
+    renders.increment();
+    Entry entry = new Entry(cluster, hash, properties);
+    synchronized (entries) {
+      entries[next] = entry;
+      next = (next + 1) % entries.length;
+    }
+    return entry;
+  }
+
+  private static final class Entry extends WeakReference<Cluster> {
+    private final int hash;
+    private final Properties properties;
+    private String text;
+
+    Entry(Cluster cluster, int hash, Properties properties) {
+      super(cluster);
+      this.hash = hash;
+      this.properties = properties;
+    }
+  }
+
+  public static final class Diff {
+    private final Long previousVersion;
+    private final Properties changed;
+    private final Collection<String> removed;
+
+    private Diff(Long previousVersion, Properties changed, Collection<String> removed) {
+      this.previousVersion = previousVersion;
+      this.changed = changed;
+      this.removed = unmodifiableCollection(removed);
+    }
+
+    private static Diff between(long previousVersion, Properties previous, Properties current) {
+      Properties changed = new Properties();
+      Collection<String> removed = new TreeSet<>();
+      for (String key : current.stringPropertyNames()) {
+        String value = current.getProperty(key);
+        if (!value.equals(previous.getProperty(key))) {
+          changed.setProperty(key, value);
+        }
+      }
+      for (String key : previous.stringPropertyNames()) {
+        if (current.getProperty(key) == null) {
+          removed.add(key);
+        }
+      }
+      return new Diff(previousVersion, changed, removed);
+    }
+
+    /**
+     * @return the version this diff is computed from, or null if the full configuration is returned
+     */
+    public Long getPreviousVersion() {
+      return previousVersion;
+    }
+
+    /**
+     * @return the properties added or modified. Must not be modified.
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public Properties getChanged() {
+      return changed;
+    }
+
+    public Collection<String> getRemoved() {
+      return removed;
+    }
+
+    public boolean isFull() {
+      return previousVersion == null;
+    }
+  }
+}
@@ -20,7 +20,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.terracotta.common.struct.Measure;
+import org.terracotta.common.struct.MemoryUnit;
 import org.terracotta.common.struct.TimeUnit;
+import org.terracotta.inet.HostPort;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -198,4 +200,78 @@ public class ClusterTest {
     workingCluster.setSecurityAuthc("availability");
     assertTrue(cluster.equals(workingCluster));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void test_indexed_lookups_follow_changes() {
+    Node node3 = Testing.newTestNode("node3", "localhost", 9412, Testing.N_UIDS[3]);
+    Stripe stripe2 = Testing.newTestStripe("stripe2", Testing.S_UIDS[2]).addNodes(node2, node3);
+    Cluster cluster = Testing.newTestCluster("c", Testing.newTestStripe("stripe1", Testing.S_UIDS[1]).addNodes(node1), stripe2);
+
+    // the first lookups after a change scan, the next ones use the index
+    for (int i = 0; i <= ClusterIndex.SCANS_BEFORE_INDEXING; i++) {
+      assertThat(cluster.getNode(node3.getUID()).get(), is(sameInstance(node3)));
+      assertThat(cluster.getNodeByName("node3").get(), is(sameInstance(node3)));
+      assertThat(cluster.getStripeByNode(node3.getUID()).get(), is(sameInstance(stripe2)));
+      assertThat(cluster.getStripeByNodeName("node3").get(), is(sameInstance(stripe2)));
+      assertThat(cluster.getStripeIdByNode(node3.getUID()).getAsInt(), is(2));
+      assertThat(cluster.getNodeId(node3.getUID()).getAsInt(), is(2));
+      assertThat(cluster.getStripe(Testing.S_UIDS[2]).get(), is(sameInstance(stripe2)));
+      assertThat(cluster.getStripeByName("stripe2").get(), is(sameInstance(stripe2)));
+      assertThat(cluster.getStripeId(Testing.S_UIDS[2]).getAsInt(), is(2));
+      assertThat(cluster.findReachableNode(node3.getInternalHostPort()).get(), is(sameInstance(node3)));
+      assertFalse(cluster.getNode(Testing.N_UIDS[9]).isPresent());
+      assertFalse(cluster.getNodeByName("node9").isPresent());
+    }
+
+    node3.setName("node4").setPort(9413);
+    stripe2.removeNode(node2.getUID());
+    for (int i = 0; i <= ClusterIndex.SCANS_BEFORE_INDEXING; i++) {
+      assertFalse(cluster.containsNode("node3"));
+      assertTrue(cluster.containsNode("node4"));
+      assertFalse(cluster.getNode(node2.getUID()).isPresent());
+      assertThat(cluster.getNodeId(node3.getUID()).getAsInt(), is(1));
+      assertFalse(cluster.findReachableNode(HostPort.create("localhost", 9412)).isPresent());
+      assertThat(cluster.findReachableNode(HostPort.create("localhost", 9413)).get(), is(sameInstance(node3)));
+    }
+
+    cluster.removeStripe(Testing.S_UIDS[1]);
+    for (int i = 0; i <= ClusterIndex.SCANS_BEFORE_INDEXING; i++) {
+      assertFalse(cluster.getNode(node1.getUID()).isPresent());
+      assertThat(cluster.getStripeIdByNode(node3.getUID()).getAsInt(), is(1));
+      assertThat(cluster.getStripeId(Testing.S_UIDS[2]).getAsInt(), is(1));
+    }
+  }
+
+  @Test
+  public void test_freeze() {
+    cluster.getSingleStripe().get().setName("stripe1").setUID(Testing.S_UIDS[1]);
+    Cluster frozen = cluster.freeze();
+    assertTrue(frozen.isFrozen());
+    assertFalse(cluster.isFrozen());
+    assertThat(frozen.freeze(), is(sameInstance(frozen)));
+    assertThat(frozen, is(equalTo(cluster)));
+    assertThat(frozen.toString(), is(equalTo(cluster.toString())));
+
+    Node frozenNode = frozen.getNode(node1.getUID()).get();
+    assertThat(frozenNode, is(equalTo(node1)));
+    assertTrue(frozenNode.isFrozen());
+    assertThat(frozen.getStripeByNodeName("node1").get().getName(), is(equalTo("stripe1")));
+
+    assertThat(() -> frozen.setName("foo"), is(throwing(instanceOf(UnsupportedOperationException.class))));
+    assertThat(() -> frozen.putOffheapResource("foo", 1, MemoryUnit.GB), is(throwing(instanceOf(UnsupportedOperationException.class))));
+    assertThat(() -> frozen.removeNode(node1.getUID()), is(throwing(instanceOf(UnsupportedOperationException.class))));
+    assertThat(() -> frozen.getSingleStripe().get().addNode(node2), is(throwing(instanceOf(UnsupportedOperationException.class))));
+    assertThat(() -> frozenNode.setName("foo"), is(throwing(instanceOf(UnsupportedOperationException.class))));
+    assertThat(() -> frozenNode.putTcProperty("foo", "bar"), is(throwing(instanceOf(UnsupportedOperationException.class))));
+    assertThat(() -> frozenNode.getDataDirs().get().put("foo", RawPath.valueOf("foo")), is(throwing(instanceOf(UnsupportedOperationException.class))));
+
+    // the original cluster and the clones of a frozen cluster can still be modified
+    node1.setName("node2");
+    assertThat(frozen.getNodeByName("node1").get(), is(sameInstance(frozenNode)));
+    assertFalse(frozen.getNodeByName("node2").isPresent());
+    Cluster clone = frozen.clone();
+    assertFalse(clone.isFrozen());
+    clone.getSingleNode().get().setName("foo");
+    assertThat(clone.getNodeByName("foo").get().getUID(), is(equalTo(node1.getUID())));
+  }
+}
@@ -559,6 +559,7 @@ public class ConfigurationTest {
       rejectInput("", "Invalid input: ''. Reason: valid setting name not found");
       rejectInput("stripe.1", "Invalid input: 'stripe.1'. Reason: valid setting name not found");
       rejectInput("stripe.1.node.1", "Invalid input: 'stripe.1.node.1'. Reason: valid setting name not found");
+      rejectInput("stripe.1" + ns, "Invalid input: 'stripe.1" + ns + "'. Reason: valid setting name not found");
 
       // bad setting name
       rejectInput("foo", "Invalid input: 'foo'. Reason: Invalid setting name: 'foo'");
@@ -574,6 +575,8 @@ public class ConfigurationTest {
       rejectInput("stripe.1.node.0" + ns + "backup-dir", "Invalid input: 'stripe.1.node.0" + ns + "backup-dir'. Reason: Expected node ID to be greater than 0");
       rejectInput("stripe.1.node.-1" + ns + "backup-dir", "Invalid input: 'stripe.1.node.-1" + ns + "backup-dir'");
       rejectInput("stripe.1.node.foo" + ns + "backup-dir", "Invalid input: 'stripe.1.node.foo" + ns + "backup-dir'");
+      rejectInput("stripe..1" + ns + "backup-dir", "Invalid input: 'stripe..1" + ns + "backup-dir'");
+      rejectInput("stripe.99999999999" + ns + "backup-dir", "Invalid input: 'stripe.99999999999" + ns + "backup-dir'");
 
       // bad formats
       rejectInput("node.1.stripe.1" + ns + "backup-dir", "Invalid input: 'node.1.stripe.1" + ns + "backup-dir'");
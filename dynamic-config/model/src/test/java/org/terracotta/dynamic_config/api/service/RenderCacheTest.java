@@ -0,0 +1,101 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.dynamic_config.api.service;
+
+import org.junit.Test;
+import org.terracotta.dynamic_config.api.model.Cluster;
+import org.terracotta.dynamic_config.api.model.Node;
+import org.terracotta.dynamic_config.api.model.NodeContext;
+
+import java.util.Properties;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.terracotta.dynamic_config.api.model.Testing.N_UIDS;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestCluster;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestNode;
+import static org.terracotta.dynamic_config.api.model.Testing.newTestStripe;
+
+public class RenderCacheTest {
+
+  private final RenderCache cache = new RenderCache(4);
+
+  private final Node node1 = newTestNode("node1", "localhost1", N_UIDS[1]);
+  private final Node node2 = newTestNode("node2", "localhost2", N_UIDS[2]);
+  private final Cluster cluster = newTestCluster("c", newTestStripe("s").addNodes(node1, node2));
+
+  @Test
+  public void test_one_render_per_commit() {
+    // commit 1: the snapshot is used for the notification, the topology event and its digest
+    String rendered = cache.render(cluster);
+    assertThat(rendered, is(equalTo(Props.toString(cluster.toProperties(false, false, true)))));
+    assertThat(cache.render(cluster), is(sameInstance(rendered)));
+    assertThat(cache.render(new NodeContext(cluster, node1.getUID())), is(sameInstance(rendered)));
+    cache.diff(1, cluster);
+    assertThat(cache.getRenderCount(), is(1L));
+
+    // commit 2: a new snapshot is created by the change
+    Cluster updated = cluster.clone().setName("c2");
+    assertThat(cache.render(updated), is(equalTo(Props.toString(updated.toProperties(false, false, true)))));
+    cache.render(updated);
+    cache.diff(2, updated);
+    assertThat(cache.getRenderCount(), is(2L));
+
+    // the previous snapshot is still cached
+    assertThat(cache.render(cluster), is(sameInstance(rendered)));
+    assertThat(cache.getRenderCount(), is(2L));
+  }
+
+  @Test
+  public void test_modified_cluster_is_rendered_again() {
+    String rendered = cache.render(cluster);
+    cluster.getSingleStripe().get().getNodes().get(0).putTcProperty("foo", "bar");
+    String modified = cache.render(cluster);
+    assertThat(modified.equals(rendered), is(false));
+    assertThat(modified, is(equalTo(Props.toString(cluster.toProperties(false, false, true)))));
+    assertThat(cache.getRenderCount(), is(2L));
+  }
+
+  @Test
+  public void test_diff() {
+    RenderCache.Diff diff = cache.diff(5, cluster);
+    assertThat(diff.isFull(), is(true));
+    assertThat(diff.getPreviousVersion(), is(nullValue()));
+    assertThat(diff.getChanged(), is(equalTo(cluster.toProperties(false, false, true))));
+
+    Cluster updated = cluster.clone().setName("c2");
+    updated.getSingleStripe().get().removeNode(node2.getUID());
+    diff = cache.diff(7, updated);
+    assertThat(diff.isFull(), is(false));
+    assertThat(diff.getPreviousVersion(), is(5L));
+    Properties changed = new Properties();
+    changed.setProperty("cluster-name", "c2");
+    assertThat(diff.getChanged(), is(equalTo(changed)));
+    assertThat(diff.getRemoved().contains("stripe.1.node.2.name"), is(true));
+    assertThat(diff.getRemoved().stream().allMatch(key -> key.startsWith("stripe.1.node.2.")), is(true));
+
+    // versions are diffed against the closest older one
+    diff = cache.diff(6, cluster);
+    assertThat(diff.getPreviousVersion(), is(5L));
+    assertThat(diff.getChanged().isEmpty(), is(true));
+    assertThat(diff.getRemoved().isEmpty(), is(true));
+    assertThat(cache.getRenderCount(), is(2L));
+  }
+}
@@ -35,8 +35,11 @@ import org.terracotta.persistence.sanskrit.SanskritObject;
 import org.terracotta.persistence.sanskrit.change.SanskritChangeBuilder;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.CHANGE_CREATION_HOST;
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.CHANGE_CREATION_TIMESTAMP;
@@ -56,15 +59,39 @@ import static org.terracotta.dynamic_config.server.configuration.nomad.persisten
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.MUTATIVE_MESSAGE_COUNT;
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.PREV_CHANGE_UUID;
 
+/**
+ * Nomad server state persisted in Sanskrit, with the configurations of the changes saved in a {@link ConfigStorage}.
+ * <p>
+ * Changes read from Sanskrit are kept in an in-memory index, and the configurations loaded from the config storage
+ * are kept, once their hash has been verified, in a cache bounded to a number of versions. Both are updated when a
+ * state change is applied and cleared on reset, so that walking the change history only reads from disk the first time.
+ * The change results returned by {@link #getChangeState(UUID)} are therefore shared and must not be modified.
+ */
 public class SanskritNomadServerState implements NomadServerState<NodeContext> {
+  public static final int DEFAULT_CONFIG_CACHE_SIZE = 256;
+
   private final Sanskrit sanskrit;
   private final ConfigStorage configStorage;
   private final HashComputer hashComputer;
+  private final Map<UUID, IndexedChange> changes = new ConcurrentHashMap<>();
+  private final Map<Long, VerifiedConfig> configs;
 
   public SanskritNomadServerState(Sanskrit sanskrit, ConfigStorage configStorage, HashComputer hashComputer) {
+    this(sanskrit, configStorage, hashComputer, DEFAULT_CONFIG_CACHE_SIZE);
+  }
+
+  public SanskritNomadServerState(Sanskrit sanskrit, ConfigStorage configStorage, HashComputer hashComputer, int configCacheSize) {
     this.sanskrit = sanskrit;
     this.configStorage = configStorage;
     this.hashComputer = hashComputer;
+    this.configs = new LinkedHashMap<Long, VerifiedConfig>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, VerifiedConfig> eldest) {
+        return size() > configCacheSize;
+      }
+    };
   }
 
   @Override
@@ -126,42 +153,73 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
   @Override
   public ChangeState<NodeContext> getChangeState(UUID changeUuid) throws NomadException {
     try {
-      String uuidString = changeUuid.toString();
-      SanskritObject child = getObject(uuidString);
-
-      if (child == null) {
-        return null;
+      IndexedChange change = changes.get(changeUuid);
+      if (change == null) {
+        change = readChange(changeUuid);
+        if (change == null) {
+          return null;
+        }
+        changes.put(changeUuid, change);
       }
 
-      ChangeRequestState state = ChangeRequestState.valueOf(child.getString(CHANGE_STATE));
-      long version = child.getLong(CHANGE_VERSION);
-      String changeFormatVersion = child.getString(CHANGE_FORMAT_VERSION);
-      if (changeFormatVersion == null) {
-        // changeFormatVersion was missing in V1, so we consider it blank.
-        // null value means latest version.
-        changeFormatVersion = Version.V1.getValue();
-      }
-      NomadChange change = child.get(CHANGE_OPERATION, NomadChange.class, changeFormatVersion);
-      UUID prevChangeUuid = child.getString(PREV_CHANGE_UUID) == null ? null : UUID.fromString(child.getString(PREV_CHANGE_UUID));
-      String expectedHash = child.getString(CHANGE_RESULT_HASH);
-      String creationHost = child.getString(CHANGE_CREATION_HOST);
-      String creationUser = child.getString(CHANGE_CREATION_USER);
-      Instant creationTimestamp = Instant.parse(child.getString(CHANGE_CREATION_TIMESTAMP));
-
-      // loads the config file as it was written by the nomad system
-      Config config = configStorage.getConfig(version);
-      try {
-        hashComputer.checkHash(config, expectedHash);
-      } catch (NomadException e) {
-        throw new NomadException("Bad hash for change: " + changeUuid + ". " + e.getMessage());
-      }
+      Config config = getVerifiedConfig(changeUuid, change.version, change.changeResultHash);
 
-      return new ChangeState<>(state, version, prevChangeUuid, change, config.getTopology(), creationHost, creationUser, creationTimestamp, expectedHash);
+      return new ChangeState<>(change.state, change.version, change.prevChangeUuid, change.change, config.getTopology(), change.creationHost, change.creationUser, change.creationTimestamp, change.changeResultHash);
     } catch (ConfigStorageException | SanskritException e) {
       throw new NomadException("Failed to read configuration: " + changeUuid, e);
     }
   }
 
+  private IndexedChange readChange(UUID changeUuid) throws SanskritException {
+    SanskritObject child = getObject(changeUuid.toString());
+
+    if (child == null) {
+      return null;
+    }
+
+    ChangeRequestState state = ChangeRequestState.valueOf(child.getString(CHANGE_STATE));
+    long version = child.getLong(CHANGE_VERSION);
+    String changeFormatVersion = child.getString(CHANGE_FORMAT_VERSION);
+    if (changeFormatVersion == null) {
+      // changeFormatVersion was missing in V1, so we consider it blank.
+      // null value means latest version.
+      changeFormatVersion = Version.V1.getValue();
+    }
+    NomadChange change = child.get(CHANGE_OPERATION, NomadChange.class, changeFormatVersion);
+    UUID prevChangeUuid = child.getString(PREV_CHANGE_UUID) == null ? null : UUID.fromString(child.getString(PREV_CHANGE_UUID));
+    String expectedHash = child.getString(CHANGE_RESULT_HASH);
+    String creationHost = child.getString(CHANGE_CREATION_HOST);
+    String creationUser = child.getString(CHANGE_CREATION_USER);
+    Instant creationTimestamp = Instant.parse(child.getString(CHANGE_CREATION_TIMESTAMP));
+
+    return new IndexedChange(state, version, prevChangeUuid, change, creationHost, creationUser, creationTimestamp, expectedHash);
+  }
+
+  private Config getVerifiedConfig(UUID changeUuid, long version, String expectedHash) throws ConfigStorageException, NomadException {
+    VerifiedConfig verified;
+    synchronized (configs) {
+      verified = configs.get(version);
+    }
+    if (verified != null && verified.hash.equals(expectedHash)) {
+      return verified.config;
+    }
+
+    // loads the config file as it was written by the nomad system
+    Config config = configStorage.getConfig(version);
+    try {
+      hashComputer.checkHash(config, expectedHash);
+    } catch (NomadException e) {
+      throw new NomadException("Bad hash for change: " + changeUuid + ". " + e.getMessage());
+    }
+
+    if (expectedHash != null) {
+      synchronized (configs) {
+        configs.put(version, new VerifiedConfig(expectedHash, config));
+      }
+    }
+    return config;
+  }
+
   @Override
   public NomadStateChange<NodeContext> newStateChange() {
     SanskritChangeBuilder changeBuilder = SanskritChangeBuilder.newChange();
@@ -181,12 +239,21 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
       SanskritNomadStateChange sanskritChange = (SanskritNomadStateChange) change;
 
       Long version = sanskritChange.getChangeVersion();
-      if (version != null) {
-        NodeContext changeResult = sanskritChange.getChangeResult();
-        configStorage.saveConfig(version, changeResult);
+      try {
+        if (version != null) {
+          NodeContext changeResult = sanskritChange.getChangeResult();
+          configStorage.saveConfig(version, changeResult);
+        }
+
+        sanskrit.applyChange(sanskritChange.getSanskritChange());
+      } finally {
+        changes.keySet().removeAll(sanskritChange.getChangedUuids());
+        if (version != null) {
+          synchronized (configs) {
+            configs.remove(version);
+          }
+        }
       }
-
-      sanskrit.applyChange(sanskritChange.getSanskritChange());
     } catch (SanskritException | ConfigStorageException e) {
       throw new NomadException("Failed to update distributed transaction state", e);
     }
@@ -208,6 +275,10 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
 
   @Override
   public void reset() throws NomadException {
+    changes.clear();
+    synchronized (configs) {
+      configs.clear();
+    }
     NomadException error = null;
     try {
       sanskrit.reset();
@@ -261,4 +332,36 @@ public class SanskritNomadServerState implements NomadServerState<NodeContext> {
       throw new RuntimeException(e);
     }
   }
+
+  private static final class IndexedChange {
+    private final ChangeRequestState state;
+    private final long version;
+    private final UUID prevChangeUuid;
+    private final NomadChange change;
+    private final String creationHost;
+    private final String creationUser;
+    private final Instant creationTimestamp;
+    private final String changeResultHash;
+
+    private IndexedChange(ChangeRequestState state, long version, UUID prevChangeUuid, NomadChange change, String creationHost, String creationUser, Instant creationTimestamp, String changeResultHash) {
+      this.state = state;
+      this.version = version;
+      this.prevChangeUuid = prevChangeUuid;
+      this.change = change;
+      this.creationHost = creationHost;
+      this.creationUser = creationUser;
+      this.creationTimestamp = creationTimestamp;
+      this.changeResultHash = changeResultHash;
+    }
+  }
+
+  private static final class VerifiedConfig {
+    private final String hash;
+    private final Config config;
+
+    private VerifiedConfig(String hash, Config config) {
+      this.hash = hash;
+      this.config = config;
+    }
+  }
 }
@@ -34,7 +34,10 @@ import org.terracotta.persistence.sanskrit.change.SanskritChange;
 import org.terracotta.persistence.sanskrit.change.SanskritChangeBuilder;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.CHANGE_CREATION_HOST;
 import static org.terracotta.dynamic_config.server.configuration.nomad.persistence.NomadSanskritKeys.CHANGE_CREATION_TIMESTAMP;
@@ -60,6 +63,7 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
   private final HashComputer hashComputer;
   private volatile Long changeVersion;
   private volatile NodeContext changeResult;
+  private final Set<UUID> changedUuids = new CopyOnWriteArraySet<>();
 
   public SanskritNomadStateChange(Sanskrit sanskrit, SanskritChangeBuilder changeBuilder, HashComputer hashComputer) {
     this.sanskrit = sanskrit;
@@ -146,6 +150,7 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
     }
 
     changeBuilder.setObject(changeUuid.toString(), child);
+    changedUuids.add(changeUuid);
 
     return this;
   }
@@ -162,6 +167,7 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
       throw new NomadException(e);
     }
     changeBuilder.setObject(uuidString, updated);
+    changedUuids.add(changeUuid);
     return this;
   }
 
@@ -176,4 +182,8 @@ public class SanskritNomadStateChange implements NomadStateChange<NodeContext> {
   public NodeContext getChangeResult() {
     return changeResult;
   }
+
+  public Collection<UUID> getChangedUuids() {
+    return changedUuids;
+  }
 }
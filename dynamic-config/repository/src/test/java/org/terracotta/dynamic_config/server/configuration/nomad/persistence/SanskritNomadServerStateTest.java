@@ -33,6 +33,7 @@ import org.terracotta.dynamic_config.server.configuration.nomad.persistence.sans
 import org.terracotta.json.DefaultJsonFactory;
 import org.terracotta.nomad.client.change.NomadChange;
 import org.terracotta.nomad.server.ChangeRequest;
+import org.terracotta.nomad.server.ChangeRequestState;
 import org.terracotta.nomad.server.ChangeState;
 import org.terracotta.persistence.sanskrit.MutableSanskritObject;
 import org.terracotta.persistence.sanskrit.Sanskrit;
@@ -49,6 +50,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.terracotta.dynamic_config.api.model.Setting.OFFHEAP_RESOURCES;
@@ -198,6 +200,44 @@ public class SanskritNomadServerStateTest {
     assertEquals("set offheap-resources.primary-server-resource=2GB", change.getSummary());
   }
 
+  @Test
+  public void getChangeRequestIsCachedUntilUpdated() throws Exception {
+    UUID uuid = UUID.randomUUID();
+    SettingNomadChange settingNomadChange = SettingNomadChange.set(Applicability.cluster(), OFFHEAP_RESOURCES, "primary-server-resource", "2GB");
+
+    MutableSanskritObject changeObject = sanskrit.newMutableSanskritObject();
+    changeObject.setString("state", "PREPARED");
+    changeObject.setLong("version", 1L);
+    changeObject.set("operation", settingNomadChange, Version.CURRENT.getValue());
+    changeObject.setString("changeResultHash", "1063a7c79380cc1c8372c1f78d1104eefdeed073");
+    changeObject.setString("creationHost", "host");
+    changeObject.setString("creationUser", "user");
+    changeObject.setString("creationTimestamp", now.toString());
+
+    when(sanskrit.getObject(uuid.toString())).thenReturn(changeObject);
+    when(configStorage.getConfig(1L)).thenReturn(new Config(topology, Version.CURRENT));
+
+    assertThat(state.getChangeState(uuid).getState(), is(ChangeRequestState.PREPARED));
+    assertThat(state.getChangeState(uuid).getState(), is(ChangeRequestState.PREPARED));
+    verify(sanskrit, times(1)).getObject(uuid.toString());
+    verify(configStorage, times(1)).getConfig(1L);
+
+    MutableSanskritObject rolledBack = sanskrit.newMutableSanskritObject();
+    changeObject.accept(rolledBack);
+    rolledBack.setString("state", "ROLLED_BACK");
+    when(sanskrit.getObject(uuid.toString())).thenReturn(rolledBack);
+    state.applyStateChange(state.newStateChange().updateChangeRequestState(uuid, ROLLED_BACK));
+
+    assertEquals(ROLLED_BACK, state.getChangeState(uuid).getState());
+    assertEquals(topology, state.getChangeState(uuid).getChangeResult());
+    verify(configStorage, times(1)).getConfig(1L);
+
+    state.reset();
+
+    assertEquals(ROLLED_BACK, state.getChangeState(uuid).getState());
+    verify(configStorage, times(2)).getConfig(1L);
+  }
+
   @Test
   public void makeFirstChange() throws Exception {
     runChangeTest(1L);
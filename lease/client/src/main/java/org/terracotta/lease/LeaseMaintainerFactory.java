@@ -16,6 +16,7 @@
  */
 package org.terracotta.lease;
 
+import java.io.Closeable;
 import java.util.Properties;
 
 import org.slf4j.Logger;
@@ -36,6 +37,9 @@ public class LeaseMaintainerFactory {
   /**
    * Creates a LeaseMaintainer to maintain a lease on the connection. This should only be called once for any one
    * Connection.
+   * <p>
+   * When the time source is a {@link SystemTimeSource}, the lease is maintained by the {@link LeaseScheduler#shared()
+   * lease scheduler} shared by all the connections of the JVM. Otherwise, dedicated threads follow the time source.
    *
    * @param connection the connection on which leases should be maintained
    * @return the LeaseMaintainer that will maintain leases on the connection
@@ -48,6 +52,11 @@ public class LeaseMaintainerFactory {
     LeaseMaintainerImpl leaseMaintainer = new LeaseMaintainerImpl(leaseAcquirer, timeSource);
     leaseReconnectListener.setUnderlying(leaseMaintainer);
 
+    if (timeSource instanceof SystemTimeSource) {
+      Closeable registration = LeaseScheduler.shared().register(leaseMaintainer, connection);
+      return new CleaningLeaseMaintainer(leaseMaintainer, connection, registration);
+    }
+
     LeaseMaintenanceThread leaseMaintenanceThread = new LeaseMaintenanceThread(leaseMaintainer, timeSource);
     LeaseExpiryConnectionKillingThread leaseExpiryConnectionKillingThread = new LeaseExpiryConnectionKillingThread(leaseMaintainer, connection, timeSource);
 
@@ -0,0 +1,268 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.connection.Connection;
+import org.terracotta.exception.ConnectionClosedException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains the leases of all the connections of a JVM with a single scheduling thread, instead of two threads per
+ * connection.
+ * <p>
+ * The scheduling thread never talks to the servers: the lease renewals it triggers run concurrently on renewal threads,
+ * which are only kept while renewals are outstanding, so that a slow server does not delay the leases of the other
+ * connections. The same thread periodically checks the leases of all the connections, and closes the connections whose
+ * lease was lost.
+ */
+public class LeaseScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LeaseScheduler.class);
+  private static final long EXPIRY_CHECK_INTERVAL_MILLIS = 200L;
+  private static final long RETRY_AFTER_ERROR_MILLIS = 200L;
+
+  private static final LeaseScheduler SHARED = new LeaseScheduler();
+
+  /**
+   * @return the lease scheduler shared by all the connections of the JVM
+   */
+  public static LeaseScheduler shared() {
+    return SHARED;
+  }
+
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService renewals;
+  private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger pendingRenewals = new AtomicInteger();
+  private final LongAdder renewalCount = new LongAdder();
+  private final LongAdder renewalNanos = new LongAdder();
+  private final AtomicLong maxRenewalNanos = new AtomicLong();
+
+  LeaseScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, daemonThreads("LeaseScheduler"));
+    scheduler.setRemoveOnCancelPolicy(true);
+    this.scheduler = scheduler;
+    this.renewals = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), daemonThreads("LeaseRenewal"));
+    scheduler.scheduleWithFixedDelay(this::checkLeases, EXPIRY_CHECK_INTERVAL_MILLIS, EXPIRY_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Starts maintaining the lease of a connection.
+   *
+   * @return the resource to close to stop maintaining the lease
+   */
+  Closeable register(LeaseMaintainerImpl leaseMaintainer, Connection connection) {
+    Registration registration = new Registration(leaseMaintainer, connection);
+    registrations.add(registration);
+    registration.schedule(0L);
+    return registration;
+  }
+
+  /**
+   * @return the number of connections whose lease is maintained
+   */
+  public int getConnectionCount() {
+    return registrations.size();
+  }
+
+  /**
+   * @return the number of lease renewals currently waiting for a server
+   */
+  public int getPendingRenewalCount() {
+    return pendingRenewals.get();
+  }
+
+  /**
+   * @return the number of lease renewals completed since the scheduler was created
+   */
+  public long getRenewalCount() {
+    return renewalCount.sum();
+  }
+
+  /**
+   * @param unit the unit of the returned latency
+   * @return the average time taken to renew a lease, or 0 if no lease was renewed yet
+   */
+  public long getAverageRenewalLatency(TimeUnit unit) {
+    long count = renewalCount.sum();
+    return count == 0 ? 0L : unit.convert(renewalNanos.sum() / count, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param unit the unit of the returned latency
+   * @return the longest time taken to renew a lease
+   */
+  public long getMaximumRenewalLatency(TimeUnit unit) {
+    return unit.convert(maxRenewalNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  void shutdown() {
+    for (Registration registration : registrations) {
+      registration.close();
+    }
+    scheduler.shutdownNow();
+    renewals.shutdownNow();
+  }
+
+  private void checkLeases() {
+    for (Registration registration : registrations) {
+      try {
+        registration.checkLease();
+      } catch (RuntimeException e) {
+        LOGGER.error("Error checking lease", e);
+      }
+    }
+  }
+
+  private void renewed(long nanos) {
+    renewalCount.increment();
+    renewalNanos.add(nanos);
+    maxRenewalNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static boolean containsCause(Throwable failure, Class<? extends Throwable> cause) {
+    Throwable intermediate = failure;
+    do {
+      if (cause.isInstance(intermediate)) {
+        return true;
+      }
+    } while ((intermediate = intermediate.getCause()) != null);
+
+    return false;
+  }
+
+  private final class Registration implements Closeable {
+    private final LeaseMaintainerImpl leaseMaintainer;
+    private final Connection connection;
+
+    private volatile boolean closed;
+    private volatile Future<?> next;
+
+    Registration(LeaseMaintainerImpl leaseMaintainer, Connection connection) {
+      this.leaseMaintainer = leaseMaintainer;
+      this.connection = connection;
+    }
+
+    void schedule(long delayMillis) {
+      if (closed) {
+        return;
+      }
+      try {
+        next = scheduler.schedule(this::submitRefresh, delayMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Lease scheduler is closed, no longer refreshing lease of connection: {}", connection);
+      }
+    }
+
+    private void submitRefresh() {
+      if (closed) {
+        return;
+      }
+      pendingRenewals.incrementAndGet();
+      try {
+        next = renewals.submit(this::refresh);
+      } catch (RejectedExecutionException e) {
+        pendingRenewals.decrementAndGet();
+        LOGGER.debug("Lease scheduler is closed, no longer refreshing lease of connection: {}", connection);
+      }
+    }
+
+    private void refresh() {
+      long start = System.nanoTime();
+      try {
+        long waitLength = leaseMaintainer.refreshLease();
+        renewed(System.nanoTime() - start);
+
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("Lease refresh wait: " + waitLength);
+        }
+
+        schedule(waitLength);
+      } catch (InterruptedException e) {
+        // interrupted by close() - the interrupt is consumed here so that the renewal thread can be reused
+        schedule(0L);
+      } catch (LeaseException | RuntimeException e) {
+        if (containsCause(e, ConnectionClosedException.class)) {
+          close();
+        } else if (!closed) {
+          LOGGER.error("Error obtaining lease", e);
+          schedule(RETRY_AFTER_ERROR_MILLIS);
+        }
+      } finally {
+        pendingRenewals.decrementAndGet();
+      }
+    }
+
+    void checkLease() {
+      Lease lease = leaseMaintainer.getCurrentLease();
+
+      if (!(lease instanceof NullLease) && !lease.isValidAndContiguous(lease)) {
+        LOGGER.info("Lease lost, so closing connection to server: " + lease);
+        close();
+        // connection.close() may block, so keep it away from the scheduling thread
+        renewals.execute(this::closeConnection);
+      }
+    }
+
+    private void closeConnection() {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        LOGGER.error("Closing connection, due to lease expiry, caused an error", e);
+      } catch (IllegalStateException e) {
+        // Already closed.
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      registrations.remove(this);
+      Future<?> scheduled = next;
+      if (scheduled != null) {
+        // interrupt any renewal blocked waiting for a server
+        scheduled.cancel(true);
+      }
+    }
+  }
+}
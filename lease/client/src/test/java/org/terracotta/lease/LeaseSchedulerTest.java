@@ -0,0 +1,79 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.lease;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.terracotta.connection.Connection;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LeaseSchedulerTest {
+  @Mock
+  private LeaseAcquirer leaseAcquirer;
+
+  @Mock
+  private Connection connection;
+
+  private final LeaseScheduler leaseScheduler = new LeaseScheduler();
+
+  @After
+  public void after() {
+    leaseScheduler.shutdown();
+  }
+
+  @Test
+  public void renewsLeasesUntilClosed() throws Exception {
+    when(leaseAcquirer.acquireLease()).thenReturn(300L);
+    LeaseMaintainerImpl leaseMaintainer = new LeaseMaintainerImpl(leaseAcquirer, new SystemTimeSource());
+
+    Closeable registration = leaseScheduler.register(leaseMaintainer, connection);
+    assertTrue(leaseMaintainer.waitForLease(10, TimeUnit.SECONDS));
+    verify(leaseAcquirer, timeout(10_000L).atLeast(3)).acquireLease();
+    assertEquals(1, leaseScheduler.getConnectionCount());
+    assertTrue(leaseScheduler.getRenewalCount() >= 2);
+
+    registration.close();
+    assertEquals(0, leaseScheduler.getConnectionCount());
+    verify(connection, after(1000L).never()).close();
+  }
+
+  @Test
+  public void closesConnectionWhenLeaseIsLost() throws Exception {
+    when(leaseAcquirer.acquireLease()).thenReturn(300L).thenThrow(new LeaseException("lease refused"));
+    LeaseMaintainerImpl leaseMaintainer = new LeaseMaintainerImpl(leaseAcquirer, new SystemTimeSource());
+
+    leaseScheduler.register(leaseMaintainer, connection);
+
+    verify(connection, timeout(10_000L)).close();
+    assertEquals(0, leaseScheduler.getConnectionCount());
+  }
+}
@@ -22,7 +22,10 @@ import org.terracotta.runnel.EnumMapping;
 import org.terracotta.runnel.EnumMappingBuilder;
 import org.terracotta.runnel.Struct;
 import org.terracotta.runnel.StructBuilder;
-import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.compiled.EnumHandle;
+import org.terracotta.runnel.decoding.compiled.StructHandle;
+import org.terracotta.runnel.decoding.compiled.StructPlan;
+import org.terracotta.runnel.decoding.compiled.StructPlanDecoder;
 import org.terracotta.runnel.encoding.StructEncoder;
 
 import java.nio.ByteBuffer;
@@ -35,9 +38,18 @@ public class LeaseAcquirerCodec implements MessageCodec<LeaseMessage, LeaseRespo
   private static final Struct messageStruct = createMessageStruct();
   private static final Struct responseStruct = createResponseStruct();
 
+  private static final StructPlan messagePlan = messageStruct.compile();
+  private static final EnumHandle<LeaseMessageType> messageTypeHandle = messagePlan.enm("messageType");
+  private static final StructHandle leaseRequestHandle = messagePlan.struct("leaseRequest");
+  private static final StructHandle leaseReconnectFinishedHandle = messagePlan.struct("leaseReconnectFinished");
+
+  private static final StructPlan responsePlan = responseStruct.compile();
+  private static final EnumHandle<LeaseResponseType> responseTypeHandle = responsePlan.enm("responseType");
+  private static final StructHandle leaseRequestResultHandle = responsePlan.struct("leaseRequestResult");
+
   @Override
   public byte[] encodeMessage(LeaseMessage leaseMessage) throws MessageCodecException {
-    StructEncoder<Void> encoder = messageStruct.encoder();
+    StructEncoder<Void> encoder = messageStruct.streamingEncoder();
     encoder.enm("messageType", leaseMessage.getType());
     leaseMessage.encode(encoder);
     return encoder.encode().array();
@@ -45,14 +57,24 @@ public class LeaseAcquirerCodec implements MessageCodec<LeaseMessage, LeaseRespo
 
   @Override
   public LeaseMessage decodeMessage(byte[] bytes) throws MessageCodecException {
-    StructDecoder<Void> decoder = messageStruct.decoder(ByteBuffer.wrap(bytes));
-    LeaseMessageType type = decoder.<LeaseMessageType>enm("messageType").get();
-    return type.decode(decoder);
+    StructPlanDecoder decoder = messagePlan.decoder(ByteBuffer.wrap(bytes));
+    LeaseMessageType type = decoder.enm(messageTypeHandle);
+    if (type == null) {
+      throw new MessageCodecException("Unknown lease message type", null);
+    }
+    switch (type) {
+      case LEASE_REQUEST:
+        return LeaseRequest.decode(decoder.struct(leaseRequestHandle));
+      case LEASE_RECONNECT_FINISHED:
+        return LeaseReconnectFinished.decode(decoder.struct(leaseReconnectFinishedHandle));
+      default:
+        throw new AssertionError("Unexpected lease message type: " + type);
+    }
   }
 
   @Override
   public byte[] encodeResponse(LeaseResponse leaseResponse) throws MessageCodecException {
-    StructEncoder<Void> encoder = responseStruct.encoder();
+    StructEncoder<Void> encoder = responseStruct.streamingEncoder();
     encoder.enm("responseType", leaseResponse.getType());
     leaseResponse.encode(encoder);
     return encoder.encode().array();
@@ -60,9 +82,21 @@ public class LeaseAcquirerCodec implements MessageCodec<LeaseMessage, LeaseRespo
 
   @Override
   public LeaseResponse decodeResponse(byte[] bytes) throws MessageCodecException {
-    StructDecoder<Void> decoder = responseStruct.decoder(ByteBuffer.wrap(bytes));
-    LeaseResponseType type = decoder.<LeaseResponseType>enm("responseType").get();
-    return type.decode(decoder);
+    StructPlanDecoder decoder = responsePlan.decoder(ByteBuffer.wrap(bytes));
+    LeaseResponseType type = decoder.enm(responseTypeHandle);
+    if (type == null) {
+      throw new MessageCodecException("Unknown lease response type", null);
+    }
+    switch (type) {
+      case LEASE_REQUEST_RESULT:
+        return LeaseRequestResult.decode(decoder.struct(leaseRequestResultHandle));
+      case LEASE_ACQUIRER_AVAILABLE:
+        return new LeaseAcquirerAvailable();
+      case IGNORED_LEASE_RESPONSE:
+        return new IgnoredLeaseResponse();
+      default:
+        throw new AssertionError("Unexpected lease response type: " + type);
+    }
   }
 
   private static Struct createMessageStruct() {
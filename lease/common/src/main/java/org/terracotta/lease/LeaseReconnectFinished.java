@@ -19,6 +19,9 @@ package org.terracotta.lease;
 import org.terracotta.runnel.Struct;
 import org.terracotta.runnel.StructBuilder;
 import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.compiled.Int64Handle;
+import org.terracotta.runnel.decoding.compiled.StructPlan;
+import org.terracotta.runnel.decoding.compiled.StructPlanDecoder;
 import org.terracotta.runnel.encoding.StructEncoder;
 
 import java.util.UUID;
@@ -28,6 +31,11 @@ import java.util.UUID;
  * and that messages are being delivered again. It uses the UUID to stand for the ClientDescriptor.
  */
 public class LeaseReconnectFinished implements LeaseMessage {
+  private static final Struct struct = createStruct();
+  private static final StructPlan plan = struct.compile();
+  private static final Int64Handle uuidMSBHandle = plan.int64("uuidMSB");
+  private static final Int64Handle uuidLSBHandle = plan.int64("uuidLSB");
+
   private final UUID uuid;
 
   public LeaseReconnectFinished(UUID uuid) {
@@ -43,12 +51,14 @@ public class LeaseReconnectFinished implements LeaseMessage {
     return LeaseMessageType.LEASE_RECONNECT_FINISHED;
   }
 
-  public static void addStruct(StructBuilder parentBuilder, int index) {
+  private static Struct createStruct() {
     StructBuilder builder = StructBuilder.newStructBuilder();
     builder.int64("uuidMSB", 10);
     builder.int64("uuidLSB", 20);
-    Struct struct = builder.build();
+    return builder.build();
+  }
 
+  public static void addStruct(StructBuilder parentBuilder, int index) {
     parentBuilder.struct("leaseReconnectFinished", index, struct);
   }
 
@@ -68,4 +78,9 @@ public class LeaseReconnectFinished implements LeaseMessage {
     UUID uuid = new UUID(uuidMSB, uuidLSB);
     return new LeaseReconnectFinished(uuid);
   }
+
+  static LeaseMessage decode(StructPlanDecoder decoder) {
+    UUID uuid = new UUID(decoder.int64AsLong(uuidMSBHandle), decoder.int64AsLong(uuidLSBHandle));
+    return new LeaseReconnectFinished(uuid);
+  }
 }
@@ -19,12 +19,17 @@ package org.terracotta.lease;
 import org.terracotta.runnel.Struct;
 import org.terracotta.runnel.StructBuilder;
 import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.compiled.Int64Handle;
+import org.terracotta.runnel.decoding.compiled.StructPlanDecoder;
 import org.terracotta.runnel.encoding.StructEncoder;
 
 /**
  * A message to send from the client entity to the server entity to request a lease.
  */
 public class LeaseRequest implements LeaseMessage {
+  private static final Struct struct = createStruct();
+  private static final Int64Handle connectionSequenceNumberHandle = struct.compile().int64("connectionSequenceNumber");
+
   private final long connectionSequenceNumber;
 
   public LeaseRequest(long connectionSequenceNumber) {
@@ -40,11 +45,13 @@ public class LeaseRequest implements LeaseMessage {
     return LeaseMessageType.LEASE_REQUEST;
   }
 
-  public static void addStruct(StructBuilder parentBuilder, int index) {
+  private static Struct createStruct() {
     StructBuilder builder = StructBuilder.newStructBuilder();
     builder.int64("connectionSequenceNumber", 10);
-    Struct struct = builder.build();
+    return builder.build();
+  }
 
+  public static void addStruct(StructBuilder parentBuilder, int index) {
     parentBuilder.struct("leaseRequest", index, struct);
   }
 
@@ -60,4 +67,8 @@ public class LeaseRequest implements LeaseMessage {
     long connectionSequenceNumber = decoder.int64("connectionSequenceNumber");
     return new LeaseRequest(connectionSequenceNumber);
   }
+
+  static LeaseMessage decode(StructPlanDecoder decoder) {
+    return new LeaseRequest(decoder.int64AsLong(connectionSequenceNumberHandle));
+  }
 }
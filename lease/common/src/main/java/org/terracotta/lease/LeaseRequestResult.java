@@ -19,12 +19,22 @@ package org.terracotta.lease;
 import org.terracotta.runnel.Struct;
 import org.terracotta.runnel.StructBuilder;
 import org.terracotta.runnel.decoding.StructDecoder;
+import org.terracotta.runnel.decoding.compiled.BoolHandle;
+import org.terracotta.runnel.decoding.compiled.Int64Handle;
+import org.terracotta.runnel.decoding.compiled.StructPlan;
+import org.terracotta.runnel.decoding.compiled.StructPlanDecoder;
 import org.terracotta.runnel.encoding.StructEncoder;
 
 /**
  * A message sent from the server entity to the client entity to indicate the response to the LeaseRequest.
  */
 public class LeaseRequestResult implements LeaseResponse {
+  private static final Struct struct = createStruct();
+  private static final StructPlan plan = struct.compile();
+  private static final BoolHandle connectionGoodHandle = plan.bool("connectionGood");
+  private static final BoolHandle leaseGrantedHandle = plan.bool("leaseGranted");
+  private static final Int64Handle leaseLengthHandle = plan.int64("leaseLength");
+
   private final boolean connectionGood;
   private final boolean leaseGranted;
   private final long leaseLength;
@@ -70,13 +80,15 @@ public class LeaseRequestResult implements LeaseResponse {
   }
 
 
-  public static void addStruct(StructBuilder parentBuilder, int index) {
+  private static Struct createStruct() {
     StructBuilder builder = StructBuilder.newStructBuilder();
     builder.bool("connectionGood", 10);
     builder.bool("leaseGranted", 20);
     builder.int64("leaseLength", 30);
-    Struct struct = builder.build();
+    return builder.build();
+  }
 
+  public static void addStruct(StructBuilder parentBuilder, int index) {
     parentBuilder.struct("leaseRequestResult", index, struct);
   }
 
@@ -96,4 +108,11 @@ public class LeaseRequestResult implements LeaseResponse {
     long leaseLength = decoder.int64("leaseLength");
     return new LeaseRequestResult(connectionGood, leaseGranted, leaseLength);
   }
+
+  static LeaseResponse decode(StructPlanDecoder decoder) {
+    boolean connectionGood = decoder.bool(connectionGoodHandle);
+    boolean leaseGranted = decoder.bool(leaseGrantedHandle);
+    long leaseLength = decoder.int64AsLong(leaseLengthHandle);
+    return new LeaseRequestResult(connectionGood, leaseGranted, leaseLength);
+  }
 }
@@ -18,9 +18,14 @@ package org.terracotta.lease.service.monitor;
 
 import org.terracotta.lease.TimeSource;
 
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A thread that periodically triggers a check for expired leases. Interrupting the thread permanently stops the checks
  * and the thread dies.
+ * <p>
+ * The thread wakes up when the earliest leases expire, or at least every {@value #LEASE_CHECK_INTERVAL_MILLIS}ms.
  */
 public class LeaseMonitorThread extends Thread {
   private static final long LEASE_CHECK_INTERVAL_MILLIS = 200L;
@@ -41,11 +46,21 @@ public class LeaseMonitorThread extends Thread {
       leaseState.checkLeases();
 
       try {
-        timeSource.sleep(LEASE_CHECK_INTERVAL_MILLIS);
+        timeSource.sleep(nextCheckDelayMillis());
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         return;
       }
     }
   }
+
+  private long nextCheckDelayMillis() {
+    OptionalLong nextExpiry = leaseState.nextExpiry();
+    if (!nextExpiry.isPresent()) {
+      return LEASE_CHECK_INTERVAL_MILLIS;
+    }
+    long delayNanos = nextExpiry.getAsLong() - timeSource.nanoTime();
+    long delayMillis = TimeUnit.NANOSECONDS.toMillis(delayNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+    return Math.max(1L, Math.min(LEASE_CHECK_INTERVAL_MILLIS, delayMillis));
+  }
 }
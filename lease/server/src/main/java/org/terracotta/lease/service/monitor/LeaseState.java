@@ -24,20 +24,32 @@ import org.terracotta.entity.StateDumpable;
 import org.terracotta.lease.TimeSource;
 import org.terracotta.lease.service.closer.ClientConnectionCloser;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * The central component of the connection leasing code. This object holds the state of the leases for each client and
  * allows updates to that state in a thread-safe way.
+ * <p>
+ * Clients are also indexed by the time slot, of {@value #EXPIRY_SLOT_MILLIS}ms, in which their lease expires, so that
+ * checking the leases only looks at the slots that are due instead of at every client. Renewing a lease only adds the
+ * client to the slot of its new expiry: the entries left in older slots are discarded when these slots become due.
  */
 public class LeaseState implements StateDumpable {
   private static final Logger LOGGER = LoggerFactory.getLogger(LeaseState.class);
+  static final long EXPIRY_SLOT_MILLIS = 10L;
+  private static final long EXPIRY_SLOT_NANOS = TimeUnit.MILLISECONDS.toNanos(EXPIRY_SLOT_MILLIS);
 
   private final TimeSource timeSource;
   private final ClientConnectionCloser clientConnectionCloser;
   private final ConcurrentHashMap<ClientDescriptor, Lease> leases = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<Long, Set<ClientDescriptor>> expirySlots = new ConcurrentSkipListMap<>();
 
   public LeaseState(TimeSource timeSource, ClientConnectionCloser clientConnectionCloser) {
     this.timeSource = timeSource;
@@ -62,6 +74,7 @@ public class LeaseState implements StateDumpable {
 
     ValidLease newLease = createLease(leaseLength);
     leases.put(clientDescriptor, newLease);
+    index(clientDescriptor, newLease);
   }
 
   public boolean acquireLease(ClientDescriptor clientDescriptor, long leaseLength) {
@@ -73,6 +86,7 @@ public class LeaseState implements StateDumpable {
       if (currentLease == null) {
         Lease existingLease = leases.putIfAbsent(clientDescriptor, newLease);
         if (existingLease == null) {
+          index(clientDescriptor, newLease);
           return true;
         }
       } else {
@@ -87,6 +101,7 @@ public class LeaseState implements StateDumpable {
 
         boolean replaced = leases.replace(clientDescriptor, currentLease, newLease);
         if (replaced) {
+          index(clientDescriptor, newLease);
           return true;
         }
       }
@@ -98,37 +113,81 @@ public class LeaseState implements StateDumpable {
     return new ValidLease(leaseExpiry);
   }
 
+  private static long slot(long nanoTime) {
+    return Math.floorDiv(nanoTime, EXPIRY_SLOT_NANOS);
+  }
+
+  private void index(ClientDescriptor clientDescriptor, ValidLease lease) {
+    Long slot = slot(lease.getLeaseExpiry());
+    while (true) {
+      Set<ClientDescriptor> clients = expirySlots.computeIfAbsent(slot, s -> ConcurrentHashMap.newKeySet());
+      clients.add(clientDescriptor);
+      if (expirySlots.get(slot) == clients) {
+        return;
+      }
+      // Otherwise checkLeases() took this slot out while we were adding to it, so add the client again
+    }
+  }
+
+  /**
+   * @return the time, as given by the {@link TimeSource}, at which all the leases of the earliest indexed slot are expired
+   */
+  OptionalLong nextExpiry() {
+    Map.Entry<Long, Set<ClientDescriptor>> first = expirySlots.firstEntry();
+    return first == null ? OptionalLong.empty() : OptionalLong.of((first.getKey() + 1) * EXPIRY_SLOT_NANOS);
+  }
+
   void checkLeases() {
     LOGGER.debug("Checking leases");
     long now = timeSource.nanoTime();
+    long currentSlot = slot(now);
+    List<ClientDescriptor> notYetExpired = new ArrayList<>();
 
-    // The iterator from ConcurrentHashMap.iterator() is guaranteed not to throw a ConcurrentModificationException
-    // We rely on that guarantee here because we may modify the leases map inside the iteration.
-    for (ClientDescriptor clientDescriptor : leases.keySet()) {
-      checkLease(clientDescriptor, now);
+    Map.Entry<Long, Set<ClientDescriptor>> due;
+    while ((due = expirySlots.firstEntry()) != null && due.getKey() <= currentSlot) {
+      if (!expirySlots.remove(due.getKey(), due.getValue())) {
+        continue;
+      }
+      for (ClientDescriptor clientDescriptor : due.getValue()) {
+        Lease lease = checkLease(clientDescriptor, now);
+        // only the current slot can hold leases that are not expired yet; entries for renewed leases are dropped
+        if (lease instanceof ValidLease && slot(((ValidLease) lease).getLeaseExpiry()) <= currentSlot) {
+          notYetExpired.add(clientDescriptor);
+        }
+      }
+    }
+
+    for (ClientDescriptor clientDescriptor : notYetExpired) {
+      Lease lease = leases.get(clientDescriptor);
+      if (lease instanceof ValidLease) {
+        index(clientDescriptor, (ValidLease) lease);
+      }
     }
   }
 
-  private void checkLease(ClientDescriptor clientDescriptor, long now) {
+  /**
+   * @return the lease of the client if it is still valid, or null
+   */
+  private Lease checkLease(ClientDescriptor clientDescriptor, long now) {
     while (true) {
       Lease lease = leases.get(clientDescriptor);
 
       if (lease == null) {
-        return; // Some other thread called checkLeases() and expired the lease
+        return null; // Some other thread called checkLeases() and expired the lease
       }
 
       if (lease instanceof ExpiredLease) {
         if (LOGGER.isTraceEnabled()) {
           LOGGER.trace("Lease for client: " + clientDescriptor + " is an ExpiredLease");
         }
-        return; // Some other thread is expiring this lease - leave it alone
+        return null; // Some other thread is expiring this lease - leave it alone
       }
 
       if (!lease.isExpired(now)) {
         if (LOGGER.isTraceEnabled()) {
           LOGGER.trace("Lease for client: " + clientDescriptor + " is still valid: " + lease);
         }
-        return; // The lease is still valid so no change needed
+        return lease; // The lease is still valid so no change needed
       }
 
       Lease expiredLease = new ExpiredLease();
@@ -137,7 +196,7 @@ public class LeaseState implements StateDumpable {
       if (replaced) {
         LOGGER.info("Closing connection to client: " + clientDescriptor + " due to lease expiry");
         clientConnectionCloser.closeClientConnection(clientDescriptor);
-        return;
+        return null;
       }
 
       // Otherwise loop because another thread updated the lease whilst we looked at it
@@ -36,6 +36,10 @@ class ValidLease implements Lease {
     return true;
   }
 
+  long getLeaseExpiry() {
+    return leaseExpiry;
+  }
+
   boolean expiresBefore(ValidLease newLease) {
     return leaseExpiry - newLease.leaseExpiry < 0;
   }
@@ -29,6 +29,7 @@ import org.terracotta.lease.service.closer.ClientConnectionCloser;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -107,6 +108,41 @@ public class LeaseStateTest {
     leaseState.disconnected(clientDescriptor3);
   }
 
+  @Test
+  public void renewedLeaseDoesNotExpireWithItsPreviousLease() {
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 10L));
+
+    timeSource.tickMillis(8L);
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 20L));
+
+    timeSource.tickMillis(5L);
+    leaseState.checkLeases();
+    verifyNoMoreInteractions(clientConnectionCloser);
+
+    timeSource.tickMillis(14L);
+    leaseState.checkLeases();
+    verifyNoMoreInteractions(clientConnectionCloser);
+
+    timeSource.tickMillis(2L);
+    leaseState.checkLeases();
+    verify(clientConnectionCloser).closeClientConnection(clientDescriptor1);
+    verifyNoMoreInteractions(clientConnectionCloser);
+  }
+
+  @Test
+  public void nextExpiryIsTheEndOfTheSlotOfTheEarliestLease() {
+    assertFalse(leaseState.nextExpiry().isPresent());
+
+    assertTrue(leaseState.acquireLease(clientDescriptor1, 30L));
+    assertTrue(leaseState.acquireLease(clientDescriptor2, 10L));
+    assertThat(leaseState.nextExpiry().getAsLong(), is(TimeUnit.MILLISECONDS.toNanos(20L)));
+
+    timeSource.tickMillis(20L);
+    leaseState.checkLeases();
+    verify(clientConnectionCloser).closeClientConnection(clientDescriptor2);
+    assertThat(leaseState.nextExpiry().getAsLong(), is(TimeUnit.MILLISECONDS.toNanos(40L)));
+  }
+
   @Test
   public void reconnectingSetsTheLeaseForTheClientToALeaseThatDoesNotExpire() {
     assertTrue(leaseState.acquireLease(clientDescriptor1, 10L));
@@ -0,0 +1,568 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.entity.codec;
+
+import org.terracotta.management.model.call.ContextualCall;
+import org.terracotta.management.model.call.ContextualReturn;
+import org.terracotta.management.model.call.Parameter;
+import org.terracotta.management.model.capabilities.Capability;
+import org.terracotta.management.model.capabilities.DefaultCapability;
+import org.terracotta.management.model.capabilities.context.CapabilityContext;
+import org.terracotta.management.model.capabilities.descriptors.CallDescriptor;
+import org.terracotta.management.model.capabilities.descriptors.Descriptor;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptor;
+import org.terracotta.management.model.cluster.Client;
+import org.terracotta.management.model.cluster.ClientIdentifier;
+import org.terracotta.management.model.cluster.Cluster;
+import org.terracotta.management.model.cluster.Connection;
+import org.terracotta.management.model.cluster.Endpoint;
+import org.terracotta.management.model.cluster.ManagementRegistry;
+import org.terracotta.management.model.cluster.Server;
+import org.terracotta.management.model.cluster.ServerEntity;
+import org.terracotta.management.model.cluster.ServerEntityIdentifier;
+import org.terracotta.management.model.cluster.Stripe;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.context.ContextContainer;
+import org.terracotta.management.model.context.Contextual;
+import org.terracotta.management.model.message.DefaultManagementCallMessage;
+import org.terracotta.management.model.message.DefaultMessage;
+import org.terracotta.management.model.notification.ContextualNotification;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.management.sequence.BoundaryFlakeSequence;
+import org.terracotta.management.sequence.Sequence;
+import org.terracotta.statistics.Sample;
+import org.terracotta.statistics.StatisticType;
+import org.terracotta.statistics.registry.Statistic;
+import org.terracotta.voltron.proxy.BinaryCodec;
+import org.terracotta.voltron.proxy.Codec;
+import org.terracotta.voltron.proxy.SerializationCodec;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A {@link BinaryCodec} knowing how to write the management model types exchanged by the NMS and NMS agent entities
+ * (contexts, statistics, notifications, capabilities, management calls and their returns, messages, and the
+ * {@link Cluster} topology with its management registries) field by field. Other types are handled by the fallback codec.
+ * <p>
+ * Both peers of an entity must use the same codec, so the codec is selected by entity version with
+ * {@link #forEntityVersion(long, Codec, Class[])}: the entities using Java serialization can adopt this codec by bumping
+ * their version to {@link #SINCE_VERSION}. Until then, this codec still decodes what Java serialization produces.
+ */
+public class ManagementCodec extends BinaryCodec {
+
+  /**
+   * The first entity version for which messages get encoded with this codec instead of the fallback one.
+   */
+  public static final long SINCE_VERSION = 2;
+
+  // type ids are part of the wire format: never change or reuse them
+  private static final int CONTEXT = 1;
+  private static final int CONTEXT_CONTAINER = 2;
+  private static final int CONTEXTUAL_STATISTICS = 3;
+  private static final int STATISTIC = 4;
+  private static final int SAMPLE = 5;
+  private static final int CONTEXTUAL_NOTIFICATION = 6;
+  private static final int CAPABILITY = 7;
+  private static final int CALL_DESCRIPTOR = 8;
+  private static final int STATISTIC_DESCRIPTOR = 9;
+  private static final int CONTEXTUAL_CALL = 10;
+  private static final int CONTEXTUAL_RETURN = 11;
+  private static final int MESSAGE = 12;
+  private static final int MANAGEMENT_CALL_MESSAGE = 13;
+  private static final int SEQUENCE = 14;
+  private static final int CLUSTER = 15;
+  private static final int MANAGEMENT_REGISTRY = 16;
+
+  private static final byte NOT_EXECUTED = 0;
+  private static final byte EXECUTED = 1;
+  private static final byte ERROR = 2;
+
+  public ManagementCodec() {
+    this(new SerializationCodec());
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public ManagementCodec(Codec fallback) {
+    super(fallback);
+
+    register(CONTEXT, Context.class, codec(ManagementCodec::writeContext, ManagementCodec::readContext));
+
+    register(CONTEXT_CONTAINER, ContextContainer.class, codec(ManagementCodec::writeContextContainer, ManagementCodec::readContextContainer));
+
+    register(CONTEXTUAL_STATISTICS, ContextualStatistics.class, codec((out, statistics) -> {
+      out.writeString(statistics.getCapability());
+      writeContext(out, statistics.getContext());
+      Map<String, Statistic<? extends Serializable>> map = statistics.getStatistics();
+      out.writeVarInt(map.size());
+      for (Map.Entry<String, Statistic<? extends Serializable>> entry : map.entrySet()) {
+        out.writeString(entry.getKey());
+        out.writeValue(entry.getValue());
+      }
+      out.writeBoolean(statistics.isPartial());
+    }, in -> {
+      String capability = in.readString();
+      Context context = readContext(in);
+      int size = in.readVarInt();
+      Map<String, Statistic<? extends Serializable>> map = new HashMap<>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        map.put(in.readString(), (Statistic<? extends Serializable>) in.readValue());
+      }
+      return new ContextualStatistics(capability, context, map, in.readBoolean());
+    }));
+
+    register(STATISTIC, Statistic.class, codec((out, statistic) -> {
+      // by name: the statistics library is versioned independently of this wire format
+      out.writeString(statistic.getType().name());
+      List<Sample<Serializable>> samples = statistic.getSamples();
+      out.writeVarInt(samples.size());
+      for (Sample<Serializable> sample : samples) {
+        out.writeLong(sample.getTimestamp());
+        out.writeValue(sample.getSample());
+      }
+    }, in -> {
+      StatisticType type = StatisticType.valueOf(in.readString());
+      int size = in.readVarInt();
+      List<Sample<Serializable>> samples = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        samples.add(new Sample<>(in.readLong(), (Serializable) in.readValue()));
+      }
+      return new Statistic<>(type, samples);
+    }));
+
+    register(SAMPLE, Sample.class, codec((out, sample) -> {
+      out.writeLong(sample.getTimestamp());
+      out.writeValue(sample.getSample());
+    }, in -> new Sample<>(in.readLong(), (Serializable) in.readValue())));
+
+    register(CONTEXTUAL_NOTIFICATION, ContextualNotification.class, codec((out, notification) -> {
+      writeContext(out, notification.getContext());
+      out.writeString(notification.getType());
+      writeStrings(out, notification.getAttributes());
+    }, in -> new ContextualNotification(readContext(in), in.readString(), readStrings(in))));
+
+    register(CAPABILITY, DefaultCapability.class, codec((out, capability) -> {
+      out.writeString(capability.getName());
+      Collection<CapabilityContext.Attribute> attributes = capability.getCapabilityContext().getAttributes();
+      out.writeVarInt(attributes.size());
+      for (CapabilityContext.Attribute attribute : attributes) {
+        out.writeString(attribute.getName());
+        out.writeBoolean(attribute.isRequired());
+      }
+      Collection<? extends Descriptor> descriptors = capability.getDescriptors();
+      out.writeVarInt(descriptors.size());
+      for (Descriptor descriptor : descriptors) {
+        out.writeValue(descriptor);
+      }
+    }, in -> {
+      String name = in.readString();
+      int size = in.readVarInt();
+      List<CapabilityContext.Attribute> attributes = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        attributes.add(new CapabilityContext.Attribute(in.readString(), in.readBoolean()));
+      }
+      size = in.readVarInt();
+      List<Descriptor> descriptors = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        descriptors.add((Descriptor) in.readValue());
+      }
+      return new DefaultCapability(name, new CapabilityContext(attributes), descriptors);
+    }));
+
+    register(CALL_DESCRIPTOR, CallDescriptor.class, codec((out, descriptor) -> {
+      out.writeString(descriptor.getName());
+      out.writeString(descriptor.getReturnType());
+      List<CallDescriptor.Parameter> parameters = descriptor.getParameters();
+      out.writeVarInt(parameters.size());
+      for (CallDescriptor.Parameter parameter : parameters) {
+        out.writeString(parameter.getName());
+        out.writeString(parameter.getType());
+      }
+    }, in -> {
+      String name = in.readString();
+      String returnType = in.readString();
+      int size = in.readVarInt();
+      List<CallDescriptor.Parameter> parameters = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        parameters.add(new CallDescriptor.Parameter(in.readString(), in.readString()));
+      }
+      return new CallDescriptor(name, returnType, parameters);
+    }));
+
+    register(STATISTIC_DESCRIPTOR, StatisticDescriptor.class, codec((out, descriptor) -> {
+      out.writeString(descriptor.getName());
+      out.writeString(descriptor.getType());
+    }, in -> new StatisticDescriptor(in.readString(), in.readString())));
+
+    register(CONTEXTUAL_CALL, ContextualCall.class, codec((out, call) -> {
+      writeContext(out, call.getContext());
+      out.writeString(call.getCapability());
+      out.writeString(call.getMethodName());
+      out.writeValue(call.getReturnType());
+      Parameter[] parameters = call.getParameters();
+      out.writeVarInt(parameters.length);
+      for (Parameter parameter : parameters) {
+        out.writeValue(parameter.getValue());
+        out.writeString(parameter.getClassName());
+      }
+    }, in -> {
+      Context context = readContext(in);
+      String capability = in.readString();
+      String methodName = in.readString();
+      Class<?> returnType = (Class<?>) in.readValue();
+      Parameter[] parameters = new Parameter[in.readVarInt()];
+      for (int i = 0; i < parameters.length; i++) {
+        parameters[i] = new Parameter(in.readValue(), in.readString());
+      }
+      return new ContextualCall<>(context, capability, methodName, returnType, parameters);
+    }));
+
+    register(CONTEXTUAL_RETURN, ContextualReturn.class, codec((out, contextualReturn) -> {
+      out.writeString(contextualReturn.getCapability());
+      writeContext(out, contextualReturn.getContext());
+      out.writeString(contextualReturn.getMethodName());
+      if (!contextualReturn.hasExecuted()) {
+        out.writeByte(NOT_EXECUTED);
+      } else {
+        try {
+          Object value = contextualReturn.getValue();
+          out.writeByte(EXECUTED);
+          out.writeValue(value);
+        } catch (ExecutionException e) {
+          out.writeByte(ERROR);
+          out.writeValue(e);
+        }
+      }
+    }, in -> {
+      String capability = in.readString();
+      Context context = readContext(in);
+      String methodName = in.readString();
+      byte state = in.readByte();
+      switch (state) {
+        case NOT_EXECUTED:
+          return ContextualReturn.notExecuted(capability, context, methodName);
+        case EXECUTED:
+          return ContextualReturn.of(capability, context, methodName, in.readValue());
+        case ERROR:
+          return ContextualReturn.error(capability, context, methodName, (ExecutionException) in.readValue());
+        default:
+          throw new IllegalArgumentException("Unknown state: " + state);
+      }
+    }));
+
+    register(MESSAGE, DefaultMessage.class, codec(ManagementCodec::writeMessage,
+        in -> new DefaultMessage((Sequence) in.readValue(), in.readString(), readContextuals(in))));
+
+    register(MANAGEMENT_CALL_MESSAGE, DefaultManagementCallMessage.class, codec((out, message) -> {
+      out.writeString(message.getManagementCallIdentifier());
+      writeMessage(out, message);
+    }, in -> new DefaultManagementCallMessage(in.readString(), (Sequence) in.readValue(), in.readString(), readContextuals(in))));
+
+    register(SEQUENCE, BoundaryFlakeSequence.class, codec(
+        (out, sequence) -> out.writeBytes(sequence.toBytes()),
+        in -> BoundaryFlakeSequence.fromBytes(in.readBytes())));
+
+    register(CLUSTER, Cluster.class, codec(ManagementCodec::writeCluster, ManagementCodec::readCluster));
+
+    register(MANAGEMENT_REGISTRY, ManagementRegistry.class, codec((out, registry) -> {
+      ContextContainer container = registry.getContextContainer();
+      writeContext(out, registry.getContext().without(container.getName()));
+      writeContextContainer(out, container);
+      Collection<Capability> capabilities = registry.getCapabilities();
+      out.writeVarInt(capabilities.size());
+      for (Capability capability : capabilities) {
+        out.writeValue(capability);
+      }
+    }, in -> {
+      Context root = readContext(in);
+      ManagementRegistry registry = ManagementRegistry.create(root, readContextContainer(in));
+      int size = in.readVarInt();
+      for (int i = 0; i < size; i++) {
+        registry.addCapability((Capability) in.readValue());
+      }
+      return registry;
+    }));
+  }
+
+  /**
+   * Selects the codec to use for an entity: this codec from {@link #SINCE_VERSION}, otherwise the fallback codec.
+   *
+   * @param entityVersion the version of the entity
+   * @param fallback      the codec used by the previous versions, which also handles the types unknown to this codec
+   * @param exposedTypes  the proxied interface of the entity and its message types, whose signatures declare the
+   *                      types which can be referenced by name on the wire
+   * @return the codec
+   */
+  public static Codec forEntityVersion(long entityVersion, Codec fallback, Class<?>... exposedTypes) {
+    return entityVersion >= SINCE_VERSION ? new ManagementCodec(fallback).allowTypesOf(exposedTypes) : fallback;
+  }
+
+  private static void writeContext(Output out, Context context) {
+    // 0 for null, otherwise the size + 1
+    if (context == null) {
+      out.writeVarInt(0);
+      return;
+    }
+    out.writeVarInt(context.size() + 1);
+    for (Map.Entry<String, String> entry : context.entrySet()) {
+      out.writeString(entry.getKey());
+      out.writeString(entry.getValue());
+    }
+  }
+
+  private static Context readContext(Input in) {
+    int size = in.readVarInt() - 1;
+    if (size < 0) {
+      return null;
+    }
+    Map<String, String> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      map.put(in.readString(), in.readString());
+    }
+    return Context.create(map);
+  }
+
+  private static void writeStrings(Output out, Map<String, String> map) {
+    out.writeVarInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      out.writeString(entry.getKey());
+      out.writeString(entry.getValue());
+    }
+  }
+
+  private static Map<String, String> readStrings(Input in) {
+    int size = in.readVarInt();
+    Map<String, String> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+    for (int i = 0; i < size; i++) {
+      map.put(in.readString(), in.readString());
+    }
+    return map;
+  }
+
+  private static void writeContextContainer(Output out, ContextContainer container) {
+    out.writeString(container.getName());
+    out.writeString(container.getValue());
+    Collection<ContextContainer> subContexts = container.getSubContexts();
+    out.writeVarInt(subContexts.size());
+    for (ContextContainer subContext : subContexts) {
+      writeContextContainer(out, subContext);
+    }
+  }
+
+  private static ContextContainer readContextContainer(Input in) {
+    String name = in.readString();
+    String value = in.readString();
+    int size = in.readVarInt();
+    List<ContextContainer> subContexts = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      subContexts.add(readContextContainer(in));
+    }
+    return new ContextContainer(name, value, subContexts);
+  }
+
+  private static void writeMessage(Output out, DefaultMessage message) {
+    out.writeValue(message.getSequence());
+    out.writeString(message.getType());
+    List<Contextual> data = message.unwrap(Contextual.class);
+    out.writeVarInt(data.size());
+    for (Contextual contextual : data) {
+      out.writeValue(contextual);
+    }
+  }
+
+  private static Contextual[] readContextuals(Input in) {
+    Contextual[] data = new Contextual[in.readVarInt()];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (Contextual) in.readValue();
+    }
+    return data;
+  }
+
+  private static void writeCluster(Output out, Cluster cluster) {
+    // stripes first: the connections of the clients are rebuilt from their servers
+    Collection<Stripe> stripes = cluster.getStripes().values();
+    out.writeVarInt(stripes.size());
+    for (Stripe stripe : stripes) {
+      out.writeString(stripe.getName());
+      Collection<Server> servers = stripe.getServers().values();
+      out.writeVarInt(servers.size());
+      for (Server server : servers) {
+        writeServer(out, server);
+      }
+    }
+    Collection<Client> clients = cluster.getClients().values();
+    out.writeVarInt(clients.size());
+    for (Client client : clients) {
+      writeClient(out, client);
+    }
+  }
+
+  private static Cluster readCluster(Input in) {
+    Cluster cluster = new Cluster();
+    int stripeCount = in.readVarInt();
+    for (int i = 0; i < stripeCount; i++) {
+      Stripe stripe = Stripe.create(in.readString());
+      int serverCount = in.readVarInt();
+      for (int j = 0; j < serverCount; j++) {
+        stripe.addServer(readServer(in));
+      }
+      cluster.addStripe(stripe);
+    }
+    int clientCount = in.readVarInt();
+    for (int i = 0; i < clientCount; i++) {
+      cluster.addClient(readClient(in, cluster));
+    }
+    return cluster;
+  }
+
+  private static void writeServer(Output out, Server server) {
+    out.writeString(server.getServerName());
+    out.writeString(server.getHostName());
+    out.writeString(server.getHostAddress());
+    out.writeString(server.getBindAddress());
+    out.writeInt(server.getBindPort());
+    out.writeInt(server.getGroupPort());
+    out.writeString(server.getState().name());
+    out.writeString(server.getVersion());
+    out.writeString(server.getBuildId());
+    out.writeLong(server.getStartTime());
+    out.writeLong(server.getUpTimeSec());
+    out.writeLong(server.getActivateTime());
+    Collection<ServerEntity> serverEntities = server.getServerEntities().values();
+    out.writeVarInt(serverEntities.size());
+    for (ServerEntity serverEntity : serverEntities) {
+      out.writeString(serverEntity.getName());
+      out.writeString(serverEntity.getType());
+      out.writeLong(serverEntity.getConsumerId());
+      out.writeValue(serverEntity.getManagementRegistry().orElse(null));
+    }
+  }
+
+  private static Server readServer(Input in) {
+    Server server = Server.create(in.readString())
+        .setHostName(in.readString())
+        .setHostAddress(in.readString())
+        .setBindAddress(in.readString())
+        .setBindPort(in.readInt())
+        .setGroupPort(in.readInt())
+        .setState(Server.State.valueOf(in.readString()))
+        .setVersion(in.readString())
+        .setBuildId(in.readString())
+        .setStartTime(in.readLong())
+        .setUpTimeSec(in.readLong())
+        .setActivateTime(in.readLong());
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      ServerEntity serverEntity = ServerEntity.create(in.readString(), in.readString()).setConsumerId(in.readLong());
+      serverEntity.setManagementRegistry((ManagementRegistry) in.readValue());
+      server.addServerEntity(serverEntity);
+    }
+    return server;
+  }
+
+  private static void writeClient(Output out, Client client) {
+    ClientIdentifier identifier = client.getClientIdentifier();
+    out.writeLong(identifier.getPid());
+    out.writeString(identifier.getHostAddress());
+    out.writeString(identifier.getName());
+    out.writeString(identifier.getConnectionUid());
+    out.writeString(client.getHostName());
+    Collection<String> tags = client.getTags();
+    out.writeVarInt(tags.size());
+    for (String tag : tags) {
+      out.writeString(tag);
+    }
+    writeStrings(out, client.getProperties());
+    out.writeValue(client.getManagementRegistry().orElse(null));
+    Collection<Connection> connections = client.getConnections().values();
+    out.writeVarInt(connections.size());
+    for (Connection connection : connections) {
+      out.writeString(connection.getLogicalConnectionUid());
+      out.writeString(connection.getStripeId());
+      out.writeString(connection.getServerId());
+      out.writeString(connection.getClientEndpoint().getAddress());
+      out.writeInt(connection.getClientEndpoint().getPort());
+      Map<String, Long> fetched = connection.getFetchedServerEntityIds();
+      out.writeVarInt(fetched.size());
+      for (Map.Entry<String, Long> entry : fetched.entrySet()) {
+        out.writeString(entry.getKey());
+        out.writeLong(entry.getValue());
+      }
+    }
+  }
+
+  private static Client readClient(Input in, Cluster cluster) {
+    Client client = Client.create(ClientIdentifier.create(in.readLong(), in.readString(), in.readString(), in.readString()))
+        .setHostName(in.readString());
+    int size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      client.addTag(in.readString());
+    }
+    for (Map.Entry<String, String> property : readStrings(in).entrySet()) {
+      client.addProperty(property.getKey(), property.getValue());
+    }
+    client.setManagementRegistry((ManagementRegistry) in.readValue());
+    size = in.readVarInt();
+    for (int i = 0; i < size; i++) {
+      String logicalConnectionUid = in.readString();
+      String stripeId = in.readString();
+      String serverId = in.readString();
+      Endpoint endpoint = Endpoint.create(in.readString(), in.readInt());
+      Server server = cluster.getStripe(stripeId).flatMap(stripe -> stripe.getServer(serverId)).orElseGet(() -> {
+        // the server of a connection can be gone from the topology: the ids of stripes and servers are their names
+        Server detached = Server.create(serverId);
+        Stripe.create(stripeId).addServer(detached);
+        return detached;
+      });
+      Connection connection = Connection.create(logicalConnectionUid, server, endpoint);
+      int fetchedCount = in.readVarInt();
+      for (int j = 0; j < fetchedCount; j++) {
+        // the ids are "name:type", and only the id is kept
+        String id = in.readString();
+        int separator = id.lastIndexOf(':');
+        ServerEntityIdentifier identifier = ServerEntityIdentifier.create(id.substring(0, separator), id.substring(separator + 1));
+        for (long count = in.readLong(); count > 0; count--) {
+          connection.fetchServerEntity(identifier);
+        }
+      }
+      client.addConnection(connection);
+    }
+    return client;
+  }
+
+  private static <T> TypeCodec<T> codec(BiConsumer<Output, T> writer, Function<Input, T> reader) {
+    return new TypeCodec<T>() {
+      @Override
+      public void write(Output out, T value) {
+        writer.accept(out, value);
+      }
+
+      @Override
+      public T read(Input in) {
+        return reader.apply(in);
+      }
+    };
+  }
+}
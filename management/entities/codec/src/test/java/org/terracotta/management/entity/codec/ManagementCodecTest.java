@@ -0,0 +1,236 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.entity.codec;
+
+import org.junit.Test;
+import org.terracotta.management.model.call.ContextualCall;
+import org.terracotta.management.model.call.ContextualReturn;
+import org.terracotta.management.model.call.Parameter;
+import org.terracotta.management.model.capabilities.Capability;
+import org.terracotta.management.model.capabilities.DefaultCapability;
+import org.terracotta.management.model.capabilities.context.CapabilityContext;
+import org.terracotta.management.model.capabilities.descriptors.CallDescriptor;
+import org.terracotta.management.model.capabilities.descriptors.Settings;
+import org.terracotta.management.model.capabilities.descriptors.StatisticDescriptor;
+import org.terracotta.management.model.cluster.Client;
+import org.terracotta.management.model.cluster.Cluster;
+import org.terracotta.management.model.cluster.Connection;
+import org.terracotta.management.model.cluster.Endpoint;
+import org.terracotta.management.model.cluster.ManagementRegistry;
+import org.terracotta.management.model.cluster.Server;
+import org.terracotta.management.model.cluster.ServerEntity;
+import org.terracotta.management.model.cluster.Stripe;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.context.ContextContainer;
+import org.terracotta.management.model.message.DefaultManagementCallMessage;
+import org.terracotta.management.model.message.DefaultMessage;
+import org.terracotta.management.model.message.Message;
+import org.terracotta.management.model.notification.ContextualNotification;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.management.sequence.BoundaryFlakeSequenceGenerator;
+import org.terracotta.management.sequence.NodeIdSource;
+import org.terracotta.management.sequence.TimeSource;
+import org.terracotta.statistics.Sample;
+import org.terracotta.statistics.StatisticType;
+import org.terracotta.statistics.registry.Statistic;
+import org.terracotta.voltron.proxy.Codec;
+import org.terracotta.voltron.proxy.SerializationCodec;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ManagementCodecTest {
+
+  private final ManagementCodec codec = new ManagementCodec();
+  private final BoundaryFlakeSequenceGenerator generator = new BoundaryFlakeSequenceGenerator(TimeSource.BEST, NodeIdSource.BEST);
+  private final Context context = Context.create("consumerId", "1").with("cacheManagerName", "my-cm").with("cacheName", "my-cache");
+
+  @Test
+  public void testContextualStatistics() {
+    Map<String, Statistic<? extends Serializable>> map = new HashMap<>();
+    map.put("Cache:HitCount", new Statistic<>(StatisticType.COUNTER, Arrays.asList(new Sample<>(1L, 10L), new Sample<>(2L, 12L))));
+    map.put("Cache:HitRatio", new Statistic<>(StatisticType.RATIO, new Sample<>(2L, 0.5)));
+    ContextualStatistics statistics = new ContextualStatistics("StatisticsCapability", context, map);
+
+    ContextualStatistics[] decoded = roundtrip(ContextualStatistics[].class, new ContextualStatistics[]{statistics});
+
+    assertThat(decoded.length, is(1));
+    assertThat(decoded[0].getCapability(), is("StatisticsCapability"));
+    assertThat(decoded[0].getContext(), is(context));
+    assertThat(decoded[0].getStatistics().keySet(), is(map.keySet()));
+    for (Map.Entry<String, Statistic<? extends Serializable>> entry : map.entrySet()) {
+      Statistic<? extends Serializable> statistic = decoded[0].getStatistic(entry.getKey()).get();
+      assertThat(statistic.getType(), is(entry.getValue().getType()));
+      assertSamples(statistic.getSamples(), entry.getValue().getSamples());
+    }
+  }
+
+  @Test
+  public void testNotification() {
+    ContextualNotification notification = new ContextualNotification(context, "CACHE_ADDED", singletonMap("key", "value"));
+    assertThat(roundtrip(ContextualNotification.class, notification), is(notification));
+  }
+
+  @Test
+  public void testCapabilitiesAndContextContainer() {
+    Capability capability = new DefaultCapability("ActionsCapability",
+        new CapabilityContext(new CapabilityContext.Attribute("cacheManagerName", true), new CapabilityContext.Attribute("cacheName", false)),
+        new CallDescriptor("clear", "void"),
+        new CallDescriptor("get", "java.lang.Object", new CallDescriptor.Parameter("key", "java.lang.Object")),
+        new StatisticDescriptor("Cache:HitCount", "COUNTER"),
+        new Settings().set("cacheManagerName", "my-cm").set("size", 42));
+    ContextContainer container = new ContextContainer("cacheManagerName", "my-cm",
+        new ContextContainer("cacheName", "cache1"),
+        new ContextContainer("cacheName", "cache2"));
+
+    Class<?>[] types = {Object.class, Context.class, ContextContainer.class, Capability[].class};
+    Object[] decoded = codec.decode(types, codec.encode(types, new Object[]{null, context, container, new Capability[]{capability}}));
+
+    assertThat(decoded[1], is(context));
+    assertThat(decoded[2], is(container));
+    assertThat(((Capability[]) decoded[3])[0], is(capability));
+  }
+
+  @Test
+  public void testManagementCallAndReturns() {
+    ContextualCall<Integer> call = new ContextualCall<>(context, "ActionsCapability", "size", int.class, new Parameter("key"), new Parameter(null, "java.lang.String"));
+    ContextualCall<?> decodedCall = roundtrip(ContextualCall.class, call);
+    assertThat(decodedCall.getContext(), is(call.getContext()));
+    assertThat(decodedCall.getCapability(), is(call.getCapability()));
+    assertThat(decodedCall.getMethodName(), is(call.getMethodName()));
+    assertThat(decodedCall.getReturnType(), is((Object) int.class));
+    assertThat(Arrays.asList(decodedCall.getParameters()), is(Arrays.asList(call.getParameters())));
+
+    // return types which are not allowed by name are handled by the fallback codec
+    ContextualCall<Collection> collectionCall = new ContextualCall<>(context, "ActionsCapability", "keys", Collection.class);
+    assertThat(roundtrip(ContextualCall.class, collectionCall).getReturnType(), is((Object) Collection.class));
+
+    ContextualReturn<Integer> executed = ContextualReturn.of("ActionsCapability", context, "size", 3);
+    ContextualReturn<Integer> notExecuted = ContextualReturn.notExecuted("ActionsCapability", context, "size");
+    assertThat(roundtrip(ContextualReturn.class, executed), is(executed));
+    assertThat(roundtrip(ContextualReturn.class, notExecuted), is(notExecuted));
+
+    ContextualReturn<?> error = roundtrip(ContextualReturn.class, ContextualReturn.error("ActionsCapability", context, "size", new ExecutionException(new IllegalStateException("boom"))));
+    assertThat(error.errorThrown(), is(true));
+    try {
+      error.getValue();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+    }
+  }
+
+  @Test
+  public void testMessages() {
+    ContextualNotification notification = new ContextualNotification(context, "CACHE_ADDED");
+    DefaultMessage message = new DefaultMessage(generator.next(), "NOTIFICATION", notification);
+    DefaultManagementCallMessage callMessage = new DefaultManagementCallMessage("call-1", generator.next(), "MANAGEMENT_CALL_RETURN",
+        ContextualReturn.of("ActionsCapability", context, "size", 3));
+
+    assertThat(roundtrip(Message.class, message), is(message));
+    assertThat(roundtrip(Message.class, callMessage), is(callMessage));
+  }
+
+  @Test
+  public void testCluster() {
+    ManagementRegistry registry = ManagementRegistry.create(Context.create("clientId", "12345@127.0.0.1:ehcache:uid"), new ContextContainer("cacheManagerName", "my-cm"))
+        .addCapability(new DefaultCapability("ActionsCapability", new CapabilityContext(), new CallDescriptor("clear", "void")));
+
+    Cluster cluster = new Cluster();
+    Stripe stripe = Stripe.create("stripe-1");
+    cluster.addStripe(stripe);
+    Server active = Server.create("server-1")
+        .setHostName("hostname-1")
+        .setHostAddress("10.10.10.1")
+        .setBindAddress("0.0.0.0")
+        .setBindPort(9410)
+        .setGroupPort(9430)
+        .setState(Server.State.ACTIVE)
+        .setVersion("5.10")
+        .setBuildId("build-1")
+        .setStartTime(1000L)
+        .setActivateTime(2000L);
+    stripe.addServer(active);
+    stripe.addServer(Server.create("server-2").setState(Server.State.PASSIVE));
+    ServerEntity serverEntity = ServerEntity.create("my-cm", "org.ehcache.clustered.server.EhcacheActiveEntity").setConsumerId(5L);
+    serverEntity.setManagementRegistry(registry);
+    active.addServerEntity(serverEntity);
+
+    Client client = Client.create("12345@127.0.0.1:ehcache:uid").setHostName("client-host").addTags("tag1", "tag2").addProperty("key", "value");
+    client.setManagementRegistry(registry);
+    cluster.addClient(client);
+    Connection connection = Connection.create("uid", active, Endpoint.create("10.10.10.10", 3456));
+    client.addConnection(connection);
+    connection.fetchServerEntity("my-cm", "org.ehcache.clustered.server.EhcacheActiveEntity");
+    connection.fetchServerEntity("my-cm", "org.ehcache.clustered.server.EhcacheActiveEntity");
+    // connected to a server which is not in the topology anymore
+    Server gone = Server.create("server-3");
+    Stripe.create("stripe-2").addServer(gone);
+    client.addConnection(Connection.create("uid", gone, Endpoint.create("10.10.10.10", 3457)));
+
+    Cluster decoded = roundtrip(Cluster.class, cluster);
+
+    assertThat(decoded, is(cluster));
+    assertThat(decoded.getStripe("stripe-1").get().getServer("server-1").get().getServerEntity(serverEntity.getId()).get().getManagementRegistry().get(), is(registry));
+    assertThat(decoded.getClient(client.getId()).get().getManagementRegistry().get(), is(registry));
+    assertThat(decoded.getClient(client.getId()).get().getFetchedServerEntityCount(), is(1));
+    assertThat(decoded.getClient(client.getId()).get().getConnection(connection.getId()).get().getFetchedServerEntityIds(), is(connection.getFetchedServerEntityIds()));
+    assertThat(decoded.getClient(client.getId()).get().getConnectionCount(), is(2));
+  }
+
+  @Test
+  public void testNegotiation() {
+    SerializationCodec serializationCodec = new SerializationCodec();
+    assertThat(ManagementCodec.forEntityVersion(1, serializationCodec), is((Codec) serializationCodec));
+    assertThat(ManagementCodec.forEntityVersion(ManagementCodec.SINCE_VERSION, serializationCodec), is(instanceOf(ManagementCodec.class)));
+
+    // messages from peers still using serialization can be decoded
+    ContextualNotification notification = new ContextualNotification(context, "CACHE_ADDED");
+    assertThat(codec.decode(ContextualNotification.class, serializationCodec.encode(ContextualNotification.class, notification)), is(notification));
+  }
+
+  @Test
+  public void testSmallerThanSerialization() {
+    ContextualStatistics statistics = new ContextualStatistics("StatisticsCapability", context,
+        singletonMap("Cache:HitCount", new Statistic<>(StatisticType.COUNTER, new Sample<>(1L, 10L))));
+    ContextualStatistics[] value = {statistics};
+    int binary = codec.encode(ContextualStatistics[].class, value).length;
+    int serialized = new SerializationCodec().encode(ContextualStatistics[].class, value).length;
+    assertThat("binary: " + binary + ", serialized: " + serialized, binary * 4 < serialized, is(true));
+  }
+
+  private <T> T roundtrip(Class<T> type, T value) {
+    return codec.decode(type, codec.encode(type, value));
+  }
+
+  private static void assertSamples(List<? extends Sample<?>> actual, List<? extends Sample<?>> expected) {
+    assertThat(actual.size(), is(expected.size()));
+    for (int i = 0; i < actual.size(); i++) {
+      assertThat(actual.get(i).getTimestamp(), is(expected.get(i).getTimestamp()));
+      assertThat(actual.get(i).getSample(), is(expected.get(i).getSample()));
+    }
+  }
+}
@@ -16,7 +16,9 @@
  */
 package org.terracotta.management.entity.nms.agent.client;
 
+import org.terracotta.management.entity.codec.ManagementCodec;
 import org.terracotta.management.entity.nms.agent.NmsAgent;
+import org.terracotta.management.entity.nms.agent.NmsAgentVersion;
 import org.terracotta.management.model.message.Message;
 import org.terracotta.voltron.proxy.SerializationCodec;
 import org.terracotta.voltron.proxy.client.ProxyEntityClientService;
@@ -27,9 +29,8 @@ import org.terracotta.voltron.proxy.client.ProxyEntityClientService;
 public class NmsAgentEntityClientService extends ProxyEntityClientService<NmsAgentEntity, Void> {
 
   public NmsAgentEntityClientService() {
-    //TODO: MATHIEU - PERF: https://github.com/Terracotta-OSS/terracotta-platform/issues/92
     super(NmsAgentEntity.class, NmsAgent.class, Void.class, new Class<?>[] {Message.class});
-    setCodec(new SerializationCodec());
+    setCodec(ManagementCodec.forEntityVersion(NmsAgentVersion.LATEST.version(), new SerializationCodec(), NmsAgent.class, Message.class));
   }
 
 }
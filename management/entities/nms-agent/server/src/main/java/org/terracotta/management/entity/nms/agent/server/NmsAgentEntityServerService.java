@@ -22,7 +22,9 @@ import org.slf4j.LoggerFactory;
 import org.terracotta.entity.ConfigurationException;
 import org.terracotta.entity.ServiceException;
 import org.terracotta.entity.ServiceRegistry;
+import org.terracotta.management.entity.codec.ManagementCodec;
 import org.terracotta.management.entity.nms.agent.NmsAgent;
+import org.terracotta.management.entity.nms.agent.NmsAgentVersion;
 import org.terracotta.management.entity.nms.agent.ReconnectData;
 import org.terracotta.management.model.message.Message;
 import org.terracotta.management.service.monitoring.ClientMonitoringService;
@@ -36,15 +38,14 @@ import static java.util.regex.Pattern.compile;
 /**
  * @author Mathieu Carbou
  */
-@PermanentEntity(type = "org.terracotta.management.entity.nms.agent.client.NmsAgentEntity", name = "NmsAgent", version = 1)
+@PermanentEntity(type = "org.terracotta.management.entity.nms.agent.client.NmsAgentEntity", name = "NmsAgent", version = 2)
 public class NmsAgentEntityServerService extends ProxyServerEntityService<Void, Void, ReconnectData, Messenger> {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NmsAgentEntityServerService.class);
 
   public NmsAgentEntityServerService() {
-    //TODO: MATHIEU - PERF: https://github.com/Terracotta-OSS/terracotta-platform/issues/92
     super(NmsAgent.class, Void.class, new Class<?>[]{Message.class}, null, ReconnectData.class, null);
-    setCodec(new SerializationCodec(compile("^(?:org\\.ehcache\\.shadow|com\\.terracottatech\\.shadow)\\.(org\\.terracotta\\.statistics\\..*)$")));
+    setCodec(ManagementCodec.forEntityVersion(NmsAgentVersion.LATEST.version(), new SerializationCodec(compile("^(?:org\\.ehcache\\.shadow|com\\.terracottatech\\.shadow)\\.(org\\.terracotta\\.statistics\\..*)$")), NmsAgent.class, Message.class));
   }
 
   @Override
@@ -67,7 +68,7 @@ public class NmsAgentEntityServerService extends ProxyServerEntityService<Void,
 
   @Override
   public long getVersion() {
-    return 1;
+    return NmsAgentVersion.LATEST.version();
   }
 
   @Override
@@ -0,0 +1,118 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.entity.nms.client;
+
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.message.Message;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.statistics.registry.Statistic;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rebuilds the full statistics of each capability and context from the statistics sent by a collector started with
+ * {@link NmsService#startIncrementalStatisticCollector}, which only contain the statistics that changed.
+ *
+ * @see NmsService#startIncrementalStatisticCollector
+ */
+public class ContextualStatisticsAssembler {
+
+  private final Map<Key, Map<String, Statistic<? extends Serializable>>> statistics = new ConcurrentHashMap<>();
+
+  /**
+   * Merges the statistics of the STATISTICS messages into the assembled ones, ignoring the other messages.
+   *
+   * @return the full statistics of the contexts found in the messages
+   */
+  public List<ContextualStatistics> assemble(Collection<Message> messages) {
+    List<ContextualStatistics> assembled = new ArrayList<>();
+    for (Message message : messages) {
+      if ("STATISTICS".equals(message.getType())) {
+        assembled.addAll(assemble(message.unwrap(ContextualStatistics.class)));
+      }
+    }
+    return assembled;
+  }
+
+  /**
+   * Merges received statistics into the assembled ones. Partial statistics are merged with the ones received before for
+   * the same context, while complete ones replace them, so that statistics not collected anymore are forgotten.
+   *
+   * @return the full statistics of the contexts of the received statistics
+   */
+  public List<ContextualStatistics> assemble(List<ContextualStatistics> received) {
+    List<ContextualStatistics> assembled = new ArrayList<>(received.size());
+    for (ContextualStatistics contextualStatistics : received) {
+      Key key = new Key(contextualStatistics.getCapability(), contextualStatistics.getContext());
+      Map<String, Statistic<? extends Serializable>> merged = new HashMap<>(contextualStatistics.getStatistics());
+      if (contextualStatistics.isPartial()) {
+        merged = statistics.merge(key, merged, (previous, changed) -> {
+          Map<String, Statistic<? extends Serializable>> all = new HashMap<>(previous);
+          all.putAll(changed);
+          return all;
+        });
+      } else {
+        statistics.put(key, merged);
+      }
+      assembled.add(new ContextualStatistics(contextualStatistics.getCapability(), contextualStatistics.getContext(), merged));
+    }
+    return assembled;
+  }
+
+  /**
+   * @return the full statistics of all the contexts received so far
+   */
+  public List<ContextualStatistics> getStatistics() {
+    List<ContextualStatistics> all = new ArrayList<>(statistics.size());
+    statistics.forEach((key, stats) -> all.add(new ContextualStatistics(key.capability, key.context, stats)));
+    return all;
+  }
+
+  public void clear() {
+    statistics.clear();
+  }
+
+  private static final class Key {
+    private final String capability;
+    private final Context context;
+
+    Key(String capability, Context context) {
+      this.capability = capability;
+      this.context = context;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return capability.equals(key.capability) && context.equals(key.context);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(capability, context);
+    }
+  }
+}
@@ -16,8 +16,10 @@
  */
 package org.terracotta.management.entity.nms.client;
 
+import org.terracotta.management.entity.codec.ManagementCodec;
 import org.terracotta.management.entity.nms.Nms;
 import org.terracotta.management.entity.nms.NmsConfig;
+import org.terracotta.management.entity.nms.NmsVersion;
 import org.terracotta.management.model.message.Message;
 import org.terracotta.voltron.proxy.SerializationCodec;
 import org.terracotta.voltron.proxy.client.ProxyEntityClientService;
@@ -28,6 +30,6 @@ import org.terracotta.voltron.proxy.client.ProxyEntityClientService;
 public class NmsEntityClientService extends ProxyEntityClientService<NmsEntity, NmsConfig> {
   public NmsEntityClientService() {
     super(NmsEntity.class, Nms.class, NmsConfig.class, new Class<?>[] {Message.class});
-    setCodec(new SerializationCodec());
+    setCodec(ManagementCodec.forEntityVersion(NmsVersion.LATEST.version(), new SerializationCodec(), Nms.class, Message.class));
   }
 }
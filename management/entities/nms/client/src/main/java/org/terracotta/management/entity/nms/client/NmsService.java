@@ -83,6 +83,22 @@ public interface NmsService {
         new Parameter(unit, TimeUnit.class.getName()));
   }
 
+  /**
+   * Starts the statistic collector in incremental mode: only the statistics which changed since the previous collect are
+   * sent, as partial statistics, except every {@code keyframeInterval} collects where all of them are sent.
+   * Use a {@link ContextualStatisticsAssembler} to rebuild the full statistics from the received messages.
+   */
+  default ManagementCall<Void> startIncrementalStatisticCollector(Context context, long interval, TimeUnit unit, int keyframeInterval) throws InterruptedException, ExecutionException, TimeoutException {
+    return call(
+        context,
+        "StatisticCollectorCapability",
+        "startIncrementalStatisticCollector",
+        Void.TYPE,
+        new Parameter(interval, long.class.getName()),
+        new Parameter(unit, TimeUnit.class.getName()),
+        new Parameter(keyframeInterval, int.class.getName()));
+  }
+
   default ManagementCall<Void> stopStatisticCollector(Context context) throws InterruptedException, ExecutionException, TimeoutException {
     return call(
         context,
@@ -21,7 +21,7 @@ package org.terracotta.management.entity.nms;
  */
 public enum NmsVersion {
 
-  LATEST(1L);
+  LATEST(2L);
 
   private final long version;
 
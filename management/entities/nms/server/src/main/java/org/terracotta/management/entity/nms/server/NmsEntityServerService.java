@@ -23,6 +23,7 @@ import org.terracotta.entity.BasicServiceConfiguration;
 import org.terracotta.entity.ConfigurationException;
 import org.terracotta.entity.ServiceException;
 import org.terracotta.entity.ServiceRegistry;
+import org.terracotta.management.entity.codec.ManagementCodec;
 import org.terracotta.management.entity.nms.Nms;
 import org.terracotta.management.entity.nms.NmsConfig;
 import org.terracotta.management.entity.nms.NmsVersion;
@@ -48,7 +49,7 @@ public class NmsEntityServerService extends ProxyServerEntityService<NmsConfig,
 
   public NmsEntityServerService() {
     super(Nms.class, NmsConfig.class, new Class<?>[]{Message.class}, null, null, NmsCallback.class);
-    setCodec(new SerializationCodec(compile("^(?:org\\.ehcache\\.shadow|com\\.terracottatech\\.shadow)\\.(org\\.terracotta\\.statistics\\..*)$")));
+    setCodec(ManagementCodec.forEntityVersion(NmsVersion.LATEST.version(), new SerializationCodec(compile("^(?:org\\.ehcache\\.shadow|com\\.terracottatech\\.shadow)\\.(org\\.terracotta\\.statistics\\..*)$")), Nms.class, Message.class));
   }
 
   @Override
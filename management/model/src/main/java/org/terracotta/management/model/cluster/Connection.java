@@ -16,6 +16,7 @@
  */
 package org.terracotta.management.model.cluster;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -64,6 +65,13 @@ public final class Connection extends AbstractNode<Client> {
     return clientEndpoint;
   }
 
+  /**
+   * @return the number of fetches of each server entity id, including the entities which are not in the topology
+   */
+  public Map<String, Long> getFetchedServerEntityIds() {
+    return Collections.unmodifiableMap(serverEntityIds);
+  }
+
   public Client getClient() {
     return getParent();
   }
@@ -40,12 +40,22 @@ public final class ContextualStatistics implements Contextual {
 
   private final Map<String, Statistic<? extends Serializable>> statistics;
   private final String capability;
+  private final boolean partial;
   private Context context;
 
   public ContextualStatistics(String capability, Context context, Map<String, Statistic<? extends Serializable>> statistics) {
+    this(capability, context, statistics, false);
+  }
+
+  /**
+   * @param partial true if the statistics only contain some of the statistics of the context, like the ones which
+   *                changed since the last collect, and false if they contain all of them
+   */
+  public ContextualStatistics(String capability, Context context, Map<String, Statistic<? extends Serializable>> statistics, boolean partial) {
     this.statistics = new HashMap<>(Objects.requireNonNull(statistics));
     this.context = Objects.requireNonNull(context);
     this.capability = Objects.requireNonNull(capability);
+    this.partial = partial;
   }
 
   public String getCapability() {
@@ -56,6 +66,14 @@ public final class ContextualStatistics implements Contextual {
 
   public boolean isEmpty() {return statistics.isEmpty();}
 
+  /**
+   * @return true if these statistics only contain some of the statistics of the context, which then have to be merged
+   * with the ones received before
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
   public Map<String, Statistic<? extends Serializable>> getStatistics() {
     return statistics;
   }
@@ -113,6 +131,7 @@ public final class ContextualStatistics implements Contextual {
         "capability='" + capability + '\'' +
         ", context=" + context +
         ", statistics=" + statistics.size() +
+        ", partial=" + partial +
         '}';
   }
 
@@ -123,6 +142,7 @@ public final class ContextualStatistics implements Contextual {
 
     ContextualStatistics that = (ContextualStatistics) o;
 
+    if (partial != that.partial) return false;
     if (!statistics.equals(that.statistics)) return false;
     if (!capability.equals(that.capability)) return false;
     return context.equals(that.context);
@@ -134,6 +154,7 @@ public final class ContextualStatistics implements Contextual {
     int result = statistics.hashCode();
     result = 31 * result + capability.hashCode();
     result = 31 * result + context.hashCode();
+    result = 31 * result + (partial ? 1 : 0);
     return result;
   }
 
@@ -0,0 +1,109 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.model;
+
+import com.google.gson.annotations.JsonAdapter;
+import org.junit.Test;
+import org.terracotta.json.DefaultJsonFactory;
+import org.terracotta.json.Json;
+import org.terracotta.json.gson.GsonConfig;
+import org.terracotta.json.gson.GsonModule;
+import org.terracotta.json.gson.RuntimeTypeAdapterFactory;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.context.Contextual;
+import org.terracotta.management.model.message.DefaultMessage;
+import org.terracotta.management.model.notification.ContextualNotification;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.management.sequence.BoundaryFlakeSequenceGenerator;
+import org.terracotta.management.sequence.NodeIdSource;
+import org.terracotta.management.sequence.TimeSource;
+import org.terracotta.statistics.Sample;
+import org.terracotta.statistics.StatisticType;
+import org.terracotta.statistics.registry.Statistic;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * {@link Json#map(Object)} and friends must give the same result as serializing to a String and parsing it back,
+ * for the management messages
+ */
+public class MapTest {
+
+  private final List<Json> mappers = Arrays.asList(
+      new DefaultJsonFactory().withModule(new ManagementModule()).create(),
+      new DefaultJsonFactory().withModule(new ManagementModule()).pretty().create());
+
+  private final Context context = Context.create("consumerId", "1").with("cacheManagerName", "my-cm").with("cacheName", "my-cache");
+
+  @Test
+  public void test_statistics() {
+    Map<String, Statistic<? extends Serializable>> map = new HashMap<>();
+    map.put("Cache:HitCount", new Statistic<>(StatisticType.COUNTER, Arrays.asList(new Sample<>(1L, 10L), new Sample<>(2L, 12L))));
+    map.put("Cache:HitRatio", new Statistic<>(StatisticType.RATIO, new Sample<>(2L, 0.5)));
+    map.put("Cache:Empty", new Statistic<>(StatisticType.GAUGE));
+    assertMapsAsBefore(new ContextualStatistics("StatisticsCapability", context, map));
+    assertMapsAsBefore(new ContextualStatistics("StatisticsCapability", context, map, true));
+  }
+
+  @Test
+  public void test_notification() {
+    assertMapsAsBefore(new ContextualNotification(context, "CACHE_ADDED"));
+    assertMapsAsBefore(new ContextualNotification(context, "CACHE_ADDED", singletonMap("key", "value")));
+  }
+
+  @Test
+  public void test_message() {
+    BoundaryFlakeSequenceGenerator generator = new BoundaryFlakeSequenceGenerator(TimeSource.BEST, NodeIdSource.BEST);
+    ContextualStatistics statistics = new ContextualStatistics("StatisticsCapability", context,
+        singletonMap("Cache:HitCount", new Statistic<>(StatisticType.COUNTER, new Sample<>(1L, 10L))));
+    assertMapsAsBefore(new DefaultMessage(generator.next(), "STATISTICS", statistics));
+    assertMapsAsBefore(new DefaultMessage(generator.next(), "NOTIFICATION", new ContextualNotification(context, "CACHE_ADDED")));
+  }
+
+  private void assertMapsAsBefore(Object o) {
+    for (Json json : mappers) {
+      String serialized = json.toString(o);
+      assertThat(serialized, json.map(o), is(equalTo(json.parse(serialized, Object.class))));
+      assertThat(serialized, json.map(o, Object.class), is(equalTo(json.parse(serialized, Object.class))));
+      assertThat(serialized, json.mapToObject(o), is(equalTo(json.parseObject(serialized))));
+    }
+  }
+
+  // the samples of a statistic can hold any serializable value
+  private static class ManagementModule implements GsonModule {
+    @Override
+    public void configure(GsonConfig config) {
+      config.registerMixin(Sample.class, SampleMixin.class);
+      config.serializeSubtypes(Contextual.class);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  private static class SampleMixin<T extends Serializable> {
+    @JsonAdapter(RuntimeTypeAdapterFactory.class)
+    private T sample;
+  }
+}
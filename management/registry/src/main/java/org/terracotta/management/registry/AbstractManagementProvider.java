@@ -32,9 +32,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -46,15 +49,23 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
 
   private final Queue<ExposedObject<T>> exposedObjects = new ConcurrentLinkedQueue<>();
 
+  // exposed objects indexed by the values of the required context attributes found in their context, so that finding
+  // the exposed object of a context does not compare the context with every exposed object
+  private final ConcurrentMap<List<String>, Queue<ExposedObject<T>>> exposedObjectsByRequiredContext = new ConcurrentHashMap<>();
+  // exposed objects whose context misses some required attributes, which can match contexts having any value for them
+  private final Queue<ExposedObject<T>> exposedObjectsWithPartialContext = new ConcurrentLinkedQueue<>();
+
   private final String capabilityName;
   private final Class<? extends T> managedType;
   private final CapabilityContext capabilityContext;
+  private final Collection<String> requiredContextNames;
 
   @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
   public AbstractManagementProvider(Class<? extends T> managedType) {
     this.managedType = managedType;
     this.capabilityName = buildCapabilityName();
     this.capabilityContext = buildCapabilityContext();
+    this.requiredContextNames = new ArrayList<>(capabilityContext.getRequiredAttributeNames());
   }
 
   @Override
@@ -81,6 +92,7 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
   public void register(T managedObject) {
     ExposedObject<T> exposedObject = wrap(managedObject);
     this.exposedObjects.add(exposedObject);
+    index(exposedObject);
   }
 
   @Override
@@ -88,6 +100,7 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
     for (ExposedObject<T> exposedObject : exposedObjects) {
       if (exposedObject.getTarget().equals(managedObject)) {
         if (this.exposedObjects.remove(exposedObject)) {
+          unindex(exposedObject);
           dispose(exposedObject);
           return;
         }
@@ -97,8 +110,10 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
 
   @Override
   public void close() {
-    while (!exposedObjects.isEmpty()) {
-      dispose(exposedObjects.poll());
+    ExposedObject<T> exposedObject;
+    while ((exposedObject = exposedObjects.poll()) != null) {
+      unindex(exposedObject);
+      dispose(exposedObject);
     }
   }
 
@@ -169,7 +184,18 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
     if (!getCapabilityContext().isValid(context)) {
       return null;
     }
-    for (ExposedObject<T> exposedObject : exposedObjects) {
+    List<String> key = requiredContextValues(context);
+    if (key != null) {
+      Queue<ExposedObject<T>> candidates = exposedObjectsByRequiredContext.get(key);
+      if (candidates != null) {
+        for (ExposedObject<T> exposedObject : candidates) {
+          if (context.contains(exposedObject.getContext())) {
+            return exposedObject;
+          }
+        }
+      }
+    }
+    for (ExposedObject<T> exposedObject : exposedObjectsWithPartialContext) {
       if (context.contains(exposedObject.getContext())) {
         return exposedObject;
       }
@@ -177,6 +203,49 @@ public abstract class AbstractManagementProvider<T> implements ManagementProvide
     return null;
   }
 
+  private void index(ExposedObject<T> exposedObject) {
+    List<String> key = requiredContextValues(exposedObject.getContext());
+    if (key == null) {
+      exposedObjectsWithPartialContext.add(exposedObject);
+    } else {
+      exposedObjectsByRequiredContext.compute(key, (k, objects) -> {
+        Queue<ExposedObject<T>> indexed = objects == null ? new ConcurrentLinkedQueue<>() : objects;
+        indexed.add(exposedObject);
+        return indexed;
+      });
+    }
+  }
+
+  private void unindex(ExposedObject<T> exposedObject) {
+    List<String> key = requiredContextValues(exposedObject.getContext());
+    if (key == null) {
+      exposedObjectsWithPartialContext.remove(exposedObject);
+    } else {
+      exposedObjectsByRequiredContext.computeIfPresent(key, (k, objects) -> {
+        objects.remove(exposedObject);
+        return objects.isEmpty() ? null : objects;
+      });
+    }
+  }
+
+  /**
+   * @return the values of the required attributes in the context, or null if some are missing
+   */
+  private List<String> requiredContextValues(Context context) {
+    if (context == null) {
+      return null;
+    }
+    List<String> values = new ArrayList<>(requiredContextNames.size());
+    for (String name : requiredContextNames) {
+      String value = context.get(name);
+      if (value == null) {
+        return null;
+      }
+      values.add(value);
+    }
+    return values;
+  }
+
   @Override
   public ExposedObject<T> findExposedObject(T managedObject) {
     for (ExposedObject<T> exposed : exposedObjects) {
@@ -23,10 +23,13 @@ import org.terracotta.management.model.context.ContextContainer;
 import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -42,6 +45,9 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
 
   protected final List<ManagementProvider<?>> managementProviders = new CopyOnWriteArrayList<>();
 
+  // a registry holds at most one provider per capability
+  private final ConcurrentMap<String, ManagementProvider<?>> managementProvidersByCapability = new ConcurrentHashMap<>();
+
   public DefaultManagementRegistry() {
     this.context = Context.empty();
     this.contextContainer = null;
@@ -64,18 +70,17 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
 
   @Override
   public boolean addManagementProvider(ManagementProvider<?> provider) {
-    String name = provider.getCapabilityName();
-    for (ManagementProvider<?> managementProvider : managementProviders) {
-      if (managementProvider.getCapabilityName().equals(name)) {
-        return false;
-      }
+    if (managementProvidersByCapability.putIfAbsent(provider.getCapabilityName(), provider) != null) {
+      return false;
     }
     return managementProviders.add(provider);
   }
 
   @Override
   public void removeManagementProvider(ManagementProvider<?> provider) {
-    managementProviders.remove(provider);
+    if (managementProviders.remove(provider)) {
+      managementProvidersByCapability.remove(provider.getCapabilityName(), provider);
+    }
   }
 
   @SuppressWarnings({"unchecked", "rawtypes"})
@@ -115,22 +120,13 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
 
   @Override
   public Collection<String> getCapabilityNames() {
-    Collection<String> names = new TreeSet<>();
-    for (ManagementProvider<?> managementProvider : managementProviders) {
-      names.add(managementProvider.getCapabilityName());
-    }
-    return names;
+    return new TreeSet<>(managementProvidersByCapability.keySet());
   }
 
   @Override
   public List<ManagementProvider<?>> getManagementProvidersByCapability(String capabilityName) {
-    List<ManagementProvider<?>> allProviders = new ArrayList<>();
-    for (ManagementProvider<?> provider : managementProviders) {
-      if (provider.getCapabilityName().equals(capabilityName)) {
-        allProviders.add(provider);
-      }
-    }
-    return allProviders;
+    ManagementProvider<?> provider = managementProvidersByCapability.get(capabilityName);
+    return provider == null ? Collections.emptyList() : Collections.singletonList(provider);
   }
 
   @Override
@@ -151,6 +147,9 @@ public class DefaultManagementRegistry implements ManagementRegistry, Closeable
         managementProvider.close();
       }
       managementProviders.removeAll(providers);
+      for (ManagementProvider<?> provider : providers) {
+        managementProvidersByCapability.remove(provider.getCapabilityName(), provider);
+      }
     }
   }
 
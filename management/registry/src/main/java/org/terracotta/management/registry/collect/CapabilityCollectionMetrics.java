@@ -0,0 +1,96 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry.collect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how long the statistics of a capability take to be collected by a {@link DefaultStatisticCollector}.
+ */
+public final class CapabilityCollectionMetrics {
+
+  private final LongAdder collections = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maximumNanos = new LongAccumulator(Math::max, 0L);
+  private final AtomicLong lastNanos = new AtomicLong();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder skips = new LongAdder();
+
+  void collected(long nanos) {
+    collections.increment();
+    totalNanos.add(nanos);
+    maximumNanos.accumulate(nanos);
+    lastNanos.set(nanos);
+  }
+
+  void timedOut() {
+    timeouts.increment();
+  }
+
+  void skipped() {
+    skips.increment();
+  }
+
+  /**
+   * @return the number of collections of this capability which completed, including the ones that exceeded their time budget
+   */
+  public long getCollectionCount() {
+    return collections.sum();
+  }
+
+  /**
+   * @return the number of collections of this capability which did not complete within their time budget
+   */
+  public long getTimeoutCount() {
+    return timeouts.sum();
+  }
+
+  /**
+   * @return the number of collections of this capability which were not started because the previous one was still running
+   */
+  public long getSkippedCount() {
+    return skips.sum();
+  }
+
+  public long getLastCollectionTime(TimeUnit unit) {
+    return unit.convert(lastNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  public long getAverageCollectionTime(TimeUnit unit) {
+    long count = collections.sum();
+    return count == 0 ? 0 : unit.convert(totalNanos.sum() / count, TimeUnit.NANOSECONDS);
+  }
+
+  public long getMaximumCollectionTime(TimeUnit unit) {
+    return unit.convert(maximumNanos.get(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "CapabilityCollectionMetrics{" +
+        "collections=" + getCollectionCount() +
+        ", timeouts=" + getTimeoutCount() +
+        ", skips=" + getSkippedCount() +
+        ", lastMs=" + getLastCollectionTime(TimeUnit.MILLISECONDS) +
+        ", averageMs=" + getAverageCollectionTime(TimeUnit.MILLISECONDS) +
+        ", maximumMs=" + getMaximumCollectionTime(TimeUnit.MILLISECONDS) +
+        '}';
+  }
+}
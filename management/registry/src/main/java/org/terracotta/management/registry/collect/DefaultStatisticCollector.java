@@ -28,13 +28,23 @@ import org.terracotta.management.registry.ResultSet;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.LongSupplier;
 
 /**
@@ -45,85 +55,239 @@ public class DefaultStatisticCollector implements StatisticCollector {
   private static final Logger LOGGER = LoggerFactory.getLogger(DefaultStatisticCollector.class);
 
   private final ScheduledExecutorService scheduledExecutorService;
+  private final CapabilityManagementSupport managementRegistry;
+  private final Executor collectingExecutor;
+  private final long capabilityTimeBudgetNanos;
+  private final ConcurrentMap<String, CapabilityCollectionMetrics> collectionMetrics = new ConcurrentHashMap<>();
+  // held by the collecting task: the scheduler can have several threads, and a restarted task can start while the
+  // previous one is still collecting
+  private final Object collectLock = new Object();
+  // only accessed by the collecting task, while holding the collect lock
+  private final Map<String, CompletableFuture<Collection<ContextualStatistics>>> pendingCollections = new HashMap<>();
+  // capabilities left out of the last collects, with the time from which their statistics still have to be collected
+  private final Map<String, Long> missedSince = new HashMap<>();
   private final Runnable runnable;
 
   private volatile boolean running;
   private ScheduledFuture<?> task;
   private long intervalMs;
+  private int keyframeInterval;
+  private volatile IncrementalStatistics incrementalStatistics;
   private volatile long lastCollectTime;
 
   public DefaultStatisticCollector(final CapabilityManagementSupport managementRegistry,
                                    ScheduledExecutorService scheduledExecutorService,
                                    final Collector collector,
                                    LongSupplier systemTimeSupplier) {
+    this(managementRegistry, scheduledExecutorService, null, 0L, TimeUnit.MILLISECONDS, collector, systemTimeSupplier);
+  }
+
+  /**
+   * Creates a collector gathering the statistics of each capability in parallel on the given executor.
+   * A capability which does not deliver its statistics within the time budget is left out of the collect.
+   * Its collection is not started again until the running one completes, and then asks again for the samples it missed.
+   *
+   * @param collectingExecutor the executor gathering the statistics of each capability, or null to gather them one
+   *                           after another on the scheduler thread
+   * @param capabilityTimeBudget the maximum time given to each capability to deliver its statistics, from the beginning
+   *                             of a collect, when a collecting executor is used
+   */
+  public DefaultStatisticCollector(final CapabilityManagementSupport managementRegistry,
+                                   ScheduledExecutorService scheduledExecutorService,
+                                   Executor collectingExecutor,
+                                   long capabilityTimeBudget,
+                                   TimeUnit capabilityTimeBudgetUnit,
+                                   final Collector collector,
+                                   LongSupplier systemTimeSupplier) {
 
     this.scheduledExecutorService = Objects.requireNonNull(scheduledExecutorService);
+    this.managementRegistry = Objects.requireNonNull(managementRegistry);
+    this.collectingExecutor = collectingExecutor;
+    this.capabilityTimeBudgetNanos = capabilityTimeBudgetUnit.toNanos(capabilityTimeBudget);
 
-    Objects.requireNonNull(managementRegistry);
+    if (collectingExecutor != null && capabilityTimeBudget <= 0) {
+      throw new IllegalArgumentException("Bad capability time budget: " + capabilityTimeBudget);
+    }
     Objects.requireNonNull(collector);
 
     this.runnable = () -> {
-      try {
-        if (running) {
-          Collection<ContextualStatistics> statistics = new ArrayList<>();
-
-          for (String capabilityName : managementRegistry.getCapabilityNames()) {
-
-            Set<Context> allContexts = new LinkedHashSet<>();
+      synchronized (collectLock) {
+        try {
+          if (running) {
+            IncrementalStatistics incrementalStatistics = this.incrementalStatistics;
+            long since = lastCollectTime;
+            Collection<String> collected = new ArrayList<>();
+            Collection<ContextualStatistics> statistics = this.collectingExecutor == null ?
+                collectSequentially(since) :
+                collectInParallel(since, collected);
 
-            for (ManagementProvider<?> managementProvider : managementRegistry.getManagementProvidersByCapability(capabilityName)) {
-              if (managementProvider.getClass().isAnnotationPresent(StatisticProvider.class)) {
-                for (ExposedObject<?> exposedObject : managementProvider.getExposedObjects()) {
-                  allContexts.add(exposedObject.getContext());
-                }
+            if (running && !statistics.isEmpty()) {
+              // in incremental mode, only the statistics which changed since the last collect are sent
+              Collection<ContextualStatistics> changed = incrementalStatistics == null ? statistics : incrementalStatistics.changed(statistics);
+              if (!changed.isEmpty()) {
+                collector.onStatistics(changed);
               }
-            }
-
-            if (!allContexts.isEmpty()) {
-              CapabilityManagement capabilityManagement = managementRegistry.withCapability(capabilityName);
-              ResultSet<ContextualStatistics> resultSet = capabilityManagement
-                  .queryAllStatistics()
-                  .on(allContexts)
-                  .since(lastCollectTime)
-                  .build()
-                  .execute();
-              for (ContextualStatistics contextualStatistics : resultSet) {
-                statistics.add(contextualStatistics);
+              if (incrementalStatistics != null) {
+                incrementalStatistics.sent();
               }
+
+              // We set the time of last collect after the collector is called.
+              // Thus, if any exception occurs (such as temporary network failure),
+              // the next sending of stat will contain the samples of the last collect.
+              lastCollectTime = systemTimeSupplier.getAsLong();
+              missedSince.keySet().removeAll(collected);
             }
           }
+        } catch (RuntimeException e) {
+          LOGGER.warn("StatisticCollector failed: " + e.getMessage(), e);
+        }
+      }
+    };
+  }
 
-          if (running && !statistics.isEmpty()) {
-            collector.onStatistics(statistics);
+  /**
+   * @return the time taken to collect the statistics of each capability collected so far, by capability name
+   */
+  public Map<String, CapabilityCollectionMetrics> getCollectionMetrics() {
+    return Collections.unmodifiableMap(collectionMetrics);
+  }
 
-            // We set the time of last collect after the collector is called.
-            // Thus, if any exception occurs (such as temporary network failure),
-            // the next sending of stat will contain the samples of the last collect.
-            lastCollectTime = systemTimeSupplier.getAsLong();
-          }
+  private Collection<ContextualStatistics> collectSequentially(long since) {
+    Collection<ContextualStatistics> statistics = new ArrayList<>();
+    for (String capabilityName : managementRegistry.getCapabilityNames()) {
+      statistics.addAll(collect(capabilityName, since));
+    }
+    return statistics;
+  }
+
+  /**
+   * @param collected filled with the names of the capabilities whose statistics were collected
+   */
+  private Collection<ContextualStatistics> collectInParallel(long since, Collection<String> collected) {
+    long deadline = System.nanoTime() + capabilityTimeBudgetNanos;
+    Collection<String> capabilityNames = managementRegistry.getCapabilityNames();
+    Map<String, CompletableFuture<Collection<ContextualStatistics>>> collections = new LinkedHashMap<>();
+    missedSince.keySet().retainAll(capabilityNames);
+
+    for (String capabilityName : capabilityNames) {
+      CompletableFuture<Collection<ContextualStatistics>> previous = pendingCollections.get(capabilityName);
+      if (previous != null && !previous.isDone()) {
+        // a straggler from a previous collect is still running: do not pile up another one behind it
+        metrics(capabilityName).skipped();
+        missedSince.putIfAbsent(capabilityName, since);
+        continue;
+      }
+      // a capability left out of the previous collects is collected from where it was left, so that no sample is lost
+      long capabilitySince = missedSince.getOrDefault(capabilityName, since);
+      CompletableFuture<Collection<ContextualStatistics>> future;
+      try {
+        future = CompletableFuture.supplyAsync(() -> collect(capabilityName, capabilitySince), collectingExecutor);
+      } catch (RejectedExecutionException e) {
+        // executor closed
+        return Collections.emptyList();
+      }
+      pendingCollections.put(capabilityName, future);
+      collections.put(capabilityName, future);
+    }
+
+    Collection<ContextualStatistics> statistics = new ArrayList<>();
+    boolean interrupted = false;
+    for (Map.Entry<String, CompletableFuture<Collection<ContextualStatistics>>> entry : collections.entrySet()) {
+      String capabilityName = entry.getKey();
+      try {
+        statistics.addAll(entry.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        pendingCollections.remove(capabilityName, entry.getValue());
+        collected.add(capabilityName);
+      } catch (TimeoutException e) {
+        metrics(capabilityName).timedOut();
+        LOGGER.warn("Statistics of capability {} were not collected within {} ms", capabilityName, TimeUnit.NANOSECONDS.toMillis(capabilityTimeBudgetNanos));
+      } catch (ExecutionException e) {
+        pendingCollections.remove(capabilityName, entry.getValue());
+        LOGGER.warn("Statistics of capability {} could not be collected: {}", capabilityName, e.getCause().getMessage(), e.getCause());
+      } catch (InterruptedException e) {
+        interrupted = true;
+        break;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    for (String capabilityName : collections.keySet()) {
+      if (!collected.contains(capabilityName)) {
+        missedSince.putIfAbsent(capabilityName, since);
+      }
+    }
+    return statistics;
+  }
+
+  private Collection<ContextualStatistics> collect(String capabilityName, long since) {
+    long start = System.nanoTime();
+
+    Set<Context> allContexts = new LinkedHashSet<>();
+
+    for (ManagementProvider<?> managementProvider : managementRegistry.getManagementProvidersByCapability(capabilityName)) {
+      if (managementProvider.getClass().isAnnotationPresent(StatisticProvider.class)) {
+        for (ExposedObject<?> exposedObject : managementProvider.getExposedObjects()) {
+          allContexts.add(exposedObject.getContext());
         }
-      } catch (RuntimeException e) {
-        LOGGER.warn("StatisticCollector failed: " + e.getMessage(), e);
       }
-    };
+    }
+
+    if (allContexts.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    Collection<ContextualStatistics> statistics = new ArrayList<>();
+    CapabilityManagement capabilityManagement = managementRegistry.withCapability(capabilityName);
+    ResultSet<ContextualStatistics> resultSet = capabilityManagement
+        .queryAllStatistics()
+        .on(allContexts)
+        .since(since)
+        .build()
+        .execute();
+    for (ContextualStatistics contextualStatistics : resultSet) {
+      statistics.add(contextualStatistics);
+    }
+
+    metrics(capabilityName).collected(System.nanoTime() - start);
+    return statistics;
+  }
+
+  private CapabilityCollectionMetrics metrics(String capabilityName) {
+    return collectionMetrics.computeIfAbsent(capabilityName, name -> new CapabilityCollectionMetrics());
   }
 
   @Override
   public synchronized void startStatisticCollector(long interval, TimeUnit unit) {
+    startStatisticCollector(interval, unit, 1);
+  }
+
+  @Override
+  public synchronized void startStatisticCollector(long interval, TimeUnit unit, int keyframeInterval) {
     if (interval <= 0) {
       throw new IllegalArgumentException("Bad interval: " + interval);
     }
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Bad keyframe interval: " + keyframeInterval);
+    }
 
     final long itv = TimeUnit.MILLISECONDS.convert(interval, unit);
 
-    // cancel the current task if it is scheduled with a different time
-    if (running && intervalMs != itv) {
+    // cancel the current task if it is scheduled with a different time or mode
+    if (running && (intervalMs != itv || this.keyframeInterval != keyframeInterval)) {
       stopStatisticCollector();
     }
 
     if (!running) {
-      LOGGER.info("Starting collecting statistics each {} {}", interval, unit);
+      if (keyframeInterval == 1) {
+        LOGGER.info("Starting collecting statistics each {} {}", interval, unit);
+      } else {
+        LOGGER.info("Starting collecting statistics each {} {}, with all statistics sent every {} collects", interval, unit, keyframeInterval);
+      }
       intervalMs = itv;
+      this.keyframeInterval = keyframeInterval;
+      // a restart always begins with a keyframe
+      incrementalStatistics = keyframeInterval == 1 ? null : new IncrementalStatistics(keyframeInterval);
       if (!scheduledExecutorService.isShutdown()) {
         running = true;
         try {
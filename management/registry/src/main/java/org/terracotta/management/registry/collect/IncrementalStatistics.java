@@ -0,0 +1,107 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry.collect;
+
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.statistics.registry.Statistic;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Remembers the latest value of each statistic collected, per capability and context, so that a collection only sends
+ * the statistics whose value changed. Every {@code keyframeInterval} collections, all the statistics are sent instead,
+ * so that consumers can rebuild the full state from a keyframe and the deltas following it.
+ * <p>
+ * This class is not thread-safe: it is only used by the collecting task.
+ */
+final class IncrementalStatistics {
+
+  private final int keyframeInterval;
+  private Map<List<Object>, Map<String, Serializable>> latestValues = new HashMap<>();
+  private Map<List<Object>, Map<String, Serializable>> pendingValues = Collections.emptyMap();
+  private long collections;
+
+  IncrementalStatistics(int keyframeInterval) {
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException("Bad keyframe interval: " + keyframeInterval);
+    }
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Computes what has to be sent for a collection. The values collected are only remembered once {@link #sent()} is
+   * called, so that they are sent again if sending them failed.
+   */
+  Collection<ContextualStatistics> changed(Collection<ContextualStatistics> collected) {
+    boolean keyframe = isKeyframe();
+    pendingValues = new HashMap<>();
+    List<ContextualStatistics> changed = new ArrayList<>(collected.size());
+    for (ContextualStatistics statistics : collected) {
+      List<Object> key = Arrays.asList(statistics.getCapability(), statistics.getContext());
+      Map<String, Serializable> previousValues = keyframe ? Collections.emptyMap() : latestValues.getOrDefault(key, Collections.emptyMap());
+      Map<String, Serializable> values = new HashMap<>();
+      Map<String, Statistic<? extends Serializable>> changedStatistics = new HashMap<>();
+      for (Map.Entry<String, Statistic<? extends Serializable>> entry : statistics.getStatistics().entrySet()) {
+        String name = entry.getKey();
+        Optional<? extends Serializable> value = entry.getValue().getLatestSampleValue();
+        value.ifPresent(v -> values.put(name, v));
+        if (keyframe || !value.isPresent() || !previousValues.containsKey(name) || !Objects.equals(previousValues.get(name), value.get())) {
+          changedStatistics.put(name, entry.getValue());
+        }
+      }
+      pendingValues.put(key, values);
+      if (changedStatistics.size() == statistics.size()) {
+        changed.add(statistics);
+      } else if (!changedStatistics.isEmpty()) {
+        changed.add(new ContextualStatistics(statistics.getCapability(), statistics.getContext(), changedStatistics, true));
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Remembers the values of the last collection, once what {@link #changed(Collection)} returned has been sent.
+   */
+  void sent() {
+    if (isKeyframe()) {
+      // a keyframe also forgets about the contexts which are not collected anymore
+      latestValues = pendingValues;
+    } else {
+      for (Map.Entry<List<Object>, Map<String, Serializable>> entry : pendingValues.entrySet()) {
+        latestValues.merge(entry.getKey(), entry.getValue(), (previous, values) -> {
+          previous.putAll(values);
+          return previous;
+        });
+      }
+    }
+    pendingValues = Collections.emptyMap();
+    collections++;
+  }
+
+  private boolean isKeyframe() {
+    return collections % keyframeInterval == 0;
+  }
+}
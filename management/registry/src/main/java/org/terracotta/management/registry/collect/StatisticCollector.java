@@ -31,6 +31,16 @@ public interface StatisticCollector {
    */
   void startStatisticCollector(long interval, TimeUnit unit);
 
+  /**
+   * Starts the statistic collector in incremental mode, or, if already started, reschedule it with the new given settings
+   * if they have changed. In incremental mode, a collect only sends the statistics whose latest value has changed since
+   * the previous collect, except every {@code keyframeInterval} collects, where all the statistics are sent.
+   * A keyframe interval of 1 sends all the statistics at each collect.
+   */
+  default void startStatisticCollector(long interval, TimeUnit unit, int keyframeInterval) {
+    startStatisticCollector(interval, unit);
+  }
+
   void stopStatisticCollector();
 
   boolean isRunning();
@@ -76,6 +76,13 @@ public class StatisticCollectorProvider extends AbstractActionManagementProvider
       collectorService.startStatisticCollector(interval, unit);
     }
 
+    @Exposed
+    public void startIncrementalStatisticCollector(@Named("interval") long interval,
+                                                   @Named("unit") TimeUnit unit,
+                                                   @Named("keyframeInterval") int keyframeInterval) {
+      collectorService.startStatisticCollector(interval, unit, keyframeInterval);
+    }
+
     @Override
     public StatisticCollector getTarget() {
       return collectorService;
@@ -31,9 +31,12 @@ import org.terracotta.management.registry.json.TestModule;
 
 import java.io.File;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 /**
@@ -73,4 +76,36 @@ public class ManagementRegistryTest {
       assertEquals(IllegalArgumentException.class, e.getCause().getClass());
     }
   }
+
+  @Test
+  public void test_lookups_follow_registrations() {
+    DefaultManagementRegistry registry = new DefaultManagementRegistry();
+    MyManagementProvider provider = new MyManagementProvider();
+
+    assertTrue(registry.addManagementProvider(provider));
+    assertFalse(registry.addManagementProvider(new MyManagementProvider()));
+    assertEquals(Collections.singletonList(provider), registry.getManagementProvidersByCapability("TheActionProvider"));
+    assertEquals(Collections.singleton("TheActionProvider"), registry.getCapabilityNames());
+
+    MyObject cache1 = new MyObject("myCacheManagerName", "myCacheName1");
+    MyObject cache2 = new MyObject("myCacheManagerName", "myCacheName2");
+    registry.register(cache1);
+    registry.register(cache2);
+
+    Context context1 = cache1.getContext().with("other", "value");
+    Context context2 = cache2.getContext();
+    assertTrue(provider.supports(context1));
+    assertTrue(provider.supports(context2));
+    assertFalse(provider.supports(cache1.getContext().without("cacheName")));
+    assertFalse(provider.supports(cache1.getContext().with("cacheName", "myCacheName3")));
+
+    registry.unregister(cache1);
+    assertFalse(provider.supports(context1));
+    assertTrue(provider.supports(context2));
+
+    registry.removeManagementProvider(provider);
+    assertTrue(registry.getManagementProvidersByCapability("TheActionProvider").isEmpty());
+    assertTrue(registry.getCapabilityNames().isEmpty());
+    assertTrue(registry.addManagementProvider(new MyManagementProvider()));
+  }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry.collect;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.management.model.stats.Statistic;
+import org.terracotta.management.registry.AbstractManagementProvider;
+import org.terracotta.management.registry.DefaultExposedObject;
+import org.terracotta.management.registry.DefaultManagementRegistry;
+import org.terracotta.management.registry.ExposedObject;
+import org.terracotta.management.registry.Named;
+import org.terracotta.management.registry.RequiredContext;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultStatisticCollectorTest {
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final ExecutorService collectingExecutor = Executors.newFixedThreadPool(2);
+  private final CountDownLatch slowCapabilityReleased = new CountDownLatch(1);
+
+  @After
+  public void tearDown() {
+    slowCapabilityReleased.countDown();
+    scheduler.shutdownNow();
+    collectingExecutor.shutdownNow();
+  }
+
+  @Test
+  public void slow_capability_does_not_hold_back_the_others() throws InterruptedException {
+    DefaultManagementRegistry registry = new DefaultManagementRegistry();
+    registry.addManagementProvider(new StatisticsProvider("Fast", null));
+    registry.addManagementProvider(new StatisticsProvider("Slow", slowCapabilityReleased));
+    registry.register("cache1");
+
+    BlockingQueue<Collection<ContextualStatistics>> pushed = new LinkedBlockingQueue<>();
+    DefaultStatisticCollector statisticCollector = new DefaultStatisticCollector(
+        registry,
+        scheduler,
+        collectingExecutor,
+        100L,
+        TimeUnit.MILLISECONDS,
+        pushed::add,
+        System::currentTimeMillis);
+    statisticCollector.startStatisticCollector(50L, TimeUnit.MILLISECONDS);
+
+    assertThat(capabilities(pushed.poll(10L, TimeUnit.SECONDS)), is(Collections.singleton("Fast")));
+    assertThat(statisticCollector.getCollectionMetrics().get("Slow").getTimeoutCount(), is(1L));
+
+    slowCapabilityReleased.countDown();
+    while (!capabilities(pushed.poll(10L, TimeUnit.SECONDS)).contains("Slow")) {
+      // collects which started before the slow capability was released
+    }
+
+    statisticCollector.stopStatisticCollector();
+
+    assertTrue(statisticCollector.getCollectionMetrics().get("Fast").getCollectionCount() > 0);
+    assertTrue(statisticCollector.getCollectionMetrics().get("Slow").getCollectionCount() > 0);
+    // the straggler kept running past its time budget until it was released
+    assertTrue(statisticCollector.getCollectionMetrics().get("Slow").getMaximumCollectionTime(TimeUnit.MILLISECONDS) >= 50L);
+  }
+
+  @Test
+  public void timed_out_capability_is_collected_again_from_where_it_was_left() throws InterruptedException {
+    DefaultManagementRegistry registry = new DefaultManagementRegistry();
+    StatisticsProvider slow = new StatisticsProvider("Slow", slowCapabilityReleased);
+    registry.addManagementProvider(new StatisticsProvider("Fast", null));
+    registry.addManagementProvider(slow);
+    registry.register("cache1");
+
+    BlockingQueue<Collection<ContextualStatistics>> pushed = new LinkedBlockingQueue<>();
+    DefaultStatisticCollector statisticCollector = new DefaultStatisticCollector(
+        registry,
+        scheduler,
+        collectingExecutor,
+        100L,
+        TimeUnit.MILLISECONDS,
+        pushed::add,
+        System::currentTimeMillis);
+    statisticCollector.startStatisticCollector(50L, TimeUnit.MILLISECONDS);
+
+    // wait for collects sent without the slow capability
+    pushed.poll(10L, TimeUnit.SECONDS);
+    pushed.poll(10L, TimeUnit.SECONDS);
+
+    slowCapabilityReleased.countDown();
+    while (!capabilities(pushed.poll(10L, TimeUnit.SECONDS)).contains("Slow")) {
+      // collects which started before the slow capability was released
+    }
+
+    statisticCollector.stopStatisticCollector();
+
+    // the samples of the timed out collect are asked again, instead of being lost
+    assertThat(slow.sinces.get(0), is(0L));
+    assertThat(slow.sinces.get(1), is(0L));
+  }
+
+  private static Set<String> capabilities(Collection<ContextualStatistics> statistics) {
+    return statistics.stream().map(ContextualStatistics::getCapability).collect(toSet());
+  }
+
+  @StatisticProvider
+  @RequiredContext({@Named("cacheName")})
+  private static class StatisticsProvider extends AbstractManagementProvider<String> {
+
+    private final String capabilityName;
+    private final CountDownLatch released;
+    private final List<Long> sinces = new CopyOnWriteArrayList<>();
+
+    StatisticsProvider(String capabilityName, CountDownLatch released) {
+      super(String.class);
+      this.capabilityName = capabilityName;
+      this.released = released;
+    }
+
+    @Override
+    public String getCapabilityName() {
+      return capabilityName;
+    }
+
+    @Override
+    protected ExposedObject<String> wrap(String managedObject) {
+      return new DefaultExposedObject<>(managedObject, Context.create("cacheName", managedObject));
+    }
+
+    @Override
+    public Map<String, Statistic<? extends Serializable>> collectStatistics(Context context, Collection<String> statisticNames, long since) {
+      sinces.add(since);
+      if (released != null) {
+        try {
+          released.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return Collections.emptyMap();
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.management.registry.collect;
+
+import org.junit.Test;
+import org.terracotta.management.model.context.Context;
+import org.terracotta.management.model.stats.ContextualStatistics;
+import org.terracotta.statistics.Sample;
+import org.terracotta.statistics.StatisticType;
+import org.terracotta.statistics.registry.Statistic;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class IncrementalStatisticsTest {
+
+  private final Context context = Context.create("cacheName", "cache1");
+
+  @Test
+  public void only_changed_statistics_are_sent_between_keyframes() {
+    IncrementalStatistics incrementalStatistics = new IncrementalStatistics(3);
+
+    ContextualStatistics first = statistics(1L, 10L);
+    assertThat(send(incrementalStatistics, first).get(0), is(sameInstance(first)));
+
+    assertThat(send(incrementalStatistics, statistics(1L, 10L)).isEmpty(), is(true));
+
+    List<ContextualStatistics> delta = send(incrementalStatistics, statistics(2L, 10L));
+    assertThat(delta.size(), is(1));
+    assertThat(delta.get(0).getStatistics().keySet(), is(Collections.singleton("Cache:HitCount")));
+    assertThat(delta.get(0).isPartial(), is(true));
+
+    // keyframe
+    ContextualStatistics keyframe = statistics(2L, 10L);
+    assertThat(send(incrementalStatistics, keyframe).get(0), is(sameInstance(keyframe)));
+    assertThat(keyframe.isPartial(), is(false));
+  }
+
+  @Test
+  public void values_are_only_remembered_once_sent() {
+    IncrementalStatistics incrementalStatistics = new IncrementalStatistics(10);
+    send(incrementalStatistics, statistics(1L, 10L));
+
+    // not sent: must be computed again on the next collection
+    assertThat(incrementalStatistics.changed(Arrays.asList(statistics(2L, 10L))).size(), is(1));
+    assertThat(send(incrementalStatistics, statistics(2L, 10L)).size(), is(1));
+    assertThat(send(incrementalStatistics, statistics(2L, 10L)).isEmpty(), is(true));
+  }
+
+  private static List<ContextualStatistics> send(IncrementalStatistics incrementalStatistics, ContextualStatistics statistics) {
+    Collection<ContextualStatistics> changed = incrementalStatistics.changed(Arrays.asList(statistics));
+    incrementalStatistics.sent();
+    return new ArrayList<>(changed);
+  }
+
+  private ContextualStatistics statistics(long hitCount, long missCount) {
+    Map<String, Statistic<? extends Serializable>> statistics = new HashMap<>();
+    statistics.put("Cache:HitCount", new Statistic<>(StatisticType.COUNTER, new Sample<>(1L, hitCount)));
+    statistics.put("Cache:MissCount", new Statistic<>(StatisticType.COUNTER, new Sample<>(1L, missCount)));
+    return new ContextualStatistics("StatisticsCapability", context, statistics);
+  }
+}
@@ -30,9 +30,12 @@ import org.terracotta.management.service.monitoring.registry.provider.StatisticC
 import java.io.Closeable;
 import java.util.Objects;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -44,10 +47,22 @@ class DefaultStatisticService implements StatisticService, Closeable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(DefaultStatisticService.class);
 
+  /**
+   * Number of threads scheduling the statistic collectors of the NMS entities, and number of threads gathering
+   * the statistics of their capabilities in parallel
+   */
+  private static final int COLLECTOR_PARALLELISM = Integer.getInteger("terracotta.management.statistics.collector.parallelism", Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  /**
+   * Maximum time given to a capability to deliver its statistics at each collect
+   */
+  private static final long CAPABILITY_TIME_BUDGET_MS = Long.getLong("terracotta.management.statistics.collector.capabilityTimeBudgetMs", 5_000L);
+
   private static final AtomicLong managementSchedulerCount = new AtomicLong();
+  private static final AtomicLong statisticCollectorCount = new AtomicLong();
 
   private final ScheduledExecutorService managementScheduler = Executors.unconfigurableScheduledExecutorService(new ScheduledThreadPoolExecutor(
-      1,
+      Math.max(1, COLLECTOR_PARALLELISM),
       r -> {
         Thread t = Executors.defaultThreadFactory().newThread(r);
         t.setDaemon(true);
@@ -58,6 +73,19 @@ class DefaultStatisticService implements StatisticService, Closeable {
       new ThreadPoolExecutor.AbortPolicy()
   ));
 
+  // a slow capability (i.e. walking a data directory) only holds one of these threads, and only up to its time budget,
+  // instead of delaying the statistics of every other capability and NMS entity
+  private final ForkJoinPool statisticCollectorPool = new ForkJoinPool(
+      Math.max(1, COLLECTOR_PARALLELISM),
+      pool -> {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        t.setDaemon(true);
+        t.setName("ManagementStatisticCollector-" + statisticCollectorCount.incrementAndGet());
+        return t;
+      },
+      (thread, err) -> LOGGER.error("UncaughtException in thread " + thread.getName() + ": " + err.getMessage(), err),
+      true);
+
   private final SharedEntityManagementRegistry sharedEntityManagementRegistry;
   private final TimeSource timeSource;
 
@@ -86,6 +114,9 @@ class DefaultStatisticService implements StatisticService, Closeable {
         // This will avoid collecting stats on a registry from another NMS entity that already has its own stat collector.
         new CombiningCapabilityManagementSupport(sharedEntityManagementRegistry, registry),
         managementScheduler,
+        statisticCollectorPool,
+        CAPABILITY_TIME_BUDGET_MS,
+        TimeUnit.MILLISECONDS,
         list -> {
           // Add a marker on the statistics to know which statistics collector has collected them (from which NMS entity)
           list.forEach(stats -> stats.setContext(stats.getContext().with("collectorId", "" + consumerId)));
@@ -104,6 +135,7 @@ class DefaultStatisticService implements StatisticService, Closeable {
   public void close() {
     LOGGER.info("Closing statistic service");
     ExecutorUtil.shutdownNow(managementScheduler);
+    ExecutorUtil.shutdownNow(statisticCollectorPool);
   }
 
 }
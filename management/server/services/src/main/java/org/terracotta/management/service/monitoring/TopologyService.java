@@ -57,6 +57,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -88,6 +89,10 @@ class TopologyService implements PlatformListener {
   private final PlatformConfiguration platformConfiguration;
   private final List<TopologyEventListener> topologyEventListeners = new CopyOnWriteArrayList<>();
 
+  // bumped on every change made to the cluster, while holding this monitor
+  private final AtomicLong topologyVersion = new AtomicLong();
+  private volatile TopologySnapshot snapshot = new TopologySnapshot(-1, null);
+
   private volatile Server currentActive;
 
   TopologyService(FiringService firingService, PlatformConfiguration platformConfiguration) {
@@ -124,6 +129,7 @@ class TopologyService implements PlatformListener {
         .computeUpTime();
 
     if (stripe.addServer(server)) {
+      topologyChanged();
       currentActive = stripe.getServerByName(self.getServerName()).get();
 
       topologyEventListeners.forEach(listener -> listener.onBecomeActive(platformConfiguration.getServerName()));
@@ -158,6 +164,8 @@ class TopologyService implements PlatformListener {
         .computeUpTime();
 
     if (stripe.addServer(server)) {
+      topologyChanged();
+
       Map<String, String> attrs = new HashMap<>();
       attrs.put("startTime", String.valueOf(server.getStartTime()));
       attrs.put("activateTime", String.valueOf(server.getActivateTime()));
@@ -179,6 +187,7 @@ class TopologyService implements PlatformListener {
 
       server.setState(Server.State.UNREACHABLE);
       serverEntities.remove(platformServer.getServerName());
+      topologyChanged();
 
       Map<String, String> attrs = new HashMap<>();
       attrs.put("startTime", "0");
@@ -211,6 +220,7 @@ class TopologyService implements PlatformListener {
         ServerEntity entity = ServerEntity.create(identifier).setConsumerId(platformEntity.consumerID);
 
         if (server.addServerEntity(entity)) {
+          topologyChanged();
           firingService.fireNotification(new ContextualNotification(entity.getContext(), SERVER_ENTITY_CREATED.name()));
 
           whenServerEntity(platformEntity.consumerID, sender.getServerName()).complete(entity);
@@ -256,6 +266,7 @@ class TopologyService implements PlatformListener {
         .ifPresent(entity -> {
           Context context = entity.getContext();
           entity.remove();
+          topologyChanged();
 
           serverEntities.get(sender.getServerName()).remove(platformEntity.consumerID);
 
@@ -284,6 +295,7 @@ class TopologyService implements PlatformListener {
             Client client = Client.create(clientIdentifier).setHostName(platformConnectedClient.remoteAddress.getHostName());
 
             cluster.addClient(client);
+            topologyChanged();
 
             if (client.addConnection(Connection.create(clientIdentifier.getConnectionUid(), getActiveServer(), endpoint))) {
                 firingService.fireNotification(new ContextualNotification(server.getContext(), CLIENT_CONNECTED.name(), client.getContext()));
@@ -303,6 +315,7 @@ class TopologyService implements PlatformListener {
             cluster.getClient(clientIdentifier)
               .ifPresent(client -> {
                 client.addProperty(key, value);
+                topologyChanged();
                   firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_PROPERTY_ADDED.name(), Collections.singletonMap(key, value)));
               });
         });
@@ -321,6 +334,7 @@ class TopologyService implements PlatformListener {
               .ifPresent(client -> {
                 Context clientContext = client.getContext();
                 client.remove();
+                topologyChanged();
                   firingService.fireNotification(new ContextualNotification(server.getContext(), CLIENT_DISCONNECTED.name(), clientContext));
               });
         });
@@ -340,6 +354,7 @@ class TopologyService implements PlatformListener {
         .ifPresent(connection -> currentActive.getServerEntity(platformEntity.name, platformEntity.typeName)
           .ifPresent(entity -> {
             connection.fetchServerEntity(platformEntity.name, platformEntity.typeName);
+            topologyChanged();
             firingService.fireNotification(new ContextualNotification(entity.getContext(), SERVER_ENTITY_FETCHED.name(), client.getContext()));
             whenFetchClient(platformEntity.consumerID, clientDescriptor).complete(client);
             topologyEventListeners.forEach(listener -> listener.onFetch(platformEntity.consumerID, clientDescriptor));
@@ -362,6 +377,7 @@ class TopologyService implements PlatformListener {
             .ifPresent(connection -> {
               entityFetches.get(platformEntity.consumerID).remove(clientDescriptor);
               if (connection.unfetchServerEntity(platformEntity.name, platformEntity.typeName)) {
+                topologyChanged();
                 firingService.fireNotification(new ContextualNotification(entity.getContext(), SERVER_ENTITY_UNFETCHED.name(), client.getContext()));
               }
               topologyEventListeners.forEach(listener -> listener.onUnfetch(platformEntity.consumerID, clientDescriptor));
@@ -397,6 +413,8 @@ class TopologyService implements PlatformListener {
         server.setBuildId(null).setVersion(null);
       }
 
+      topologyChanged();
+
       firingService.fireNotification(new ContextualNotification(server.getContext(), SERVER_STATE_CHANGED.name(), attrs));
     });
   }
@@ -438,9 +456,12 @@ class TopologyService implements PlatformListener {
     LOGGER.trace("[{}] willSetClientManagementRegistry({}, {})", consumerId, clientDescriptor, newRegistry);
 
     whenFetchClient(consumerId, clientDescriptor).executeOrDelay("client-registry", client -> {
-      if (!newRegistry.equals(client.getManagementRegistry().orElse(null))) {
-        client.setManagementRegistry(newRegistry);
-        firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_REGISTRY_AVAILABLE.name()));
+      synchronized (this) {
+        if (!newRegistry.equals(client.getManagementRegistry().orElse(null))) {
+          client.setManagementRegistry(newRegistry);
+          topologyChanged();
+          firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_REGISTRY_AVAILABLE.name()));
+        }
       }
     });
   }
@@ -452,11 +473,14 @@ class TopologyService implements PlatformListener {
     LOGGER.trace("[{}] willSetClientTags({}, {})", consumerId, clientDescriptor, Arrays.toString(tags));
 
     whenFetchClient(consumerId, clientDescriptor).executeOrDelay("client-tags", client -> {
-      Set<String> currtags = new HashSet<>(client.getTags());
-      Set<String> newTags = new HashSet<>(Arrays.asList(tags));
-      if (!currtags.equals(newTags)) {
-        client.setTags(tags);
-        firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_TAGS_UPDATED.name()));
+      synchronized (this) {
+        Set<String> currtags = new HashSet<>(client.getTags());
+        Set<String> newTags = new HashSet<>(Arrays.asList(tags));
+        if (!currtags.equals(newTags)) {
+          client.setTags(tags);
+          topologyChanged();
+          firingService.fireNotification(new ContextualNotification(client.getContext(), Notification.CLIENT_TAGS_UPDATED.name()));
+        }
       }
     });
   }
@@ -502,9 +526,12 @@ class TopologyService implements PlatformListener {
     LOGGER.trace("[{}] willSetEntityManagementRegistry({}, {})", consumerId, serverName, names);
 
     whenServerEntity(consumerId, serverName).executeOrDelay("entity-registry", serverEntity -> {
-      if (!newRegistry.equals(serverEntity.getManagementRegistry().orElse(null))) {
-        serverEntity.setManagementRegistry(newRegistry);
-        firingService.fireNotification(new ContextualNotification(serverEntity.getContext(), Notification.ENTITY_REGISTRY_AVAILABLE.name()));
+      synchronized (this) {
+        if (!newRegistry.equals(serverEntity.getManagementRegistry().orElse(null))) {
+          serverEntity.setManagementRegistry(newRegistry);
+          topologyChanged();
+          firingService.fireNotification(new ContextualNotification(serverEntity.getContext(), Notification.ENTITY_REGISTRY_AVAILABLE.name()));
+        }
       }
     });
   }
@@ -539,7 +566,32 @@ class TopologyService implements PlatformListener {
         .map(Client::getContext);
   }
 
-  synchronized Cluster getClusterCopy() {
+  /**
+   * Returns a copy of the current topology. The copy is made once per topology version and then shared by all callers
+   * until the topology changes again, so that polling an unchanged topology neither locks nor copies anything.
+   * Callers must not mutate the returned cluster.
+   */
+  Cluster getClusterSnapshot() {
+    TopologySnapshot snapshot = this.snapshot;
+    if (snapshot.version == topologyVersion.get()) {
+      return snapshot.cluster;
+    }
+    synchronized (this) {
+      snapshot = this.snapshot;
+      long version = topologyVersion.get();
+      if (snapshot.version != version) {
+        snapshot = new TopologySnapshot(version, copy(cluster));
+        this.snapshot = snapshot;
+      }
+      return snapshot.cluster;
+    }
+  }
+
+  private void topologyChanged() {
+    topologyVersion.incrementAndGet();
+  }
+
+  private static Cluster copy(Cluster cluster) {
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
         oos.writeObject(cluster);
@@ -616,4 +668,14 @@ class TopologyService implements PlatformListener {
   private static boolean isInterestingEntity(PlatformEntity platformEntity) {
     return !ENTITY_TYPE_BLACKLIST.contains(platformEntity.typeName);
   }
+
+  private static final class TopologySnapshot {
+    private final long version;
+    private final Cluster cluster;
+
+    private TopologySnapshot(long version, Cluster cluster) {
+      this.version = version;
+      this.cluster = cluster;
+    }
+  }
 }
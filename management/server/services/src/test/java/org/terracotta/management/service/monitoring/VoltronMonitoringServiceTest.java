@@ -61,6 +61,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -179,6 +181,18 @@ public class VoltronMonitoringServiceTest {
     assertThat(messages.size(), equalTo(0));
   }
 
+  @Test
+  public void test_topology_snapshot_shared_until_changed() throws Exception {
+    Cluster cluster = managementService.readTopology();
+    assertThat(managementService.readTopology(), sameInstance(cluster));
+
+    activePlatformListener.addNode(active, CLIENTS_PATH, "client-2", new PlatformConnectedClient("uuid-2", "name", InetAddress.getByName("localhost"), 1235, InetAddress.getByName("localhost"), 5679, 222));
+
+    Cluster changed = managementService.readTopology();
+    assertThat(changed, not(sameInstance(cluster)));
+    assertThat(changed.getClientCount(), equalTo(cluster.getClientCount() + 1));
+  }
+
   @Test
   public void test_add_new_client() throws Exception {
     activePlatformListener.addNode(active, CLIENTS_PATH, "client-2", new PlatformConnectedClient("uuid-2", "name", InetAddress.getByName("localhost"), 1235, InetAddress.getByName("localhost"), 5679, 222));
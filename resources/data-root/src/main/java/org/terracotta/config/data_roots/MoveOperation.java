@@ -19,8 +19,14 @@ package org.terracotta.config.data_roots;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -30,32 +36,58 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 
+import static java.util.Collections.singletonList;
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Moves a data directory to a new location when the server starts, after a change of its path was prepared.
+ * <p>
+ * The files are copied in parallel, each one to a temporary file which is renamed once complete. Every copied file
+ * is recorded in a journal, so that a move which was interrupted resumes where it stopped instead of restarting.
+ */
 public class MoveOperation {
 
   private static final String MARK_FILE = "mark.txt";
+  private static final String JOURNAL_FILE = "move-journal.txt";
+  private static final String PARTIAL_SUFFIX = ".part";
   private static final Logger LOGGER = LoggerFactory.getLogger(MoveOperation.class);
 
+  // copies are mostly bound by the disks, so only a few of them run at the same time
+  private static final int DEFAULT_PARALLELISM = Integer.getInteger("terracotta.data-dirs.move.parallelism",
+      Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final boolean DEFAULT_VERIFY_CHECKSUMS = Boolean.getBoolean("terracotta.data-dirs.move.verifyChecksums");
+
   private final Path destination;
+  private final int parallelism;
+  private final boolean verifyChecksums;
 
   public MoveOperation(Path destination) {
+    this(destination, DEFAULT_PARALLELISM, DEFAULT_VERIFY_CHECKSUMS);
+  }
+
+  public MoveOperation(Path destination, int parallelism, boolean verifyChecksums) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+    }
     this.destination = destination;
+    this.parallelism = parallelism;
+    this.verifyChecksums = verifyChecksums;
   }
 
   public void prepare(Path sourcePath) throws IOException {
-    Path mark = destination.resolve(MARK_FILE);
-    if (mark.toFile().exists()) {
-      Files.write(mark, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
-    } else {
-      Files.createFile(mark);
-    }
-    List<String> list = new ArrayList<>();
-    try (Stream<Path> paths = Files.walk(sourcePath)) {
-      paths.forEach(path -> list.add(path.toString()));
-    }
-    Files.write(mark, list);
+    // the content of the source is only listed when moving it, and a previous move to this destination is discarded
+    Files.deleteIfExists(destination.resolve(JOURNAL_FILE));
+    Files.write(destination.resolve(MARK_FILE), singletonList(sourcePath.toString()));
   }
 
   public void move() {
@@ -63,52 +95,22 @@ public class MoveOperation {
     if (mark.toFile().exists()) {
       if (Files.isReadable(mark)) {
         try {
-          List<String> allPaths = Files.readAllLines(mark);
-          String line = allPaths.get(0);
-          Path sourcePath = Paths.get(line);
-          Path sourceParentPath = sourcePath.getParent();
-          allPaths.forEach(path -> {
-            if (!Files.isReadable(Paths.get(path))) {
-              String errMsg = "Moving data directory from: " + sourcePath + " to: " + destination +
-                  " failed because file: " + path + " is not readable.";
-              throw new UncheckedIOException(new IOException(errMsg));
-            }
-          });
-
-          Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file,
-                                             BasicFileAttributes attributes) {
-
-              try {
-                Path targetFile = destination.resolve(sourceParentPath.relativize(file));
-                org.terracotta.utilities.io.Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
-              } catch (IOException ex) {
-                String errMsg = "Moving data directory from: " + sourcePath + " to: " + destination +
-                    " failed because file: " + file + " cannot be copied.";
-                throw new UncheckedIOException(errMsg, new IOException(ex));
-              }
-              return FileVisitResult.CONTINUE;
-            }
+          // mark files written by older versions list all the source paths, starting with the source directory
+          Path sourcePath;
+          try (BufferedReader reader = Files.newBufferedReader(mark)) {
+            sourcePath = Paths.get(reader.readLine());
+          }
+          Path journal = destination.resolve(JOURNAL_FILE);
+          Set<String> copied = readJournal(journal);
+          List<Path> files = prepareDirectories(sourcePath);
+          // the largest files first, so that they do not end up being copied alone at the end
+          files.sort(comparingLong(MoveOperation::size).reversed());
+
+          LOGGER.info("Moving data directory from: {} to: {} ({} files, {} already copied)", sourcePath, destination, files.size(), copied.size());
+          copyFiles(sourcePath, files, copied, journal);
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir,
-                                                     BasicFileAttributes attributes) {
-              Path newDir = null;
-              try {
-                newDir = destination.resolve(sourceParentPath.relativize(dir));
-                if (!Files.isReadable(newDir)) {
-                  Files.createDirectory(newDir);
-                }
-              } catch (IOException ex) {
-                String errMsg = "Moving data directory from: " + sourcePath + " to: " + destination +
-                    " failed because directory: " + newDir + " cannot be created";
-                throw new UncheckedIOException(errMsg, new IOException(ex));
-              }
-              return FileVisitResult.CONTINUE;
-            }
-          });
           org.terracotta.utilities.io.Files.delete(mark);
+          Files.deleteIfExists(journal);
           try {
             org.terracotta.utilities.io.Files.deleteTree(sourcePath);
           } catch (IOException e) {
@@ -124,5 +126,147 @@ public class MoveOperation {
       }
     }
   }
-}
 
+  /**
+   * Creates the directories of the source in the destination, and checks that all the files can be read
+   *
+   * @return the files to copy
+   */
+  private List<Path> prepareDirectories(Path sourcePath) throws IOException {
+    Path sourceParentPath = sourcePath.getParent();
+    List<Path> files = new ArrayList<>();
+    Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path file,
+                                       BasicFileAttributes attributes) {
+        if (!Files.isReadable(file)) {
+          String errMsg = "Moving data directory from: " + sourcePath + " to: " + destination +
+              " failed because file: " + file + " is not readable.";
+          throw new UncheckedIOException(new IOException(errMsg));
+        }
+        files.add(file);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir,
+                                               BasicFileAttributes attributes) {
+        Path newDir = null;
+        try {
+          newDir = destination.resolve(sourceParentPath.relativize(dir));
+          if (!Files.isReadable(newDir)) {
+            Files.createDirectory(newDir);
+          }
+        } catch (IOException ex) {
+          String errMsg = "Moving data directory from: " + sourcePath + " to: " + destination +
+              " failed because directory: " + newDir + " cannot be created";
+          throw new UncheckedIOException(errMsg, new IOException(ex));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return files;
+  }
+
+  private void copyFiles(Path sourcePath, List<Path> files, Set<String> copied, Path journal) throws IOException {
+    Path sourceParentPath = sourcePath.getParent();
+    AtomicInteger threads = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+      Thread thread = new Thread(r, "DataDirMove-" + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (BufferedWriter journalWriter = Files.newBufferedWriter(journal, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      List<Future<?>> copies = new ArrayList<>(files.size());
+      for (Path file : files) {
+        String relativePath = sourceParentPath.relativize(file).toString();
+        Path targetFile = destination.resolve(relativePath);
+        if (copied.contains(relativePath) && Files.exists(targetFile) && size(targetFile) == size(file)) {
+          continue;
+        }
+        copies.add(executor.submit(() -> {
+          try {
+            copy(file, targetFile);
+            synchronized (journalWriter) {
+              journalWriter.write(relativePath);
+              journalWriter.newLine();
+              journalWriter.flush();
+            }
+          } catch (IOException ex) {
+            String errMsg = "Moving data directory from: " + sourcePath + " to: " + destination +
+                " failed because file: " + file + " cannot be copied.";
+            throw new UncheckedIOException(errMsg, new IOException(ex));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> copy : copies) {
+        try {
+          copy.get();
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException("Interrupted while moving data directory from: " + sourcePath + " to: " + destination, e);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void copy(Path file, Path targetFile) throws IOException {
+    // the target only appears once complete, so that a partially copied file is never taken as copied
+    Path partialFile = targetFile.resolveSibling(targetFile.getFileName() + PARTIAL_SUFFIX);
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+         FileChannel out = FileChannel.open(partialFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      long size = in.size();
+      long position = 0;
+      while (position < size) {
+        long transferred = in.transferTo(position, size - position, out);
+        if (transferred <= 0) {
+          break; // the file was truncated
+        }
+        position += transferred;
+      }
+      out.force(true);
+    }
+    if (verifyChecksums && checksum(file) != checksum(partialFile)) {
+      throw new IOException("Checksum of copied file: " + partialFile + " does not match the one of: " + file);
+    }
+    try {
+      Files.move(partialFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(partialFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static Set<String> readJournal(Path journal) throws IOException {
+    return Files.exists(journal) ? new HashSet<>(Files.readAllLines(journal, StandardCharsets.UTF_8)) : new HashSet<>();
+  }
+
+  private static long checksum(Path file) throws IOException {
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        crc.update(buffer);
+        buffer.clear();
+      }
+    }
+    return crc.getValue();
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.config.data_roots;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.terracotta.testing.TmpDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class MoveOperationTest {
+
+  @Rule
+  public TmpDir tmpDir = new TmpDir(Paths.get(System.getProperty("user.dir"), "build"), false);
+
+  @Test
+  public void testMove() throws Exception {
+    Path source = createSource();
+    Path destination = Files.createDirectories(tmpDir.getRoot().resolve("new-root"));
+
+    MoveOperation moveOperation = new MoveOperation(destination, 2, true);
+    moveOperation.prepare(source);
+    moveOperation.move();
+
+    assertThat(Files.exists(source), is(false));
+    assertThat(Files.exists(destination.resolve("mark.txt")), is(false));
+    assertThat(Files.exists(destination.resolve("move-journal.txt")), is(false));
+    assertThat(new String(Files.readAllBytes(destination.resolve("node-1/a.txt")), UTF_8), is(equalTo("a")));
+    assertThat(new String(Files.readAllBytes(destination.resolve("node-1/sub/b.txt")), UTF_8), is(equalTo("b")));
+    assertThat(Files.size(destination.resolve("node-1/sub/big.data")), is(1024L * 1024L));
+    assertThat(Files.isDirectory(destination.resolve("node-1/empty")), is(true));
+  }
+
+  @Test
+  public void testInterruptedMoveResumes() throws Exception {
+    Path source = createSource();
+    Path destination = Files.createDirectories(tmpDir.getRoot().resolve("new-root"));
+
+    MoveOperation moveOperation = new MoveOperation(destination, 2, false);
+    moveOperation.prepare(source);
+
+    // simulates a move interrupted after a file was copied, and while another one was being copied
+    Files.createDirectories(destination.resolve("node-1/sub"));
+    Files.write(destination.resolve("node-1/a.txt"), "A".getBytes(UTF_8));
+    Files.write(destination.resolve("node-1/sub/big.data.part"), new byte[10]);
+    Files.write(destination.resolve("move-journal.txt"), singletonList(Paths.get("node-1", "a.txt").toString()));
+
+    moveOperation.move();
+
+    // the file recorded in the journal is not copied again
+    assertThat(new String(Files.readAllBytes(destination.resolve("node-1/a.txt")), UTF_8), is(equalTo("A")));
+    assertThat(new String(Files.readAllBytes(destination.resolve("node-1/sub/b.txt")), UTF_8), is(equalTo("b")));
+    assertThat(Files.size(destination.resolve("node-1/sub/big.data")), is(1024L * 1024L));
+    assertThat(Files.exists(destination.resolve("node-1/sub/big.data.part")), is(false));
+    assertThat(Files.exists(source), is(false));
+  }
+
+  private Path createSource() throws Exception {
+    Path source = Files.createDirectories(tmpDir.getRoot().resolve("old-root").resolve("node-1"));
+    Files.createDirectories(source.resolve("sub"));
+    Files.createDirectories(source.resolve("empty"));
+    Files.write(source.resolve("a.txt"), "a".getBytes(UTF_8));
+    Files.write(source.resolve("sub/b.txt"), "b".getBytes(UTF_8));
+    byte[] big = new byte[1024 * 1024];
+    new Random(0).nextBytes(big);
+    Files.write(source.resolve("sub/big.data"), big);
+    return source;
+  }
+}
@@ -28,11 +28,17 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
  * An implementation of {@link OffHeapResource}.
+ * <p>
+ * The remaining size is kept in a single counter, updated without allocating on reservations and releases, so that
+ * the capacity is never exceeded and {@link #available()} is always exact. Usage thresholds are turned into byte
+ * boundaries whenever the listeners or the capacity change, so that a reservation or release only compares longs
+ * unless a boundary is crossed, and the memory monitor is sampled at most once every 10ms.
  */
 final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
 
@@ -42,6 +48,8 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
   private static final String OFFHEAP_INFO_KEY = "offheap.info";
   private static final String OFFHEAP_WARN_KEY = "offheap.warn";
   private static final String DEFAULT_MESSAGE = "Offheap allocation for resource \"{}\" reached {}%, you may run out of memory if allocation continues.";
+  private static final long SAMPLE_INTERVAL_MILLIS = 10;
+  private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL_MILLIS);
   private static final Properties MESSAGE_PROPERTIES;
   private final Map<UUID, OffHeapUsageListener> listenerMap = new ConcurrentHashMap<>();
 
@@ -66,7 +74,10 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
     }
   }
 
-  private final AtomicReference<OffHeapResourceState> state;
+  private final AtomicLong remaining;
+  private final AtomicLong nextSample = new AtomicLong(System.nanoTime());
+  private volatile long capacity;
+  private volatile Thresholds thresholds;
   private final String identifier;
   private final CapacityChangeHandler onCapacityChanged;
   private final OffHeapResourceBinding managementBinding;
@@ -88,7 +99,9 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("Resource size cannot be negative");
     }
 
-    this.state = new AtomicReference<>(new OffHeapResourceState(size));
+    this.remaining = new AtomicLong(size);
+    this.capacity = size;
+    this.thresholds = new Thresholds(size, new OffHeapUsageListener[0]);
     this.identifier = identifier;
     monitor = TripwireFactory.createMemoryMonitor(identifier);
     monitor.register();
@@ -140,63 +153,74 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
     }
 
     while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.reserve(size);
-
-      if (newState.isOverflowed()) {
+      long currentRemaining = remaining.get();
+      if (currentRemaining < size) {
         return false;
       }
 
-      if (state.compareAndSet(currentState, newState)) {
-        stateUpdated(currentState, newState);
+      if (remaining.compareAndSet(currentRemaining, currentRemaining - size)) {
+        long currentCapacity = capacity;
+        stateUpdated(currentCapacity - currentRemaining, currentCapacity, currentCapacity - currentRemaining + size, currentCapacity);
         return true;
       }
     }
   }
 
-  private void stateUpdated(OffHeapResourceState prevState, OffHeapResourceState newState) {
-    long capacity = newState.getCapacity();
-    long used = newState.getUsed();
-    long prevUsed = prevState.getUsed();
-    long prevCapacity = prevState.getCapacity();
+  private void stateUpdated(long prevUsed, long prevCapacity, long used, long capacity) {
+    Thresholds thresholds = this.thresholds;
+    boolean fired = false;
 
     if (used > prevUsed || capacity < prevCapacity) {
       // check for rising event.
-      float occupancy = (used * 1.0f) / capacity;
-      OffHeapUsageEvent offHeapUsageEvent = null;
-      for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
-        if (!offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
-          if (offHeapUsageEvent == null) {
-            offHeapUsageEvent = new OffHeapUsageEventImpl(used, newState.getRemaining(), capacity, OffHeapUsageEventType.RISING);
-          }
-          if (Float.compare(offHeapUsageListener.getThreshold(), 0.9f) == 0) {
-            LOGGER.warn(MESSAGE_PROPERTIES.getProperty(OFFHEAP_WARN_KEY), identifier, (used * 100L) / capacity);
-          } else if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
-            LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
+      if (used >= thresholds.lowestBoundary) {
+        OffHeapUsageEvent offHeapUsageEvent = null;
+        for (int i = 0; i < thresholds.listeners.length; i++) {
+          OffHeapUsageListener offHeapUsageListener = thresholds.listeners[i];
+          if (!offHeapUsageListener.isFired() && used >= thresholds.boundaries[i]) {
+            if (offHeapUsageEvent == null) {
+              offHeapUsageEvent = new OffHeapUsageEventImpl(used, capacity - used, capacity, OffHeapUsageEventType.RISING);
+            }
+            if (Float.compare(offHeapUsageListener.getThreshold(), 0.9f) == 0) {
+              LOGGER.warn(MESSAGE_PROPERTIES.getProperty(OFFHEAP_WARN_KEY), identifier, (used * 100L) / capacity);
+            } else if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
+              LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
+            }
+            offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
+            offHeapUsageListener.setFiringStatus(true);
+            fired = true;
           }
-          offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-          offHeapUsageListener.setFiringStatus(true);
         }
       }
     } else if (used < prevUsed || capacity > prevCapacity) {
       // check for falling event.
-      float occupancy = (used * 1.0f) / capacity;
-      OffHeapUsageEvent offHeapUsageEvent = null;
-      for (OffHeapUsageListener offHeapUsageListener : listenerMap.values()) {
-        if (offHeapUsageListener.isFired() && (Float.compare(offHeapUsageListener.getThreshold(), occupancy) > 0)) {
-          if (offHeapUsageEvent == null) {
-            offHeapUsageEvent = new OffHeapUsageEventImpl(used, newState.getRemaining(), capacity, OffHeapUsageEventType.FALLING);
-          }
-          if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
-            LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
+      if (used < thresholds.highestBoundary) {
+        OffHeapUsageEvent offHeapUsageEvent = null;
+        for (int i = 0; i < thresholds.listeners.length; i++) {
+          OffHeapUsageListener offHeapUsageListener = thresholds.listeners[i];
+          if (offHeapUsageListener.isFired() && used < thresholds.boundaries[i]) {
+            if (offHeapUsageEvent == null) {
+              offHeapUsageEvent = new OffHeapUsageEventImpl(used, capacity - used, capacity, OffHeapUsageEventType.FALLING);
+            }
+            if (Float.compare(offHeapUsageListener.getThreshold(), 0.75f) == 0) {
+              LOGGER.info(MESSAGE_PROPERTIES.getProperty(OFFHEAP_INFO_KEY), identifier, (used * 100L) / capacity);
+            }
+            offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
+            offHeapUsageListener.setFiringStatus(false);
+            fired = true;
           }
-          offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
-          offHeapUsageListener.setFiringStatus(false);
         }
       }
     }
 
-    monitor.sample(capacity - used, used);
+    sample(used, capacity, fired || capacity != prevCapacity);
+  }
+
+  private void sample(long used, long capacity, boolean force) {
+    long now = System.nanoTime();
+    long next = nextSample.get();
+    if (force || (now - next >= 0 && nextSample.compareAndSet(next, now + SAMPLE_INTERVAL_NANOS))) {
+      monitor.sample(capacity - used, used);
+    }
   }
 
   /**
@@ -209,15 +233,9 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
       throw new IllegalArgumentException("Released size cannot be negative");
     }
 
-    while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.release(size);
-
-      if (state.compareAndSet(currentState, newState)) {
-        stateUpdated(currentState, newState);
-        return;
-      }
-    }
+    long currentRemaining = remaining.getAndAdd(size);
+    long currentCapacity = capacity;
+    stateUpdated(currentCapacity - currentRemaining, currentCapacity, currentCapacity - currentRemaining - size, currentCapacity);
   }
 
   /**
@@ -225,31 +243,34 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
    */
   @Override
   public long available() {
-    return state.get().getRemaining();
+    return remaining.get();
   }
 
   @Override
   public long capacity() {
-    return state.get().getCapacity();
+    return capacity;
   }
 
   @Override
-  public boolean setCapacity(long size) throws IllegalArgumentException {
+  public synchronized boolean setCapacity(long size) throws IllegalArgumentException {
     if (size < 0) {
       throw new IllegalArgumentException("New capacity size cannot be negative");
     }
 
+    long currentCapacity = capacity;
+    long delta = size - currentCapacity;
     while (true) {
-      OffHeapResourceState currentState = state.get();
-      OffHeapResourceState newState = currentState.withCapacity(size);
-
-      if (newState.isOverflowed()) {
+      long currentRemaining = remaining.get();
+      if (currentRemaining + delta < 0) {
         return false;
       }
 
-      if (state.compareAndSet(currentState, newState)) {
-        onCapacityChanged.onCapacityChanged(this, currentState.getCapacity(), newState.getCapacity());
-        stateUpdated(currentState, newState);
+      if (remaining.compareAndSet(currentRemaining, currentRemaining + delta)) {
+        capacity = size;
+        thresholds = new Thresholds(size, thresholds.listeners);
+        onCapacityChanged.onCapacityChanged(this, currentCapacity, size);
+        long used = currentCapacity - currentRemaining;
+        stateUpdated(used, currentCapacity, used, size);
         return true;
       }
     }
@@ -258,14 +279,17 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
   @Override
   public void addUsageListener(UUID listenerUUID, float threshold, Consumer<OffHeapUsageEvent> consumer) {
     OffHeapUsageListener offHeapUsageListener = new OffHeapUsageListener(threshold, consumer);
-    listenerMap.put(listenerUUID, offHeapUsageListener);
+    synchronized (this) {
+      listenerMap.put(listenerUUID, offHeapUsageListener);
+      thresholds = new Thresholds(capacity, listenerMap.values().toArray(new OffHeapUsageListener[0]));
+    }
     // check for rising event if current usage already is above threshold.
-    OffHeapResourceState offHeapResourceState = state.get();
-    long used = offHeapResourceState.used;
-    long capacity = offHeapResourceState.capacity;
+    long capacity = this.capacity;
+    long remaining = this.remaining.get();
+    long used = capacity - remaining;
     float occupancy = (used * 1.0f) / capacity;
     if ((Float.compare(offHeapUsageListener.getThreshold(), occupancy) <= 0)) {
-      OffHeapUsageEvent offHeapUsageEvent = new OffHeapUsageEventImpl(used, offHeapResourceState.getRemaining(), capacity, OffHeapUsageEventType.RISING);
+      OffHeapUsageEvent offHeapUsageEvent = new OffHeapUsageEventImpl(used, remaining, capacity, OffHeapUsageEventType.RISING);
       offHeapUsageListener.getConsumer().accept(offHeapUsageEvent);
       offHeapUsageListener.setFiringStatus(true);
     }
@@ -273,51 +297,36 @@ final class OffHeapResourceImpl implements OffHeapResource, AutoCloseable {
 
   @Override
   public void removeUsageListener(UUID listenerUUID) throws IllegalArgumentException {
-    if (listenerMap.remove(listenerUUID) == null) {
-      throw new IllegalArgumentException("Unknown listener: " + listenerUUID);
+    synchronized (this) {
+      if (listenerMap.remove(listenerUUID) == null) {
+        throw new IllegalArgumentException("Unknown listener: " + listenerUUID);
+      }
+      thresholds = new Thresholds(capacity, listenerMap.values().toArray(new OffHeapUsageListener[0]));
     }
   }
 
-  private static class OffHeapResourceState {
-    private final long capacity;
-    private final long used;
-
-    public OffHeapResourceState(long capacity) {
-      this.capacity = capacity;
-      this.used = 0;
-    }
-
-    private OffHeapResourceState(long capacity, long used) {
-      this.capacity = capacity;
-      this.used = used;
-    }
-
-    public long getCapacity() {
-      return capacity;
-    }
-
-    public long getUsed() {
-      return used;
-    }
-
-    public long getRemaining() {
-      return capacity - used;
-    }
-
-    public boolean isOverflowed() {
-      return used > capacity;
-    }
-
-    public OffHeapResourceState reserve(long size) {
-      return new OffHeapResourceState(capacity, used + size);
-    }
-
-    public OffHeapResourceState release(long size) {
-      return new OffHeapResourceState(capacity, used - size);
-    }
-
-    public OffHeapResourceState withCapacity(long newCapacity) {
-      return new OffHeapResourceState(newCapacity, used);
+  /**
+   * The usage listeners, with the number of used bytes from which each of them is reached for a given capacity.
+   */
+  private static class Thresholds {
+    private final OffHeapUsageListener[] listeners;
+    private final long[] boundaries;
+    private final long lowestBoundary;
+    private final long highestBoundary;
+
+    Thresholds(long capacity, OffHeapUsageListener[] listeners) {
+      this.listeners = listeners;
+      this.boundaries = new long[listeners.length];
+      long lowest = Long.MAX_VALUE;
+      long highest = Long.MIN_VALUE;
+      for (int i = 0; i < listeners.length; i++) {
+        long boundary = (long) Math.ceil((double) listeners[i].getThreshold() * capacity);
+        boundaries[i] = boundary;
+        lowest = Math.min(lowest, boundary);
+        highest = Math.max(highest, boundary);
+      }
+      this.lowestBoundary = lowest;
+      this.highestBoundary = highest;
     }
   }
 }
@@ -21,9 +21,16 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.verify;
@@ -115,6 +122,47 @@ public class OffHeapResourceTest {
     offHeapResource.reserve(1); // Does print a warn log statement
   }
 
+  @Test
+  public void testThresholdEvents() {
+    List<String> events = new ArrayList<>();
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 10, event -> events.add(event.getEventType() + ":" + event.getUsed()));
+    ohr.reserve(7);
+    assertThat(events.isEmpty(), is(true));
+    ohr.reserve(1);
+    ohr.reserve(1);
+    ohr.release(2);
+    assertThat(events, contains("RISING:8", "RISING:9", "FALLING:7", "FALLING:7"));
+  }
+
+  @Test
+  public void testConcurrentReservationsNeverExceedCapacity() throws Exception {
+    OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 1000L);
+    AtomicBoolean exceeded = new AtomicBoolean();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executorService.submit(() -> {
+          for (int j = 0; j < 10_000; j++) {
+            if (ohr.reserve(300L)) {
+              if (ohr.available() < 0) {
+                exceeded.set(true);
+              }
+              ohr.release(300L);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    assertThat(exceeded.get(), is(false));
+    assertThat(ohr.available(), is(1000L));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testSetCapacityNegative() {
     OffHeapResourceImpl ohr = new OffHeapResourceImpl(identifier, 20L, onThresholdChange, onCapacityChange);
@@ -0,0 +1,653 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A compact binary {@link Codec}, writing a one-byte tag followed by the value for primitives, strings, enums, classes,
+ * arrays, array lists and hash maps, and delegating other types either to {@link TypeCodec}s registered for them or,
+ * for unknown types, to a fallback codec (usually a {@link SerializationCodec}) whose output gets embedded.
+ * <p>
+ * Registered types are identified on the wire by the id they were registered with rather than by their class name,
+ * so they decode correctly when the peer uses a shaded copy of them.
+ * <p>
+ * Unregistered types are only referenced by name on the wire (for enums, classes and the component types of arrays)
+ * if they are allowed, either as a built-in type (primitives, their wrappers, {@link String} and {@link Object}) or
+ * through {@link #allowTypesOf(Class[])}: values of other types are handled by the fallback codec. Names read from
+ * the wire are never resolved to other types.
+ * <p>
+ * Payloads produced by the fallback codec alone (i.e. by a peer not using this codec) are still decoded: they are
+ * recognized by their first byte, which never matches the {@link #MAGIC} byte starting the payloads of this codec.
+ * <p>
+ * Note: types must be registered and allowed before the codec is used, after what the codec is thread-safe.
+ */
+public class BinaryCodec implements Codec {
+
+  public static final byte MAGIC = (byte) 0xB1;
+
+  private static final byte NULL = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte BYTE = 3;
+  private static final byte SHORT = 4;
+  private static final byte CHAR = 5;
+  private static final byte INT = 6;
+  private static final byte LONG = 7;
+  private static final byte FLOAT = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte STRING = 10;
+  private static final byte ENUM = 11;
+  private static final byte CLASS = 12;
+  private static final byte BYTES = 13;
+  private static final byte ARRAY = 14;
+  private static final byte LIST = 15;
+  private static final byte MAP = 16;
+  private static final byte REGISTERED = 17;
+  private static final byte FALLBACK = 18;
+
+  private static final Map<String, Class<?>> BUILT_IN_TYPES = new HashMap<>();
+
+  static {
+    for (Class<?> c : Arrays.asList(boolean.class, byte.class, short.class, char.class, int.class, long.class, float.class, double.class, void.class,
+        Boolean.class, Byte.class, Short.class, Character.class, Integer.class, Long.class, Float.class, Double.class, Void.class,
+        String.class, Object.class)) {
+      BUILT_IN_TYPES.put(c.getName(), c);
+    }
+  }
+
+  private final Codec fallback;
+  private final Map<Class<?>, Registration<?>> registrationsByType = new HashMap<>();
+  private final Registration<?>[] registrationsById = new Registration<?>[256];
+  private final Map<String, Class<?>> allowedTypes = new HashMap<>(BUILT_IN_TYPES);
+
+  public BinaryCodec() {
+    this(new SerializationCodec());
+  }
+
+  public BinaryCodec(Codec fallback) {
+    this.fallback = Objects.requireNonNull(fallback);
+  }
+
+  public Codec getFallback() {
+    return fallback;
+  }
+
+  /**
+   * Registers a codec for a type. The type has to be an exact match: sub-types are not handled by the codec of
+   * their super-type.
+   *
+   * @param id    the id identifying the type on the wire, between 0 and 255
+   * @param type  the type
+   * @param codec the codec to write and read instances of the type
+   * @return this codec
+   */
+  public <T> BinaryCodec register(int id, Class<T> type, TypeCodec<T> codec) {
+    if (id < 0 || id >= registrationsById.length) {
+      throw new IllegalArgumentException("Invalid id: " + id);
+    }
+    if (registrationsById[id] != null) {
+      throw new IllegalArgumentException("Id " + id + " already registered for " + registrationsById[id].type.getName());
+    }
+    if (registrationsByType.containsKey(type)) {
+      throw new IllegalArgumentException("Type already registered: " + type.getName());
+    }
+    Registration<T> registration = new Registration<>(id, type, codec);
+    registrationsById[id] = registration;
+    registrationsByType.put(type, registration);
+    return this;
+  }
+
+  /**
+   * Allows the given types, and the types used in the signatures of their public methods (parameter and return
+   * types, their type arguments and the component types of arrays), to be referenced by name on the wire.
+   * <p>
+   * This is typically called with the proxied interface of an entity and its message types, which both peers know.
+   *
+   * @param types the types to allow
+   * @return this codec
+   */
+  public BinaryCodec allowTypesOf(Class<?>... types) {
+    for (Class<?> type : types) {
+      allow(type);
+      for (Method method : type.getMethods()) {
+        allow(method.getGenericReturnType());
+        for (Type parameterType : method.getGenericParameterTypes()) {
+          allow(parameterType);
+        }
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public byte[] encode(Class<?> type, Object value) {
+    Output out = new Output(this);
+    out.writeByte(MAGIC);
+    out.writeValue(value);
+    return out.toByteArray();
+  }
+
+  @Override
+  public byte[] encode(Class<?>[] types, Object[] values) {
+    if (values == null) {
+      values = new Object[0];
+    }
+    if (types.length != values.length) {
+      throw new IllegalArgumentException();
+    }
+    Output out = new Output(this);
+    out.writeByte(MAGIC);
+    out.writeVarInt(values.length);
+    for (Object value : values) {
+      out.writeValue(value);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public <T> T decode(Class<T> type, byte[] buffer) {
+    return decode(type, buffer, 0, buffer.length);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T decode(Class<T> type, byte[] buffer, int offset, int len) {
+    if (len == 0 || buffer.length == 0) {
+      return null;
+    }
+    if (buffer[offset] != MAGIC) {
+      return fallback.decode(type, buffer, offset, len);
+    }
+    Input in = new Input(this, buffer, offset + 1, offset + len);
+    Object o = in.readValue();
+    return type.isPrimitive() ? (T) o : type.cast(o);
+  }
+
+  @Override
+  public Object[] decode(Class<?>[] types, byte[] buffer) {
+    return decode(types, buffer, 0, buffer.length);
+  }
+
+  @Override
+  public Object[] decode(Class<?>[] types, byte[] buffer, int offset, int len) {
+    if (len > 0 && buffer[offset] != MAGIC) {
+      return fallback.decode(types, buffer, offset, len);
+    }
+    Input in = new Input(this, buffer, offset + 1, offset + len);
+    int count = in.readVarInt();
+    if (count != types.length) {
+      throw new IllegalArgumentException("Expected " + types.length + " values but got " + count);
+    }
+    Object[] oo = new Object[count];
+    for (int i = 0; i < oo.length; i++) {
+      Object o = in.readValue();
+      oo[i] = types[i].isPrimitive() ? o : types[i].cast(o);
+    }
+    return oo;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Registration<T> registration(Class<T> type) {
+    return (Registration<T>) registrationsByType.get(type);
+  }
+
+  private Registration<?> registration(int id) {
+    Registration<?> registration = registrationsById[id];
+    if (registration == null) {
+      throw new IllegalArgumentException("No type registered with id " + id);
+    }
+    return registration;
+  }
+
+  private boolean isNamed(Class<?> type) {
+    return registrationsByType.containsKey(type) || allowedTypes.get(type.getName()) == type;
+  }
+
+  private Class<?> resolveClass(String name) {
+    Class<?> c = allowedTypes.get(name);
+    if (c == null) {
+      throw new IllegalArgumentException("Type not allowed: " + name);
+    }
+    return c;
+  }
+
+  private void allow(Type type) {
+    if (type instanceof Class) {
+      Class<?> c = (Class<?>) type;
+      if (allowedTypes.putIfAbsent(c.getName(), c) == null && c.isArray()) {
+        allow(c.getComponentType());
+      }
+    } else if (type instanceof ParameterizedType) {
+      allow(((ParameterizedType) type).getRawType());
+      for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+        allow(argument);
+      }
+    } else if (type instanceof GenericArrayType) {
+      allow(((GenericArrayType) type).getGenericComponentType());
+    } else if (type instanceof WildcardType) {
+      for (Type bound : ((WildcardType) type).getUpperBounds()) {
+        allow(bound);
+      }
+      for (Type bound : ((WildcardType) type).getLowerBounds()) {
+        allow(bound);
+      }
+    } else if (type instanceof TypeVariable) {
+      // only the erasure: bounds can refer to the variable itself
+      for (Type bound : ((TypeVariable<?>) type).getBounds()) {
+        if (bound instanceof Class) {
+          allow(bound);
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes and reads the instances of a registered type.
+   */
+  public interface TypeCodec<T> {
+    void write(Output out, T value);
+
+    T read(Input in);
+  }
+
+  private static final class Registration<T> {
+    private final int id;
+    private final Class<T> type;
+    private final TypeCodec<T> codec;
+
+    private Registration(int id, Class<T> type, TypeCodec<T> codec) {
+      this.id = id;
+      this.type = type;
+      this.codec = Objects.requireNonNull(codec);
+    }
+  }
+
+  /**
+   * A growable big-endian byte buffer, which is what {@link TypeCodec}s write to.
+   */
+  public static final class Output {
+    private final BinaryCodec codec;
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    private Output(BinaryCodec codec) {
+      this.codec = codec;
+    }
+
+    public void writeByte(int v) {
+      ensure(1);
+      buffer[position++] = (byte) v;
+    }
+
+    public void writeBoolean(boolean v) {
+      writeByte(v ? 1 : 0);
+    }
+
+    public void writeShort(int v) {
+      ensure(2);
+      buffer[position++] = (byte) (v >>> 8);
+      buffer[position++] = (byte) v;
+    }
+
+    public void writeInt(int v) {
+      ensure(4);
+      buffer[position++] = (byte) (v >>> 24);
+      buffer[position++] = (byte) (v >>> 16);
+      buffer[position++] = (byte) (v >>> 8);
+      buffer[position++] = (byte) v;
+    }
+
+    public void writeLong(long v) {
+      writeInt((int) (v >>> 32));
+      writeInt((int) v);
+    }
+
+    /**
+     * Writes a non-negative int on 1 to 5 bytes, 7 bits at a time.
+     */
+    public void writeVarInt(int v) {
+      ensure(5);
+      while ((v & ~0x7F) != 0) {
+        buffer[position++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buffer[position++] = (byte) v;
+    }
+
+    /**
+     * Writes a nullable string as its char count followed by its chars, each in 1 to 3 bytes like modified UTF-8.
+     */
+    public void writeString(String s) {
+      if (s == null) {
+        writeVarInt(0);
+        return;
+      }
+      int length = s.length();
+      writeVarInt(length + 1);
+      ensure(length * 3);
+      for (int i = 0; i < length; i++) {
+        char c = s.charAt(i);
+        if (c != 0 && c < 0x80) {
+          buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+          buffer[position++] = (byte) (0xC0 | (c >> 6));
+          buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+          buffer[position++] = (byte) (0xE0 | (c >> 12));
+          buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+          buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+      }
+    }
+
+    public void writeBytes(byte[] bytes) {
+      writeVarInt(bytes.length);
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    /**
+     * Writes a registered or allowed type: values of other types have to be written with {@link #writeValue(Object)}.
+     */
+    public void writeClass(Class<?> c) {
+      Registration<?> registration = codec.registration(c);
+      if (registration != null) {
+        writeVarInt(registration.id + 1);
+      } else if (codec.isNamed(c)) {
+        writeVarInt(0);
+        writeString(c.getName());
+      } else {
+        throw new IllegalArgumentException("Type not allowed: " + c.getName());
+      }
+    }
+
+    /**
+     * Writes any value, tagged with its kind so that {@link Input#readValue()} can read it back.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void writeValue(Object value) {
+      if (value == null) {
+        writeByte(NULL);
+        return;
+      }
+      Class<?> type = value.getClass();
+      if (type == String.class) {
+        writeByte(STRING);
+        writeString((String) value);
+      } else if (type == Long.class) {
+        writeByte(LONG);
+        writeLong((Long) value);
+      } else if (type == Integer.class) {
+        writeByte(INT);
+        writeInt((Integer) value);
+      } else if (type == Double.class) {
+        writeByte(DOUBLE);
+        writeLong(Double.doubleToRawLongBits((Double) value));
+      } else if (type == Boolean.class) {
+        writeByte((Boolean) value ? TRUE : FALSE);
+      } else if (type == Float.class) {
+        writeByte(FLOAT);
+        writeInt(Float.floatToRawIntBits((Float) value));
+      } else if (type == Short.class) {
+        writeByte(SHORT);
+        writeShort((Short) value);
+      } else if (type == Byte.class) {
+        writeByte(BYTE);
+        writeByte((Byte) value);
+      } else if (type == Character.class) {
+        writeByte(CHAR);
+        writeShort((Character) value);
+      } else {
+        Registration registration = codec.registration(type);
+        if (registration != null) {
+          writeByte(REGISTERED);
+          writeByte(registration.id);
+          registration.codec.write(this, value);
+        } else if (value instanceof Enum && codec.isNamed(((Enum<?>) value).getDeclaringClass())) {
+          writeByte(ENUM);
+          writeClass(((Enum<?>) value).getDeclaringClass());
+          writeString(((Enum<?>) value).name());
+        } else if (type == Class.class && codec.isNamed((Class<?>) value)) {
+          writeByte(CLASS);
+          writeClass((Class<?>) value);
+        } else if (type == byte[].class) {
+          writeByte(BYTES);
+          writeBytes((byte[]) value);
+        } else if (type.isArray() && !type.getComponentType().isPrimitive() && codec.isNamed(type.getComponentType())) {
+          Object[] array = (Object[]) value;
+          writeByte(ARRAY);
+          writeClass(type.getComponentType());
+          writeVarInt(array.length);
+          for (Object o : array) {
+            writeValue(o);
+          }
+        } else if (type == ArrayList.class) {
+          List<?> list = (List<?>) value;
+          writeByte(LIST);
+          writeVarInt(list.size());
+          for (Object o : list) {
+            writeValue(o);
+          }
+        } else if (type == HashMap.class || type == LinkedHashMap.class) {
+          Map<?, ?> map = (Map<?, ?>) value;
+          writeByte(MAP);
+          writeVarInt(map.size());
+          for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(entry.getKey());
+            writeValue(entry.getValue());
+          }
+        } else {
+          writeByte(FALLBACK);
+          writeBytes(codec.fallback.encode(Object.class, value));
+        }
+      }
+    }
+
+    private void ensure(int n) {
+      if (position + n > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + n));
+      }
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+  }
+
+  /**
+   * Reads back what was written to an {@link Output}.
+   */
+  public static final class Input {
+    private final BinaryCodec codec;
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    private Input(BinaryCodec codec, byte[] buffer, int position, int limit) {
+      this.codec = codec;
+      this.buffer = buffer;
+      this.position = position;
+      this.limit = limit;
+    }
+
+    public byte readByte() {
+      check(1);
+      return buffer[position++];
+    }
+
+    public boolean readBoolean() {
+      return readByte() != 0;
+    }
+
+    public short readShort() {
+      check(2);
+      return (short) ((buffer[position++] & 0xFF) << 8 | (buffer[position++] & 0xFF));
+    }
+
+    public int readInt() {
+      check(4);
+      return (buffer[position++] & 0xFF) << 24
+          | (buffer[position++] & 0xFF) << 16
+          | (buffer[position++] & 0xFF) << 8
+          | (buffer[position++] & 0xFF);
+    }
+
+    public long readLong() {
+      return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    public int readVarInt() {
+      int v = 0;
+      for (int shift = 0; shift < 35; shift += 7) {
+        byte b = readByte();
+        v |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return v;
+        }
+      }
+      throw new IllegalArgumentException("Malformed var int");
+    }
+
+    public String readString() {
+      int length = readVarInt() - 1;
+      if (length < 0) {
+        return null;
+      }
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        int b = readByte() & 0xFF;
+        if (b < 0x80) {
+          chars[i] = (char) b;
+        } else if (b < 0xE0) {
+          chars[i] = (char) ((b & 0x1F) << 6 | (readByte() & 0x3F));
+        } else {
+          chars[i] = (char) ((b & 0x0F) << 12 | (readByte() & 0x3F) << 6 | (readByte() & 0x3F));
+        }
+      }
+      return new String(chars);
+    }
+
+    public byte[] readBytes() {
+      int length = readVarInt();
+      check(length);
+      byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+      position += length;
+      return bytes;
+    }
+
+    public Class<?> readClass() {
+      int id = readVarInt();
+      return id == 0 ? codec.resolveClass(readString()) : codec.registration(id - 1).type;
+    }
+
+    /**
+     * Reads a value written with {@link Output#writeValue(Object)}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object readValue() {
+      byte tag = readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case BYTE:
+          return readByte();
+        case SHORT:
+          return readShort();
+        case CHAR:
+          return (char) readShort();
+        case INT:
+          return readInt();
+        case LONG:
+          return readLong();
+        case FLOAT:
+          return Float.intBitsToFloat(readInt());
+        case DOUBLE:
+          return Double.longBitsToDouble(readLong());
+        case STRING:
+          return readString();
+        case ENUM: {
+          Class<?> enumType = readClass();
+          if (!enumType.isEnum()) {
+            throw new IllegalArgumentException("Not an enum: " + enumType.getName());
+          }
+          return Enum.valueOf((Class<? extends Enum>) enumType, readString());
+        }
+        case CLASS:
+          return readClass();
+        case BYTES:
+          return readBytes();
+        case ARRAY: {
+          Class<?> componentType = readClass();
+          Object[] array = (Object[]) Array.newInstance(componentType, readVarInt());
+          for (int i = 0; i < array.length; i++) {
+            array[i] = readValue();
+          }
+          return array;
+        }
+        case LIST: {
+          int size = readVarInt();
+          List<Object> list = new ArrayList<>(size);
+          for (int i = 0; i < size; i++) {
+            list.add(readValue());
+          }
+          return list;
+        }
+        case MAP: {
+          int size = readVarInt();
+          Map<Object, Object> map = new LinkedHashMap<>();
+          for (int i = 0; i < size; i++) {
+            map.put(readValue(), readValue());
+          }
+          return map;
+        }
+        case REGISTERED:
+          return codec.registration(readByte() & 0xFF).codec.read(this);
+        case FALLBACK: {
+          byte[] bytes = readBytes();
+          return codec.fallback.decode(Object.class, bytes, 0, bytes.length);
+        }
+        default:
+          throw new IllegalArgumentException("Unknown tag: " + tag);
+      }
+    }
+
+    private void check(int n) {
+      if (n < 0 || position + n > limit) {
+        throw new IllegalArgumentException("Truncated payload");
+      }
+    }
+  }
+}
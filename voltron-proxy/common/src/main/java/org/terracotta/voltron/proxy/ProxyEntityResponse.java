@@ -27,13 +27,21 @@ import org.terracotta.entity.EntityUserException;
 public final class ProxyEntityResponse implements EntityResponse {
 
   public static ProxyEntityResponse response(MessageType messageType, Class<?> responseType, Object response) {
-    return new ProxyEntityResponse(messageType, responseType, response);
+    return new ProxyEntityResponse(messageType, responseType, response, false);
   }
 
   public static ProxyEntityResponse messageResponse(Class<?> responseType, Object response) {
     return response(MessageType.MESSAGE, responseType, response);
   }
 
+  /**
+   * Creates a message response which is sent to several clients: it is only encoded once, and the same bytes are sent
+   * to all of them.
+   */
+  public static ProxyEntityResponse broadcastMessageResponse(Class<?> responseType, Object response) {
+    return new ProxyEntityResponse(MessageType.MESSAGE, responseType, response, true);
+  }
+
   public static ProxyEntityResponse syncResponse(Class<?> responseType, Object response) {
     return response(MessageType.SYNC, responseType, response);
   }
@@ -49,11 +57,16 @@ public final class ProxyEntityResponse implements EntityResponse {
   private final MessageType messageType;
   private final Class<?> responseType;
   private final Object response;
+  private final boolean broadcast;
+
+  // encoded form of a broadcast response, along with the codec which encoded it
+  private volatile EncodedResponse encoded;
 
-  private ProxyEntityResponse(MessageType messageType, Class<?> responseType, Object response) {
+  private ProxyEntityResponse(MessageType messageType, Class<?> responseType, Object response, boolean broadcast) {
     this.messageType = messageType;
     this.responseType = responseType;
     this.response = response;
+    this.broadcast = broadcast;
   }
 
   public MessageType getMessageType() {
@@ -67,4 +80,27 @@ public final class ProxyEntityResponse implements EntityResponse {
   public Object getResponse() {
     return response;
   }
+
+  public boolean isBroadcast() {
+    return broadcast;
+  }
+
+  byte[] getEncoded(Object encoder) {
+    EncodedResponse encoded = this.encoded;
+    return encoded != null && encoded.encoder == encoder ? encoded.bytes : null;
+  }
+
+  void setEncoded(Object encoder, byte[] bytes) {
+    this.encoded = new EncodedResponse(encoder, bytes);
+  }
+
+  private static final class EncodedResponse {
+    private final Object encoder;
+    private final byte[] bytes;
+
+    EncodedResponse(Object encoder, byte[] bytes) {
+      this.encoder = encoder;
+      this.bytes = bytes;
+    }
+  }
 }
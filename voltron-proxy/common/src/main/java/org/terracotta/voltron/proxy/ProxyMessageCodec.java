@@ -82,6 +82,13 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
       return new byte[0];
     }
     MessageType messageType = r.getMessageType();
+    // a broadcast response is encoded once and the same bytes are sent to every client
+    if (r.isBroadcast()) {
+      byte[] encoded = r.getEncoded(this);
+      if (encoded != null) {
+        return encoded;
+      }
+    }
     ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
     DataOutputStream output = new DataOutputStream(byteOut);
     try {
@@ -92,7 +99,11 @@ public class ProxyMessageCodec implements MessageCodec<ProxyEntityMessage, Proxy
     } catch (Exception e) {
       throw new MessageCodecException("Error encoding ProxyEntityResponse", e);
     }
-    return byteOut.toByteArray();
+    byte[] encoded = byteOut.toByteArray();
+    if (r.isBroadcast()) {
+      r.setEncoded(this, encoded);
+    }
+    return encoded;
   }
 
   @Override
@@ -0,0 +1,198 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terracotta.voltron.proxy;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+public class BinaryCodecTest {
+
+  private final BinaryCodec codec = new BinaryCodec()
+      .register(1, Point.class, new BinaryCodec.TypeCodec<Point>() {
+        @Override
+        public void write(BinaryCodec.Output out, Point value) {
+          out.writeString(value.name);
+          out.writeVarInt(value.x);
+          out.writeValue(value.tag);
+        }
+
+        @Override
+        public Point read(BinaryCodec.Input in) {
+          return new Point(in.readString(), in.readVarInt(), in.readValue());
+        }
+      });
+
+  @Test
+  public void testPrimitivesAndStrings() {
+    for (Object o : Arrays.asList(null, true, false, (byte) -3, (short) 300, 'x', '€', -42, Long.MIN_VALUE, 1.5f, Double.NaN,
+        "", "hello", "café € \u0000", TimeUnit.SECONDS, String.class, int.class, new byte[]{1, 2, 3})) {
+      Object decoded = roundtrip(o);
+      if (o instanceof byte[]) {
+        assertArrayEquals((byte[]) o, (byte[]) decoded);
+      } else {
+        assertThat(String.valueOf(o), decoded, is(o));
+      }
+    }
+  }
+
+  @Test
+  public void testLongString() {
+    char[] chars = new char[100_000];
+    Arrays.fill(chars, '一');
+    String s = new String(chars);
+    assertThat(roundtrip(s), is(s));
+  }
+
+  @Test
+  public void testCollections() {
+    List<Object> list = new ArrayList<>(Arrays.asList("a", 1L, null, new Point("p", 3, "t")));
+    Map<String, Object> map = new HashMap<>();
+    map.put("k1", 2.0);
+    map.put("k2", list);
+    assertThat(roundtrip(list), is(list));
+    assertThat(roundtrip(map), is(map));
+  }
+
+  @Test
+  public void testRegisteredTypeAndTypedArray() {
+    Point[] points = {new Point("a", 1, null), null, new Point("b", 200_000, new Point("c", 0, 7))};
+    Point[] decoded = codec.decode(Point[].class, codec.encode(Point[].class, points));
+    assertThat(decoded.getClass(), is((Object) Point[].class));
+    assertThat(Arrays.asList(decoded), is(Arrays.asList(points)));
+  }
+
+  @Test
+  public void testUnknownTypesUseFallback() {
+    BigDecimal decimal = new BigDecimal("3.14159");
+    assertThat(roundtrip(decimal), is(decimal));
+    assertThat(roundtrip(new ArrayList<>(Arrays.asList(decimal, "x"))), is(Arrays.asList(decimal, "x")));
+  }
+
+  @Test
+  public void testOnlyAllowedTypesAreNamed() {
+    BinaryCodec allowing = new BinaryCodec().allowTypesOf(Service.class);
+    Object[] values = {TimeUnit.SECONDS, BigDecimal.class, new TimeUnit[]{TimeUnit.DAYS}};
+    for (Object value : values) {
+      byte[] named = allowing.encode(Object.class, value);
+      byte[] fallback = codec.encode(Object.class, value);
+      assertThat(String.valueOf(value), named.length < fallback.length, is(true));
+      assertThat(Arrays.deepEquals(new Object[]{allowing.decode(Object.class, named)}, new Object[]{value}), is(true));
+      assertThat(Arrays.deepEquals(new Object[]{codec.decode(Object.class, fallback)}, new Object[]{value}), is(true));
+    }
+
+    // names which are not allowed are rejected instead of being loaded
+    try {
+      codec.decode(Object.class, allowing.encode(Object.class, TimeUnit.SECONDS));
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage(), is("Type not allowed: java.util.concurrent.TimeUnit"));
+    }
+  }
+
+  @Test
+  public void testArguments() {
+    Class<?>[] types = {String.class, int.class, Point[].class, Object.class};
+    Object[] values = {"s", 12, new Point[]{new Point("a", 1, "z")}, null};
+    Object[] decoded = codec.decode(types, codec.encode(types, values));
+    assertThat(decoded[0], is(values[0]));
+    assertThat(decoded[1], is(values[1]));
+    assertThat(Arrays.asList((Point[]) decoded[2]), is(Arrays.asList((Point[]) values[2])));
+    assertThat(decoded[3], is(nullValue()));
+  }
+
+  @Test
+  public void testDecodesSerializedPayloads() {
+    SerializationCodec serializationCodec = new SerializationCodec();
+    List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+    assertThat(codec.decode(List.class, serializationCodec.encode(List.class, list)), is(list));
+
+    Class<?>[] types = {String.class, long.class};
+    Object[] values = {"s", 12L};
+    assertThat(Arrays.asList(codec.decode(types, serializationCodec.encode(types, values))), is(Arrays.asList(values)));
+  }
+
+  @Test
+  public void testSmallerThanSerialization() {
+    Point point = new Point("point", 12, 42L);
+    assertThat(codec.encode(Point.class, point).length < new SerializationCodec().encode(Point.class, point).length, is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateId() {
+    codec.register(1, String.class, new BinaryCodec.TypeCodec<String>() {
+      @Override
+      public void write(BinaryCodec.Output out, String value) {
+      }
+
+      @Override
+      public String read(BinaryCodec.Input in) {
+        return null;
+      }
+    });
+  }
+
+  private Object roundtrip(Object o) {
+    return codec.decode(Object.class, codec.encode(Object.class, o));
+  }
+
+  interface Service {
+    Future<Map<String, ? extends BigDecimal>> call(TimeUnit... units);
+  }
+
+  static final class Point implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final String name;
+    final int x;
+    final Object tag;
+
+    Point(String name, int x, Object tag) {
+      this.name = name;
+      this.x = x;
+      this.tag = tag;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Point point = (Point) o;
+      return x == point.x && name.equals(point.name) && Objects.equals(tag, point.tag);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, x, tag);
+    }
+  }
+}
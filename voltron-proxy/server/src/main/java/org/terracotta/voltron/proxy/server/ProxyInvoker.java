@@ -28,9 +28,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Alex Snaps
@@ -38,7 +38,7 @@ import java.util.Set;
 class ProxyInvoker<T> implements MessageFiring {
 
   private final T target;
-  private final Set<ClientDescriptor> clients = Collections.synchronizedSet(new HashSet<>());
+  private final Set<ClientDescriptor> clients = ConcurrentHashMap.newKeySet();
   private final ThreadLocal<InvocationContext> invocationContext = new ThreadLocal<>();
 
   private Set<Class<?>> messageTypes;
@@ -96,10 +96,11 @@ class ProxyInvoker<T> implements MessageFiring {
     }
     final InvocationContext invocationContext = this.invocationContext.get();
     final ClientDescriptor caller = invocationContext == null ? null : invocationContext.caller;
-    for (ClientDescriptor client : clients) {
+    final ProxyEntityResponse response = ProxyEntityResponse.broadcastMessageResponse(type, message);
+    for (ClientDescriptor client : clients.toArray(new ClientDescriptor[0])) {
       if (echo || !client.equals(caller)) {
         try {
-          clientCommunicator.sendNoResponse(client, ProxyEntityResponse.messageResponse(type, message));
+          clientCommunicator.sendNoResponse(client, response);
         } catch (MessageCodecException ex) {
           handleExceptionOnSend(ex);
         }
@@ -112,9 +113,12 @@ class ProxyInvoker<T> implements MessageFiring {
     if (!messageTypes.contains(type)) {
       throw new IllegalArgumentException("Event type '" + type + "' isn't supported");
     }
+    final ProxyEntityResponse response = clients.length == 1 ?
+        ProxyEntityResponse.messageResponse(type, message) :
+        ProxyEntityResponse.broadcastMessageResponse(type, message);
     for (ClientDescriptor client : clients) {
       try {
-        clientCommunicator.sendNoResponse(client, ProxyEntityResponse.messageResponse(type, message));
+        clientCommunicator.sendNoResponse(client, response);
       } catch (MessageCodecException ex) {
         handleExceptionOnSend(ex);
       }